@@ -20,6 +20,7 @@
 package org.apache.lucene.search.uhighlight;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queries.CommonTermsQuery;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -67,6 +68,7 @@ public class CustomUnifiedHighlighter extends UnifiedHighlighter {
     private final BreakIterator breakIterator;
     private final Locale breakIteratorLocale;
     private final int noMatchSize;
+    private final int maxAnalyzedOffset;
 
     /**
      * Creates a new instance of {@link CustomUnifiedHighlighter}
@@ -81,6 +83,8 @@ public class CustomUnifiedHighlighter extends UnifiedHighlighter {
      *                    If null {@link BreakIterator#getSentenceInstance(Locale)} is used.
      * @param fieldValue the original field values delimited by MULTIVAL_SEP_CHAR.
      * @param noMatchSize The size of the text that should be returned when no highlighting can be performed.
+     * @param maxAnalyzedOffset The offset up to which the field value is analyzed to find the matches when the offsets are
+     *                    not indexed, or -1 to analyze all of it. Text beyond that offset is returned but never highlighted.
      */
     public CustomUnifiedHighlighter(IndexSearcher searcher,
                                     Analyzer analyzer,
@@ -89,7 +93,8 @@ public class CustomUnifiedHighlighter extends UnifiedHighlighter {
                                     @Nullable Locale breakIteratorLocale,
                                     @Nullable BreakIterator breakIterator,
                                     String fieldValue,
-                                    int noMatchSize) {
+                                    int noMatchSize,
+                                    int maxAnalyzedOffset) {
         super(searcher, analyzer);
         this.offsetSource = offsetSource;
         this.breakIterator = breakIterator;
@@ -97,6 +102,7 @@ public class CustomUnifiedHighlighter extends UnifiedHighlighter {
         this.passageFormatter = passageFormatter;
         this.fieldValue = fieldValue;
         this.noMatchSize = noMatchSize;
+        this.maxAnalyzedOffset = maxAnalyzedOffset;
     }
 
     /**
@@ -149,6 +155,17 @@ public class CustomUnifiedHighlighter extends UnifiedHighlighter {
             getScorer(field), maxPassages, (noMatchSize > 0 ? 1 : 0), getFormatter(field), noMatchSize, fieldValue);
     }
 
+    @Override
+    protected FieldOffsetStrategy getOffsetStrategy(OffsetSource offsetSource, String field, BytesRef[] terms,
+                                                    PhraseHelper phraseHelper, CharacterRunAutomaton[] automata,
+                                                    Set<HighlightFlag> highlightFlags) {
+        FieldOffsetStrategy strategy = super.getOffsetStrategy(offsetSource, field, terms, phraseHelper, automata, highlightFlags);
+        if (maxAnalyzedOffset >= 0 && strategy.getOffsetSource() == OffsetSource.ANALYSIS) {
+            return new LimitedAnalysisOffsetStrategy(strategy, maxAnalyzedOffset);
+        }
+        return strategy;
+    }
+
     @Override
     protected Collection<Query> preMultiTermQueryRewrite(Query query) {
         return rewriteCustomQuery(query);
@@ -225,4 +242,31 @@ public class CustomUnifiedHighlighter extends UnifiedHighlighter {
         return offsetSource;
     }
 
+    /**
+     * Only analyzes the content up to a maximum offset to find the matches. The passages are still built from the whole
+     * content so the text beyond the offset is returned, it just can't be highlighted.
+     */
+    private static final class LimitedAnalysisOffsetStrategy extends FieldOffsetStrategy {
+        private final FieldOffsetStrategy delegate;
+        private final int maxAnalyzedOffset;
+
+        LimitedAnalysisOffsetStrategy(FieldOffsetStrategy delegate, int maxAnalyzedOffset) {
+            super(delegate.field, delegate.terms, delegate.phraseHelper, delegate.automata);
+            this.delegate = delegate;
+            this.maxAnalyzedOffset = maxAnalyzedOffset;
+        }
+
+        @Override
+        public OffsetSource getOffsetSource() {
+            return delegate.getOffsetSource();
+        }
+
+        @Override
+        public List<OffsetsEnum> getOffsetsEnums(IndexReader reader, int docId, String content) throws IOException {
+            if (content.length() > maxAnalyzedOffset) {
+                content = content.substring(0, maxAnalyzedOffset);
+            }
+            return delegate.getOffsetsEnums(reader, docId, content);
+        }
+    }
 }
@@ -90,6 +90,21 @@ public class GetResponse extends ActionResponse implements Iterable<DocumentFiel
         return getResult.getVersion();
     }
 
+    /**
+     * The sequence number of the last operation on the document, or
+     * {@link org.elasticsearch.index.seqno.SequenceNumbers#UNASSIGNED_SEQ_NO} if it is unknown.
+     */
+    public long getSeqNo() {
+        return getResult.getSeqNo();
+    }
+
+    /**
+     * The primary term of the last operation on the document, or <code>0</code> if it is unknown.
+     */
+    public long getPrimaryTerm() {
+        return getResult.getPrimaryTerm();
+    }
+
     /**
      * The source of the document if exists.
      */
@@ -85,13 +85,10 @@ public class TransportShardMultiGetAction extends TransportSingleShardAction<Mul
         }
 
         MultiGetShardResponse response = new MultiGetShardResponse();
-        for (int i = 0; i < request.locations.size(); i++) {
-            MultiGetRequest.Item item = request.items.get(i);
-            try {
-                GetResult getResult = indexShard.getService().get(item.type(), item.id(), item.storedFields(), request.realtime(), item.version(),
-                    item.versionType(), item.fetchSourceContext());
-                response.add(request.locations.get(i), new GetResponse(getResult));
-            } catch (Exception e) {
+        indexShard.getService().multiGet(request.items, request.realtime(),
+            (i, getResult) -> response.add(request.locations.get(i), new GetResponse(getResult)),
+            (i, e) -> {
+                MultiGetRequest.Item item = request.items.get(i);
                 if (TransportActions.isShardNotAvailableException(e)) {
                     throw (ElasticsearchException) e;
                 } else {
@@ -99,8 +96,7 @@ public class TransportShardMultiGetAction extends TransportSingleShardAction<Mul
                         item.type(), item.id()), e);
                     response.add(request.locations.get(i), new MultiGetResponse.Failure(request.index(), item.type(), item.id(), e));
                 }
-            }
-        }
+            });
 
         return response;
     }
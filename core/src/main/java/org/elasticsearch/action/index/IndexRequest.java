@@ -535,7 +535,7 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
             in.readOptionalString(); // timestamp
             in.readOptionalWriteable(TimeValue::new); // ttl
         }
-        source = in.readBytesReference();
+        source = in.readReleasableBytesReference();
         opType = OpType.fromId(in.readByte());
         version = in.readLong();
         versionType = VersionType.fromValue(in.readByte());
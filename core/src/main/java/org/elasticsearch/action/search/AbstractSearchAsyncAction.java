@@ -63,6 +63,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
     private final long clusterStateVersion;
     private final Map<String, AliasFilter> aliasFilter;
     private final Map<String, Float> concreteIndexBoosts;
+    private final int maxInnerResultWindow;
     private final SetOnce<AtomicArray<ShardSearchFailure>> shardFailures = new SetOnce<>();
     private final Object shardFailuresMutex = new Object();
     private final AtomicInteger successfulOps = new AtomicInteger();
@@ -73,11 +74,12 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
     protected AbstractSearchAsyncAction(String name, Logger logger, SearchTransportService searchTransportService,
                                         BiFunction<String, String, Transport.Connection> nodeIdToConnection,
                                         Map<String, AliasFilter> aliasFilter, Map<String, Float> concreteIndexBoosts,
-                                        Executor executor, SearchRequest request,
+                                        int maxInnerResultWindow, Executor executor, SearchRequest request,
                                         ActionListener<SearchResponse> listener, GroupShardsIterator<SearchShardIterator> shardsIts,
                                         TransportSearchAction.SearchTimeProvider timeProvider, long clusterStateVersion,
-                                        SearchTask task, SearchPhaseResults<Result> resultConsumer, int maxConcurrentShardRequests) {
-        super(name, request, shardsIts, logger, maxConcurrentShardRequests, executor);
+                                        SearchTask task, SearchPhaseResults<Result> resultConsumer, int maxConcurrentShardRequests,
+                                        @Nullable SearchHedging hedging) {
+        super(name, request, shardsIts, logger, maxConcurrentShardRequests, executor, hedging);
         this.timeProvider = timeProvider;
         this.logger = logger;
         this.searchTransportService = searchTransportService;
@@ -88,6 +90,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         this.nodeIdToConnection = nodeIdToConnection;
         this.clusterStateVersion = clusterStateVersion;
         this.concreteIndexBoosts = concreteIndexBoosts;
+        this.maxInnerResultWindow = maxInnerResultWindow;
         this.aliasFilter = aliasFilter;
         this.results = resultConsumer;
     }
@@ -236,6 +239,17 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         }
     }
 
+    @Override
+    protected final void onIgnoredShardResult(Result result) {
+        try {
+            SearchShardTarget searchShardTarget = result.getSearchShardTarget();
+            Transport.Connection connection = getConnection(searchShardTarget.getClusterAlias(), searchShardTarget.getNodeId());
+            sendReleaseSearchContext(result.getRequestId(), connection, searchShardTarget.getOriginalIndices());
+        } catch (Exception e) {
+            logger.trace("failed to release context", e);
+        }
+    }
+
     @Override
     public final void onPhaseDone() {
         executeNextPhase(this, getNextPhase(results, this));
@@ -261,6 +275,11 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         return request;
     }
 
+    @Override
+    public final int getMaxInnerResultWindow() {
+        return maxInnerResultWindow;
+    }
+
     @Override
     public final SearchResponse buildSearchResponse(InternalSearchResponse internalSearchResponse, String scrollId) {
         return new SearchResponse(internalSearchResponse, scrollId, getNumShards(), successfulOps.get(),
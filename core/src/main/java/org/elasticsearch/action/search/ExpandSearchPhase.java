@@ -26,6 +26,10 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.bucket.filter.Filters;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.tophits.TopHits;
+import org.elasticsearch.search.aggregations.metrics.tophits.TopHitsAggregationBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseBuilder;
 import org.elasticsearch.search.internal.InternalSearchResponse;
@@ -42,6 +46,13 @@ import java.util.function.Function;
  * forwards to the next phase immediately.
  */
 final class ExpandSearchPhase extends SearchPhase {
+    private static final String GROUPS_AGGREGATION_NAME = "groups";
+    /**
+     * The maximum number of groups that are expanded with a single search. Each group adds a bucket with a <code>top_hits</code>
+     * aggregation per inner hit definition on every shard, so more groups are expanded with a search per group instead.
+     */
+    static final int MAX_GROUPS_IN_SINGLE_SEARCH = 16;
+
     private final SearchPhaseContext context;
     private final InternalSearchResponse searchResponse;
     private final Function<InternalSearchResponse, SearchPhase> nextPhaseFactory;
@@ -70,53 +81,137 @@ final class ExpandSearchPhase extends SearchPhase {
             SearchRequest searchRequest = context.getRequest();
             CollapseBuilder collapseBuilder = searchRequest.source().collapse();
             final List<InnerHitBuilder> innerHitBuilders = collapseBuilder.getInnerHits();
-            MultiSearchRequest multiRequest = new MultiSearchRequest();
-            if (collapseBuilder.getMaxConcurrentGroupRequests() > 0) {
-                multiRequest.maxConcurrentSearchRequests(collapseBuilder.getMaxConcurrentGroupRequests());
+            if (searchResponse.hits().getHits().length <= MAX_GROUPS_IN_SINGLE_SEARCH && fitsInnerResultWindow(innerHitBuilders)) {
+                expandInSingleSearch(searchRequest, collapseBuilder, innerHitBuilders);
+            } else {
+                expandPerGroup(searchRequest, collapseBuilder, innerHitBuilders);
             }
-            for (SearchHit hit : searchResponse.hits().getHits()) {
-                BoolQueryBuilder groupQuery = new BoolQueryBuilder();
-                Object collapseValue = hit.field(collapseBuilder.getField()).getValue();
-                if (collapseValue != null) {
-                    groupQuery.filter(QueryBuilders.matchQuery(collapseBuilder.getField(), collapseValue));
-                } else {
-                    groupQuery.mustNot(QueryBuilders.existsQuery(collapseBuilder.getField()));
-                }
-                QueryBuilder origQuery = searchRequest.source().query();
-                if (origQuery != null) {
-                    groupQuery.must(origQuery);
-                }
-                for (InnerHitBuilder innerHitBuilder : innerHitBuilders) {
-                    SearchSourceBuilder sourceBuilder = buildExpandSearchSourceBuilder(innerHitBuilder)
-                        .query(groupQuery)
-                        .postFilter(searchRequest.source().postFilter());
-                    SearchRequest groupRequest = buildExpandSearchRequest(searchRequest, sourceBuilder);
-                    multiRequest.add(groupRequest);
-                }
+        } else {
+            context.executeNextPhase(this, nextPhaseFactory.apply(searchResponse));
+        }
+    }
+
+    /**
+     * Returns <code>true</code> iff every inner hit definition can be served by a <code>top_hits</code> aggregation on all local target
+     * indices, since <code>top_hits</code> enforces the <code>index.max_inner_result_window</code> whereas a search per group does not.
+     */
+    private boolean fitsInnerResultWindow(List<InnerHitBuilder> innerHitBuilders) {
+        final int maxInnerResultWindow = context.getMaxInnerResultWindow();
+        for (InnerHitBuilder innerHitBuilder : innerHitBuilders) {
+            if ((long) innerHitBuilder.getFrom() + innerHitBuilder.getSize() > maxInnerResultWindow) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Expands all groups with a search per group and inner hit definition.
+     */
+    private void expandPerGroup(SearchRequest searchRequest, CollapseBuilder collapseBuilder, List<InnerHitBuilder> innerHitBuilders) {
+        MultiSearchRequest multiRequest = new MultiSearchRequest();
+        if (collapseBuilder.getMaxConcurrentGroupRequests() > 0) {
+            multiRequest.maxConcurrentSearchRequests(collapseBuilder.getMaxConcurrentGroupRequests());
+        }
+        for (SearchHit hit : searchResponse.hits().getHits()) {
+            BoolQueryBuilder groupQuery = buildGroupQuery(collapseBuilder, hit);
+            QueryBuilder origQuery = searchRequest.source().query();
+            if (origQuery != null) {
+                groupQuery.must(origQuery);
             }
-            context.getSearchTransport().sendExecuteMultiSearch(multiRequest, context.getTask(),
-                ActionListener.wrap(response -> {
-                    Iterator<MultiSearchResponse.Item> it = response.iterator();
-                    for (SearchHit hit : searchResponse.hits.getHits()) {
-                        for (InnerHitBuilder innerHitBuilder : innerHitBuilders) {
-                            MultiSearchResponse.Item item = it.next();
-                            if (item.isFailure()) {
-                                context.onPhaseFailure(this, "failed to expand hits", item.getFailure());
-                                return;
-                            }
-                            SearchHits innerHits = item.getResponse().getHits();
-                            if (hit.getInnerHits() == null) {
-                                hit.setInnerHits(new HashMap<>(innerHitBuilders.size()));
-                            }
-                            hit.getInnerHits().put(innerHitBuilder.getName(), innerHits);
+            for (InnerHitBuilder innerHitBuilder : innerHitBuilders) {
+                SearchSourceBuilder sourceBuilder = buildExpandSearchSourceBuilder(innerHitBuilder)
+                    .query(groupQuery)
+                    .postFilter(searchRequest.source().postFilter());
+                SearchRequest groupRequest = buildExpandSearchRequest(searchRequest, sourceBuilder);
+                multiRequest.add(groupRequest);
+            }
+        }
+        context.getSearchTransport().sendExecuteMultiSearch(multiRequest, context.getTask(),
+            ActionListener.wrap(response -> {
+                Iterator<MultiSearchResponse.Item> it = response.iterator();
+                for (SearchHit hit : searchResponse.hits.getHits()) {
+                    for (InnerHitBuilder innerHitBuilder : innerHitBuilders) {
+                        MultiSearchResponse.Item item = it.next();
+                        if (item.isFailure()) {
+                            context.onPhaseFailure(this, "failed to expand hits", item.getFailure());
+                            return;
                         }
+                        SearchHits innerHits = item.getResponse().getHits();
+                        if (hit.getInnerHits() == null) {
+                            hit.setInnerHits(new HashMap<>(innerHitBuilders.size()));
+                        }
+                        hit.getInnerHits().put(innerHitBuilder.getName(), innerHits);
                     }
-                    context.executeNextPhase(this, nextPhaseFactory.apply(searchResponse));
-                }, context::onFailure)
-            );
+                }
+                context.executeNextPhase(this, nextPhaseFactory.apply(searchResponse));
+            }, context::onFailure)
+        );
+    }
+
+    /**
+     * Expands all groups with a single search that has a <code>filters</code> aggregation with a bucket per group, and a
+     * <code>top_hits</code> aggregation per inner hit definition in each bucket. This sends one request per shard rather than one
+     * per shard, group and inner hit definition. Inner hits that exceed the <code>index.max_inner_result_window</code> of a local target
+     * index never get here. If the search or any of its shards fails anyway, for instance because a remote index has a smaller
+     * window, the groups are expanded with a search per group instead.
+     */
+    private void expandInSingleSearch(SearchRequest searchRequest, CollapseBuilder collapseBuilder,
+                                      List<InnerHitBuilder> innerHitBuilders) {
+        final SearchHit[] hits = searchResponse.hits().getHits();
+        final QueryBuilder[] groupFilters = new QueryBuilder[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            BoolQueryBuilder groupFilter = buildGroupQuery(collapseBuilder, hits[i]);
+            if (searchRequest.source().postFilter() != null) {
+                groupFilter.filter(searchRequest.source().postFilter());
+            }
+            groupFilters[i] = groupFilter;
+        }
+        FiltersAggregationBuilder groups = new FiltersAggregationBuilder(GROUPS_AGGREGATION_NAME, groupFilters);
+        for (int i = 0; i < innerHitBuilders.size(); i++) {
+            groups.subAggregation(buildExpandTopHitsBuilder(Integer.toString(i), innerHitBuilders.get(i)));
+        }
+        // with no query the inner hits score 0, like with the bool query that only filters each group when searching per group
+        QueryBuilder query = searchRequest.source().query() != null ? searchRequest.source().query()
+            : QueryBuilders.boolQuery().filter(QueryBuilders.matchAllQuery());
+        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder()
+            .query(query)
+            .size(0)
+            .aggregation(groups);
+        MultiSearchRequest multiRequest = new MultiSearchRequest();
+        multiRequest.add(buildExpandSearchRequest(searchRequest, sourceBuilder));
+        context.getSearchTransport().sendExecuteMultiSearch(multiRequest, context.getTask(),
+            ActionListener.wrap(response -> {
+                MultiSearchResponse.Item item = response.getResponses()[0];
+                if (item.isFailure() || item.getResponse().getFailedShards() > 0) {
+                    expandPerGroup(searchRequest, collapseBuilder, innerHitBuilders);
+                    return;
+                }
+                Filters groupBuckets = item.getResponse().getAggregations().get(GROUPS_AGGREGATION_NAME);
+                for (int i = 0; i < hits.length; i++) {
+                    Filters.Bucket bucket = groupBuckets.getBuckets().get(i);
+                    if (hits[i].getInnerHits() == null) {
+                        hits[i].setInnerHits(new HashMap<>(innerHitBuilders.size()));
+                    }
+                    for (int j = 0; j < innerHitBuilders.size(); j++) {
+                        TopHits topHits = bucket.getAggregations().get(Integer.toString(j));
+                        hits[i].getInnerHits().put(innerHitBuilders.get(j).getName(), topHits.getHits());
+                    }
+                }
+                context.executeNextPhase(this, nextPhaseFactory.apply(searchResponse));
+            }, context::onFailure)
+        );
+    }
+
+    private static BoolQueryBuilder buildGroupQuery(CollapseBuilder collapseBuilder, SearchHit hit) {
+        BoolQueryBuilder groupQuery = new BoolQueryBuilder();
+        Object collapseValue = hit.field(collapseBuilder.getField()).getValue();
+        if (collapseValue != null) {
+            groupQuery.filter(QueryBuilders.matchQuery(collapseBuilder.getField(), collapseValue));
         } else {
-            context.executeNextPhase(this, nextPhaseFactory.apply(searchResponse));
+            groupQuery.mustNot(QueryBuilders.existsQuery(collapseBuilder.getField()));
         }
+        return groupQuery;
     }
 
     private SearchRequest buildExpandSearchRequest(SearchRequest orig, SearchSourceBuilder sourceBuilder) {
@@ -124,7 +219,8 @@ final class ExpandSearchPhase extends SearchPhase {
             .types(orig.types())
             .source(sourceBuilder)
             .indicesOptions(orig.indicesOptions())
-            .requestCache(orig.requestCache())
+            // the expansion depends on the hits of this very search, so it is only cached if the user explicitly asked for it
+            .requestCache(Boolean.TRUE.equals(orig.requestCache()))
             .preference(orig.preference())
             .routing(orig.routing())
             .searchType(orig.searchType());
@@ -167,4 +263,38 @@ final class ExpandSearchPhase extends SearchPhase {
         groupSource.trackScores(options.isTrackScores());
         return groupSource;
     }
+
+    private TopHitsAggregationBuilder buildExpandTopHitsBuilder(String name, InnerHitBuilder options) {
+        TopHitsAggregationBuilder topHits = new TopHitsAggregationBuilder(name);
+        topHits.from(options.getFrom());
+        topHits.size(options.getSize());
+        if (options.getSorts() != null) {
+            options.getSorts().forEach(topHits::sort);
+        }
+        if (options.getFetchSourceContext() != null) {
+            if (options.getFetchSourceContext().includes() == null && options.getFetchSourceContext().excludes() == null) {
+                topHits.fetchSource(options.getFetchSourceContext().fetchSource());
+            } else {
+                topHits.fetchSource(options.getFetchSourceContext().includes(),
+                    options.getFetchSourceContext().excludes());
+            }
+        }
+        if (options.getDocValueFields() != null) {
+            options.getDocValueFields().forEach(topHits::fieldDataField);
+        }
+        if (options.getStoredFieldsContext() != null && options.getStoredFieldsContext().fieldNames() != null) {
+            options.getStoredFieldsContext().fieldNames().forEach(topHits::storedField);
+        }
+        if (options.getScriptFields() != null) {
+            for (SearchSourceBuilder.ScriptField field : options.getScriptFields()) {
+                topHits.scriptField(field.fieldName(), field.script());
+            }
+        }
+        if (options.getHighlightBuilder() != null) {
+            topHits.highlighter(options.getHighlightBuilder());
+        }
+        topHits.explain(options.isExplain());
+        topHits.trackScores(options.isTrackScores());
+        return topHits;
+    }
 }
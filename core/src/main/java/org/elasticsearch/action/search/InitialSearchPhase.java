@@ -26,6 +26,8 @@ import org.elasticsearch.action.support.TransportActions;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.search.SearchPhaseResult;
@@ -35,6 +37,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
@@ -44,7 +47,9 @@ import java.util.stream.Stream;
  * the shards replica iterator is exhausted. Each shard is referenced by position in the {@link GroupShardsIterator} which is later
  * referred to as the <tt>shardIndex</tt>.
  * The fan out and collect algorithm is traditionally used as the initial phase which can either be a query execution or collection
- * distributed frequencies
+ * distributed frequencies.
+ * If hedging is enabled, a shard request that did not respond within the delay given by {@link SearchHedging} is sent to the next
+ * replica of the shard as well. The first result of the shard is used and the results of the other requests are released.
  */
 abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends SearchPhase {
     private final SearchRequest request;
@@ -56,9 +61,19 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
     private final AtomicInteger shardExecutionIndex = new AtomicInteger(0);
     private final int maxConcurrentShardRequests;
     private final Executor executor;
+    @Nullable
+    private final SearchHedging hedging;
+    // the requests in flight per shard index, only tracked if requests may be hedged
+    @Nullable
+    private final ShardRequests[] shardRequests;
 
     InitialSearchPhase(String name, SearchRequest request, GroupShardsIterator<SearchShardIterator> shardsIts, Logger logger,
                        int maxConcurrentShardRequests, Executor executor) {
+        this(name, request, shardsIts, logger, maxConcurrentShardRequests, executor, null);
+    }
+
+    InitialSearchPhase(String name, SearchRequest request, GroupShardsIterator<SearchShardIterator> shardsIts, Logger logger,
+                       int maxConcurrentShardRequests, Executor executor, @Nullable SearchHedging hedging) {
         super(name);
         this.request = request;
         final List<SearchShardIterator> toSkipIterators = new ArrayList<>();
@@ -80,6 +95,31 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
         this.expectedTotalOps = shardsIts.totalSizeWith1ForEmpty();
         this.maxConcurrentShardRequests = Math.min(maxConcurrentShardRequests, shardsIts.size());
         this.executor = executor;
+        this.hedging = hedging;
+        if (hedging != null) {
+            this.shardRequests = new ShardRequests[this.shardsIts.size()];
+            for (int i = 0; i < shardRequests.length; i++) {
+                shardRequests[i] = new ShardRequests();
+            }
+        } else {
+            this.shardRequests = null;
+        }
+    }
+
+    /**
+     * Handles the failure of a shard request while another request of the same shard is still in flight. The failure is not
+     * recorded since the shard may still succeed, and the other request decides how to continue with the shard.
+     */
+    private void onHedgedShardFailure(@Nullable ShardRouting shard, final SearchShardIterator shardIt, Exception e) {
+        logger.trace(
+                (Supplier<?>) () -> new ParameterizedMessage(
+                        "{}: Failed to execute [{}] while another request of the shard is in flight",
+                        shard != null ? shard.shortSummary() : shardIt.shardId(),
+                        request),
+                e);
+        if (totalOps.incrementAndGet() == expectedTotalOps) {
+            onPhaseDone();
+        }
     }
 
     private void onShardFailure(final int shardIndex, @Nullable ShardRouting shard, @Nullable String nodeId,
@@ -203,7 +243,7 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
         final Thread thread = Thread.currentThread();
         if (shard == null) {
             fork(() -> onShardFailure(shardIndex, null, null, shardIt, new NoShardAvailableActionException(shardIt.shardId())));
-        } else {
+        } else if (shardRequests == null) {
             try {
                 executePhaseOnShard(shardIt, shard, new SearchActionListener<FirstResult>(new SearchShardTarget(shard.currentNodeId(),
                     shardIt.shardId(), shardIt.getClusterAlias(), shardIt.getOriginalIndices()), shardIndex) {
@@ -224,10 +264,85 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
                  */
                 fork(() -> onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, e));
             }
+        } else {
+            final int generation = shardRequests[shardIndex].onStart();
+            performHedgeableRequest(thread, shardIndex, shardIt, shard);
+            scheduleHedge(shardIndex, shardIt, shard, generation);
         }
     }
 
+    /**
+     * Sends a shard request that may race with a hedged request to another copy of the same shard. Only the first result of the
+     * shard is processed, as are failures while no other request of the shard is in flight.
+     */
+    private void performHedgeableRequest(final Thread thread, final int shardIndex, final SearchShardIterator shardIt,
+                                         final ShardRouting shard) {
+        final ShardRequests requests = shardRequests[shardIndex];
+        try {
+            executePhaseOnShard(shardIt, shard, new SearchActionListener<FirstResult>(new SearchShardTarget(shard.currentNodeId(),
+                shardIt.shardId(), shardIt.getClusterAlias(), shardIt.getOriginalIndices()), shardIndex) {
+                @Override
+                public void innerOnResponse(FirstResult result) {
+                    final int otherRequests = requests.onResult();
+                    if (otherRequests < 0) {
+                        onIgnoredShardResult(result);
+                    } else {
+                        maybeFork(thread, () -> onShardResult(result, shardIt, otherRequests));
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception t) {
+                    final int otherRequests = requests.onFailure();
+                    if (otherRequests == 0) {
+                        maybeFork(thread, () -> onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, t));
+                    } else if (otherRequests > 0) {
+                        maybeFork(thread, () -> onHedgedShardFailure(shard, shardIt, t));
+                    }
+                }
+            });
+        } catch (final Exception e) {
+            final int otherRequests = requests.onFailure();
+            if (otherRequests == 0) {
+                fork(() -> onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, e));
+            } else if (otherRequests > 0) {
+                fork(() -> onHedgedShardFailure(shard, shardIt, e));
+            }
+        }
+    }
+
+    private void scheduleHedge(final int shardIndex, final SearchShardIterator shardIt, final ShardRouting shard, final int generation) {
+        if (shardIt.remaining() == 0) {
+            return;
+        }
+        final TimeValue delay = hedging.getDelay(shard.currentNodeId());
+        if (delay != null) {
+            shardRequests[shardIndex].setScheduledHedge(hedging.schedule(delay, () -> fork(() -> {
+                final ShardRequests requests = shardRequests[shardIndex];
+                if (requests.canHedge(generation) && hedging.tryAcquire()) {
+                    final ShardRouting nextShard = requests.startHedge(generation, shardIt);
+                    if (nextShard != null) {
+                        logger.trace("{}: no response from [{}] after [{}], sending hedged request to [{}]",
+                            shardIt.shardId(), shard.currentNodeId(), delay, nextShard.currentNodeId());
+                        performHedgeableRequest(Thread.currentThread(), shardIndex, shardIt, nextShard);
+                    }
+                }
+            })));
+        }
+    }
+
+    /**
+     * Called with the result of a shard request that lost the race against a hedged request to another copy of the shard.
+     * Implementations should release the resources held for the result on the node that sent it.
+     */
+    protected void onIgnoredShardResult(FirstResult result) {
+    }
+
     private void onShardResult(FirstResult result, SearchShardIterator shardIt) {
+        onShardResult(result, shardIt, 0);
+    }
+
+    private void onShardResult(FirstResult result, SearchShardIterator shardIt, int otherRequests) {
         assert result.getShardIndex() != -1 : "shard index is not set";
         assert result.getSearchShardTarget() != null : "search shard target must not be null";
         onShardSuccess(result);
@@ -236,15 +351,16 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
         // cause the successor to read a wrong value from successfulOps if second phase is very fast ie. count etc.
         // increment all the "future" shards to update the total ops since we some may work and some may not...
         // and when that happens, we break on total ops, so we must maintain them
-        successfulShardExecution(shardIt);
+        // requests to other copies of the shard that are still in flight are done as well
+        successfulShardExecution(shardIt, otherRequests);
     }
 
-    private void successfulShardExecution(SearchShardIterator shardsIt) {
+    private void successfulShardExecution(SearchShardIterator shardsIt, int otherRequests) {
         final int remainingOpsOnIterator;
         if (shardsIt.skip()) {
             remainingOpsOnIterator = shardsIt.remaining();
         } else {
-            remainingOpsOnIterator = shardsIt.remaining() + 1;
+            remainingOpsOnIterator = shardsIt.remaining() + 1 + otherRequests;
         }
         final int xTotalOps = totalOps.addAndGet(remainingOpsOnIterator);
         if (xTotalOps == expectedTotalOps) {
@@ -369,7 +485,86 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
 
     protected void skipShard(SearchShardIterator iterator) {
         assert iterator.skip();
-        successfulShardExecution(iterator);
+        successfulShardExecution(iterator, 0);
+    }
+
+    /**
+     * Tracks the requests of a shard that may be hedged. A hedged request takes the next copy of the shard from the shard
+     * iterator, so all access to the iterator while requests are in flight happens under the lock of this class.
+     */
+    private static final class ShardRequests {
+        // the number of requests of the shard that were sent but did not respond yet
+        private int inFlight;
+        // the number of requests that were started, used to ignore hedges that were scheduled for an earlier request
+        private int generation;
+        private boolean hedged;
+        private boolean done;
+        private ScheduledFuture<?> scheduledHedge;
+
+        synchronized int onStart() {
+            assert inFlight == 0 && done == false;
+            inFlight++;
+            return ++generation;
+        }
+
+        synchronized void setScheduledHedge(@Nullable ScheduledFuture<?> scheduledHedge) {
+            if (done) {
+                FutureUtils.cancel(scheduledHedge);
+            } else {
+                this.scheduledHedge = scheduledHedge;
+            }
+        }
+
+        synchronized boolean canHedge(int expectedGeneration) {
+            return done == false && hedged == false && inFlight > 0 && generation == expectedGeneration;
+        }
+
+        /**
+         * Takes the next copy of the shard to send a hedged request to, or returns <code>null</code> if the shard may not be
+         * hedged (anymore).
+         */
+        @Nullable
+        synchronized ShardRouting startHedge(int expectedGeneration, SearchShardIterator shardIt) {
+            if (canHedge(expectedGeneration) == false) {
+                return null;
+            }
+            final ShardRouting nextShard = shardIt.nextOrNull();
+            if (nextShard != null) {
+                hedged = true;
+                inFlight++;
+            }
+            return nextShard;
+        }
+
+        /**
+         * Returns the number of other requests of the shard that are still in flight if this is the first result of the shard,
+         * or -1 if the shard has a result already.
+         */
+        synchronized int onResult() {
+            inFlight--;
+            if (done) {
+                return -1;
+            }
+            done = true;
+            FutureUtils.cancel(scheduledHedge);
+            return inFlight;
+        }
+
+        /**
+         * Returns the number of other requests of the shard that are still in flight, or -1 if the shard has a result already
+         * and the failure can be ignored.
+         */
+        synchronized int onFailure() {
+            inFlight--;
+            if (done) {
+                return -1;
+            }
+            if (inFlight == 0) {
+                FutureUtils.cancel(scheduledHedge);
+                scheduledHedge = null;
+            }
+            return inFlight;
+        }
     }
 
 }
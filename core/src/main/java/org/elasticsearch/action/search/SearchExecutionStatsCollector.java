@@ -19,10 +19,14 @@
 
 package org.elasticsearch.action.search;
 
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.transport.ConnectTransportException;
+import org.elasticsearch.transport.ReceiveTimeoutTransportException;
 import org.elasticsearch.transport.Transport;
 
 import java.util.Objects;
@@ -70,6 +74,17 @@ public final class SearchExecutionStatsCollector implements ActionListener<Searc
 
     @Override
     public void onFailure(Exception e) {
+        if (nodeId != null && isNodeFailure(e)) {
+            // an overloaded or unresponsive node doesn't report its statistics, but should still be ranked down
+            collector.addNodeFailure(nodeId);
+        }
         listener.onFailure(e);
     }
+
+    private static boolean isNodeFailure(Exception e) {
+        final Throwable cause = ExceptionsHelper.unwrapCause(e);
+        return cause instanceof EsRejectedExecutionException
+            || cause instanceof ConnectTransportException
+            || cause instanceof ReceiveTimeoutTransportException;
+    }
 }
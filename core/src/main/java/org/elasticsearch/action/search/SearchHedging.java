@@ -0,0 +1,98 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.ToLongFunction;
+
+/**
+ * Decides when a shard level request of the initial search phase that did not respond yet is sent to another copy of the
+ * shard as well, see {@link InitialSearchPhase}. The delay is derived from the 95th percentile of the response times of the
+ * node the request was sent to, and the number of hedged requests per second is capped on each coordinating node so that
+ * hedging cannot amplify the load of a cluster that is slow as a whole.
+ */
+final class SearchHedging {
+
+    private final ClusterSettings clusterSettings;
+    private final ThreadPool threadPool;
+    private final ToLongFunction<String> responseTimePercentile95Nanos;
+
+    private long currentSecond = -1;
+    private int hedgedInCurrentSecond;
+
+    SearchHedging(ClusterSettings clusterSettings, ThreadPool threadPool, ToLongFunction<String> responseTimePercentile95Nanos) {
+        this.clusterSettings = clusterSettings;
+        this.threadPool = threadPool;
+        this.responseTimePercentile95Nanos = responseTimePercentile95Nanos;
+    }
+
+    boolean isEnabled() {
+        return clusterSettings.get(TransportSearchAction.HEDGING_ENABLED_SETTING);
+    }
+
+    /**
+     * Returns the delay after which a request to the given node that did not respond yet is hedged, or <code>null</code> if
+     * nothing is known about the response times of the node.
+     */
+    @Nullable
+    TimeValue getDelay(String nodeId) {
+        final long percentile95Nanos = responseTimePercentile95Nanos.applyAsLong(nodeId);
+        if (percentile95Nanos < 0) {
+            return null;
+        }
+        final TimeValue minDelay = clusterSettings.get(TransportSearchAction.HEDGING_MIN_DELAY_SETTING);
+        return TimeValue.timeValueNanos(Math.max(percentile95Nanos, minDelay.nanos()));
+    }
+
+    /**
+     * Schedules the given hedge to run after the delay. Returns <code>null</code> if it can't be scheduled because we are
+     * shutting down.
+     */
+    @Nullable
+    ScheduledFuture<?> schedule(TimeValue delay, Runnable hedge) {
+        try {
+            return threadPool.schedule(delay, ThreadPool.Names.SAME, hedge);
+        } catch (EsRejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if another request may be hedged without exceeding the maximum hedged requests per second.
+     */
+    synchronized boolean tryAcquire() {
+        final long second = threadPool.relativeTimeInMillis() / 1000;
+        if (second != currentSecond) {
+            currentSecond = second;
+            hedgedInCurrentSecond = 0;
+        }
+        if (hedgedInCurrentSecond >= clusterSettings.get(TransportSearchAction.HEDGING_MAX_REQUESTS_PER_SECOND_SETTING)) {
+            return false;
+        }
+        hedgedInCurrentSecond++;
+        return true;
+    }
+}
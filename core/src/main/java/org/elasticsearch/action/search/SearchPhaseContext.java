@@ -55,6 +55,12 @@ interface SearchPhaseContext extends ActionListener<SearchResponse>, Executor {
      */
     SearchRequest getRequest();
 
+    /**
+     * Returns the smallest <code>index.max_inner_result_window</code> of the local indices the current search targets, or
+     * {@link Integer#MAX_VALUE} if it is unknown, for instance because the search only targets remote indices
+     */
+    int getMaxInnerResultWindow();
+
     /**
      * Builds the final search response that should be send back to the user.
      * @param internalSearchResponse the internal search response
@@ -38,9 +38,12 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
@@ -71,11 +74,25 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     public static final Setting<Long> SHARD_COUNT_LIMIT_SETTING = Setting.longSetting(
             "action.search.shard_count.limit", Long.MAX_VALUE, 1L, Property.Dynamic, Property.NodeScope);
 
+    /** Whether shard requests that are slow to respond are sent to another copy of the shard as well. */
+    public static final Setting<Boolean> HEDGING_ENABLED_SETTING = Setting.boolSetting(
+            "action.search.hedging.enabled", false, Property.Dynamic, Property.NodeScope);
+
+    /** The minimum time to wait for a shard to respond before the request is sent to another copy. */
+    public static final Setting<TimeValue> HEDGING_MIN_DELAY_SETTING = Setting.timeSetting(
+            "action.search.hedging.min_delay", TimeValue.timeValueMillis(10), TimeValue.timeValueMillis(1),
+            Property.Dynamic, Property.NodeScope);
+
+    /** The maximum number of shard requests per second that are sent to another copy of the shard as well. */
+    public static final Setting<Integer> HEDGING_MAX_REQUESTS_PER_SECOND_SETTING = Setting.intSetting(
+            "action.search.hedging.max_requests_per_second", 100, 0, Property.Dynamic, Property.NodeScope);
+
     private final ClusterService clusterService;
     private final SearchTransportService searchTransportService;
     private final RemoteClusterService remoteClusterService;
     private final SearchPhaseController searchPhaseController;
     private final SearchService searchService;
+    private final SearchHedging searchHedging;
 
     @Inject
     public TransportSearchAction(Settings settings, ThreadPool threadPool, TransportService transportService, SearchService searchService,
@@ -89,6 +106,9 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         SearchTransportService.registerRequestHandler(transportService, searchService);
         this.clusterService = clusterService;
         this.searchService = searchService;
+        final ResponseCollectorService responseCollectorService = searchService.getResponseCollectorService();
+        this.searchHedging = new SearchHedging(clusterService.getClusterSettings(), threadPool,
+            nodeId -> responseCollectorService == null ? -1 : responseCollectorService.getResponseTimePercentile95Nanos(nodeId));
     }
 
     private Map<String, AliasFilter> buildPerIndexAliasFilter(SearchRequest request, ClusterState clusterState,
@@ -126,6 +146,23 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         return Collections.unmodifiableMap(concreteIndexBoosts);
     }
 
+    /**
+     * Returns the smallest <code>index.max_inner_result_window</code> of the given local indices if the search request expands
+     * collapsed hits with inner hits, and {@link Integer#MAX_VALUE} otherwise. The setting of remote indices is not known here.
+     */
+    private static int resolveMaxInnerResultWindow(SearchRequest searchRequest, ClusterState clusterState, Index[] indices) {
+        SearchSourceBuilder source = searchRequest.source();
+        if (source == null || source.collapse() == null || source.collapse().getInnerHits().isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+        int maxInnerResultWindow = Integer.MAX_VALUE;
+        for (Index index : indices) {
+            Settings indexSettings = clusterState.metaData().getIndexSafe(index).getSettings();
+            maxInnerResultWindow = Math.min(maxInnerResultWindow, IndexSettings.MAX_INNER_RESULT_WINDOW_SETTING.get(indexSettings));
+        }
+        return maxInnerResultWindow;
+    }
+
     /**
      * Search operations need two clocks. One clock is to fulfill real clock needs (e.g., resolving
      * "now" to an index name). Another clock is needed for measuring how long a search operation
@@ -293,6 +330,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         failIfOverShardCountLimit(clusterService, shardIterators.size());
 
         Map<String, Float> concreteIndexBoosts = resolveIndexBoosts(searchRequest, clusterState);
+        int maxInnerResultWindow = resolveMaxInnerResultWindow(searchRequest, clusterState, indices);
 
         // optimize search type for cases where there is only one shard group to search on
         if (shardIterators.size() == 1) {
@@ -329,7 +367,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         }
         boolean preFilterSearchShards = shouldPreFilterSearchShards(searchRequest, shardIterators);
         searchAsyncAction(task, searchRequest, shardIterators, timeProvider, connectionLookup, clusterState.version(),
-            Collections.unmodifiableMap(aliasFilter), concreteIndexBoosts, listener, preFilterSearchShards).start();
+            Collections.unmodifiableMap(aliasFilter), concreteIndexBoosts, maxInnerResultWindow, listener, preFilterSearchShards).start();
     }
 
     private boolean shouldPreFilterSearchShards(SearchRequest searchRequest, GroupShardsIterator<SearchShardIterator> shardIterators) {
@@ -362,15 +400,16 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                                                         SearchTimeProvider timeProvider,
                                                         BiFunction<String, String, Transport.Connection> connectionLookup,
                                                         long clusterStateVersion, Map<String, AliasFilter> aliasFilter,
-                                                        Map<String, Float> concreteIndexBoosts,
+                                                        Map<String, Float> concreteIndexBoosts, int maxInnerResultWindow,
                                                         ActionListener<SearchResponse> listener, boolean preFilter) {
         Executor executor = threadPool.executor(ThreadPool.Names.SEARCH);
+        final SearchHedging hedging = searchHedging.isEnabled() ? searchHedging : null;
         if (preFilter) {
             return new CanMatchPreFilterSearchPhase(logger, searchTransportService, connectionLookup,
                 aliasFilter, concreteIndexBoosts, executor, searchRequest, listener, shardIterators,
                 timeProvider, clusterStateVersion, task, (iter) -> {
                 AbstractSearchAsyncAction action = searchAsyncAction(task, searchRequest, iter, timeProvider, connectionLookup,
-                    clusterStateVersion, aliasFilter, concreteIndexBoosts, listener, false);
+                    clusterStateVersion, aliasFilter, concreteIndexBoosts, maxInnerResultWindow, listener, false);
                 return new SearchPhase(action.getName()) {
                     @Override
                     public void run() throws IOException {
@@ -383,14 +422,14 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
             switch (searchRequest.searchType()) {
                 case DFS_QUERY_THEN_FETCH:
                     searchAsyncAction = new SearchDfsQueryThenFetchAsyncAction(logger, searchTransportService, connectionLookup,
-                        aliasFilter, concreteIndexBoosts, searchPhaseController, executor, searchRequest, listener, shardIterators,
-                        timeProvider, clusterStateVersion, task);
+                        aliasFilter, concreteIndexBoosts, maxInnerResultWindow, searchPhaseController, executor, searchRequest, listener,
+                        shardIterators, timeProvider, clusterStateVersion, task, hedging);
                     break;
                 case QUERY_AND_FETCH:
                 case QUERY_THEN_FETCH:
                     searchAsyncAction = new SearchQueryThenFetchAsyncAction(logger, searchTransportService, connectionLookup,
-                        aliasFilter, concreteIndexBoosts, searchPhaseController, executor, searchRequest, listener, shardIterators,
-                        timeProvider, clusterStateVersion, task);
+                        aliasFilter, concreteIndexBoosts, maxInnerResultWindow, searchPhaseController, executor, searchRequest, listener,
+                        shardIterators, timeProvider, clusterStateVersion, task, hedging);
                     break;
                 default:
                     throw new IllegalStateException("Unknown search type: [" + searchRequest.searchType() + "]");
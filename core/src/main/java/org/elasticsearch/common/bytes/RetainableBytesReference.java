@@ -0,0 +1,53 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lease.Releasable;
+
+/**
+ * Implemented by {@link BytesReference}s that are backed by a ref counted buffer, for instance a pooled network buffer. Retaining
+ * the bytes allows objects that are deserialized from them to share them instead of copying them.
+ */
+public interface RetainableBytesReference {
+
+    /**
+     * Retains the bytes of this reference until the returned {@link Retained} is closed. Implementations may retain a copy of the
+     * bytes instead of the backing buffer if the bytes only take up a small part of it, so that they don't pin memory they don't use.
+     */
+    Retained retain();
+
+    /**
+     * Bytes retained by {@link RetainableBytesReference#retain()}, released once closed.
+     */
+    interface Retained extends Releasable {
+
+        /**
+         * Returns a stream over the retained bytes whose {@link StreamInput#readReleasableBytesReference()} returns slices of them.
+         * These slices must not be used anymore once the bytes have been released.
+         */
+        StreamInput streamInput();
+
+        /**
+         * Returns the number of bytes of memory that are kept alive until the bytes are released, which is at least their length.
+         */
+        long ramBytesUsed();
+    }
+}
@@ -28,25 +28,53 @@ import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentType;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 public class CompressorFactory {
 
     public static final Compressor COMPRESSOR = new DeflateCompressor();
 
+    public static final Compressor LZ4 = new LZ4Compressor();
+
+    private static final Map<String, Compressor> COMPRESSORS;
+
+    static {
+        Map<String, Compressor> compressors = new LinkedHashMap<>();
+        compressors.put("deflate", COMPRESSOR);
+        compressors.put("lz4", LZ4);
+        COMPRESSORS = Collections.unmodifiableMap(compressors);
+    }
+
+    /**
+     * Returns the compressor registered under the given name.
+     * @throws IllegalArgumentException if no compressor is registered under this name
+     */
+    public static Compressor compressor(String name) {
+        Compressor compressor = COMPRESSORS.get(name);
+        if (compressor == null) {
+            throw new IllegalArgumentException("unknown compressor [" + name + "], must be one of " + COMPRESSORS.keySet());
+        }
+        return compressor;
+    }
+
     public static boolean isCompressed(BytesReference bytes) {
         return compressor(bytes) != null;
     }
 
     @Nullable
     public static Compressor compressor(BytesReference bytes) {
-            if (COMPRESSOR.isCompressed(bytes)) {
+        for (Compressor compressor : COMPRESSORS.values()) {
+            if (compressor.isCompressed(bytes)) {
                 // bytes should be either detected as compressed or as xcontent,
                 // if we have bytes that can be either detected as compressed or
                 // as a xcontent, we have a problem
                 assert XContentFactory.xContentType(bytes) == null;
-                return COMPRESSOR;
+                return compressor;
             }
+        }
 
         XContentType contentType = XContentFactory.xContentType(bytes);
         if (contentType == null) {
@@ -0,0 +1,246 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * {@link Compressor} implementation based on the LZ4 compression algorithm. It trades compression ratio
+ * for speed and is mostly useful on fast networks where DEFLATE would be CPU bound.
+ *
+ * The stream is written as a sequence of independently compressed blocks, each prefixed with its
+ * uncompressed length as a vint, and terminated by an empty block.
+ */
+public class LZ4Compressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams, see DeflateCompressor
+    private static final byte[] HEADER = new byte[]{'L', 'Z', '4', '\0'};
+    // the maximum number of uncompressed bytes per block
+    static final int BLOCK_SIZE = 1 << 16;
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public StreamInput streamInput(StreamInput in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        int len = 0;
+        while (len < headerBytes.length) {
+            final int read = in.read(headerBytes, len, headerBytes.length - len);
+            if (read == -1) {
+                break;
+            }
+            len += read;
+        }
+        if (len != HEADER.length || Arrays.equals(headerBytes, HEADER) == false) {
+            throw new IllegalArgumentException("Input stream is not compressed with LZ4!");
+        }
+        return new InputStreamStreamInput(new BlockInputStream(in));
+    }
+
+    @Override
+    public StreamOutput streamOutput(StreamOutput out) throws IOException {
+        out.writeBytes(HEADER);
+        return new OutputStreamStreamOutput(new BlockOutputStream(out));
+    }
+
+    private static final class BlockOutputStream extends OutputStream {
+
+        private final StreamOutput out;
+        private final DataOutput dataOutput;
+        private final org.apache.lucene.codecs.compressing.Compressor compressor = CompressionMode.FAST.newCompressor();
+        // grows up to BLOCK_SIZE so that small messages don't pay for a full block
+        private byte[] buffer = new byte[1024];
+        private int length;
+        private boolean closed;
+
+        BlockOutputStream(StreamOutput out) {
+            this.out = out;
+            this.dataOutput = new DataOutput() {
+                @Override
+                public void writeByte(byte b) throws IOException {
+                    out.writeByte(b);
+                }
+
+                @Override
+                public void writeBytes(byte[] b, int offset, int length) throws IOException {
+                    out.writeBytes(b, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureCapacity();
+            buffer[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                ensureCapacity();
+                final int chunk = Math.min(len, buffer.length - length);
+                System.arraycopy(b, off, buffer, length, chunk);
+                length += chunk;
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        private void ensureCapacity() throws IOException {
+            if (length == buffer.length) {
+                if (buffer.length < BLOCK_SIZE) {
+                    buffer = Arrays.copyOf(buffer, Math.min(BLOCK_SIZE, ArrayUtil.oversize(length + 1, Byte.BYTES)));
+                } else {
+                    flushBlock();
+                }
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (length > 0) {
+                out.writeVInt(length);
+                compressor.compress(buffer, 0, length, dataOutput);
+                length = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed == false) {
+                closed = true;
+                try {
+                    flushBlock();
+                    // an empty block marks the end of the stream
+                    out.writeVInt(0);
+                    compressor.close();
+                } finally {
+                    out.close();
+                }
+            }
+        }
+    }
+
+    private static final class BlockInputStream extends InputStream {
+
+        private final StreamInput in;
+        private final DataInput dataInput;
+        private final Decompressor decompressor = CompressionMode.FAST.newDecompressor();
+        private final BytesRef block = new BytesRef();
+        private int position;
+        private boolean eos;
+
+        BlockInputStream(StreamInput in) {
+            this.in = in;
+            this.dataInput = new DataInput() {
+                @Override
+                public byte readByte() throws IOException {
+                    return in.readByte();
+                }
+
+                @Override
+                public void readBytes(byte[] b, int offset, int len) throws IOException {
+                    in.readBytes(b, offset, len);
+                }
+            };
+        }
+
+        /** Decompresses the next block, returns <code>false</code> if the end of the stream has been reached. */
+        private boolean nextBlock() throws IOException {
+            if (eos) {
+                return false;
+            }
+            final int length = in.readVInt();
+            if (length == 0) {
+                eos = true;
+                return false;
+            }
+            if (length < 0 || length > BLOCK_SIZE) {
+                throw new IOException("invalid LZ4 block length [" + length + "]");
+            }
+            decompressor.decompress(dataInput, length, 0, length, block);
+            position = 0;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == block.length && nextBlock() == false) {
+                return -1;
+            }
+            return block.bytes[block.offset + position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == block.length && nextBlock() == false) {
+                return -1;
+            }
+            final int chunk = Math.min(len, block.length - position);
+            System.arraycopy(block.bytes, block.offset + position, b, off, chunk);
+            position += chunk;
+            return chunk;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return block.length - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
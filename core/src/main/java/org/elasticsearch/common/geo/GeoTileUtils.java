@@ -0,0 +1,146 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.geo;
+
+import org.apache.lucene.geo.GeoEncodingUtils;
+
+/**
+ * Utilities for converting to/from the web mercator tiles of map rendering
+ *
+ * The tile long format stores the zoom level in the 6 most significant bits, followed by the column (x) and the
+ * row (y) of the tile in 29 bits each [zzzzzzxxx...xxxyyy...yyy], so that the tiles of a zoom level sort together.
+ */
+public final class GeoTileUtils {
+
+    /** maximum zoom level of tiles, so that both the column and the row of a tile fit on 29 bits */
+    public static final int MAX_ZOOM = 29;
+    /** latitudes beyond this value are outside of the web mercator projection and fall in the first or last row */
+    public static final double LATITUDE_MASK = 85.0511287798066;
+
+    private static final int ZOOM_SHIFT = MAX_ZOOM * 2;
+    private static final long X_Y_VALUE_MASK = (1L << MAX_ZOOM) - 1;
+
+    // No instance:
+    private GeoTileUtils() {
+    }
+
+    public static int checkPrecisionRange(int precision) {
+        if (precision < 0 || precision > MAX_ZOOM) {
+            throw new IllegalArgumentException("Invalid geotile precision of " + precision
+                    + ". Must be between 0 and " + MAX_ZOOM + ".");
+        }
+        return precision;
+    }
+
+    /**
+     * Encode lon/lat to the tile based long format (zoom in the 6 most significant bits, followed by x and y)
+     */
+    public static long longEncode(double lon, double lat, int precision) {
+        return longEncodeTile(precision, tileX(lon, precision), tileY(lat, precision));
+    }
+
+    /**
+     * Encode the tile at the given zoom level, column and row to the tile based long format
+     */
+    public static long longEncodeTile(int precision, long x, long y) {
+        return ((long) precision << ZOOM_SHIFT) | (x << MAX_ZOOM) | y;
+    }
+
+    /**
+     * Encode from a {@code zoom/x/y} tile string to the tile based long format
+     */
+    public static long longEncode(String key) {
+        String[] parts = key.split("/", 4);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid geotile key [" + key + "], expected zoom/x/y");
+        }
+        int precision = checkPrecisionRange(Integer.parseInt(parts[0]));
+        long tiles = 1L << precision;
+        long x = Long.parseLong(parts[1]);
+        long y = Long.parseLong(parts[2]);
+        if (x < 0 || x >= tiles || y < 0 || y >= tiles) {
+            throw new IllegalArgumentException("Invalid geotile key [" + key + "], x and y must be between 0 and " + (tiles - 1));
+        }
+        return longEncodeTile(precision, x, y);
+    }
+
+    /**
+     * Returns the column of the tile that contains the given longitude at the given zoom level. The encoded longitude of
+     * doc values is a fixed point value over 32 bits whose most significant bits are the column of the tile.
+     */
+    public static long tileX(double lon, int precision) {
+        return ((long) GeoEncodingUtils.encodeLongitude(lon) - Integer.MIN_VALUE) >>> (32 - precision);
+    }
+
+    /**
+     * Returns the row of the tile that contains the given latitude at the given zoom level.
+     */
+    public static long tileY(double lat, int precision) {
+        final long tiles = 1L << precision;
+        if (lat >= LATITUDE_MASK) {
+            return 0;
+        } else if (lat <= -LATITUDE_MASK) {
+            return tiles - 1;
+        }
+        final double sinLat = Math.sin(Math.toRadians(lat));
+        final long y = (long) Math.floor((0.5 - Math.log((1 + sinLat) / (1 - sinLat)) / (4 * Math.PI)) * tiles);
+        return Math.max(0, Math.min(tiles - 1, y));
+    }
+
+    public static int zoom(long tile) {
+        return (int) (tile >>> ZOOM_SHIFT);
+    }
+
+    public static long x(long tile) {
+        return (tile >>> MAX_ZOOM) & X_Y_VALUE_MASK;
+    }
+
+    public static long y(long tile) {
+        return tile & X_Y_VALUE_MASK;
+    }
+
+    /**
+     * Returns the smallest and largest values of the tile based long format at the given zoom level.
+     */
+    public static long minValue(int precision) {
+        return (long) precision << ZOOM_SHIFT;
+    }
+
+    public static long maxValue(int precision) {
+        final long lastTile = (1L << precision) - 1;
+        return longEncodeTile(precision, lastTile, lastTile);
+    }
+
+    /**
+     * Encode to a {@code zoom/x/y} tile string from the tile based long format
+     */
+    public static String stringEncode(long tile) {
+        return zoom(tile) + "/" + x(tile) + "/" + y(tile);
+    }
+
+    /**
+     * Returns the center of the tile in the tile based long format
+     */
+    public static GeoPoint toGeoPoint(long tile) {
+        final double tiles = 1L << zoom(tile);
+        final double lon = (x(tile) + 0.5) / tiles * 360.0 - 180.0;
+        final double lat = Math.toDegrees(Math.atan(Math.sinh(Math.PI - 2 * Math.PI * (y(tile) + 0.5) / tiles)));
+        return new GeoPoint(lat, lon);
+    }
+}
@@ -20,6 +20,7 @@
 package org.elasticsearch.common.io.stream;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
 
 import java.io.EOFException;
 import java.io.IOException;
@@ -45,6 +46,16 @@ public abstract class FilterStreamInput extends StreamInput {
         delegate.readBytes(b, offset, len);
     }
 
+    @Override
+    public BytesReference readReleasableBytesReference() throws IOException {
+        return delegate.readReleasableBytesReference();
+    }
+
+    @Override
+    public String readSharedString() throws IOException {
+        return delegate.readSharedString();
+    }
+
     @Override
     public void reset() throws IOException {
         delegate.reset();
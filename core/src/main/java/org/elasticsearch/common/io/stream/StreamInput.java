@@ -82,6 +82,7 @@ import static org.elasticsearch.ElasticsearchException.readStackTrace;
  */
 public abstract class StreamInput extends InputStream {
     private Version version = Version.CURRENT;
+    private List<String> sharedStrings;
 
     /**
      * The version of the node on the other side of this stream.
@@ -120,6 +121,15 @@ public abstract class StreamInput extends InputStream {
         return readBytesReference(length);
     }
 
+    /**
+     * Reads a bytes reference that may share the bytes of the stream rather than copy them, even if these bytes are backed by a
+     * pooled buffer. Such a reference is only valid for as long as the buffer is retained, which for transport requests is until a
+     * response has been sent on their channel. Use {@link #readBytesReference()} if the bytes must outlive the request.
+     */
+    public BytesReference readReleasableBytesReference() throws IOException {
+        return readBytesReference();
+    }
+
     /**
      * Reads an optional bytes reference from this stream. It might hold an actual reference to the underlying bytes of the stream. Use this
      * only if you must differentiate null from empty. Use {@link StreamInput#readBytesReference()} and
@@ -321,6 +331,37 @@ public abstract class StreamInput extends InputStream {
         return null;
     }
 
+    /**
+     * Reads a string written with {@link StreamOutput#writeSharedString(String)}, resolving back-references to strings read earlier
+     * from this stream.
+     */
+    public String readSharedString() throws IOException {
+        if (getVersion().before(Version.V_7_0_0_alpha1)) {
+            return readString();
+        }
+        if (sharedStrings == null) {
+            sharedStrings = new ArrayList<>();
+        }
+        final int ref = readVInt();
+        if (ref == 0) {
+            final String str = readString();
+            sharedStrings.add(str);
+            return str;
+        }
+        if (ref > sharedStrings.size()) {
+            throw new IOException("invalid shared string reference [" + ref + "], only [" + sharedStrings.size() + "] strings read");
+        }
+        return sharedStrings.get(ref - 1);
+    }
+
+    @Nullable
+    public String readOptionalSharedString() throws IOException {
+        if (readBoolean()) {
+            return readSharedString();
+        }
+        return null;
+    }
+
     @Nullable
     public Float readOptionalFloat() throws IOException {
         if (readBoolean()) {
@@ -935,7 +976,7 @@ public abstract class StreamInput extends InputStream {
      * Reads a vint via {@link #readVInt()} and applies basic checks to ensure the read array size is sane.
      * This method uses {@link #ensureCanReadBytes(int)} to ensure this stream has enough bytes to read for the read array size.
      */
-    private int readArraySize() throws IOException {
+    protected int readArraySize() throws IOException {
         final int arraySize = readVInt();
         if (arraySize > ArrayUtil.MAX_ARRAY_LENGTH) {
             throw new IllegalStateException("array length must be <= to " + ArrayUtil.MAX_ARRAY_LENGTH  + " but was: " + arraySize);
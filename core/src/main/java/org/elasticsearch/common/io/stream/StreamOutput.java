@@ -73,6 +73,7 @@ import java.util.Map;
 public abstract class StreamOutput extends OutputStream {
 
     private Version version = Version.CURRENT;
+    private Map<String, Integer> sharedStrings;
 
     /**
      * The version of the node on the other side of this stream.
@@ -269,6 +270,46 @@ public abstract class StreamOutput extends OutputStream {
         }
     }
 
+    /**
+     * Writes a string that is likely to repeat within this stream, like a node id, an index name or a field name. The first occurrence
+     * is written in full and every later one as a back-reference to it, so only use this for strings drawn from a small set of values.
+     * Must be read with {@link StreamInput#readSharedString()}. Streams to nodes before 7.0.0 get a plain {@link #writeString(String)}.
+     */
+    public void writeSharedString(String str) throws IOException {
+        if (getVersion().before(Version.V_7_0_0_alpha1)) {
+            writeString(str);
+            return;
+        }
+        if (sharedStrings == null) {
+            sharedStrings = new HashMap<>();
+        }
+        final Integer id = sharedStrings.get(str);
+        if (id == null) {
+            sharedStrings.put(str, sharedStrings.size());
+            writeVInt(0);
+            writeString(str);
+        } else {
+            writeVInt(id + 1);
+        }
+    }
+
+    public void writeOptionalSharedString(@Nullable String str) throws IOException {
+        if (str == null) {
+            writeBoolean(false);
+        } else {
+            writeBoolean(true);
+            writeSharedString(str);
+        }
+    }
+
+    /**
+     * Forgets the strings written through {@link #writeSharedString(String)}. Must be called by implementations that can
+     * {@link #reset()} their content.
+     */
+    protected void clearSharedStrings() {
+        sharedStrings = null;
+    }
+
     public void writeOptionalVInt(@Nullable Integer integer) throws IOException {
         if (integer == null) {
             writeBoolean(false);
@@ -35,6 +35,7 @@ import org.elasticsearch.index.mapper.VersionFieldMapper;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 
 /** Utility class to do efficient primary-key (only 1 doc contains the
@@ -106,6 +107,51 @@ final class PerThreadIDVersionAndSeqNoLookup {
         }
     }
 
+    /**
+     * Looks up the given ids, which must be sorted, and sets the doc ID and version of the ones that are found in this segment
+     * at their slot of {@code results}, unless a previous segment already resolved them. The terms enum is walked once in order
+     * and the versions are read in doc ID order. Returns the number of ids that were resolved.
+     */
+    int lookupVersions(BytesRef[] ids, int[] slots, DocIdAndVersion[] results, LeafReaderContext context) throws IOException {
+        assert context.reader().getCoreCacheHelper().getKey().equals(readerKey) :
+            "context's reader is not the same as the reader class was initialized on.";
+        final Bits liveDocs = context.reader().getLiveDocs();
+        // doc IDs in the upper bits and slots in the lower bits, so that sorting orders them by doc ID
+        final long[] docsAndSlots = new long[ids.length];
+        int numFound = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (results[slots[i]] == null) {
+                int docID = getDocID(ids[i], liveDocs);
+                if (docID != DocIdSetIterator.NO_MORE_DOCS) {
+                    docsAndSlots[numFound++] = ((long) docID << 32) | slots[i];
+                }
+            }
+        }
+        if (numFound == 0) {
+            return 0;
+        }
+        Arrays.sort(docsAndSlots, 0, numFound);
+        final NumericDocValues versions = context.reader().getNumericDocValues(VersionFieldMapper.NAME);
+        if (versions == null) {
+            throw new IllegalArgumentException("reader misses the [" + VersionFieldMapper.NAME + "] field");
+        }
+        int lastDocID = -1;
+        long lastVersion = Versions.NOT_FOUND;
+        for (int i = 0; i < numFound; i++) {
+            final int docID = (int) (docsAndSlots[i] >>> 32);
+            if (docID != lastDocID) {
+                // the same id may have been requested more than once
+                if (versions.advanceExact(docID) == false) {
+                    throw new IllegalArgumentException("Document [" + docID + "] misses the [" + VersionFieldMapper.NAME + "] field");
+                }
+                lastDocID = docID;
+                lastVersion = versions.longValue();
+            }
+            results[(int) docsAndSlots[i]] = new DocIdAndVersion(docID, lastVersion, context);
+        }
+        return numFound;
+    }
+
     /**
      * returns the internal lucene doc id for the given id bytes.
      * {@link DocIdSetIterator#NO_MORE_DOCS} is returned if not found
@@ -23,14 +23,17 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CloseableThreadLocal;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 
 import java.io.IOException;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
 
 import static org.elasticsearch.common.lucene.uid.Versions.NOT_FOUND;
 
@@ -142,6 +145,39 @@ public final class VersionsAndSeqNoResolver {
         return null;
     }
 
+    /**
+     * Load the internal doc IDs and versions for the uids, which must all have the same field, from the reader. The returned array
+     * has, for each uid, null if the uid wasn't found or a doc ID and a version otherwise. Unlike calling
+     * {@link #loadDocIdAndVersion(IndexReader, Term)} for each uid, the uids are looked up in term order and the terms
+     * of each segment are walked once.
+     */
+    public static DocIdAndVersion[] loadDocIdsAndVersions(IndexReader reader, List<Term> terms) throws IOException {
+        final DocIdAndVersion[] results = new DocIdAndVersion[terms.size()];
+        if (terms.isEmpty()) {
+            return results;
+        }
+        final String field = terms.get(0).field();
+        assert terms.stream().allMatch(term -> term.field().equals(field)) : "uids must have the same field: " + terms;
+        final int[] slots = IntStream.range(0, terms.size()).boxed()
+            .sorted(Comparator.comparing(slot -> terms.get(slot).bytes()))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        final BytesRef[] ids = new BytesRef[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            ids[i] = terms.get(slots[i]).bytes();
+        }
+        PerThreadIDVersionAndSeqNoLookup[] lookups = getLookupState(reader, field);
+        List<LeafReaderContext> leaves = reader.leaves();
+        int numFound = 0;
+        // iterate backwards to optimize for the frequently updated documents
+        // which are likely to be in the last segments
+        for (int i = leaves.size() - 1; i >= 0 && numFound < results.length; i--) {
+            final LeafReaderContext leaf = leaves.get(i);
+            numFound += lookups[leaf.ord].lookupVersions(ids, slots, results, leaf);
+        }
+        return results;
+    }
+
     /**
      * Load the internal doc ID and sequence number for the uid from the reader, returning<ul>
      * <li>null if the uid wasn't found,
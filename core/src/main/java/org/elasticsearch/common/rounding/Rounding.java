@@ -18,6 +18,7 @@
  */
 package org.elasticsearch.common.rounding;
 
+import org.apache.lucene.util.ArrayUtil;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -28,6 +29,7 @@ import org.joda.time.DateTimeZone;
 import org.joda.time.IllegalInstantException;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -35,6 +37,11 @@ import java.util.Objects;
  */
 public abstract class Rounding implements Streamable {
 
+    /**
+     * The maximum number of rounded values that {@link #prepare(long, long)} computes up-front.
+     */
+    static final int MAX_PREPARED_ROUNDED_VALUES = 1024;
+
     public abstract byte id();
 
     /**
@@ -51,6 +58,98 @@ public abstract class Rounding implements Streamable {
      */
     public abstract long nextRoundingValue(long value);
 
+    /**
+     * Prepares this rounding for values between {@code minUtcMillis} and {@code maxUtcMillis}, both inclusive. If the range only
+     * spans a limited number of rounded values, these are computed up-front so that rounding a value in the range becomes a binary
+     * search rather than time zone arithmetic. Values outside of the range are still rounded with {@link #round(long)}.
+     */
+    public Prepared prepare(long minUtcMillis, long maxUtcMillis) {
+        long[] values = roundedValues(minUtcMillis, maxUtcMillis, MAX_PREPARED_ROUNDED_VALUES);
+        if (values == null) {
+            return this::round;
+        }
+        return new ArrayRounding(this, values, minUtcMillis, maxUtcMillis);
+    }
+
+    /**
+     * Returns the rounded values of the values between {@code minUtcMillis} and {@code maxUtcMillis}, both inclusive, in ascending
+     * order. Each value of the range rounds to the greatest rounded value that is less than or equal to it. Returns {@code null} if
+     * there are more than {@code maxCount} rounded values, or if time zone transitions prevent computing them reliably.
+     */
+    public long[] roundedValues(long minUtcMillis, long maxUtcMillis, int maxCount) {
+        if (minUtcMillis > maxUtcMillis) {
+            return null;
+        }
+        final long last = round(maxUtcMillis);
+        long[] values = new long[Math.min(16, maxCount)];
+        int count = 0;
+        long value = round(minUtcMillis);
+        while (true) {
+            if (count == maxCount) {
+                return null;
+            }
+            values = ArrayUtil.grow(values, count + 1);
+            values[count++] = value;
+            if (value == last) {
+                break;
+            }
+            long next = nextRoundingValue(value);
+            /*
+             * Rounding is monotonic, so all values between two consecutive rounded values round to the lower one as long as
+             * the value just below the upper one does. DST edge cases where this doesn't hold are left to plain rounding.
+             */
+            if (next <= value || next > last || round(next) != next || round(next - 1) != value) {
+                return null;
+            }
+            value = next;
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    /**
+     * A rounding that was prepared for a range of values with {@link #prepare(long, long)}.
+     */
+    @FunctionalInterface
+    public interface Prepared {
+
+        /**
+         * Rounds the given value, see {@link Rounding#round(long)}.
+         */
+        long round(long utcMillis);
+    }
+
+    /**
+     * A {@link Prepared} rounding that looks rounded values up in a sorted array.
+     */
+    static class ArrayRounding implements Prepared {
+
+        private final Rounding delegate;
+        private final long[] values;
+        private final long minUtcMillis;
+        private final long maxUtcMillis;
+
+        ArrayRounding(Rounding delegate, long[] values, long minUtcMillis, long maxUtcMillis) {
+            assert values.length > 0 && values[0] <= minUtcMillis;
+            this.delegate = delegate;
+            this.values = values;
+            this.minUtcMillis = minUtcMillis;
+            this.maxUtcMillis = maxUtcMillis;
+        }
+
+        @Override
+        public long round(long utcMillis) {
+            if (utcMillis < minUtcMillis || utcMillis > maxUtcMillis) {
+                return delegate.round(utcMillis);
+            }
+            int index = Arrays.binarySearch(values, utcMillis);
+            if (index < 0) {
+                // the insertion point is the index of the first rounded value that is greater than the given value
+                index = -2 - index;
+            }
+            return values[index];
+        }
+    }
+
     @Override
     public abstract boolean equals(Object obj);
 
@@ -165,6 +264,15 @@ public abstract class Rounding implements Streamable {
             return rounded;
         }
 
+        @Override
+        public Prepared prepare(long minUtcMillis, long maxUtcMillis) {
+            if (timeZone.isFixed()) {
+                // without transitions, rounding is cheap enough on its own
+                return this::round;
+            }
+            return super.prepare(minUtcMillis, maxUtcMillis);
+        }
+
         @Override
         public long nextRoundingValue(long utcMillis) {
             long floor = round(utcMillis);
@@ -305,6 +413,15 @@ public abstract class Rounding implements Streamable {
             return false;
         }
 
+        @Override
+        public Prepared prepare(long minUtcMillis, long maxUtcMillis) {
+            if (timeZone.isFixed()) {
+                // without transitions, rounding is cheap enough on its own
+                return this::round;
+            }
+            return super.prepare(minUtcMillis, maxUtcMillis);
+        }
+
         @Override
         public long nextRoundingValue(long time) {
             long timeLocal = time;
@@ -68,6 +68,7 @@ import org.elasticsearch.indices.IndexingMemoryController;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.IndicesRequestCache;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.TermsLookupCache;
 import org.elasticsearch.indices.analysis.HunspellService;
 import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -79,6 +80,7 @@ import org.elasticsearch.monitor.jvm.JvmService;
 import org.elasticsearch.monitor.os.OsService;
 import org.elasticsearch.monitor.process.ProcessService;
 import org.elasticsearch.node.Node;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.repositories.fs.FsRepository;
 import org.elasticsearch.rest.BaseRestHandler;
@@ -262,6 +264,9 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     SearchService.DEFAULT_SEARCH_TIMEOUT_SETTING,
                     ElectMasterService.DISCOVERY_ZEN_MINIMUM_MASTER_NODES_SETTING,
                     TransportSearchAction.SHARD_COUNT_LIMIT_SETTING,
+                    TransportSearchAction.HEDGING_ENABLED_SETTING,
+                    TransportSearchAction.HEDGING_MIN_DELAY_SETTING,
+                    TransportSearchAction.HEDGING_MAX_REQUESTS_PER_SECOND_SETTING,
                     RemoteClusterAware.REMOTE_CLUSTERS_SEEDS,
                     RemoteClusterService.REMOTE_CONNECTIONS_PER_CLUSTER,
                     RemoteClusterService.REMOTE_INITIAL_CONNECTION_TIMEOUT_SETTING,
@@ -275,6 +280,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     HierarchyCircuitBreakerService.FIELDDATA_CIRCUIT_BREAKER_TYPE_SETTING,
                     HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_TYPE_SETTING,
                     Transport.TRANSPORT_TCP_COMPRESS,
+                    Transport.TRANSPORT_TCP_COMPRESSION_SCHEME,
                     TcpTransport.HOST,
                     TcpTransport.PUBLISH_HOST,
                     TcpTransport.BIND_HOST,
@@ -294,6 +300,13 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     TcpTransport.CONNECTIONS_PER_NODE_REG,
                     TcpTransport.CONNECTIONS_PER_NODE_STATE,
                     TcpTransport.CONNECTIONS_PER_NODE_PING,
+                    TcpTransport.COMPRESSION_SCHEME_RECOVERY,
+                    TcpTransport.COMPRESSION_SCHEME_BULK,
+                    TcpTransport.COMPRESSION_SCHEME_REG,
+                    TcpTransport.MAX_PENDING_BYTES,
+                    TcpTransport.COALESCE_ENABLED,
+                    TcpTransport.COALESCE_MAX_MESSAGE_SIZE,
+                    TcpTransport.COALESCE_ACTIONS,
                     TcpTransport.PING_SCHEDULE,
                     TcpTransport.TCP_CONNECT_TIMEOUT,
                     NetworkService.NETWORK_SERVER,
@@ -323,6 +336,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     IndicesFieldDataCache.INDICES_FIELDDATA_CACHE_SIZE_KEY,
                     IndicesRequestCache.INDICES_CACHE_QUERY_SIZE,
                     IndicesRequestCache.INDICES_CACHE_QUERY_EXPIRE,
+                    TermsLookupCache.INDICES_TERMS_LOOKUP_CACHE_SIZE,
                     HunspellService.HUNSPELL_LAZY_LOAD,
                     HunspellService.HUNSPELL_IGNORE_CASE,
                     HunspellService.HUNSPELL_DICTIONARY_OPTIONS,
@@ -358,6 +372,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     SearchService.KEEPALIVE_INTERVAL_SETTING,
                     SearchService.MAX_KEEPALIVE_SETTING,
                     SearchService.LOW_LEVEL_CANCELLATION_SETTING,
+                    SearchService.SCROLL_SHARED_READER_MAX_AGE_SETTING,
                     Node.WRITE_PORTS_FILE_SETTING,
                     Node.NODE_NAME_SETTING,
                     Node.NODE_DATA_SETTING,
@@ -413,6 +428,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     FastVectorHighlighter.SETTING_TV_HIGHLIGHT_MULTI_VALUE,
                     Node.BREAKER_TYPE_KEY,
                     OperationRouting.USE_ADAPTIVE_REPLICA_SELECTION_SETTING,
+                    ResponseCollectorService.RESPONSE_TIME_CAP_SETTING,
+                    ResponseCollectorService.STATS_DECAY_INTERVAL_SETTING,
                     IndexGraveyard.SETTING_MAX_TOMBSTONES
             )));
 }
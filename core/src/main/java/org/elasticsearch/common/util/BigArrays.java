@@ -32,6 +32,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /** Utility class to work with arrays. */
 public class BigArrays implements Releasable {
@@ -490,6 +491,58 @@ public class BigArrays implements Releasable {
         return newByteArray(size, true);
     }
 
+    /**
+     * Returns a single page of {@link #BYTE_PAGE_SIZE} bytes, which is recycled if this instance recycles pages. The content of
+     * the page is not cleared and the page must be released once it is not used anymore.
+     */
+    public Recycler.V<byte[]> newBytePage() {
+        adjustBreaker(BYTE_PAGE_SIZE, false);
+        final Recycler.V<byte[]> page;
+        if (recycler != null) {
+            page = recycler.bytePage(false);
+        } else {
+            final byte[] bytes = new byte[BYTE_PAGE_SIZE];
+            page = new Recycler.V<byte[]>() {
+                @Override
+                public byte[] v() {
+                    return bytes;
+                }
+
+                @Override
+                public boolean isRecycled() {
+                    return false;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+        final AtomicBoolean released = new AtomicBoolean();
+        return new Recycler.V<byte[]>() {
+            @Override
+            public byte[] v() {
+                return page.v();
+            }
+
+            @Override
+            public boolean isRecycled() {
+                return page.isRecycled();
+            }
+
+            @Override
+            public void close() {
+                if (released.compareAndSet(false, true)) {
+                    try {
+                        page.close();
+                    } finally {
+                        adjustBreaker(-BYTE_PAGE_SIZE, true);
+                    }
+                }
+            }
+        };
+    }
+
     /** Resize the array to the exact provided size. */
     public ByteArray resize(ByteArray array, long size) {
         if (array instanceof BigByteArray) {
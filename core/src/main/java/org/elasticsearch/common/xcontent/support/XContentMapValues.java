@@ -25,11 +25,15 @@ import org.apache.lucene.util.automaton.CharacterRunAutomaton;
 import org.apache.lucene.util.automaton.Operations;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -164,16 +168,53 @@ public class XContentMapValues {
      */
     public static Function<Map<String, ?>, Map<String, Object>> filter(String[] includes, String[] excludes) {
         CharacterRunAutomaton matchAllAutomaton = new CharacterRunAutomaton(Automata.makeAnyString());
+        CharacterRunAutomaton include = includeAutomaton(includes, matchAllAutomaton);
+        CharacterRunAutomaton exclude = excludeAutomaton(excludes);
 
-        CharacterRunAutomaton include;
+        // NOTE: We cannot use Operations.minus because of the special case that
+        // we want all sub properties to match as soon as an object matches
+
+        return (map) -> filter(map,
+            include, 0,
+            exclude, 0,
+            matchAllAutomaton);
+    }
+
+    /**
+     * Returns a function that copies the object the parser is positioned on (or the next one if the parser
+     * hasn't been advanced yet) to the builder, with the same include and exclude rules as {@link #filter(Map, String[], String[])}.
+     * Properties are copied token by token, so the filtered object is never built as a map.
+     */
+    public static CheckedBiConsumer<XContentParser, XContentBuilder, IOException> streamingFilter(String[] includes, String[] excludes) {
+        CharacterRunAutomaton matchAllAutomaton = new CharacterRunAutomaton(Automata.makeAnyString());
+        CharacterRunAutomaton include = includeAutomaton(includes, matchAllAutomaton);
+        CharacterRunAutomaton exclude = excludeAutomaton(excludes);
+
+        return (parser, builder) -> {
+            XContentParser.Token token = parser.currentToken() == null ? parser.nextToken() : parser.currentToken();
+            if (token != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("expected an object but got [{}]", token);
+            }
+            PendingStructure root = new PendingStructure(null, null, true);
+            filter(parser, builder, root,
+                include, 0,
+                exclude, 0,
+                matchAllAutomaton);
+            root.start(builder);
+            root.end(builder);
+        };
+    }
+
+    private static CharacterRunAutomaton includeAutomaton(String[] includes, CharacterRunAutomaton matchAllAutomaton) {
         if (includes == null || includes.length == 0) {
-            include = matchAllAutomaton;
-        } else {
-            Automaton includeA = Regex.simpleMatchToAutomaton(includes);
-            includeA = makeMatchDotsInFieldNames(includeA);
-            include = new CharacterRunAutomaton(includeA);
+            return matchAllAutomaton;
         }
+        Automaton includeA = Regex.simpleMatchToAutomaton(includes);
+        includeA = makeMatchDotsInFieldNames(includeA);
+        return new CharacterRunAutomaton(includeA);
+    }
 
+    private static CharacterRunAutomaton excludeAutomaton(String[] excludes) {
         Automaton excludeA;
         if (excludes == null || excludes.length == 0) {
             excludeA = Automata.makeEmpty();
@@ -181,15 +222,7 @@ public class XContentMapValues {
             excludeA = Regex.simpleMatchToAutomaton(excludes);
             excludeA = makeMatchDotsInFieldNames(excludeA);
         }
-        CharacterRunAutomaton exclude = new CharacterRunAutomaton(excludeA);
-
-        // NOTE: We cannot use Operations.minus because of the special case that
-        // we want all sub properties to match as soon as an object matches
-
-        return (map) -> filter(map,
-            include, 0,
-            exclude, 0,
-            matchAllAutomaton);
+        return new CharacterRunAutomaton(excludeA);
     }
 
     /** Make matches on objects also match dots in field names.
@@ -314,6 +347,158 @@ public class XContentMapValues {
         return filtered;
     }
 
+    /**
+     * An object or an array of the filtered output that is only written once one of its values is written,
+     * or when it needs to be kept even though it is empty.
+     */
+    private static final class PendingStructure {
+        private final PendingStructure parent;
+        private final String fieldName;
+        private final boolean object;
+        private boolean started;
+
+        PendingStructure(PendingStructure parent, String fieldName, boolean object) {
+            this.parent = parent;
+            this.fieldName = fieldName;
+            this.object = object;
+        }
+
+        void start(XContentBuilder builder) throws IOException {
+            if (started) {
+                return;
+            }
+            if (parent != null) {
+                parent.start(builder);
+            }
+            if (fieldName != null) {
+                builder.field(fieldName);
+            }
+            if (object) {
+                builder.startObject();
+            } else {
+                builder.startArray();
+            }
+            started = true;
+        }
+
+        void end(XContentBuilder builder) throws IOException {
+            if (started) {
+                if (object) {
+                    builder.endObject();
+                } else {
+                    builder.endArray();
+                }
+            }
+        }
+    }
+
+    /** Same as the filtering of a map above, but copies the filtered properties of the object from the parser to the builder. */
+    private static void filter(XContentParser parser, XContentBuilder builder, PendingStructure object,
+            CharacterRunAutomaton includeAutomaton, int initialIncludeState,
+            CharacterRunAutomaton excludeAutomaton, int initialExcludeState,
+            CharacterRunAutomaton matchAllAutomaton) throws IOException {
+        for (XContentParser.Token token = parser.nextToken(); token != XContentParser.Token.END_OBJECT; token = parser.nextToken()) {
+            String key = parser.currentName();
+            token = parser.nextToken();
+
+            int includeState = step(includeAutomaton, key, initialIncludeState);
+            if (includeState == -1) {
+                parser.skipChildren();
+                continue;
+            }
+
+            int excludeState = step(excludeAutomaton, key, initialExcludeState);
+            if (excludeState != -1 && excludeAutomaton.isAccept(excludeState)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            CharacterRunAutomaton subIncludeAutomaton = includeAutomaton;
+            int subIncludeState = includeState;
+            if (includeAutomaton.isAccept(includeState)) {
+                if (excludeState == -1 || excludeAutomaton.step(excludeState, '.') == -1) {
+                    // the exclude has no chances to match inner properties
+                    object.start(builder);
+                    builder.field(key);
+                    builder.copyCurrentStructure(parser);
+                    continue;
+                } else {
+                    // the object matched, so consider that the include matches every inner property
+                    // we only care about excludes now
+                    subIncludeAutomaton = matchAllAutomaton;
+                    subIncludeState = 0;
+                }
+            }
+
+            if (token == XContentParser.Token.START_OBJECT) {
+
+                subIncludeState = subIncludeAutomaton.step(subIncludeState, '.');
+                if (subIncludeState == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (excludeState != -1) {
+                    excludeState = excludeAutomaton.step(excludeState, '.');
+                }
+
+                PendingStructure value = new PendingStructure(object, key, true);
+                filter(parser, builder, value,
+                        subIncludeAutomaton, subIncludeState, excludeAutomaton, excludeState, matchAllAutomaton);
+                if (includeAutomaton.isAccept(includeState)) {
+                    value.start(builder);
+                }
+                value.end(builder);
+
+            } else if (token == XContentParser.Token.START_ARRAY) {
+
+                PendingStructure value = new PendingStructure(object, key, false);
+                filterArray(parser, builder, value,
+                        subIncludeAutomaton, subIncludeState, excludeAutomaton, excludeState, matchAllAutomaton);
+                value.end(builder);
+
+            } else {
+
+                // leaf property
+                if (includeAutomaton.isAccept(includeState)
+                        && (excludeState == -1 || excludeAutomaton.isAccept(excludeState) == false)) {
+                    object.start(builder);
+                    builder.field(key);
+                    builder.copyCurrentStructure(parser);
+                }
+
+            }
+        }
+    }
+
+    /** Same as the filtering of an iterable above, but copies the filtered values of the array from the parser to the builder. */
+    private static void filterArray(XContentParser parser, XContentBuilder builder, PendingStructure array,
+            CharacterRunAutomaton includeAutomaton, int initialIncludeState,
+            CharacterRunAutomaton excludeAutomaton, int initialExcludeState,
+            CharacterRunAutomaton matchAllAutomaton) throws IOException {
+        boolean isInclude = includeAutomaton.isAccept(initialIncludeState);
+        for (XContentParser.Token token = parser.nextToken(); token != XContentParser.Token.END_ARRAY; token = parser.nextToken()) {
+            if (token == XContentParser.Token.START_OBJECT) {
+                int includeState = includeAutomaton.step(initialIncludeState, '.');
+                int excludeState = initialExcludeState;
+                if (excludeState != -1) {
+                    excludeState = excludeAutomaton.step(excludeState, '.');
+                }
+                PendingStructure value = new PendingStructure(array, null, true);
+                filter(parser, builder, value,
+                        includeAutomaton, includeState, excludeAutomaton, excludeState, matchAllAutomaton);
+                value.end(builder);
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                PendingStructure value = new PendingStructure(array, null, false);
+                filterArray(parser, builder, value,
+                        includeAutomaton, initialIncludeState, excludeAutomaton, initialExcludeState, matchAllAutomaton);
+                value.end(builder);
+            } else if (isInclude) {
+                array.start(builder);
+                builder.copyCurrentStructure(parser);
+            }
+        }
+    }
+
     public static boolean isObject(Object node) {
         return node instanceof Map;
     }
@@ -99,6 +99,21 @@ public final class IndexSettings {
     public static final Setting<Integer> MAX_INNER_RESULT_WINDOW_SETTING =
         Setting.intSetting("index.max_inner_result_window", 100, 1, Property.Dynamic, Property.IndexScope);
 
+    /**
+     * Index setting describing on how many threads the inner hits of the hits of a search request may be searched in
+     * parallel. The default of 1 searches them one hit after the other on the thread of the request.
+     */
+    public static final Setting<Integer> INNER_HITS_CONCURRENCY_SETTING =
+        Setting.intSetting("index.inner_hits.concurrency", 1, 1, Property.Dynamic, Property.IndexScope);
+
+    /**
+     * Index setting describing up to which character offset the plain and unified highlighters analyze the text of a field
+     * when they have to re-analyze it to find the matches. Text beyond that offset is not highlighted. The default of -1
+     * analyzes all of the text.
+     */
+    public static final Setting<Integer> MAX_ANALYZED_OFFSET_SETTING =
+        Setting.intSetting("index.highlight.max_analyzed_offset", -1, -1, Property.Dynamic, Property.IndexScope);
+
     /**
      * Index setting describing the maximum value of allowed `script_fields`that can be retrieved
      * per search request. The default maximum of 32 is defensive for the reason that retrieving
@@ -255,6 +270,8 @@ public final class IndexSettings {
     private volatile boolean warmerEnabled;
     private volatile int maxResultWindow;
     private volatile int maxInnerResultWindow;
+    private volatile int innerHitsConcurrency;
+    private volatile int maxAnalyzedOffset;
     private volatile int maxAdjacencyMatrixFilters;
     private volatile int maxRescoreWindow;
     private volatile int maxDocvalueFields;
@@ -360,6 +377,8 @@ public final class IndexSettings {
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
         maxResultWindow = scopedSettings.get(MAX_RESULT_WINDOW_SETTING);
         maxInnerResultWindow = scopedSettings.get(MAX_INNER_RESULT_WINDOW_SETTING);
+        innerHitsConcurrency = scopedSettings.get(INNER_HITS_CONCURRENCY_SETTING);
+        maxAnalyzedOffset = scopedSettings.get(MAX_ANALYZED_OFFSET_SETTING);
         maxAdjacencyMatrixFilters = scopedSettings.get(MAX_ADJACENCY_MATRIX_FILTERS_SETTING);
         maxRescoreWindow = scopedSettings.get(MAX_RESCORE_WINDOW_SETTING);
         maxDocvalueFields = scopedSettings.get(MAX_DOCVALUE_FIELDS_SEARCH_SETTING);
@@ -393,6 +412,8 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(INDEX_TTL_DISABLE_PURGE_SETTING, this::setTTLPurgeDisabled);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESULT_WINDOW_SETTING, this::setMaxResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_INNER_RESULT_WINDOW_SETTING, this::setMaxInnerResultWindow);
+        scopedSettings.addSettingsUpdateConsumer(INNER_HITS_CONCURRENCY_SETTING, this::setInnerHitsConcurrency);
+        scopedSettings.addSettingsUpdateConsumer(MAX_ANALYZED_OFFSET_SETTING, this::setMaxAnalyzedOffset);
         scopedSettings.addSettingsUpdateConsumer(MAX_ADJACENCY_MATRIX_FILTERS_SETTING, this::setMaxAdjacencyMatrixFilters);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESCORE_WINDOW_SETTING, this::setMaxRescoreWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_DOCVALUE_FIELDS_SEARCH_SETTING, this::setMaxDocvalueFields);
@@ -634,6 +655,28 @@ public final class IndexSettings {
         this.maxInnerResultWindow = maxInnerResultWindow;
     }
 
+    /**
+     * Returns on how many threads the inner hits of the hits of a search request may be searched in parallel.
+     */
+    public int getInnerHitsConcurrency() {
+        return innerHitsConcurrency;
+    }
+
+    private void setInnerHitsConcurrency(int innerHitsConcurrency) {
+        this.innerHitsConcurrency = innerHitsConcurrency;
+    }
+
+    /**
+     * Returns up to which character offset highlighters analyze the text of a field, or -1 if they analyze all of it.
+     */
+    public int getMaxAnalyzedOffset() {
+        return maxAnalyzedOffset;
+    }
+
+    private void setMaxAnalyzedOffset(int maxAnalyzedOffset) {
+        this.maxAnalyzedOffset = maxAnalyzedOffset;
+    }
+
     /**
      * Returns the max number of filters in adjacency_matrix aggregation search requests
      */
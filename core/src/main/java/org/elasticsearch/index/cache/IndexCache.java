@@ -23,6 +23,7 @@ import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
+import org.elasticsearch.index.cache.docfreq.DocFrequencyCache;
 import org.elasticsearch.index.cache.query.QueryCache;
 
 import java.io.Closeable;
@@ -32,11 +33,14 @@ public class IndexCache extends AbstractIndexComponent implements Closeable {
 
     private final QueryCache queryCache;
     private final BitsetFilterCache bitsetFilterCache;
+    private final DocFrequencyCache docFrequencyCache;
 
-    public IndexCache(IndexSettings indexSettings, QueryCache queryCache, BitsetFilterCache bitsetFilterCache) {
+    public IndexCache(IndexSettings indexSettings, QueryCache queryCache, BitsetFilterCache bitsetFilterCache,
+                      DocFrequencyCache docFrequencyCache) {
         super(indexSettings);
         this.queryCache = queryCache;
         this.bitsetFilterCache = bitsetFilterCache;
+        this.docFrequencyCache = docFrequencyCache;
     }
 
     public QueryCache query() {
@@ -50,14 +54,22 @@ public class IndexCache extends AbstractIndexComponent implements Closeable {
         return bitsetFilterCache;
     }
 
+    /**
+     * Return the {@link DocFrequencyCache} for this index.
+     */
+    public DocFrequencyCache docFrequencyCache() {
+        return docFrequencyCache;
+    }
+
     @Override
     public void close() throws IOException {
-        IOUtils.close(queryCache, bitsetFilterCache);
+        IOUtils.close(queryCache, bitsetFilterCache, docFrequencyCache);
     }
 
     public void clear(String reason) {
         queryCache.clear(reason);
         bitsetFilterCache.clear(reason);
+        docFrequencyCache.clear(reason);
     }
 
 }
@@ -0,0 +1,128 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.cache.docfreq;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.index.AbstractIndexComponent;
+import org.elasticsearch.index.IndexSettings;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A cache for the number of documents of a top-level reader that match a query, optionally within a background filter,
+ * such as the background frequencies of the terms of {@code significant_terms} aggregations. Entries are kept per reader
+ * in a least recently used cache of bounded size, so that they are shared across requests until the reader is closed.
+ */
+public final class DocFrequencyCache extends AbstractIndexComponent implements IndexReader.ClosedListener, Closeable {
+
+    public static final Setting<Integer> INDEX_DOC_FREQUENCY_CACHE_SIZE_SETTING =
+        Setting.intSetting("index.cache.doc_frequency.size", 10000, 0, Property.IndexScope);
+
+    private final int size;
+    private final Cache<IndexReader.CacheKey, Cache<Key, Long>> docFrequencies;
+
+    public DocFrequencyCache(IndexSettings indexSettings) {
+        super(indexSettings);
+        this.size = indexSettings.getValue(INDEX_DOC_FREQUENCY_CACHE_SIZE_SETTING);
+        this.docFrequencies = CacheBuilder.<IndexReader.CacheKey, Cache<Key, Long>>builder().build();
+    }
+
+    /**
+     * Returns the number of documents of the reader that match the query and the filter, which the loader computes
+     * on cache misses. Readers that wrap the reader of the shard, for instance to hide some of its documents, bypass
+     * the cache since they may not count the same documents.
+     */
+    public long getDocFrequency(IndexReader reader, Query query, @Nullable Query filter,
+                                CheckedSupplier<Long, IOException> loader) throws IOException {
+        final IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
+        if (size == 0 || reader instanceof ElasticsearchDirectoryReader == false || cacheHelper == null) {
+            return loader.get();
+        }
+        try {
+            Cache<Key, Long> readerDocFrequencies = docFrequencies.computeIfAbsent(cacheHelper.getKey(), key -> {
+                cacheHelper.addClosedListener(DocFrequencyCache.this);
+                return CacheBuilder.<Key, Long>builder().setMaximumWeight(size).build();
+            });
+            return readerDocFrequencies.computeIfAbsent(new Key(query, filter), key -> loader.get());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw ExceptionsHelper.convertToElastic(e);
+        }
+    }
+
+    @Override
+    public void onClose(IndexReader.CacheKey ownerCacheKey) {
+        docFrequencies.invalidate(ownerCacheKey);
+    }
+
+    @Override
+    public void close() {
+        clear("close");
+    }
+
+    public void clear(String reason) {
+        logger.debug("clearing all doc frequencies because [{}]", reason);
+        docFrequencies.invalidateAll();
+    }
+
+    /**
+     * The number of readers that have cached doc frequencies.
+     */
+    int numberOfReaders() {
+        return docFrequencies.count();
+    }
+
+    private static final class Key {
+        final Query query;
+        @Nullable
+        final Query filter;
+
+        Key(Query query, @Nullable Query filter) {
+            this.query = Objects.requireNonNull(query);
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return query.equals(key.query) && Objects.equals(filter, key.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, filter);
+        }
+    }
+}
@@ -75,6 +75,7 @@ import java.io.Closeable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Comparator;
@@ -500,6 +501,45 @@ public abstract class Engine implements Closeable {
 
     public abstract GetResult get(Get get, BiFunction<String, SearcherScope, Searcher> searcherFactory) throws EngineException;
 
+    /**
+     * Looks up the documents of all the given gets, which must all be realtime or not, with a single searcher. Unlike
+     * {@link #get(Get, BiFunction)} this doesn't check the versions of the documents for conflicts.
+     */
+    public abstract MultiGetResult multiGet(List<Get> gets, BiFunction<String, SearcherScope, Searcher> searcherFactory)
+        throws EngineException;
+
+    /**
+     * Looks up the documents of the given gets with a single searcher. The gets that already have a result are skipped.
+     */
+    protected final MultiGetResult multiGetFromSearcher(List<Get> gets, GetResult[] results,
+                                                        BiFunction<String, SearcherScope, Searcher> searcherFactory,
+                                                        SearcherScope scope) throws EngineException {
+        final Searcher searcher = searcherFactory.apply("get", scope);
+        try {
+            final List<Term> uids = new ArrayList<>(gets.size());
+            final int[] slots = new int[gets.size()];
+            for (int i = 0; i < gets.size(); i++) {
+                if (results[i] == null) {
+                    slots[uids.size()] = i;
+                    uids.add(gets.get(i).uid());
+                }
+            }
+            final DocIdAndVersion[] docIdsAndVersions = VersionsAndSeqNoResolver.loadDocIdsAndVersions(searcher.reader(), uids);
+            for (int i = 0; i < docIdsAndVersions.length; i++) {
+                if (docIdsAndVersions[i] == null) {
+                    results[slots[i]] = GetResult.NOT_EXISTS;
+                } else {
+                    // the searcher is released by the multi get result
+                    results[slots[i]] = new GetResult(null, docIdsAndVersions[i]);
+                }
+            }
+        } catch (Exception e) {
+            Releasables.closeWhileHandlingException(searcher);
+            throw new GetFailedEngineException(shardId, e);
+        }
+        return new MultiGetResult(searcher, results);
+    }
+
 
     /**
      * Returns a new searcher instance. The consumer of this
@@ -1337,6 +1377,35 @@ public abstract class Engine implements Closeable {
         }
     }
 
+    /**
+     * The results of a {@link #multiGet(List, BiFunction)}, which share a single searcher that is released with this instance.
+     */
+    public static class MultiGetResult implements Releasable {
+        private final Searcher searcher;
+        private final GetResult[] results;
+
+        MultiGetResult(Searcher searcher, GetResult[] results) {
+            this.searcher = searcher;
+            this.results = results;
+        }
+
+        /**
+         * The result of the get at the given position of the request.
+         */
+        public GetResult get(int index) {
+            return results[index];
+        }
+
+        public int size() {
+            return results.length;
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(searcher);
+        }
+    }
+
     protected abstract ReferenceManager<IndexSearcher> getSearcherManager(String source, SearcherScope scope);
 
     /**
@@ -582,6 +582,41 @@ public class InternalEngine extends Engine {
         }
     }
 
+    @Override
+    public MultiGetResult multiGet(List<Get> gets, BiFunction<String, SearcherScope, Searcher> searcherFactory) throws EngineException {
+        final boolean realtime = gets.isEmpty() == false && gets.get(0).realtime();
+        assert gets.stream().allMatch(get -> get.realtime() == realtime) : "gets must all be realtime or not";
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            final GetResult[] results = new GetResult[gets.size()];
+            SearcherScope scope;
+            if (realtime) {
+                boolean refresh = false;
+                for (int i = 0; i < gets.size(); i++) {
+                    final Get get = gets.get(i);
+                    assert Objects.equals(get.uid().field(), uidField) : get.uid().field();
+                    VersionValue versionValue = versionMap.getUnderLock(get.uid());
+                    if (versionValue != null) {
+                        if (versionValue.isDelete()) {
+                            results[i] = GetResult.NOT_EXISTS;
+                        } else {
+                            refresh = true;
+                        }
+                    }
+                }
+                if (refresh) {
+                    // a single refresh makes all the pending changes of the requested documents visible
+                    refresh("realtime_get", SearcherScope.INTERNAL);
+                }
+                scope = SearcherScope.INTERNAL;
+            } else {
+                // we expose what has been externally expose in a point in time snapshot via an explicit refresh
+                scope = SearcherScope.EXTERNAL;
+            }
+            return multiGetFromSearcher(gets, results, searcherFactory, scope);
+        }
+    }
+
     /**
      * the status of the current doc version in lucene, compared to the version in an incoming
      * operation
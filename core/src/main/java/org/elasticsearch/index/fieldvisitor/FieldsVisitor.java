@@ -19,6 +19,7 @@
 package org.elasticsearch.index.fieldvisitor;
 
 import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.BytesArray;
@@ -191,6 +192,16 @@ public class FieldsVisitor extends StoredFieldVisitor {
         }
     }
 
+    /**
+     * Resets this visitor for a document of the segment with the given field infos. The metadata fields that no document of the
+     * segment has are not waited for, so that the visitor stops right after the fields it needs instead of skipping over all other
+     * stored fields of the document, including <code>_source</code> when it isn't loaded.
+     */
+    public void reset(FieldInfos fieldInfos) {
+        reset();
+        requiredFields.removeIf(field -> fieldInfos.fieldInfo(field) == null);
+    }
+
     void addValue(String name, Object value) {
         if (fieldsValues == null) {
             fieldsValues = new HashMap<>();
@@ -20,6 +20,7 @@
 package org.elasticsearch.index.get;
 
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.document.DocumentField;
@@ -31,6 +32,7 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.io.IOException;
@@ -58,6 +60,8 @@ public class GetResult implements Streamable, Iterable<DocumentField>, ToXConten
     private String type;
     private String id;
     private long version;
+    private long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
+    private long primaryTerm = 0;
     private boolean exists;
     private Map<String, DocumentField> fields;
     private Map<String, Object> sourceAsMap;
@@ -69,10 +73,17 @@ public class GetResult implements Streamable, Iterable<DocumentField>, ToXConten
 
     public GetResult(String index, String type, String id, long version, boolean exists, BytesReference source,
                      Map<String, DocumentField> fields) {
+        this(index, type, id, version, SequenceNumbers.UNASSIGNED_SEQ_NO, 0, exists, source, fields);
+    }
+
+    public GetResult(String index, String type, String id, long version, long seqNo, long primaryTerm, boolean exists,
+                     BytesReference source, Map<String, DocumentField> fields) {
         this.index = index;
         this.type = type;
         this.id = id;
         this.version = version;
+        this.seqNo = seqNo;
+        this.primaryTerm = primaryTerm;
         this.exists = exists;
         this.source = source;
         this.fields = fields;
@@ -116,6 +127,20 @@ public class GetResult implements Streamable, Iterable<DocumentField>, ToXConten
         return version;
     }
 
+    /**
+     * The sequence number of the last operation on the doc, or {@link SequenceNumbers#UNASSIGNED_SEQ_NO} if it is unknown.
+     */
+    public long getSeqNo() {
+        return seqNo;
+    }
+
+    /**
+     * The primary term of the last operation on the doc, or <code>0</code> if it is unknown.
+     */
+    public long getPrimaryTerm() {
+        return primaryTerm;
+    }
+
     /**
      * The source of the document if exists.
      */
@@ -335,6 +360,10 @@ public class GetResult implements Streamable, Iterable<DocumentField>, ToXConten
         type = in.readOptionalString();
         id = in.readString();
         version = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            seqNo = in.readZLong();
+            primaryTerm = in.readVLong();
+        }
         exists = in.readBoolean();
         if (exists) {
             source = in.readBytesReference();
@@ -360,6 +389,10 @@ public class GetResult implements Streamable, Iterable<DocumentField>, ToXConten
         out.writeOptionalString(type);
         out.writeString(id);
         out.writeLong(version);
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeZLong(seqNo);
+            out.writeVLong(primaryTerm);
+        }
         out.writeBoolean(exists);
         if (exists) {
             out.writeBytesReference(source);
@@ -19,42 +19,53 @@
 
 package org.elasticsearch.index.get;
 
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.Term;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.get.MultiGetRequest;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.document.DocumentField;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndVersion;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.util.set.Sets;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
-import org.elasticsearch.common.xcontent.XContentType;
-import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.ParentFieldMapper;
+import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.search.fetch.subphase.ParentFieldSubFetchPhase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
 
 public final class ShardGetService extends AbstractIndexShardComponent {
     private final MapperService mapperService;
@@ -91,6 +102,100 @@ public final class ShardGetService extends AbstractIndexShardComponent {
         }
     }
 
+    /**
+     * Gets the documents of a multi get with a single searcher: the ids are looked up in term order and the stored fields are loaded
+     * in doc id order. Items whose type can't be resolved up front fall back to {@link #get}. The result or failure of each item
+     * is passed with the item's position to the given consumers, in no particular order.
+     */
+    public void multiGet(List<MultiGetRequest.Item> items, boolean realtime, BiConsumer<Integer, GetResult> onResult,
+                         BiConsumer<Integer, Exception> onFailure) {
+        final List<Engine.Get> gets = new ArrayList<>(items.size());
+        final List<Integer> slots = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            MultiGetRequest.Item item = items.get(i);
+            String type = resolveType(item.type());
+            Term uidTerm = type == null ? null : mapperService.createUidTerm(type, item.id());
+            if (uidTerm == null) {
+                // the type is ambiguous or unknown
+                try {
+                    onResult.accept(i, get(item.type(), item.id(), item.storedFields(), realtime, item.version(), item.versionType(),
+                        item.fetchSourceContext()));
+                } catch (Exception e) {
+                    onFailure.accept(i, e);
+                }
+                continue;
+            }
+            gets.add(new Engine.Get(realtime, type, item.id(), uidTerm).version(item.version()).versionType(item.versionType()));
+            slots.add(i);
+        }
+        if (gets.isEmpty()) {
+            return;
+        }
+
+        currentMetric.inc(gets.size());
+        try {
+            final long lookupStart = System.nanoTime();
+            final Engine.MultiGetResult multiGetResult;
+            try {
+                multiGetResult = indexShard.multiGet(gets);
+            } catch (Exception e) {
+                for (int slot : slots) {
+                    onFailure.accept(slot, e);
+                }
+                return;
+            }
+            // every item is charged an equal share of the batched lookup and the time it took to load its own document
+            final long lookupShare = (System.nanoTime() - lookupStart) / gets.size();
+            try (Engine.MultiGetResult results = multiGetResult) {
+                // load the stored fields in doc id order
+                final Integer[] order = IntStream.range(0, results.size()).boxed().toArray(Integer[]::new);
+                Arrays.sort(order, Comparator.comparingInt(j -> {
+                    DocIdAndVersion docIdAndVersion = results.get(j).docIdAndVersion();
+                    return docIdAndVersion == null ? -1 : docIdAndVersion.context.docBase + docIdAndVersion.docId;
+                }));
+                for (int j : order) {
+                    final long now = System.nanoTime();
+                    final int slot = slots.get(j);
+                    final MultiGetRequest.Item item = items.get(slot);
+                    final Engine.Get get = gets.get(j);
+                    final Engine.GetResult engineGetResult = results.get(j);
+                    try {
+                        if (engineGetResult.exists() == false) {
+                            missingMetric.inc(lookupShare + System.nanoTime() - now);
+                            onResult.accept(slot, new GetResult(shardId.getIndexName(), get.type(), get.id(), -1, false, null, null));
+                            continue;
+                        }
+                        if (get.versionType().isVersionConflictForReads(engineGetResult.version(), get.version())) {
+                            throw new VersionConflictEngineException(shardId, get.type(), get.id(),
+                                get.versionType().explainConflictForReads(engineGetResult.version(), get.version()));
+                        }
+                        FetchSourceContext fetchSourceContext = normalizeFetchSourceContent(item.fetchSourceContext(), item.storedFields());
+                        GetResult getResult = innerGetLoadFromStoredFields(get.type(), get.id(), item.storedFields(), fetchSourceContext,
+                            engineGetResult, mapperService);
+                        existsMetric.inc(lookupShare + System.nanoTime() - now);
+                        onResult.accept(slot, getResult);
+                    } catch (Exception e) {
+                        onFailure.accept(slot, e);
+                    }
+                }
+            }
+        } finally {
+            currentMetric.dec(gets.size());
+        }
+    }
+
+    /**
+     * Returns the only type that a document of the given type can have, or <code>null</code> if it may have several types.
+     */
+    @Nullable
+    private String resolveType(@Nullable String type) {
+        if (type == null || type.equals("_all")) {
+            Collection<String> types = mapperService.types();
+            return types.size() == 1 ? types.iterator().next() : null;
+        }
+        return type;
+    }
+
     /**
      * Returns {@link GetResult} based on the specified {@link org.elasticsearch.index.engine.Engine.GetResult} argument.
      * This method basically loads specified fields for the associated document in the engineGetResult.
@@ -218,22 +323,39 @@ public final class ShardGetService extends AbstractIndexShardComponent {
 
         if (!fetchSourceContext.fetchSource()) {
             source = null;
-        } else if (fetchSourceContext.includes().length > 0 || fetchSourceContext.excludes().length > 0) {
-            Map<String, Object> sourceAsMap;
-            XContentType sourceContentType = null;
-            // TODO: The source might parsed and available in the sourceLookup but that one uses unordered maps so different. Do we care?
-            Tuple<XContentType, Map<String, Object>> typeMapTuple = XContentHelper.convertToMap(source, true);
-            sourceContentType = typeMapTuple.v1();
-            sourceAsMap = typeMapTuple.v2();
-            sourceAsMap = XContentMapValues.filter(sourceAsMap, fetchSourceContext.includes(), fetchSourceContext.excludes());
-            try {
-                source = XContentFactory.contentBuilder(sourceContentType).map(sourceAsMap).bytes();
+        } else if (source != null && (fetchSourceContext.includes().length > 0 || fetchSourceContext.excludes().length > 0)) {
+            // the source may be disabled in the mapping
+            try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY, source)) {
+                XContentBuilder builder = XContentFactory.contentBuilder(parser.contentType());
+                fetchSourceContext.getStreamingFilter().accept(parser, builder);
+                source = builder.bytes();
             } catch (IOException e) {
                 throw new ElasticsearchException("Failed to get type [" + type + "] and id [" + id + "] with includes/excludes set", e);
             }
         }
 
-        return new GetResult(shardId.getIndexName(), type, id, get.version(), get.exists(), source, fields);
+        final long seqNo;
+        final long primaryTerm;
+        try {
+            seqNo = loadNumericDocValue(docIdAndVersion, SeqNoFieldMapper.NAME, SequenceNumbers.UNASSIGNED_SEQ_NO);
+            primaryTerm = loadNumericDocValue(docIdAndVersion, SeqNoFieldMapper.PRIMARY_TERM_NAME, 0);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to get type [" + type + "] and id [" + id + "]", e);
+        }
+        return new GetResult(shardId.getIndexName(), type, id, get.version(), seqNo, primaryTerm, get.exists(), source, fields);
+    }
+
+    /**
+     * Loads the value of a numeric doc values field of the doc, or returns the given missing value if the doc has none, for instance
+     * because it was indexed before sequence numbers were introduced.
+     */
+    private static long loadNumericDocValue(DocIdAndVersion docIdAndVersion, String field, long missingValue) throws IOException {
+        LeafReader reader = docIdAndVersion.context.reader();
+        NumericDocValues values = reader.getNumericDocValues(field);
+        if (values != null && values.advanceExact(docIdAndVersion.docId)) {
+            return values.longValue();
+        }
+        return missingValue;
     }
 
     private static FieldsVisitor buildFieldsVisitors(String[] fields, FetchSourceContext fetchSourceContext) {
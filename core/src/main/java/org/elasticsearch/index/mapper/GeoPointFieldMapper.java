@@ -19,7 +19,9 @@
 package org.elasticsearch.index.mapper;
 
 import org.apache.lucene.document.LatLonDocValuesField;
+import org.apache.lucene.geo.GeoEncodingUtils;
 import org.apache.lucene.document.LatLonPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableField;
@@ -30,10 +32,12 @@ import org.apache.lucene.search.TermQuery;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Explicit;
 import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.common.geo.GeoTileUtils;
 import org.elasticsearch.common.geo.GeoUtils;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.plain.AbstractLatLonPointDVIndexFieldData;
 import org.elasticsearch.index.query.QueryShardContext;
@@ -41,9 +45,11 @@ import org.elasticsearch.index.query.QueryShardException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import static org.elasticsearch.index.mapper.TypeParsers.parseField;
 
@@ -54,9 +60,11 @@ import static org.elasticsearch.index.mapper.TypeParsers.parseField;
  */
 public class GeoPointFieldMapper extends FieldMapper implements ArrayValueMapperParser {
     public static final String CONTENT_TYPE = "geo_point";
+    public static final String GEOTILE_FIELD_SUFFIX = "._geotile";
 
     public static class Names {
         public static final String IGNORE_MALFORMED = "ignore_malformed";
+        public static final String GEOTILE_PRECISIONS = "geotile_precisions";
     }
 
     public static class Defaults {
@@ -84,6 +92,19 @@ public class GeoPointFieldMapper extends FieldMapper implements ArrayValueMapper
             return builder;
         }
 
+        /**
+         * Index the ids of the web mercator tiles that contain each point at the given zoom levels, so that {@code geotile_grid}
+         * aggregations at these zoom levels can read them rather than computing them at search time.
+         */
+        public Builder geoTilePrecisions(int... precisions) {
+            for (int precision : precisions) {
+                GeoTileUtils.checkPrecisionRange(precision);
+            }
+            int[] sorted = Arrays.stream(precisions).distinct().sorted().toArray();
+            ((GeoPointFieldType) fieldType).setGeoTilePrecisions(sorted);
+            return builder;
+        }
+
         protected Explicit<Boolean> ignoreMalformed(BuilderContext context) {
             if (ignoreMalformed != null) {
                 return new Explicit<>(ignoreMalformed, true);
@@ -125,6 +146,13 @@ public class GeoPointFieldMapper extends FieldMapper implements ArrayValueMapper
                 if (propName.equals(Names.IGNORE_MALFORMED)) {
                     builder.ignoreMalformed(TypeParsers.nodeBooleanValue(name, Names.IGNORE_MALFORMED, propNode, parserContext));
                     iterator.remove();
+                } else if (propName.equals(Names.GEOTILE_PRECISIONS)) {
+                    if (propNode instanceof List) {
+                        builder.geoTilePrecisions(((List<?>) propNode).stream().mapToInt(XContentMapValues::nodeIntegerValue).toArray());
+                    } else {
+                        builder.geoTilePrecisions(XContentMapValues.nodeIntegerValue(propNode));
+                    }
+                    iterator.remove();
                 }
             }
 
@@ -150,6 +178,11 @@ public class GeoPointFieldMapper extends FieldMapper implements ArrayValueMapper
         }
     }
 
+    @Override
+    public GeoPointFieldType fieldType() {
+        return (GeoPointFieldType) super.fieldType();
+    }
+
     @Override
     protected String contentType() {
         return CONTENT_TYPE;
@@ -161,11 +194,14 @@ public class GeoPointFieldMapper extends FieldMapper implements ArrayValueMapper
     }
 
     public static class GeoPointFieldType extends MappedFieldType {
+        private int[] geoTilePrecisions = new int[0];
+
         public GeoPointFieldType() {
         }
 
         GeoPointFieldType(GeoPointFieldType ref) {
             super(ref);
+            this.geoTilePrecisions = ref.geoTilePrecisions;
         }
 
         @Override
@@ -178,6 +214,53 @@ public class GeoPointFieldMapper extends FieldMapper implements ArrayValueMapper
             return new GeoPointFieldType(this);
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (!super.equals(o)) return false;
+            GeoPointFieldType that = (GeoPointFieldType) o;
+            return Arrays.equals(geoTilePrecisions, that.geoTilePrecisions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(super.hashCode(), Arrays.hashCode(geoTilePrecisions));
+        }
+
+        @Override
+        public void checkCompatibility(MappedFieldType fieldType, List<String> conflicts, boolean strict) {
+            super.checkCompatibility(fieldType, conflicts, strict);
+            GeoPointFieldType other = (GeoPointFieldType) fieldType;
+            if (Arrays.equals(geoTilePrecisions, other.geoTilePrecisions) == false) {
+                conflicts.add("mapper [" + name() + "] has different [" + Names.GEOTILE_PRECISIONS + "] values");
+            }
+        }
+
+        /**
+         * The sorted zoom levels at which the tiles of the points are indexed.
+         */
+        public int[] geoTilePrecisions() {
+            return geoTilePrecisions;
+        }
+
+        public void setGeoTilePrecisions(int[] geoTilePrecisions) {
+            checkIfFrozen();
+            this.geoTilePrecisions = geoTilePrecisions;
+        }
+
+        /**
+         * Whether the tiles of the points are indexed at the given zoom level.
+         */
+        public boolean hasGeoTilePrecision(int precision) {
+            return Arrays.binarySearch(geoTilePrecisions, precision) >= 0;
+        }
+
+        /**
+         * The name of the doc values field that holds the tiles of the points at all indexed zoom levels.
+         */
+        public String geoTileFieldName() {
+            return name() + GEOTILE_FIELD_SUFFIX;
+        }
+
         @Override
         public IndexFieldData.Builder fielddataBuilder(String fullyQualifiedIndexName) {
             failIfNoDocValues();
@@ -220,6 +303,16 @@ public class GeoPointFieldMapper extends FieldMapper implements ArrayValueMapper
         }
         if (fieldType.hasDocValues()) {
             context.doc().add(new LatLonDocValuesField(fieldType().name(), point.lat(), point.lon()));
+            int[] geoTilePrecisions = fieldType().geoTilePrecisions();
+            if (geoTilePrecisions.length > 0) {
+                // computed from the quantized point of the doc values, so that tiles are the same as those computed at search time
+                double lat = GeoEncodingUtils.decodeLatitude(GeoEncodingUtils.encodeLatitude(point.lat()));
+                double lon = GeoEncodingUtils.decodeLongitude(GeoEncodingUtils.encodeLongitude(point.lon()));
+                for (int precision : geoTilePrecisions) {
+                    context.doc().add(new SortedNumericDocValuesField(fieldType().geoTileFieldName(),
+                        GeoTileUtils.longEncode(lon, lat, precision)));
+                }
+            }
         } else if (fieldType().stored() || fieldType().indexOptions() != IndexOptions.NONE) {
             List<IndexableField> fields = new ArrayList<>(1);
             createFieldNamesField(context, fields);
@@ -314,5 +407,8 @@ public class GeoPointFieldMapper extends FieldMapper implements ArrayValueMapper
         if (includeDefaults || ignoreMalformed.explicit()) {
             builder.field(GeoPointFieldMapper.Names.IGNORE_MALFORMED, ignoreMalformed.value());
         }
+        if (includeDefaults || fieldType().geoTilePrecisions().length > 0) {
+            builder.array(GeoPointFieldMapper.Names.GEOTILE_PRECISIONS, fieldType().geoTilePrecisions());
+        }
     }
 }
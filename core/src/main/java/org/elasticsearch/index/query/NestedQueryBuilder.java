@@ -370,48 +370,38 @@ public class NestedQueryBuilder extends AbstractQueryBuilder<NestedQueryBuilder>
         }
 
         @Override
-        public TopDocs[] topDocs(SearchHit[] hits) throws IOException {
-            Weight innerHitQueryWeight = createInnerHitQueryWeight();
-            TopDocs[] result = new TopDocs[hits.length];
-            for (int i = 0; i < hits.length; i++) {
-                SearchHit hit = hits[i];
-                Query rawParentFilter;
-                if (parentObjectMapper == null) {
-                    rawParentFilter = Queries.newNonNestedFilter();
-                } else {
-                    rawParentFilter = parentObjectMapper.nestedTypeFilter();
-                }
+        protected TopDocs topDocs(SearchHit hit, Weight innerHitQueryWeight) throws IOException {
+            Query rawParentFilter;
+            if (parentObjectMapper == null) {
+                rawParentFilter = Queries.newNonNestedFilter();
+            } else {
+                rawParentFilter = parentObjectMapper.nestedTypeFilter();
+            }
 
-                int parentDocId = hit.docId();
-                final int readerIndex = ReaderUtil.subIndex(parentDocId, searcher().getIndexReader().leaves());
-                // With nested inner hits the nested docs are always in the same segement, so need to use the other segments
-                LeafReaderContext ctx = searcher().getIndexReader().leaves().get(readerIndex);
-
-                Query childFilter = childObjectMapper.nestedTypeFilter();
-                BitSetProducer parentFilter = context.bitsetFilterCache().getBitSetProducer(rawParentFilter);
-                Query q = new ParentChildrenBlockJoinQuery(parentFilter, childFilter, parentDocId);
-                Weight weight = context.searcher().createNormalizedWeight(q, false);
-                if (size() == 0) {
-                    TotalHitCountCollector totalHitCountCollector = new TotalHitCountCollector();
-                    intersect(weight, innerHitQueryWeight, totalHitCountCollector, ctx);
-                    result[i] = new TopDocs(totalHitCountCollector.getTotalHits(), Lucene.EMPTY_SCORE_DOCS, 0);
+            int parentDocId = hit.docId();
+            final int readerIndex = ReaderUtil.subIndex(parentDocId, searcher().getIndexReader().leaves());
+            // With nested inner hits the nested docs are always in the same segement, so need to use the other segments
+            LeafReaderContext ctx = searcher().getIndexReader().leaves().get(readerIndex);
+
+            Query childFilter = childObjectMapper.nestedTypeFilter();
+            BitSetProducer parentFilter = context.bitsetFilterCache().getBitSetProducer(rawParentFilter);
+            Query q = new ParentChildrenBlockJoinQuery(parentFilter, childFilter, parentDocId);
+            Weight weight = context.searcher().createNormalizedWeight(q, false);
+            if (size() == 0) {
+                TotalHitCountCollector totalHitCountCollector = new TotalHitCountCollector();
+                intersect(weight, innerHitQueryWeight, totalHitCountCollector, ctx);
+                return new TopDocs(totalHitCountCollector.getTotalHits(), Lucene.EMPTY_SCORE_DOCS, 0);
+            } else {
+                int topN = Math.min(from() + size(), context.searcher().getIndexReader().maxDoc());
+                TopDocsCollector<?> topDocsCollector;
+                if (sort() != null) {
+                    topDocsCollector = TopFieldCollector.create(sort().sort, topN, true, trackScores(), trackScores());
                 } else {
-                    int topN = Math.min(from() + size(), context.searcher().getIndexReader().maxDoc());
-                    TopDocsCollector<?> topDocsCollector;
-                    if (sort() != null) {
-                        topDocsCollector = TopFieldCollector.create(sort().sort, topN, true, trackScores(), trackScores());
-                    } else {
-                        topDocsCollector = TopScoreDocCollector.create(topN);
-                    }
-                    try {
-                        intersect(weight, innerHitQueryWeight, topDocsCollector, ctx);
-                    } finally {
-                        clearReleasables(Lifetime.COLLECTION);
-                    }
-                    result[i] = topDocsCollector.topDocs(from(), size());
+                    topDocsCollector = TopScoreDocCollector.create(topN);
                 }
+                intersect(weight, innerHitQueryWeight, topDocsCollector, ctx);
+                return topDocsCollector.topDocs(from(), size());
             }
-            return result;
         }
     }
 }
@@ -20,10 +20,12 @@ package org.elasticsearch.index.query;
 
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.indices.TermsLookupCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -38,16 +40,24 @@ public class QueryRewriteContext {
     private final NamedWriteableRegistry writeableRegistry;
     protected final Client client;
     protected final LongSupplier nowInMillis;
+    private final TermsLookupCache termsLookupCache;
     private final List<BiConsumer<Client, ActionListener<?>>> asyncActions = new ArrayList<>();
 
     public QueryRewriteContext(
             NamedXContentRegistry xContentRegistry, NamedWriteableRegistry writeableRegistry,Client client,
             LongSupplier nowInMillis) {
+        this(xContentRegistry, writeableRegistry, client, nowInMillis, null);
+    }
+
+    public QueryRewriteContext(
+            NamedXContentRegistry xContentRegistry, NamedWriteableRegistry writeableRegistry, Client client,
+            LongSupplier nowInMillis, @Nullable TermsLookupCache termsLookupCache) {
 
         this.xContentRegistry = xContentRegistry;
         this.writeableRegistry = writeableRegistry;
         this.client = client;
         this.nowInMillis = nowInMillis;
+        this.termsLookupCache = termsLookupCache;
     }
 
     /**
@@ -68,6 +78,14 @@ public class QueryRewriteContext {
         return writeableRegistry;
     }
 
+    /**
+     * Returns the node's cache of the terms of terms lookup documents, or <code>null</code> if their terms are not cached.
+     */
+    @Nullable
+    public TermsLookupCache getTermsLookupCache() {
+        return termsLookupCache;
+    }
+
     /**
      * Returns an instance of {@link QueryShardContext} if available of null otherwise
      */
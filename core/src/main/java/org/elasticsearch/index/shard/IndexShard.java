@@ -824,6 +824,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return getEngine().get(get, this::acquireSearcher);
     }
 
+    /**
+     * Looks up the documents of all the given gets with a single searcher, see {@link Engine#multiGet}.
+     */
+    public Engine.MultiGetResult multiGet(List<Engine.Get> gets) {
+        readAllowed();
+        return getEngine().multiGet(gets, this::acquireSearcher);
+    }
+
     /**
      * Writes all indexing changes to disk and opens a new searcher reflecting all changes.  This can throw {@link AlreadyClosedException}.
      */
@@ -1121,7 +1129,24 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private Engine.Searcher acquireSearcher(String source, Engine.SearcherScope scope) {
         readAllowed();
         final Engine engine = getEngine();
-        final Engine.Searcher searcher = engine.acquireSearcher(source, scope);
+        return wrapSearcher(engine.acquireSearcher(source, scope));
+    }
+
+    /**
+     * Acquires a searcher on the current point in time view of this shard that is not wrapped by the shard's
+     * {@link IndexSearcherWrapper}, so that several requests can share it. Each request must search through
+     * {@link #wrapSearcher(Engine.Searcher)}.
+     */
+    public Engine.Searcher acquireUnwrappedSearcher(String source) {
+        readAllowed();
+        return getEngine().acquireSearcher(source, Engine.SearcherScope.EXTERNAL);
+    }
+
+    /**
+     * Wraps the given searcher with the shard's {@link IndexSearcherWrapper}, if any. Closing the returned searcher closes the given
+     * searcher, which is also closed if wrapping fails.
+     */
+    public Engine.Searcher wrapSearcher(Engine.Searcher searcher) {
         boolean success = false;
         try {
             final Engine.Searcher wrappedSearcher = searcherWrapper == null ? searcher : searcherWrapper.wrap(searcher);
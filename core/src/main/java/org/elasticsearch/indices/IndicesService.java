@@ -168,6 +168,7 @@ public class IndicesService extends AbstractLifecycleComponent
     private final TimeValue cleanInterval;
     private final IndicesRequestCache indicesRequestCache;
     private final IndicesQueryCache indicesQueryCache;
+    private final TermsLookupCache termsLookupCache;
     private final MetaStateService metaStateService;
 
     @Override
@@ -191,6 +192,7 @@ public class IndicesService extends AbstractLifecycleComponent
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
         this.indicesQueryCache = new IndicesQueryCache(settings);
+        this.termsLookupCache = new TermsLookupCache(settings);
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
         indexingMemoryController = new IndexingMemoryController(settings, threadPool,
@@ -242,7 +244,8 @@ public class IndicesService extends AbstractLifecycleComponent
 
     @Override
     protected void doClose() {
-        IOUtils.closeWhileHandlingException(analysisRegistry, indexingMemoryController, indicesFieldDataCache, cacheCleaner, indicesRequestCache, indicesQueryCache);
+        IOUtils.closeWhileHandlingException(analysisRegistry, indexingMemoryController, indicesFieldDataCache, cacheCleaner, indicesRequestCache, indicesQueryCache,
+            termsLookupCache);
     }
 
     /**
@@ -568,6 +571,10 @@ public class IndicesService extends AbstractLifecycleComponent
         return circuitBreakerService;
     }
 
+    public TermsLookupCache getTermsLookupCache() {
+        return termsLookupCache;
+    }
+
     public IndicesQueryCache getIndicesQueryCache() {
         return indicesQueryCache;
     }
@@ -1245,7 +1252,7 @@ public class IndicesService extends AbstractLifecycleComponent
      * Returns a new {@link QueryRewriteContext} with the given <tt>now</tt> provider
      */
     public QueryRewriteContext getRewriteContext(LongSupplier nowInMillis) {
-        return new QueryRewriteContext(xContentRegistry, namedWriteableRegistry, client, nowInMillis);
+        return new QueryRewriteContext(xContentRegistry, namedWriteableRegistry, client, nowInMillis, termsLookupCache);
     }
 
     /**
@@ -0,0 +1,208 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A node level cache of the terms of {@link TermsLookup} documents. Lookup documents are always read with get requests, but once
+ * their terms are cached only the sequence number and primary term of the document are fetched, and its source is only loaded and
+ * parsed again once they changed.
+ */
+public final class TermsLookupCache extends AbstractComponent implements ClusterStateListener, Closeable {
+
+    /**
+     * The maximum number of terms that the cache holds, <code>0</code> disables caching.
+     */
+    public static final Setting<Integer> INDICES_TERMS_LOOKUP_CACHE_SIZE =
+        Setting.intSetting("indices.terms_lookup.cache.size", 1_000_000, 0, Property.NodeScope);
+
+    private final int size;
+    private final Cache<Key, CachedTerms> cache;
+
+    TermsLookupCache(Settings settings) {
+        super(settings);
+        this.size = INDICES_TERMS_LOOKUP_CACHE_SIZE.get(settings);
+        this.cache = CacheBuilder.<Key, CachedTerms>builder()
+            .setMaximumWeight(size)
+            .weigher((key, value) -> value.terms.size() + 1)
+            .build();
+    }
+
+    /**
+     * Fetches the terms of the lookup document, from the cache if the document didn't change since its terms were cached.
+     */
+    public void fetch(TermsLookup termsLookup, Client client, ActionListener<List<Object>> listener) {
+        final Key key = new Key(termsLookup);
+        final CachedTerms cached = size > 0 ? cache.get(key) : null;
+        if (cached == null) {
+            fetchTerms(key, termsLookup, client, listener);
+            return;
+        }
+        GetRequest getRequest = newGetRequest(termsLookup).fetchSourceContext(FetchSourceContext.DO_NOT_FETCH_SOURCE);
+        client.get(getRequest, ActionListener.wrap(getResponse -> {
+            if (getResponse.isExists() == false) {
+                cache.invalidate(key);
+                listener.onResponse(Collections.emptyList());
+            } else if (cached.isSameDocument(getResponse)) {
+                listener.onResponse(cached.terms);
+            } else {
+                fetchTerms(key, termsLookup, client, listener);
+            }
+        }, listener::onFailure));
+    }
+
+    private void fetchTerms(Key key, TermsLookup termsLookup, Client client, ActionListener<List<Object>> listener) {
+        GetRequest getRequest = newGetRequest(termsLookup)
+            .fetchSourceContext(new FetchSourceContext(true, new String[] {termsLookup.path()}, Strings.EMPTY_ARRAY));
+        client.get(getRequest, ActionListener.wrap(getResponse -> {
+            if (getResponse.isExists() == false || getResponse.isSourceEmpty()) {
+                cache.invalidate(key);
+                listener.onResponse(Collections.emptyList());
+                return;
+            }
+            final List<Object> terms =
+                Collections.unmodifiableList(XContentMapValues.extractRawValues(termsLookup.path(), getResponse.getSourceAsMap()));
+            // documents of indices created before sequence numbers were introduced have none, so their terms can't be validated
+            if (size > 0 && getResponse.getSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+                cache.put(key, new CachedTerms(getResponse, terms));
+            }
+            listener.onResponse(terms);
+        }, listener::onFailure));
+    }
+
+    private static GetRequest newGetRequest(TermsLookup termsLookup) {
+        return new GetRequest(termsLookup.index(), termsLookup.type(), termsLookup.id())
+            .preference("_local").routing(termsLookup.routing());
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        // sequence numbers and primary terms start over in a new index with the same name
+        for (Index index : event.indicesDeleted()) {
+            clear(index.getName());
+        }
+    }
+
+    /**
+     * Removes the terms of the lookup documents of the given index.
+     */
+    void clear(String index) {
+        final List<Key> keys = new ArrayList<>();
+        for (Key key : cache.keys()) {
+            CachedTerms cached = cache.get(key);
+            if (cached != null && cached.index.equals(index)) {
+                keys.add(key);
+            }
+        }
+        keys.forEach(cache::invalidate);
+    }
+
+    int count() {
+        return cache.count();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    private static final class Key {
+        private final String index;
+        private final String type;
+        private final String id;
+        private final String path;
+        @Nullable
+        private final String routing;
+
+        Key(TermsLookup termsLookup) {
+            this.index = termsLookup.index();
+            this.type = termsLookup.type();
+            this.id = termsLookup.id();
+            this.path = termsLookup.path();
+            this.routing = termsLookup.routing();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return index.equals(key.index) && type.equals(key.type) && id.equals(key.id) && path.equals(key.path) &&
+                Objects.equals(routing, key.routing);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(index, type, id, path, routing);
+        }
+    }
+
+    private static final class CachedTerms {
+        // the concrete index, the lookup may use an alias
+        private final String index;
+        private final long seqNo;
+        private final long primaryTerm;
+        private final List<Object> terms;
+
+        CachedTerms(GetResponse getResponse, List<Object> terms) {
+            this.index = getResponse.getIndex();
+            this.seqNo = getResponse.getSeqNo();
+            this.primaryTerm = getResponse.getPrimaryTerm();
+            this.terms = terms;
+        }
+
+        /**
+         * Returns <code>true</code> if the last operation on the document is the one it had when its terms were cached. Unlike the
+         * version, which starts over at 1 when a document is deleted and indexed again, the sequence number and primary term
+         * uniquely identify the operation within an index.
+         */
+        boolean isSameDocument(GetResponse getResponse) {
+            return index.equals(getResponse.getIndex()) && seqNo == getResponse.getSeqNo() && primaryTerm == getResponse.getPrimaryTerm();
+        }
+    }
+}
@@ -29,7 +29,9 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.IOException;
@@ -39,7 +41,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentMap;
-import java.util.stream.Collectors;
+import java.util.function.LongSupplier;
 
 /**
  * Collects statistics about queue size, response time, and service time of
@@ -50,10 +52,46 @@ public final class ResponseCollectorService extends AbstractComponent implements
 
     private static final double ALPHA = 0.3;
 
+    /**
+     * A failed request counts as a response that took this many times the average response time of the node, so a single failure
+     * raises the average by <code>ALPHA * (FAILURE_PENALTY_FACTOR - 1)</code>, i.e. by 30%, and repeated failures escalate it.
+     */
+    private static final double FAILURE_PENALTY_FACTOR = 2.0;
+
+    /**
+     * Response times above this value are recorded as this value, a response that takes longer than that is as bad as one
+     * that never arrives. This also bounds the response time that failed requests are recorded with.
+     */
+    public static final Setting<TimeValue> RESPONSE_TIME_CAP_SETTING =
+        Setting.timeSetting("cluster.routing.adaptive_selection.response_time_cap", TimeValue.timeValueSeconds(30),
+            TimeValue.timeValueMillis(1), Setting.Property.Dynamic, Setting.Property.NodeScope);
+
+    /**
+     * The statistics of a node are halved for every interval that passes without an update, so that nodes that have been
+     * penalized eventually receive requests again.
+     */
+    public static final Setting<TimeValue> STATS_DECAY_INTERVAL_SETTING =
+        Setting.timeSetting("cluster.routing.adaptive_selection.stats_decay_interval", TimeValue.timeValueSeconds(30),
+            TimeValue.timeValueMillis(1), Setting.Property.Dynamic, Setting.Property.NodeScope);
+
     private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
+    private final LongSupplier relativeNanoTime;
+    private volatile long responseTimeCapNanos;
+    private volatile long statsDecayIntervalNanos;
 
     public ResponseCollectorService(Settings settings, ClusterService clusterService) {
+        this(settings, clusterService, System::nanoTime);
+    }
+
+    ResponseCollectorService(Settings settings, ClusterService clusterService, LongSupplier relativeNanoTime) {
         super(settings);
+        this.relativeNanoTime = relativeNanoTime;
+        this.responseTimeCapNanos = RESPONSE_TIME_CAP_SETTING.get(settings).nanos();
+        this.statsDecayIntervalNanos = STATS_DECAY_INTERVAL_SETTING.get(settings).nanos();
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(RESPONSE_TIME_CAP_SETTING,
+            cap -> this.responseTimeCapNanos = cap.nanos());
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(STATS_DECAY_INTERVAL_SETTING,
+            interval -> this.statsDecayIntervalNanos = interval.nanos());
         clusterService.addListener(this);
     }
 
@@ -71,15 +109,66 @@ public final class ResponseCollectorService extends AbstractComponent implements
     }
 
     public void addNodeStatistics(String nodeId, int queueSize, long responseTimeNanos, long avgServiceTimeNanos) {
+        final long now = relativeNanoTime.getAsLong();
+        final long cappedResponseTimeNanos = Math.min(responseTimeNanos, responseTimeCapNanos);
         nodeIdToStats.compute(nodeId, (id, ns) -> {
             if (ns == null) {
                 ExponentiallyWeightedMovingAverage queueEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, queueSize);
-                ExponentiallyWeightedMovingAverage responseEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, responseTimeNanos);
-                return new NodeStatistics(nodeId, queueEWMA, responseEWMA, avgServiceTimeNanos);
+                ExponentiallyWeightedMovingAverage responseEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, cappedResponseTimeNanos);
+                ExponentiallyWeightedMovingAverage deviationEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, 0);
+                return new NodeStatistics(nodeId, queueEWMA, responseEWMA, deviationEWMA, avgServiceTimeNanos, now);
             } else {
+                applyDecay(ns, now);
                 ns.queueSize.addValue((double) queueSize);
-                ns.responseTime.addValue((double) responseTimeNanos);
+                ns.addResponseTime(cappedResponseTimeNanos);
                 ns.serviceTime = avgServiceTimeNanos;
+                ns.lastUpdateNanos = now;
+                return ns;
+            }
+        });
+    }
+
+    /**
+     * Records a request to the given node that failed in a way that indicates that the node is overloaded or unresponsive. The
+     * failure counts as a response that took {@link #FAILURE_PENALTY_FACTOR} times as long as the average response time of the
+     * node, bounded by the response time cap, and decays like any other response. The queue size and service time of the node are
+     * left unchanged as the node did not report them. A node without statistics is seeded with the average statistics of the
+     * other nodes and penalized from there, otherwise a node that never answered would keep the best possible rank.
+     */
+    public void addNodeFailure(String nodeId) {
+        final long now = relativeNanoTime.getAsLong();
+        final long capNanos = responseTimeCapNanos;
+        nodeIdToStats.compute(nodeId, (id, ns) -> {
+            if (ns == null) {
+                double queueSize = 0;
+                double responseTime = 0;
+                double serviceTime = 0;
+                int others = 0;
+                for (NodeStatistics other : nodeIdToStats.values()) {
+                    queueSize += other.queueSize.getAverage();
+                    responseTime += other.responseTime.getAverage();
+                    serviceTime += other.serviceTime;
+                    others++;
+                }
+                if (others > 0) {
+                    queueSize /= others;
+                    responseTime = Math.min(capNanos, FAILURE_PENALTY_FACTOR * Math.max(responseTime / others, serviceTime / others));
+                    serviceTime /= others;
+                } else {
+                    // nothing to compare with, the rank divides by the service time so it must not be zero
+                    responseTime = capNanos;
+                    serviceTime = capNanos;
+                }
+                ExponentiallyWeightedMovingAverage queueEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, queueSize);
+                ExponentiallyWeightedMovingAverage responseEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, responseTime);
+                ExponentiallyWeightedMovingAverage deviationEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, 0);
+                return new NodeStatistics(nodeId, queueEWMA, responseEWMA, deviationEWMA, serviceTime, now);
+            } else {
+                applyDecay(ns, now);
+                // the service time guards against a response time that decayed to almost nothing
+                final double penalty = FAILURE_PENALTY_FACTOR * Math.max(ns.responseTime.getAverage(), ns.serviceTime);
+                ns.addResponseTime((long) Math.min(capNanos, penalty));
+                ns.lastUpdateNanos = now;
                 return ns;
             }
         });
@@ -87,18 +176,49 @@ public final class ResponseCollectorService extends AbstractComponent implements
 
     public Map<String, ComputedNodeStats> getAllNodeStatistics() {
         final int clientNum = nodeIdToStats.size();
+        final long now = relativeNanoTime.getAsLong();
         // Transform the mutable object internally used for accounting into the computed version
         Map<String, ComputedNodeStats> nodeStats = new HashMap<>(nodeIdToStats.size());
         nodeIdToStats.forEach((k, v) -> {
-            nodeStats.put(k, new ComputedNodeStats(clientNum, v));
+            nodeStats.put(k, computeNodeStats(clientNum, v, now));
         });
         return nodeStats;
     }
 
+    /**
+     * Computes the point-in-time statistics of a node. The queue size and response time of a node that has not been updated
+     * for a while are halved for each decay interval that passed, a node that was penalized by slow responses should not be
+     * avoided forever.
+     */
+    private ComputedNodeStats computeNodeStats(int clientNum, NodeStatistics nodeStats, long now) {
+        final double decay = decayFactor(nodeStats, now);
+        return new ComputedNodeStats(nodeStats.nodeId, clientNum, (int) (nodeStats.queueSize.getAverage() * decay),
+            nodeStats.responseTime.getAverage() * decay, nodeStats.serviceTime);
+    }
+
     public AdaptiveSelectionStats getAdaptiveStats(Map<String, Long> clientSearchConnections) {
         return new AdaptiveSelectionStats(clientSearchConnections, getAllNodeStatistics());
     }
 
+    private double decayFactor(NodeStatistics nodeStats, long now) {
+        final long staleIntervals = Math.max(0L, now - nodeStats.lastUpdateNanos) / statsDecayIntervalNanos;
+        return staleIntervals == 0 ? 1.0 : Math.pow(0.5, staleIntervals);
+    }
+
+    /**
+     * Continues the averages of stale statistics from their decayed values, otherwise a single response of a node that was
+     * avoided for a while would bring back its old, bad statistics.
+     */
+    private void applyDecay(NodeStatistics nodeStats, long now) {
+        final double decay = decayFactor(nodeStats, now);
+        if (decay < 1.0) {
+            nodeStats.queueSize = new ExponentiallyWeightedMovingAverage(ALPHA, nodeStats.queueSize.getAverage() * decay);
+            nodeStats.responseTime = new ExponentiallyWeightedMovingAverage(ALPHA, nodeStats.responseTime.getAverage() * decay);
+            nodeStats.responseTimeDeviation =
+                new ExponentiallyWeightedMovingAverage(ALPHA, nodeStats.responseTimeDeviation.getAverage() * decay);
+        }
+    }
+
     /**
      * Optionally return a {@code NodeStatistics} for the given nodeid, if
      * response information exists for the given node. Returns an empty
@@ -106,7 +226,22 @@ public final class ResponseCollectorService extends AbstractComponent implements
      */
     public Optional<ComputedNodeStats> getNodeStatistics(final String nodeId) {
         final int clientNum = nodeIdToStats.size();
-        return Optional.ofNullable(nodeIdToStats.get(nodeId)).map(ns -> new ComputedNodeStats(clientNum, ns));
+        final long now = relativeNanoTime.getAsLong();
+        return Optional.ofNullable(nodeIdToStats.get(nodeId)).map(ns -> computeNodeStats(clientNum, ns, now));
+    }
+
+    /**
+     * Returns an estimate of the 95th percentile of the response times of the given node in nanoseconds, or -1 if no response
+     * information exists for the node. The estimate is the average response time plus twice the average deviation from it,
+     * which is close to the 95th percentile for roughly normally distributed response times.
+     */
+    public long getResponseTimePercentile95Nanos(final String nodeId) {
+        final NodeStatistics nodeStats = nodeIdToStats.get(nodeId);
+        if (nodeStats == null) {
+            return -1;
+        }
+        final double decay = decayFactor(nodeStats, relativeNanoTime.getAsLong());
+        return (long) ((nodeStats.responseTime.getAverage() + 2 * nodeStats.responseTimeDeviation.getAverage()) * decay);
     }
 
     /**
@@ -121,8 +256,6 @@ public final class ResponseCollectorService extends AbstractComponent implements
         private final double FACTOR = 1000000.0;
         private final int clientNum;
 
-        private double cachedRank = 0;
-
         public final String nodeId;
         public final int queueSize;
         public final double responseTime;
@@ -136,11 +269,6 @@ public final class ResponseCollectorService extends AbstractComponent implements
             this.serviceTime = serviceTime;
         }
 
-        ComputedNodeStats(int clientNum, NodeStatistics nodeStats) {
-            this(nodeStats.nodeId, clientNum,
-                    (int) nodeStats.queueSize.getAverage(), nodeStats.responseTime.getAverage(), nodeStats.serviceTime);
-        }
-
         ComputedNodeStats(StreamInput in) throws IOException {
             this.nodeId = in.readString();
             this.clientNum = in.readInt();
@@ -162,7 +290,7 @@ public final class ResponseCollectorService extends AbstractComponent implements
          * Rank this copy of the data, according to the adaptive replica selection formula from the C3 paper
          * https://www.usenix.org/system/files/conference/nsdi15/nsdi15-paper-suresh.pdf
          */
-        private double innerRank(long outstandingRequests) {
+        public double rank(long outstandingRequests) {
             // the concurrency compensation is defined as the number of
             // outstanding requests from the client to the node times the number
             // of clients in the system
@@ -186,13 +314,6 @@ public final class ResponseCollectorService extends AbstractComponent implements
             return rank;
         }
 
-        public double rank(long outstandingRequests) {
-            if (cachedRank == 0) {
-                cachedRank = innerRank(outstandingRequests);
-            }
-            return cachedRank;
-        }
-
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder("ComputedNodeStats[");
@@ -214,18 +335,29 @@ public final class ResponseCollectorService extends AbstractComponent implements
      */
     private static class NodeStatistics {
         final String nodeId;
-        final ExponentiallyWeightedMovingAverage queueSize;
-        final ExponentiallyWeightedMovingAverage responseTime;
+        volatile ExponentiallyWeightedMovingAverage queueSize;
+        volatile ExponentiallyWeightedMovingAverage responseTime;
+        volatile ExponentiallyWeightedMovingAverage responseTimeDeviation;
         double serviceTime;
+        volatile long lastUpdateNanos;
 
         NodeStatistics(String nodeId,
                        ExponentiallyWeightedMovingAverage queueSizeEWMA,
                        ExponentiallyWeightedMovingAverage responseTimeEWMA,
-                       double serviceTimeEWMA) {
+                       ExponentiallyWeightedMovingAverage responseTimeDeviationEWMA,
+                       double serviceTimeEWMA,
+                       long lastUpdateNanos) {
             this.nodeId = nodeId;
             this.queueSize = queueSizeEWMA;
             this.responseTime = responseTimeEWMA;
+            this.responseTimeDeviation = responseTimeDeviationEWMA;
             this.serviceTime = serviceTimeEWMA;
+            this.lastUpdateNanos = lastUpdateNanos;
+        }
+
+        void addResponseTime(long responseTimeNanos) {
+            responseTimeDeviation.addValue(Math.abs(responseTimeNanos - responseTime.getAverage()));
+            responseTime.addValue((double) responseTimeNanos);
         }
     }
 }
@@ -37,6 +37,7 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
+import org.elasticsearch.index.cache.docfreq.DocFrequencyCache;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -493,6 +494,11 @@ final class DefaultSearchContext extends SearchContext {
         return indexService.cache().bitsetFilterCache();
     }
 
+    @Override
+    public DocFrequencyCache docFrequencyCache() {
+        return indexService.cache().docFrequencyCache();
+    }
+
     @Override
     public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
         return queryShardContext.getForField(fieldType);
@@ -738,7 +738,7 @@ public final class SearchHit implements Streamable, ToXContentObject, Iterable<D
         if (size > 0) {
             matchedQueries = new String[size];
             for (int i = 0; i < size; i++) {
-                matchedQueries[i] = in.readString();
+                matchedQueries[i] = in.readSharedString();
             }
         }
         // we call the setter here because that also sets the local index parameter
@@ -791,7 +791,7 @@ public final class SearchHit implements Streamable, ToXContentObject, Iterable<D
         } else {
             out.writeVInt(matchedQueries.length);
             for (String matchedFilter : matchedQueries) {
-                out.writeString(matchedFilter);
+                out.writeSharedString(matchedFilter);
             }
         }
         out.writeOptionalWriteable(shard);
@@ -52,6 +52,7 @@ import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
@@ -60,6 +61,7 @@ import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.script.SearchScript;
 import org.elasticsearch.search.aggregations.AggregationInitializationException;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseContext;
@@ -75,6 +77,7 @@ import org.elasticsearch.search.fetch.subphase.ScriptFieldsContext.ScriptField;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
@@ -101,6 +104,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.LongSupplier;
@@ -126,6 +130,15 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     public static final Setting<Boolean> LOW_LEVEL_CANCELLATION_SETTING =
         Setting.boolSetting("search.low_level_cancellation", false, Property.Dynamic, Property.NodeScope);
 
+    /**
+     * How old the point in time view of a shard that a scroll opened may be for new scrolls on that shard to search it too, rather
+     * than opening a view on the latest refresh. Scrolls that share a view keep fewer generations of segments alive. Disabled by
+     * default since new scrolls would otherwise miss the changes of recent refreshes: scrolls then only share a view until the
+     * next refresh of the shard.
+     */
+    public static final Setting<TimeValue> SCROLL_SHARED_READER_MAX_AGE_SETTING =
+        Setting.timeSetting("search.scroll.shared_reader_max_age", TimeValue.ZERO, TimeValue.ZERO, Property.Dynamic, Property.NodeScope);
+
     public static final TimeValue NO_TIMEOUT = timeValueMillis(-1);
     public static final Setting<TimeValue> DEFAULT_SEARCH_TIMEOUT_SETTING =
         Setting.timeSetting("search.default_search_timeout", NO_TIMEOUT, Property.Dynamic, Property.NodeScope);
@@ -157,12 +170,17 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean lowLevelCancellation;
 
+    private volatile long scrollSharedReaderMaxAge;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
 
     private final ConcurrentMapLong<SearchContext> activeContexts = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
 
+    /** The most recent point in time view that scrolls opened on each shard, see {@link #acquireScrollSearcher(IndexShard)}. */
+    private final ConcurrentMap<ShardId, ReaderContext> scrollReaders = ConcurrentCollections.newConcurrentMap();
+
     public SearchService(ClusterService clusterService, IndicesService indicesService,
                          ThreadPool threadPool, ScriptService scriptService, BigArrays bigArrays, FetchPhase fetchPhase,
                          ResponseCollectorService responseCollectorService) {
@@ -189,6 +207,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
         lowLevelCancellation = LOW_LEVEL_CANCELLATION_SETTING.get(settings);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(LOW_LEVEL_CANCELLATION_SETTING, this::setLowLevelCancellation);
+
+        scrollSharedReaderMaxAge = SCROLL_SHARED_READER_MAX_AGE_SETTING.get(settings).millis();
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(SCROLL_SHARED_READER_MAX_AGE_SETTING,
+            this::setScrollSharedReaderMaxAge);
     }
 
     private void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -213,6 +235,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.lowLevelCancellation = lowLevelCancellation;
     }
 
+    private void setScrollSharedReaderMaxAge(TimeValue scrollSharedReaderMaxAge) {
+        this.scrollSharedReaderMaxAge = scrollSharedReaderMaxAge.millis();
+    }
+
     @Override
     public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
         // once an index is removed due to deletion or closing, we can just clean up all the pending search context information
@@ -589,7 +615,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         IndexShard indexShard = indexService.getShard(request.shardId().getId());
         SearchShardTarget shardTarget = new SearchShardTarget(clusterService.localNode().getId(),
                 indexShard.shardId(), request.getClusterAlias(), OriginalIndices.NONE);
-        Engine.Searcher engineSearcher = indexShard.acquireSearcher("search");
+        Engine.Searcher engineSearcher = request.scroll() != null ? acquireScrollSearcher(indexShard) : indexShard.acquireSearcher("search");
 
         final DefaultSearchContext searchContext = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget,
             engineSearcher, indexService, indexShard, bigArrays, threadPool.estimatedTimeInMillisCounter(), timeout, fetchPhase,
@@ -611,6 +637,36 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         return searchContext;
     }
 
+    /**
+     * Acquires a searcher for a new scroll context. Scrolls on the same shard share a ref-counted point in time view of the shard as
+     * long as no refresh happened since it was opened, or for {@link #SCROLL_SHARED_READER_MAX_AGE_SETTING} after it was opened.
+     */
+    private Engine.Searcher acquireScrollSearcher(IndexShard indexShard) {
+        final ShardId shardId = indexShard.shardId();
+        final Engine.Searcher latest = indexShard.acquireUnwrappedSearcher("search");
+        ReaderContext readerContext = scrollReaders.get(shardId);
+        if (readerContext != null && readerContext.tryIncRef()) {
+            try {
+                if (readerContext.sameReader(latest)
+                        || threadPool.relativeTimeInMillis() - readerContext.creationTimeInMillis() < scrollSharedReaderMaxAge) {
+                    latest.close();
+                    return readerContext.acquireSearcher(indexShard, "search");
+                }
+            } finally {
+                readerContext.decRef();
+            }
+        }
+        final ReaderContext newReaderContext = new ReaderContext(shardId, latest, threadPool.relativeTimeInMillis(),
+            closed -> scrollReaders.remove(shardId, closed));
+        try {
+            scrollReaders.put(shardId, newReaderContext);
+            return newReaderContext.acquireSearcher(indexShard, "search");
+        } finally {
+            // from now on the view is kept open by the searchers that were acquired on it
+            newReaderContext.decRef();
+        }
+    }
+
     private void freeAllContextForIndex(Index index) {
         assert index != null;
         for (SearchContext ctx : activeContexts.values()) {
@@ -740,7 +796,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         if (source.aggregations() != null) {
             try {
                 AggregatorFactories factories = source.aggregations().build(context, null);
-                context.aggregations(new SearchContextAggregations(factories));
+                // the query shard context is frozen by the time aggregations are built, so pipeline aggregators
+                // that prune buckets on the shard get the script service from here
+                context.aggregations(new SearchContextAggregations(factories, new ReduceContext(bigArrays, scriptService, false)));
             } catch (IOException e) {
                 throw new AggregationInitializationException("Failed to create aggregators", e);
             }
@@ -910,6 +968,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         return this.activeContexts.size();
     }
 
+    /**
+     * Returns the point in time view of the given shard that new scrolls may share, or <code>null</code> if there is none
+     */
+    ReaderContext getScrollReaderContext(ShardId shardId) {
+        return scrollReaders.get(shardId);
+    }
+
     public ResponseCollectorService getResponseCollectorService() {
         return this.responseCollectorService;
     }
@@ -45,15 +45,17 @@ public final class SearchShardTarget implements Writeable, Comparable<SearchShar
     private final String clusterAlias;
 
     public SearchShardTarget(StreamInput in) throws IOException {
-        if (in.readBoolean()) {
-            nodeId = in.readText();
-        } else {
+        if (in.readBoolean() == false) {
             nodeId = null;
+        } else if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            nodeId = new Text(in.readSharedString());
+        } else {
+            nodeId = in.readText();
         }
         shardId = ShardId.readShardId(in);
         this.originalIndices = null;
         if (in.getVersion().onOrAfter(Version.V_5_6_0)) {
-            clusterAlias = in.readOptionalString();
+            clusterAlias = in.readOptionalSharedString();
         } else {
             clusterAlias = null;
         }
@@ -111,11 +113,15 @@ public final class SearchShardTarget implements Writeable, Comparable<SearchShar
             out.writeBoolean(false);
         } else {
             out.writeBoolean(true);
-            out.writeText(nodeId);
+            if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+                out.writeSharedString(nodeId.string());
+            } else {
+                out.writeText(nodeId);
+            }
         }
         shardId.writeTo(out);
         if (out.getVersion().onOrAfter(Version.V_5_6_0)) {
-            out.writeOptionalString(clusterAlias);
+            out.writeOptionalSharedString(clusterAlias);
         }
     }
 
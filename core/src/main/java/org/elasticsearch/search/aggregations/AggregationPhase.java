@@ -23,6 +23,7 @@ import org.apache.lucene.search.Query;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.search.SearchPhase;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
@@ -122,11 +123,18 @@ public class AggregationPhase implements SearchPhase {
             }
         }
 
+        // when the search targets a single shard, its buckets are final and pipeline aggregators may prune them
+        // before they are serialized, they are applied again by the final reduce on the coordinating node
+        final ReduceContext shardReduceContext = context.numberOfShards() == 1 ? context.aggregations().shardReduceContext() : null;
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
         for (Aggregator aggregator : context.aggregations().aggregators()) {
             try {
                 aggregator.postCollection();
-                aggregations.add(aggregator.buildAggregation(0));
+                InternalAggregation aggregation = aggregator.buildAggregation(0);
+                if (shardReduceContext != null) {
+                    aggregation = aggregation.pruneShardBuckets(shardReduceContext);
+                }
+                aggregations.add(aggregation);
             } catch (IOException e) {
                 throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
             }
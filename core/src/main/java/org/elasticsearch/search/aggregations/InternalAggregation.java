@@ -128,6 +128,16 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
 
     public abstract InternalAggregation doReduce(List<InternalAggregation> aggregations, ReduceContext reduceContext);
 
+    /**
+     * Prunes the buckets of this shard-level result and of its sub-aggregations using the pipeline aggregators that support it,
+     * see {@link PipelineAggregator#pruneShardBuckets(InternalAggregation, ReduceContext)}. This must only be called when the search
+     * targets a single shard so that the buckets of this result are complete. The pipeline aggregators are kept on the returned
+     * aggregation and applied again as part of the final reduce.
+     */
+    public InternalAggregation pruneShardBuckets(ReduceContext reduceContext) {
+        return this;
+    }
+
     /**
      * Get the value of specified path in the aggregation.
      *
@@ -25,6 +25,7 @@ import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -66,6 +67,51 @@ public abstract class InternalMultiBucketAggregation<A extends InternalMultiBuck
     @Override
     public abstract List<? extends InternalBucket> getBuckets();
 
+    /**
+     * Whether the reduce keeps every bucket of a single shard-level result that it doesn't filter out on its own, which is required
+     * for pipeline aggregators to prune buckets on the shard. This is not the case for aggregations that truncate their buckets to a
+     * given size, or that fill gaps with empty buckets.
+     */
+    protected boolean canPruneShardBuckets() {
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public InternalAggregation pruneShardBuckets(ReduceContext reduceContext) {
+        List<? extends InternalBucket> buckets = getBuckets();
+        List<B> prunedBuckets = new ArrayList<>(buckets.size());
+        boolean subAggregationsPruned = false;
+        for (InternalBucket bucket : buckets) {
+            List<InternalAggregation> aggregations = new ArrayList<>();
+            boolean bucketPruned = false;
+            for (Aggregation aggregation : bucket.getAggregations()) {
+                InternalAggregation prunedAggregation = ((InternalAggregation) aggregation).pruneShardBuckets(reduceContext);
+                bucketPruned |= prunedAggregation != aggregation;
+                aggregations.add(prunedAggregation);
+            }
+            if (bucketPruned) {
+                prunedBuckets.add(createBucket(new InternalAggregations(aggregations), (B) bucket));
+                subAggregationsPruned = true;
+            } else {
+                prunedBuckets.add((B) bucket);
+            }
+        }
+        InternalAggregation pruned = subAggregationsPruned ? create(prunedBuckets) : this;
+        if (canPruneShardBuckets()) {
+            // pipeline aggregators that can't prune may depend on buckets that the ones that can would remove
+            for (PipelineAggregator pipelineAggregator : pipelineAggregators()) {
+                if (pipelineAggregator.canPruneShardBuckets() == false) {
+                    return pruned;
+                }
+            }
+            for (PipelineAggregator pipelineAggregator : pipelineAggregators()) {
+                pruned = pipelineAggregator.pruneShardBuckets(pruned, reduceContext);
+            }
+        }
+        return pruned;
+    }
+
     @Override
     public Object getProperty(List<String> path) {
         if (path.isEmpty()) {
@@ -18,25 +18,44 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+
 /**
  * The aggregation context that is part of the search context.
  */
 public class SearchContextAggregations {
 
     private final AggregatorFactories factories;
+    private final ReduceContext shardReduceContext;
     private Aggregator[] aggregators;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
      */
     public SearchContextAggregations(AggregatorFactories factories) {
+        this(factories, null);
+    }
+
+    /**
+     * Creates a new aggregation context with the parsed aggregator factories and the context used to prune buckets with pipeline
+     * aggregators on the shard, see {@link InternalAggregation#pruneShardBuckets(ReduceContext)}.
+     */
+    public SearchContextAggregations(AggregatorFactories factories, ReduceContext shardReduceContext) {
         this.factories = factories;
+        this.shardReduceContext = shardReduceContext;
     }
 
     public AggregatorFactories factories() {
         return factories;
     }
 
+    /**
+     * The context used to prune buckets with pipeline aggregators on the shard, or {@code null} if pruning is disabled.
+     */
+    public ReduceContext shardReduceContext() {
+        return shardReduceContext;
+    }
+
     public Aggregator[] aggregators() {
         return aggregators;
     }
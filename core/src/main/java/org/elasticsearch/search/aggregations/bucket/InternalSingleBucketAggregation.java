@@ -109,6 +109,18 @@ public abstract class InternalSingleBucketAggregation extends InternalAggregatio
         return newAggregation(getName(), docCount, aggs);
     }
 
+    @Override
+    public InternalAggregation pruneShardBuckets(ReduceContext reduceContext) {
+        List<InternalAggregation> subAggregations = new ArrayList<>();
+        boolean pruned = false;
+        for (Aggregation aggregation : aggregations) {
+            InternalAggregation prunedAggregation = ((InternalAggregation) aggregation).pruneShardBuckets(reduceContext);
+            pruned |= prunedAggregation != aggregation;
+            subAggregations.add(prunedAggregation);
+        }
+        return pruned ? create(new InternalAggregations(subAggregations)) : this;
+    }
+
     @Override
     public Object getProperty(List<String> path) {
         if (path.isEmpty()) {
@@ -0,0 +1,159 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+
+/**
+ * Counts the documents of a segment that have a value within a range with a query on the points of the field, rather than
+ * by collecting documents and reading their doc values. This only works for top-level aggregations without sub-aggregations
+ * that see all the documents of the index, for instance in the case of a {@code match_all} query, since these only need to
+ * know how many documents fall in each of their buckets.
+ */
+public final class PointRangeDocCounter {
+
+    /**
+     * The maximum number of ranges that are worth counting with queries for a single segment.
+     */
+    public static final int MAX_RANGES = 32;
+
+    private final SearchContext context;
+    private final String field;
+    private Boolean matchesAllDocs;
+
+    private PointRangeDocCounter(SearchContext context, String field) {
+        this.context = context;
+        this.field = field;
+    }
+
+    /**
+     * Returns a counter for the given aggregation, or {@code null} if its documents can't be counted using the points of the field.
+     * This requires the aggregation to be at the top level, to have no sub-aggregations and to aggregate the values of a field that
+     * is indexed as {@link LongPoint}s.
+     */
+    public static PointRangeDocCounter build(SearchContext context, Aggregator parent, AggregatorFactories factories,
+                                             ValuesSourceConfig<?> config) {
+        if (parent != null || factories.countAggregators() > 0 || context.getProfilers() != null) {
+            return null;
+        }
+        if (config.fieldContext() == null || config.script() != null || config.missing() != null) {
+            return null;
+        }
+        MappedFieldType fieldType = config.fieldContext().fieldType();
+        if (fieldType.indexOptions() == IndexOptions.NONE) {
+            return null;
+        }
+        if (fieldType instanceof DateFieldMapper.DateFieldType
+                || NumberFieldMapper.NumberType.LONG.typeName().equals(fieldType.typeName())) {
+            return new PointRangeDocCounter(context, config.fieldContext().field());
+        }
+        return null;
+    }
+
+    /**
+     * Whether the documents of the given segment can be counted, which is the case when the search matches all documents and the
+     * segment indexed the values of the field as points.
+     */
+    public boolean canCount(LeafReaderContext ctx) {
+        if (matchesAllDocs == null) {
+            // checked on the first segment since the query phase may still change the query and settings below beforehand
+            matchesAllDocs = context.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER
+                    && context.minimumScore() == null
+                    && isMatchAllQuery(context.query());
+        }
+        if (matchesAllDocs == false) {
+            return false;
+        }
+        FieldInfo fieldInfo = ctx.reader().getFieldInfos().fieldInfo(field);
+        return fieldInfo == null || (fieldInfo.getPointDimensionCount() == 1 && fieldInfo.getPointNumBytes() == Long.BYTES);
+    }
+
+    private static boolean isMatchAllQuery(Query query) {
+        if (query == null) {
+            return false;
+        }
+        while (true) {
+            if (query instanceof ConstantScoreQuery) {
+                query = ((ConstantScoreQuery) query).getQuery();
+            } else if (query instanceof BoostQuery) {
+                query = ((BoostQuery) query).getQuery();
+            } else {
+                break;
+            }
+        }
+        return query.getClass() == MatchAllDocsQuery.class;
+    }
+
+    /**
+     * Counts the live documents of the given segment that have a value between {@code from} and {@code to}, both inclusive.
+     */
+    public int count(LeafReaderContext ctx, long from, long to) throws IOException {
+        LeafReader reader = ctx.reader();
+        PointValues pointValues = reader.getPointValues(field);
+        if (pointValues == null || from > to) {
+            return 0;
+        }
+        long min = LongPoint.decodeDimension(pointValues.getMinPackedValue(), 0);
+        long max = LongPoint.decodeDimension(pointValues.getMaxPackedValue(), 0);
+        if (max < from || min > to) {
+            return 0;
+        }
+        if (from <= min && max <= to && pointValues.getDocCount() == reader.maxDoc()) {
+            // all the values of all the documents of the segment are within the range
+            return reader.numDocs();
+        }
+        // going through the searcher allows the query cache to keep the matching documents for the next requests
+        Weight weight = context.searcher().createNormalizedWeight(LongPoint.newRangeQuery(field, from, to), false);
+        Scorer scorer = weight.scorer(ctx);
+        if (scorer == null) {
+            return 0;
+        }
+        Bits liveDocs = reader.getLiveDocs();
+        DocIdSetIterator iterator = scorer.iterator();
+        int count = 0;
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            if (liveDocs == null || liveDocs.get(doc)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
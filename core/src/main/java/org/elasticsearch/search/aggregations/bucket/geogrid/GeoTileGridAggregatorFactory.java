@@ -0,0 +1,94 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.geogrid;
+
+import org.elasticsearch.index.mapper.GeoPointFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.NonCollectingAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSource.GeoPoint;
+import org.elasticsearch.search.aggregations.support.ValuesSourceAggregatorFactory;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class GeoTileGridAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource.GeoPoint, GeoTileGridAggregatorFactory> {
+
+    private final int precision;
+    private final int requiredSize;
+    private final int shardSize;
+
+    GeoTileGridAggregatorFactory(String name, ValuesSourceConfig<GeoPoint> config, int precision, int requiredSize,
+            int shardSize, SearchContext context, AggregatorFactory<?> parent, AggregatorFactories.Builder subFactoriesBuilder,
+            Map<String, Object> metaData) throws IOException {
+        super(name, config, context, parent, subFactoriesBuilder, metaData);
+        this.precision = precision;
+        this.requiredSize = requiredSize;
+        this.shardSize = shardSize;
+    }
+
+    @Override
+    protected Aggregator createUnmapped(Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
+            throws IOException {
+        final InternalAggregation aggregation = new InternalGeoTileGrid(name, requiredSize,
+                Collections.<InternalGeoTileGrid.Bucket> emptyList(), pipelineAggregators, metaData);
+        return new NonCollectingAggregator(name, context, parent, pipelineAggregators, metaData) {
+            @Override
+            public InternalAggregation buildEmptyAggregation() {
+                return aggregation;
+            }
+        };
+    }
+
+    @Override
+    protected Aggregator doCreateInternal(final ValuesSource.GeoPoint valuesSource, Aggregator parent, boolean collectsFromSingleBucket,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+        if (collectsFromSingleBucket == false) {
+            return asMultiBucketAggregator(this, context, parent);
+        }
+        return new GeoTileGridAggregator(name, factories, tileIdSource(valuesSource), requiredSize, shardSize, context, parent,
+                pipelineAggregators, metaData);
+    }
+
+    /**
+     * Reads the tiles that were indexed with the points of the field when they include the requested zoom level, and
+     * otherwise computes them from the points.
+     */
+    private ValuesSource.Numeric tileIdSource(ValuesSource.GeoPoint valuesSource) {
+        if (config.fieldContext() != null && config.script() == null && config.missing() == null) {
+            MappedFieldType fieldType = config.fieldContext().fieldType();
+            if (fieldType instanceof GeoPointFieldMapper.GeoPointFieldType) {
+                GeoPointFieldMapper.GeoPointFieldType geoPointFieldType = (GeoPointFieldMapper.GeoPointFieldType) fieldType;
+                if (geoPointFieldType.hasGeoTilePrecision(precision)) {
+                    return new GeoTileGridAggregationBuilder.IndexedTileIdSource(geoPointFieldType.geoTileFieldName(), precision);
+                }
+            }
+        }
+        return new GeoTileGridAggregationBuilder.TileIdSource(valuesSource, precision);
+    }
+}
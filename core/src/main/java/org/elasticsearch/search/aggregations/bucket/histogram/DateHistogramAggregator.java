@@ -18,8 +18,11 @@
  */
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.inject.internal.Nullable;
 import org.elasticsearch.common.lease.Releasables;
@@ -32,6 +35,7 @@ import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.PointRangeDocCounter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalOrder;
@@ -55,6 +59,8 @@ class DateHistogramAggregator extends BucketsAggregator {
     private final ValuesSource.Numeric valuesSource;
     private final DocValueFormat formatter;
     private final Rounding rounding;
+    private final String pointsField;
+    private final PointRangeDocCounter docCounter;
     private final BucketOrder order;
     private final boolean keyed;
 
@@ -64,14 +70,27 @@ class DateHistogramAggregator extends BucketsAggregator {
     private final LongHash bucketOrds;
     private long offset;
 
+    private Rounding.Prepared preparedRounding;
+    private long preparedMin;
+    private long preparedMax;
+
+    /**
+     * @param pointsField the name of the field whose points give the range of values of each segment, which allows the
+     *                    rounding to be prepared, or {@code null} if the values don't come from a point field as is
+     * @param docCounter  counts the documents of each bucket of a segment without collecting them when the search matches
+     *                    all documents, or {@code null} if the documents need to be collected
+     */
     DateHistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, long offset, BucketOrder order,
             boolean keyed,
             long minDocCount, @Nullable ExtendedBounds extendedBounds, @Nullable ValuesSource.Numeric valuesSource,
-            DocValueFormat formatter, SearchContext aggregationContext,
-            Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+            DocValueFormat formatter, @Nullable String pointsField, @Nullable PointRangeDocCounter docCounter,
+            SearchContext aggregationContext, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
+            Map<String, Object> metaData) throws IOException {
 
         super(name, factories, aggregationContext, parent, pipelineAggregators, metaData);
         this.rounding = rounding;
+        this.pointsField = pointsField;
+        this.docCounter = pointsField == null ? null : docCounter;
         this.offset = offset;
         this.order = InternalOrder.validate(order, this);;
         this.keyed = keyed;
@@ -94,7 +113,11 @@ class DateHistogramAggregator extends BucketsAggregator {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
+        if (docCounter != null && docCounter.canCount(ctx) && countWithPoints(ctx)) {
+            throw new CollectionTerminatedException();
+        }
         final SortedNumericDocValues values = valuesSource.longValues(ctx);
+        final Rounding.Prepared leafRounding = prepareRounding(ctx);
         return new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
@@ -105,7 +128,7 @@ class DateHistogramAggregator extends BucketsAggregator {
                     long previousRounded = Long.MIN_VALUE;
                     for (int i = 0; i < valuesCount; ++i) {
                         long value = values.nextValue();
-                        long rounded = rounding.round(value - offset) + offset;
+                        long rounded = leafRounding.round(value - offset) + offset;
                         assert rounded >= previousRounded;
                         if (rounded == previousRounded) {
                             continue;
@@ -124,6 +147,57 @@ class DateHistogramAggregator extends BucketsAggregator {
         };
     }
 
+    /**
+     * Counts the documents of each bucket of the given segment with queries on the points of the field. Returns {@code false},
+     * without counting anything, if the values of the segment span too many buckets for this to be cheaper than collecting.
+     */
+    private boolean countWithPoints(LeafReaderContext ctx) throws IOException {
+        PointValues pointValues = ctx.reader().getPointValues(pointsField);
+        if (pointValues == null) {
+            // no document of this segment has a value
+            return true;
+        }
+        long min = LongPoint.decodeDimension(pointValues.getMinPackedValue(), 0);
+        long max = LongPoint.decodeDimension(pointValues.getMaxPackedValue(), 0);
+        long[] keys = rounding.roundedValues(min - offset, max - offset, PointRangeDocCounter.MAX_RANGES);
+        if (keys == null) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; ++i) {
+            long from = keys[i] + offset;
+            long to = i + 1 < keys.length ? keys[i + 1] + offset - 1 : max;
+            int count = docCounter.count(ctx, from, to);
+            if (count > 0) {
+                long bucketOrd = bucketOrds.add(from);
+                if (bucketOrd < 0) { // already seen
+                    bucketOrd = -1 - bucketOrd;
+                }
+                grow(bucketOrd + 1);
+                incrementBucketDocCount(bucketOrd, count);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prepares the rounding for the range of values of the given segment. The prepared rounding is reused by the following
+     * segments as long as their values are within the range it was prepared for.
+     */
+    private Rounding.Prepared prepareRounding(LeafReaderContext ctx) throws IOException {
+        PointValues pointValues = pointsField == null ? null : ctx.reader().getPointValues(pointsField);
+        if (pointValues == null) {
+            return rounding::round;
+        }
+        long min = LongPoint.decodeDimension(pointValues.getMinPackedValue(), 0) - offset;
+        long max = LongPoint.decodeDimension(pointValues.getMaxPackedValue(), 0) - offset;
+        if (preparedRounding == null || min < preparedMin || max > preparedMax) {
+            preparedRounding = rounding.prepare(min, max);
+            preparedMin = min;
+            preparedMax = max;
+        }
+        return preparedRounding;
+    }
+
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) throws IOException {
         assert owningBucketOrdinal == 0;
@@ -19,12 +19,17 @@
 
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.index.IndexOptions;
 import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.bucket.PointRangeDocCounter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.support.FieldContext;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSource.Numeric;
 import org.elasticsearch.search.aggregations.support.ValuesSourceAggregatorFactory;
@@ -78,7 +83,24 @@ public final class DateHistogramAggregatorFactory
     private Aggregator createAggregator(ValuesSource.Numeric valuesSource, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) throws IOException {
         return new DateHistogramAggregator(name, factories, rounding, offset, order, keyed, minDocCount, extendedBounds, valuesSource,
-                config.format(), context, parent, pipelineAggregators, metaData);
+                config.format(), pointsField(), PointRangeDocCounter.build(context, parent, factories, config), context, parent,
+                pipelineAggregators, metaData);
+    }
+
+    /**
+     * Returns the name of the field whose points hold the values to aggregate, or {@code null} if the values are computed
+     * by a script or come from a field that isn't an indexed date field.
+     */
+    private String pointsField() {
+        FieldContext fieldContext = config.fieldContext();
+        if (fieldContext == null || config.script() != null) {
+            return null;
+        }
+        MappedFieldType fieldType = fieldContext.fieldType();
+        if (fieldType instanceof DateFieldMapper.DateFieldType && fieldType.indexOptions() != IndexOptions.NONE) {
+            return fieldContext.field();
+        }
+        return null;
     }
 
     @Override
@@ -293,6 +293,12 @@ public final class InternalDateHistogram extends InternalMultiBucketAggregation<
         return order;
     }
 
+    @Override
+    protected boolean canPruneShardBuckets() {
+        // empty buckets would be added back in place of the pruned ones if min_doc_count is 0
+        return minDocCount > 0;
+    }
+
     @Override
     public InternalDateHistogram create(List<Bucket> buckets) {
         return new InternalDateHistogram(name, buckets, order, minDocCount, offset, emptyBucketInfo, format,
@@ -275,6 +275,12 @@ public final class InternalHistogram extends InternalMultiBucketAggregation<Inte
         return order;
     }
 
+    @Override
+    protected boolean canPruneShardBuckets() {
+        // empty buckets would be added back in place of the pruned ones if min_doc_count is 0
+        return minDocCount > 0;
+    }
+
     @Override
     public InternalHistogram create(List<Bucket> buckets) {
         return new InternalHistogram(name, buckets, order, minDocCount, emptyBucketInfo, format, keyed, pipelineAggregators(), metaData);
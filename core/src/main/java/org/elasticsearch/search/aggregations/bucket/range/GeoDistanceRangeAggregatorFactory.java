@@ -74,7 +74,8 @@ public class GeoDistanceRangeAggregatorFactory
     protected Aggregator doCreateInternal(final ValuesSource.GeoPoint valuesSource, Aggregator parent, boolean collectsFromSingleBucket,
             List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
         DistanceSource distanceSource = new DistanceSource(valuesSource, distanceType, origin, unit);
-        return new RangeAggregator(name, factories, distanceSource, config.format(), rangeFactory, ranges, keyed, context,
+        // distances are computed from geo points, so documents always need to be collected
+        return new RangeAggregator(name, factories, distanceSource, config.format(), rangeFactory, ranges, keyed, null, context,
                 parent,
                 pipelineAggregators, metaData);
     }
@@ -19,6 +19,8 @@
 package org.elasticsearch.search.aggregations.bucket.range;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -38,6 +40,7 @@ import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.NonCollectingAggregator;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.PointRangeDocCounter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.internal.SearchContext;
@@ -53,6 +56,9 @@ public class RangeAggregator extends BucketsAggregator {
     public static final ParseField RANGES_FIELD = new ParseField("ranges");
     public static final ParseField KEYED_FIELD = new ParseField("keyed");
 
+    /** The greatest magnitude up to which all longs can be represented exactly as doubles. */
+    private static final double MAX_EXACT_LONG_DOUBLE = 1L << 53;
+
     public static class Range implements Writeable, ToXContentObject {
         public static final ParseField KEY_FIELD = new ParseField("key");
         public static final ParseField FROM_FIELD = new ParseField("from");
@@ -224,9 +230,16 @@ public class RangeAggregator extends BucketsAggregator {
 
     final double[] maxTo;
 
+    private final PointRangeDocCounter docCounter;
+
+    /**
+     * @param docCounter counts the documents of each range without collecting them when the search matches all documents,
+     *                   or {@code null} if the documents need to be collected
+     */
     public RangeAggregator(String name, AggregatorFactories factories, ValuesSource.Numeric valuesSource, DocValueFormat format,
-            InternalRange.Factory rangeFactory, Range[] ranges, boolean keyed, SearchContext context,
-            Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+            InternalRange.Factory rangeFactory, Range[] ranges, boolean keyed, @Nullable PointRangeDocCounter docCounter,
+            SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
+            Map<String, Object> metaData) throws IOException {
 
         super(name, factories, context, parent, pipelineAggregators, metaData);
         assert valuesSource != null;
@@ -243,6 +256,27 @@ public class RangeAggregator extends BucketsAggregator {
             maxTo[i] = Math.max(this.ranges[i].to,maxTo[i-1]);
         }
 
+        this.docCounter = canCountWithPoints(ranges) ? docCounter : null;
+    }
+
+    /**
+     * Whether the documents of the given ranges can be counted with queries on the points of the field, which are exact
+     * for longs. This is the case if there are few ranges and their bounds convert to longs without loss of precision.
+     */
+    private static boolean canCountWithPoints(Range[] ranges) {
+        if (ranges.length > PointRangeDocCounter.MAX_RANGES) {
+            return false;
+        }
+        for (Range range : ranges) {
+            if (isExactLong(range.from) == false || isExactLong(range.to) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isExactLong(double bound) {
+        return Double.isInfinite(bound) || Math.abs(bound) <= MAX_EXACT_LONG_DOUBLE;
     }
 
     @Override
@@ -253,6 +287,20 @@ public class RangeAggregator extends BucketsAggregator {
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
             final LeafBucketCollector sub) throws IOException {
+        if (docCounter != null && docCounter.canCount(ctx)) {
+            for (int i = 0; i < ranges.length; ++i) {
+                // values are longs, so [from, to) as doubles is [ceil(from), ceil(to) - 1] as longs
+                long from = ranges[i].from == Double.NEGATIVE_INFINITY ? Long.MIN_VALUE : (long) Math.ceil(ranges[i].from);
+                long to = ranges[i].to == Double.POSITIVE_INFINITY ? Long.MAX_VALUE : (long) Math.ceil(ranges[i].to) - 1;
+                int count = docCounter.count(ctx, from, to);
+                if (count > 0) {
+                    long bucketOrd = subBucketOrdinal(0, i);
+                    grow(bucketOrd + 1);
+                    incrementBucketDocCount(bucketOrd, count);
+                }
+            }
+            throw new CollectionTerminatedException();
+        }
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
         return new LeafBucketCollectorBase(sub, values) {
             @Override
@@ -25,6 +25,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.util.BytesRef;
@@ -34,6 +35,7 @@ import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.index.FilterableTermsEnum;
 import org.elasticsearch.common.lucene.index.FreqTermsEnum;
+import org.elasticsearch.index.cache.docfreq.DocFrequencyCache;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.DocValueFormat;
@@ -67,6 +69,7 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
     private String indexedFieldName;
     private MappedFieldType fieldType;
     private FilterableTermsEnum termsEnum;
+    private final DocFrequencyCache docFrequencyCache;
     private int numberOfAggregatorsCreated;
     final Query filter;
     private final int supersetNumDocs;
@@ -90,12 +93,14 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         this.filter = filterBuilder == null
                 ? null
                 : filterBuilder.toFilter(context.getQueryShardContext());
+        // the background filter must not depend on the time of the request to share its counts with other requests
+        this.docFrequencyCache = filter == null || context.getQueryShardContext().isCachable() ? context.docFrequencyCache() : null;
         IndexSearcher searcher = context.searcher();
         this.supersetNumDocs = filter == null
                 // Important - need to use the doc count that includes deleted docs
                 // or we have this issue: https://github.com/elastic/elasticsearch/issues/7951
                 ? searcher.getIndexReader().maxDoc()
-                : searcher.count(filter);
+                : countBackgroundDocs(searcher);
         this.bucketCountThresholds = bucketCountThresholds;
         this.significanceHeuristic = significanceHeuristic;
         setFieldInfo(context);
@@ -129,8 +134,24 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         return termsEnum;
     }
 
+    private int countBackgroundDocs(IndexSearcher searcher) throws IOException {
+        if (docFrequencyCache == null) {
+            return searcher.count(filter);
+        }
+        return Math.toIntExact(docFrequencyCache.getDocFrequency(searcher.getIndexReader(), new MatchAllDocsQuery(), filter,
+                () -> (long) searcher.count(filter)));
+    }
+
     private long getBackgroundFrequency(String value) throws IOException {
         Query query = fieldType.termQuery(value, context.getQueryShardContext());
+        if (docFrequencyCache == null) {
+            return computeBackgroundFrequency(query);
+        }
+        return docFrequencyCache.getDocFrequency(context.searcher().getIndexReader(), query, filter,
+                () -> computeBackgroundFrequency(query));
+    }
+
+    private long computeBackgroundFrequency(Query query) throws IOException {
         if (query instanceof TermQuery) {
             // for types that use the inverted index, we prefer using a caching terms
             // enum that will do a better job at reusing index inputs
@@ -25,12 +25,14 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.index.FilterableTermsEnum;
 import org.elasticsearch.common.lucene.index.FreqTermsEnum;
+import org.elasticsearch.index.cache.docfreq.DocFrequencyCache;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.DocValueFormat;
@@ -57,6 +59,7 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory<Signific
     private MappedFieldType fieldType;
     private final String[] sourceFieldNames;
     private FilterableTermsEnum termsEnum;
+    private final DocFrequencyCache docFrequencyCache;
     private int numberOfAggregatorsCreated;
     private final Query filter;
     private final int supersetNumDocs;
@@ -78,12 +81,14 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory<Signific
         this.indexedFieldName = fieldName;
         this.sourceFieldNames = sourceFieldNames;
         this.filterDuplicateText = filterDuplicateText;
+        // the background filter must not depend on the time of the request to share its counts with other requests
+        this.docFrequencyCache = filter == null || context.getQueryShardContext().isCachable() ? context.docFrequencyCache() : null;
         IndexSearcher searcher = context.searcher();
         // Important - need to use the doc count that includes deleted docs
         // or we have this issue: https://github.com/elastic/elasticsearch/issues/7951
         this.supersetNumDocs = filter == null
                 ? searcher.getIndexReader().maxDoc()
-                : searcher.count(filter);
+                : countBackgroundDocs(searcher);
         this.bucketCountThresholds = bucketCountThresholds;
         this.significanceHeuristic = significanceHeuristic;
         fieldType = context.getQueryShardContext().fieldMapper(indexedFieldName);
@@ -111,8 +116,24 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory<Signific
         return termsEnum;
     }
 
+    private int countBackgroundDocs(IndexSearcher searcher) throws IOException {
+        if (docFrequencyCache == null) {
+            return searcher.count(filter);
+        }
+        return Math.toIntExact(docFrequencyCache.getDocFrequency(searcher.getIndexReader(), new MatchAllDocsQuery(), filter,
+                () -> (long) searcher.count(filter)));
+    }
+
     private long getBackgroundFrequency(String value) throws IOException {
         Query query = fieldType.termQuery(value, context.getQueryShardContext());
+        if (docFrequencyCache == null) {
+            return computeBackgroundFrequency(query);
+        }
+        return docFrequencyCache.getDocFrequency(context.searcher().getIndexReader(), query, filter,
+                () -> computeBackgroundFrequency(query));
+    }
+
+    private long computeBackgroundFrequency(Query query) throws IOException {
         if (query instanceof TermQuery) {
             // for types that use the inverted index, we prefer using a caching terms
             // enum that will do a better job at reusing index inputs
@@ -99,4 +99,21 @@ public abstract class PipelineAggregator implements NamedWriteable {
     }
 
     public abstract InternalAggregation reduce(InternalAggregation aggregation, ReduceContext reduceContext);
+
+    /**
+     * Whether this pipeline aggregator can prune the buckets of a shard-level result, see
+     * {@link #pruneShardBuckets(InternalAggregation, ReduceContext)}.
+     */
+    public boolean canPruneShardBuckets() {
+        return false;
+    }
+
+    /**
+     * Removes the buckets of a shard-level result that can not be part of the output of this pipeline aggregator. This is only
+     * called when the buckets of the shard-level result are known to be complete. Implementations must neither reorder nor modify
+     * the remaining buckets since this pipeline aggregator is applied again as part of the final reduce.
+     */
+    public InternalAggregation pruneShardBuckets(InternalAggregation aggregation, ReduceContext reduceContext) {
+        throw new UnsupportedOperationException("pipeline aggregator [" + getWriteableName() + "] can not prune shard buckets");
+    }
 }
@@ -112,4 +112,15 @@ public class BucketSelectorPipelineAggregator extends PipelineAggregator {
         }
         return originalAgg.create(newBuckets);
     }
+
+    @Override
+    public boolean canPruneShardBuckets() {
+        return true;
+    }
+
+    @Override
+    public InternalAggregation pruneShardBuckets(InternalAggregation aggregation, ReduceContext reduceContext) {
+        // buckets are only filtered out, which doesn't change the outcome of selecting buckets again on the reduced result
+        return reduce(aggregation, reduceContext);
+    }
 }
@@ -36,9 +36,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class BucketSortPipelineAggregator extends PipelineAggregator {
 
@@ -117,6 +119,49 @@ public class BucketSortPipelineAggregator extends PipelineAggregator {
         return originalAgg.create(newBuckets);
     }
 
+    @Override
+    public boolean canPruneShardBuckets() {
+        return true;
+    }
+
+    @Override
+    public InternalAggregation pruneShardBuckets(InternalAggregation aggregation, ReduceContext reduceContext) {
+        InternalMultiBucketAggregation<InternalMultiBucketAggregation, InternalMultiBucketAggregation.InternalBucket> originalAgg =
+                (InternalMultiBucketAggregation<InternalMultiBucketAggregation, InternalMultiBucketAggregation.InternalBucket>) aggregation;
+        List<? extends InternalMultiBucketAggregation.InternalBucket> buckets = originalAgg.getBuckets();
+        int bucketsCount = buckets.size();
+        // the offset is only applied by the final reduce, so the shard needs to keep the buckets that it skips
+        int keepCount = size == null ? bucketsCount : Math.min(from + size, bucketsCount);
+
+        if (sorts.size() == 0) {
+            if (keepCount == bucketsCount) {
+                return aggregation;
+            }
+            return originalAgg.create(new ArrayList<>(buckets.subList(0, keepCount)));
+        }
+
+        PriorityQueue<ComparableBucket> ordered = new TopNPriorityQueue(keepCount);
+        for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
+            ComparableBucket comparableBucket = new ComparableBucket(originalAgg, bucket);
+            if (comparableBucket.skip() == false) {
+                ordered.insertWithOverflow(comparableBucket);
+            }
+        }
+        Set<InternalMultiBucketAggregation.InternalBucket> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (ordered.size() > 0) {
+            kept.add(ordered.pop().internalBucket);
+        }
+
+        // the surviving buckets must stay in their original order, which the reduce of the parent aggregation relies on
+        List<InternalMultiBucketAggregation.InternalBucket> newBuckets = new ArrayList<>(kept.size());
+        for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
+            if (kept.contains(bucket)) {
+                newBuckets.add(bucket);
+            }
+        }
+        return originalAgg.create(newBuckets);
+    }
+
     private class ComparableBucket implements Comparable<ComparableBucket> {
 
         private final MultiBucketsAggregation parentAgg;
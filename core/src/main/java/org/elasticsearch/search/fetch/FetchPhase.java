@@ -19,17 +19,23 @@
 
 package org.elasticsearch.search.fetch;
 
+import org.apache.lucene.codecs.StoredFieldsReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.BitSet;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.lucene.index.ElasticsearchLeafReader;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.text.Text;
@@ -47,6 +53,8 @@ import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.SearchPhase;
+import org.elasticsearch.search.fetch.subphase.DocValueFieldsContext;
+import org.elasticsearch.search.fetch.subphase.DocValueFieldsFetchSubPhase;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.search.fetch.subphase.InnerHitsContext;
 import org.elasticsearch.search.fetch.subphase.InnerHitsFetchSubPhase;
@@ -56,6 +64,7 @@ import org.elasticsearch.tasks.TaskCancelledException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -71,6 +80,12 @@ import static org.elasticsearch.common.xcontent.XContentFactory.contentBuilder;
  */
 public class FetchPhase implements SearchPhase {
 
+    /**
+     * The maximum gap between the ids of two documents that are considered to be part of the same block of stored fields.
+     * Blocks hold 16kb of documents with the default codec, so documents that are further apart rarely share a block.
+     */
+    static final int MERGE_INSTANCE_MAX_DOC_GAP = 16;
+
     private final FetchSubPhase[] fetchSubPhases;
 
     public FetchPhase(List<FetchSubPhase> fetchSubPhases) {
@@ -136,37 +151,69 @@ public class FetchPhase implements SearchPhase {
         }
 
         try {
+            DocIdToIndex[] docs = new DocIdToIndex[context.docIdsToLoadSize()];
+            for (int index = 0; index < context.docIdsToLoadSize(); index++) {
+                docs[index] = new DocIdToIndex(context.docIdsToLoad()[context.docIdsToLoadFrom() + index], index);
+            }
+            // visit the documents in doc id order so that documents of the same segment, and of the same
+            // compressed block of stored fields, are loaded together. Hits are put back in their original order.
+            Arrays.sort(docs);
+
             SearchHit[] hits = new SearchHit[context.docIdsToLoadSize()];
+            // the doc value fields of hits that need no other fields than the metadata ones are loaded segment by segment, as
+            // soon as the hits of a segment are created, rather than by the sub phase once all hits are
+            final DocValueFieldsContext docValueFields = loadsDocValuesOnly(context, fieldNames, fieldNamePatterns)
+                ? DocValueFieldsFetchSubPhase.docValueFieldsContext(context) : null;
+            final SearchHit[] segmentHits = docValueFields == null ? null : new SearchHit[docs.length];
             FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
-            for (int index = 0; index < context.docIdsToLoadSize(); index++) {
-                if (context.isCancelled()) {
-                    throw new TaskCancelledException("cancelled");
-                }
-                int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
-                int readerIndex = ReaderUtil.subIndex(docId, context.searcher().getIndexReader().leaves());
-                LeafReaderContext subReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
-                int subDocId = docId - subReaderContext.docBase;
-
-                final SearchHit searchHit;
-                int rootDocId = findRootDocumentIfNested(context, subReaderContext, subDocId);
-                if (rootDocId != -1) {
-                    searchHit = createNestedSearchHit(context, docId, subDocId, rootDocId, fieldNames, fieldNamePatterns,
-                            subReaderContext);
-                } else {
-                    searchHit = createSearchHit(context, fieldsVisitor, docId, subDocId, subReaderContext);
+            List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+            for (int from = 0; from < docs.length; ) {
+                LeafReaderContext subReaderContext = leaves.get(ReaderUtil.subIndex(docs[from].docId, leaves));
+                int to = from + 1;
+                while (to < docs.length && docs[to].docId < subReaderContext.docBase + subReaderContext.reader().maxDoc()) {
+                    to++;
                 }
+                CheckedBiConsumer<Integer, StoredFieldVisitor, IOException> storedFieldsReader =
+                    storedFieldsReader(subReaderContext, docs, from);
+                for (int i = from; i < to; i++) {
+                    if (context.isCancelled()) {
+                        throw new TaskCancelledException("cancelled");
+                    }
+                    int docId = docs[i].docId;
+                    int subDocId = docId - subReaderContext.docBase;
+
+                    final SearchHit searchHit;
+                    int rootDocId = findRootDocumentIfNested(context, subReaderContext, subDocId);
+                    if (rootDocId != -1) {
+                        searchHit = createNestedSearchHit(context, docId, subDocId, rootDocId, fieldNames, fieldNamePatterns,
+                                subReaderContext, storedFieldsReader);
+                    } else {
+                        searchHit = createSearchHit(context, fieldsVisitor, docId, subDocId, subReaderContext, storedFieldsReader);
+                    }
 
-                hits[index] = searchHit;
-                hitContext.reset(searchHit, subReaderContext, subDocId, context.searcher());
-                for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
-                    fetchSubPhase.hitExecute(context, hitContext);
+                    hits[docs[i].index] = searchHit;
+                    if (segmentHits != null) {
+                        segmentHits[i] = searchHit;
+                    }
+                    hitContext.reset(searchHit, subReaderContext, subDocId, context.searcher());
+                    for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
+                        fetchSubPhase.hitExecute(context, hitContext);
+                    }
+                }
+                if (docValueFields != null) {
+                    DocValueFieldsFetchSubPhase.loadDocValueFields(context, docValueFields, subReaderContext, segmentHits, from, to);
                 }
+                from = to;
             }
             if (context.isCancelled()) {
                 throw new TaskCancelledException("cancelled");
             }
 
             for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
+                if (docValueFields != null && fetchSubPhase instanceof DocValueFieldsFetchSubPhase) {
+                    // already loaded segment by segment
+                    continue;
+                }
                 fetchSubPhase.hitsExecute(context, hits);
                 if (context.isCancelled()) {
                     throw new TaskCancelledException("cancelled");
@@ -179,6 +226,55 @@ public class FetchPhase implements SearchPhase {
         }
     }
 
+    /**
+     * Whether the hits of the given search need no other stored fields than the metadata ones, neither directly nor through
+     * highlighting, script fields or nested documents. All other fields of these hits come from doc values.
+     */
+    private static boolean loadsDocValuesOnly(SearchContext context, Set<String> fieldNames, List<String> fieldNamePatterns) {
+        return context.sourceRequested() == false && fieldNames == null && fieldNamePatterns == null && context.highlight() == null
+            && context.hasScriptFields() == false && context.mapperService().hasNested() == false;
+    }
+
+    /**
+     * Returns the function used to load the stored fields of the documents to fetch in the given segment, starting
+     * at <code>docs[from]</code>. If the documents fetched from a plain segment are dense then its stored fields are
+     * read through a merge instance of the stored fields reader, which decompresses each block of documents once
+     * and keeps it while the following documents of the same block are read.
+     */
+    private static CheckedBiConsumer<Integer, StoredFieldVisitor, IOException> storedFieldsReader(LeafReaderContext subReaderContext,
+                                                                                                 DocIdToIndex[] docs, int from)
+            throws IOException {
+        final LeafReader leafReader = subReaderContext.reader();
+        if (hasDenseDocIds(docs, from, subReaderContext.docBase + leafReader.maxDoc())) {
+            // only unwrap readers that are known to expose the stored fields of the segment as-is
+            LeafReader reader = leafReader instanceof ElasticsearchLeafReader ? ((ElasticsearchLeafReader) leafReader).getDelegate()
+                : leafReader;
+            if (reader instanceof SegmentReader) {
+                final StoredFieldsReader fieldsReader = ((SegmentReader) reader).getFieldsReader().getMergeInstance();
+                return fieldsReader::visitDocument;
+            }
+        }
+        return leafReader::document;
+    }
+
+    /**
+     * Whether the sorted documents to fetch from <code>docs[from]</code> up to the first one that is greater than or equal to
+     * <code>maxDoc</code> are dense enough to be read through a merge instance of the stored fields reader. The merge instance
+     * always decompresses whole blocks, which only pays off if most documents share their block with the previous one: it is
+     * slower than the regular reader for documents that are far apart.
+     */
+    static boolean hasDenseDocIds(DocIdToIndex[] docs, int from, int maxDoc) {
+        int pairs = 0;
+        int densePairs = 0;
+        for (int i = from + 1; i < docs.length && docs[i].docId < maxDoc; i++) {
+            pairs++;
+            if (docs[i].docId - docs[i - 1].docId <= MERGE_INSTANCE_MAX_DOC_GAP) {
+                densePairs++;
+            }
+        }
+        return pairs > 0 && densePairs * 2 >= pairs;
+    }
+
     private int findRootDocumentIfNested(SearchContext context, LeafReaderContext subReaderContext, int subDocId) throws IOException {
         if (context.mapperService().hasNested()) {
             BitSet bits = context.bitsetFilterCache().getBitSetProducer(Queries.newNonNestedFilter()).getBitSet(subReaderContext);
@@ -190,11 +286,12 @@ public class FetchPhase implements SearchPhase {
     }
 
     private SearchHit createSearchHit(SearchContext context, FieldsVisitor fieldsVisitor, int docId, int subDocId,
-                                      LeafReaderContext subReaderContext) {
+                                      LeafReaderContext subReaderContext,
+                                      CheckedBiConsumer<Integer, StoredFieldVisitor, IOException> storedFieldsReader) {
         if (fieldsVisitor == null) {
             return new SearchHit(docId);
         }
-        loadStoredFields(context, subReaderContext, fieldsVisitor, subDocId);
+        loadStoredFields(context, storedFieldsReader, fieldsVisitor, subReaderContext, subDocId);
         fieldsVisitor.postProcess(context.mapperService());
 
         Map<String, DocumentField> searchFields = null;
@@ -224,7 +321,9 @@ public class FetchPhase implements SearchPhase {
 
     private SearchHit createNestedSearchHit(SearchContext context, int nestedTopDocId, int nestedSubDocId,
                                             int rootSubDocId, Set<String> fieldNames,
-                                            List<String> fieldNamePatterns, LeafReaderContext subReaderContext) throws IOException {
+                                            List<String> fieldNamePatterns, LeafReaderContext subReaderContext,
+                                            CheckedBiConsumer<Integer, StoredFieldVisitor, IOException> storedFieldsReader)
+            throws IOException {
         // Also if highlighting is requested on nested documents we need to fetch the _source from the root document,
         // otherwise highlighting will attempt to fetch the _source from the nested doc, which will fail,
         // because the entire _source is only stored with the root document.
@@ -233,7 +332,7 @@ public class FetchPhase implements SearchPhase {
         final boolean needSource = context.sourceRequested() || context.highlight() != null;
         if (needSource || (context instanceof InnerHitsContext.InnerHitSubContext == false)) {
             FieldsVisitor rootFieldsVisitor = new FieldsVisitor(needSource);
-            loadStoredFields(context, subReaderContext, rootFieldsVisitor, rootSubDocId);
+            loadStoredFields(context, storedFieldsReader, rootFieldsVisitor, subReaderContext, rootSubDocId);
             rootFieldsVisitor.postProcess(context.mapperService());
             uid = rootFieldsVisitor.uid();
             source = rootFieldsVisitor.source();
@@ -245,7 +344,7 @@ public class FetchPhase implements SearchPhase {
 
 
         Map<String, DocumentField> searchFields =
-                getSearchFields(context, nestedSubDocId, fieldNames, fieldNamePatterns, subReaderContext);
+                getSearchFields(context, nestedSubDocId, fieldNames, fieldNamePatterns, subReaderContext, storedFieldsReader);
         DocumentMapper documentMapper = context.mapperService().documentMapper(uid.type());
         SourceLookup sourceLookup = context.lookup().source();
         sourceLookup.setSegmentAndDocument(subReaderContext, nestedSubDocId);
@@ -307,13 +406,14 @@ public class FetchPhase implements SearchPhase {
     }
 
     private Map<String, DocumentField> getSearchFields(SearchContext context, int nestedSubDocId, Set<String> fieldNames,
-                                                       List<String> fieldNamePatterns, LeafReaderContext subReaderContext) {
+                                                       List<String> fieldNamePatterns, LeafReaderContext subReaderContext,
+                                                       CheckedBiConsumer<Integer, StoredFieldVisitor, IOException> storedFieldsReader) {
         Map<String, DocumentField> searchFields = null;
         if (context.hasStoredFields() && !context.storedFieldsContext().fieldNames().isEmpty()) {
             FieldsVisitor nestedFieldsVisitor = new CustomFieldsVisitor(fieldNames == null ? Collections.emptySet() : fieldNames,
                     fieldNamePatterns == null ? Collections.emptyList() : fieldNamePatterns, false);
             if (nestedFieldsVisitor != null) {
-                loadStoredFields(context, subReaderContext, nestedFieldsVisitor, nestedSubDocId);
+                loadStoredFields(context, storedFieldsReader, nestedFieldsVisitor, subReaderContext, nestedSubDocId);
                 nestedFieldsVisitor.postProcess(context.mapperService());
                 if (!nestedFieldsVisitor.fields().isEmpty()) {
                     searchFields = new HashMap<>(nestedFieldsVisitor.fields().size());
@@ -380,12 +480,29 @@ public class FetchPhase implements SearchPhase {
         return nestedIdentity;
     }
 
-    private void loadStoredFields(SearchContext searchContext, LeafReaderContext readerContext, FieldsVisitor fieldVisitor, int docId) {
-        fieldVisitor.reset();
+    private void loadStoredFields(SearchContext searchContext,
+                                  CheckedBiConsumer<Integer, StoredFieldVisitor, IOException> storedFieldsReader,
+                                  FieldsVisitor fieldVisitor, LeafReaderContext subReaderContext, int docId) {
+        fieldVisitor.reset(subReaderContext.reader().getFieldInfos());
         try {
-            readerContext.reader().document(docId, fieldVisitor);
+            storedFieldsReader.accept(docId, fieldVisitor);
         } catch (IOException e) {
             throw new FetchPhaseExecutionException(searchContext, "Failed to fetch doc id [" + docId + "]", e);
         }
     }
+
+    static final class DocIdToIndex implements Comparable<DocIdToIndex> {
+        final int docId;
+        final int index;
+
+        DocIdToIndex(int docId, int index) {
+            this.docId = docId;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(DocIdToIndex o) {
+            return Integer.compare(docId, o.docId);
+        }
+    }
 }
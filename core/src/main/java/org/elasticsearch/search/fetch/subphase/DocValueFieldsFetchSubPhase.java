@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * Query sub phase which pulls data from doc values
@@ -43,7 +44,31 @@ public final class DocValueFieldsFetchSubPhase implements FetchSubPhase {
 
     @Override
     public void hitsExecute(SearchContext context, SearchHit[] hits) throws IOException {
+        DocValueFieldsContext docValueFieldsContext = docValueFieldsContext(context);
+        if (docValueFieldsContext == null) {
+            return;
+        }
+
+        hits = hits.clone(); // don't modify the incoming hits
+        Arrays.sort(hits, (a, b) -> Integer.compare(a.docId(), b.docId()));
+
+        List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        for (int from = 0; from < hits.length; ) {
+            LeafReaderContext subReaderContext = leaves.get(ReaderUtil.subIndex(hits[from].docId(), leaves));
+            int to = from + 1;
+            while (to < hits.length && hits[to].docId() < subReaderContext.docBase + subReaderContext.reader().maxDoc()) {
+                to++;
+            }
+            loadDocValueFields(context, docValueFieldsContext, subReaderContext, hits, from, to);
+            from = to;
+        }
+    }
 
+    /**
+     * Returns the doc value fields to load for the hits of the given search, including the field that the hits are collapsed on,
+     * or <code>null</code> if there are none.
+     */
+    public static DocValueFieldsContext docValueFieldsContext(SearchContext context) {
         if (context.collapse() != null) {
             // retrieve the `doc_value` associated with the collapse field
             String name = context.collapse().getFieldType().name();
@@ -53,28 +78,23 @@ public final class DocValueFieldsFetchSubPhase implements FetchSubPhase {
                 context.docValueFieldsContext().fields().add(name);
             }
         }
+        return context.docValueFieldsContext();
+    }
 
-        if (context.docValueFieldsContext() == null) {
-            return;
-        }
-
-        hits = hits.clone(); // don't modify the incoming hits
-        Arrays.sort(hits, (a, b) -> Integer.compare(a.docId(), b.docId()));
-
-        for (String field : context.docValueFieldsContext().fields()) {
+    /**
+     * Loads the doc value fields of <code>hits[from]</code> to <code>hits[to - 1]</code>, which must be documents of the given
+     * segment sorted by doc id. The fields are loaded one column at a time: a field is read for all of the hits before the next
+     * field is, so that the doc values of every field are read sequentially.
+     */
+    public static void loadDocValueFields(SearchContext context, DocValueFieldsContext docValueFieldsContext,
+                                          LeafReaderContext subReaderContext, SearchHit[] hits, int from, int to) throws IOException {
+        for (String field : docValueFieldsContext.fields()) {
             MappedFieldType fieldType = context.mapperService().fullName(field);
             if (fieldType != null) {
-                LeafReaderContext subReaderContext = null;
-                AtomicFieldData data = null;
-                ScriptDocValues<?> values = null;
-                for (SearchHit hit : hits) {
-                    // if the reader index has changed we need to get a new doc values reader instance
-                    if (subReaderContext == null || hit.docId() >= subReaderContext.docBase + subReaderContext.reader().maxDoc()) {
-                        int readerIndex = ReaderUtil.subIndex(hit.docId(), context.searcher().getIndexReader().leaves());
-                        subReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
-                        data = context.getForField(fieldType).load(subReaderContext);
-                        values = data.getScriptValues();
-                    }
+                AtomicFieldData data = context.getForField(fieldType).load(subReaderContext);
+                ScriptDocValues<?> values = data.getScriptValues();
+                for (int i = from; i < to; i++) {
+                    SearchHit hit = hits[i];
                     int subDocId = hit.docId() - subReaderContext.docBase;
                     values.setNextDocId(subDocId);
                     if (hit.fieldsOrNull() == null) {
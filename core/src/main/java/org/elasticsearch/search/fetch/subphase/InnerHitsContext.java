@@ -30,16 +30,23 @@ import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Bits;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.SubSearchContext;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Context used for inner hits retrieval
@@ -87,7 +94,34 @@ public final class InnerHitsContext {
             this.context = context;
         }
 
-        public abstract TopDocs[] topDocs(SearchHit[] hits) throws IOException;
+        /**
+         * Returns the top docs of the inner hits of each of the given hits. Up to
+         * {@link IndexSettings#INNER_HITS_CONCURRENCY_SETTING} hits are searched in parallel, on the search thread
+         * pool and on the calling thread, unless the request uses scripts, depends on the current time or is profiled.
+         */
+        public final TopDocs[] topDocs(SearchHit[] hits) throws IOException {
+            Weight innerHitQueryWeight = createInnerHitQueryWeight();
+            TopDocs[] result = new TopDocs[hits.length];
+            try {
+                int concurrency = Math.min(hits.length, mapperService().getIndexSettings().getInnerHitsConcurrency());
+                if (concurrency > 1 && getProfilers() == null && getQueryShardContext().isCachable()) {
+                    Executor executor = indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH);
+                    new ConcurrentLoop(hits.length, i -> result[i] = topDocs(hits[i], innerHitQueryWeight)).run(executor, concurrency);
+                } else {
+                    for (int i = 0; i < hits.length; i++) {
+                        result[i] = topDocs(hits[i], innerHitQueryWeight);
+                    }
+                }
+            } finally {
+                clearReleasables(Lifetime.COLLECTION);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the top docs of the inner hits of the given hit. This might be called concurrently for different hits.
+         */
+        protected abstract TopDocs topDocs(SearchHit hit, Weight innerHitQueryWeight) throws IOException;
 
         public String getName() {
             return name;
@@ -120,6 +154,87 @@ public final class InnerHitsContext {
         }
     }
 
+    /**
+     * Runs a task for each index in <code>[0, count)</code>, on the calling thread and on the workers it forks. The
+     * calling thread only waits for the workers that already started, so it never blocks on a saturated executor.
+     */
+    static final class ConcurrentLoop {
+        private final int count;
+        private final CheckedConsumer<Integer, IOException> task;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        // guarded by this
+        private int running;
+        private boolean done;
+
+        ConcurrentLoop(int count, CheckedConsumer<Integer, IOException> task) {
+            this.count = count;
+            this.task = task;
+        }
+
+        void run(Executor executor, int concurrency) throws IOException {
+            for (int i = 1; i < concurrency; i++) {
+                try {
+                    executor.execute(this::work);
+                } catch (EsRejectedExecutionException e) {
+                    break;
+                }
+            }
+            runTasks();
+            boolean interrupted = false;
+            synchronized (this) {
+                done = true;
+                while (running > 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // the running workers still use the search context, so we need to wait for them
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            Exception e = failure.get();
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            } else if (e != null) {
+                throw (RuntimeException) e;
+            }
+        }
+
+        private void work() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                running++;
+            }
+            try {
+                runTasks();
+            } finally {
+                synchronized (this) {
+                    running--;
+                    notifyAll();
+                }
+            }
+        }
+
+        private void runTasks() {
+            for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                try {
+                    task.accept(i);
+                } catch (Exception e) {
+                    if (failure.compareAndSet(null, e) == false) {
+                        failure.get().addSuppressed(e);
+                    }
+                    next.set(count);
+                }
+            }
+        }
+    }
+
     public static void intersect(Weight weight, Weight innerHitQueryWeight, Collector collector, LeafReaderContext ctx) throws IOException {
         ScorerSupplier scorerSupplier = weight.scorerSupplier(ctx);
         if (scorerSupplier == null) {
@@ -19,7 +19,9 @@
 package org.elasticsearch.search.fetch.subphase.highlight;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.miscellaneous.LimitTokenOffsetFilter;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.search.highlight.Encoder;
@@ -59,6 +61,7 @@ public class PlainHighlighter implements Highlighter {
         FieldMapper mapper = highlighterContext.mapper;
 
         Encoder encoder = field.fieldOptions().encoder().equals("html") ? HighlightUtils.Encoders.HTML : HighlightUtils.Encoders.DEFAULT;
+        int maxAnalyzedOffset = context.indexShard().indexSettings().getMaxAnalyzedOffset();
 
         if (!hitContext.cache().containsKey(CACHE_KEY)) {
             Map<FieldMapper, org.apache.lucene.search.highlight.Highlighter> mappers = new HashMap<>();
@@ -90,8 +93,10 @@ public class PlainHighlighter implements Highlighter {
 
             entry = new org.apache.lucene.search.highlight.Highlighter(formatter, encoder, queryScorer);
             entry.setTextFragmenter(fragmenter);
-            // always highlight across all data
-            entry.setMaxDocCharsToAnalyze(Integer.MAX_VALUE);
+            // highlight across all data unless the index bounds the analyzed text, the highlighter drops the text beyond
+            // the bound so the token stream is limited instead when the whole text is returned as a single fragment
+            entry.setMaxDocCharsToAnalyze(maxAnalyzedOffset < 0 || field.fieldOptions().numberOfFragments() == 0
+                ? Integer.MAX_VALUE : maxAnalyzedOffset);
 
             cache.put(mapper, entry);
         }
@@ -101,11 +106,19 @@ public class PlainHighlighter implements Highlighter {
         ArrayList<TextFragment> fragsList = new ArrayList<>();
         List<Object> textsToHighlight;
         Analyzer analyzer = context.mapperService().documentMapper(hitContext.hit().getType()).mappers().indexAnalyzer();
+        int noMatchSize = highlighterContext.field.fieldOptions().noMatchSize();
+        NoMatchExcerptTokenFilter noMatchExcerpt = null;
 
         try {
             textsToHighlight = HighlightUtils.loadFieldValues(field, mapper, context, hitContext);
 
-            for (Object textToHighlight : textsToHighlight) {
+            for (int i = 0; i < textsToHighlight.size(); i++) {
+                Object textToHighlight = textsToHighlight.get(i);
+                if (field.fieldOptions().scoreOrdered() == false && field.fieldOptions().numberOfFragments() > 0
+                        && fragsList.size() >= numberOfFragments) {
+                    // fragments are returned in the order of the values so the remaining values can't contribute any
+                    break;
+                }
                 String text;
                 if (textToHighlight instanceof BytesRef) {
                     text = mapper.fieldType().valueForDisplay(textToHighlight).toString();
@@ -113,17 +126,28 @@ public class PlainHighlighter implements Highlighter {
                     text = textToHighlight.toString();
                 }
 
-                try (TokenStream tokenStream = analyzer.tokenStream(mapper.fieldType().name(), text)) {
-                    if (!tokenStream.hasAttribute(CharTermAttribute.class) || !tokenStream.hasAttribute(OffsetAttribute.class)) {
-                        // can't perform highlighting if the stream has no terms (binary token stream) or no offsets
-                        continue;
-                    }
+                TokenStream tokenStream = analyzer.tokenStream(mapper.fieldType().name(), text);
+                if (!tokenStream.hasAttribute(CharTermAttribute.class) || !tokenStream.hasAttribute(OffsetAttribute.class)) {
+                    // can't perform highlighting if the stream has no terms (binary token stream) or no offsets
+                    tokenStream.close();
+                    continue;
+                }
+                if (noMatchSize > 0 && i == 0 && textToHighlight instanceof BytesRef == false) {
+                    // remember where the no match excerpt ends while analyzing so the first value needn't be analyzed again
+                    tokenStream = noMatchExcerpt = new NoMatchExcerptTokenFilter(tokenStream, noMatchSize);
+                }
+                if (maxAnalyzedOffset >= 0 && field.fieldOptions().numberOfFragments() == 0) {
+                    tokenStream = new LimitTokenOffsetFilter(tokenStream, maxAnalyzedOffset);
+                }
+                try {
                     TextFragment[] bestTextFragments = entry.getBestTextFragments(tokenStream, text, false, numberOfFragments);
                     for (TextFragment bestTextFragment : bestTextFragments) {
                         if (bestTextFragment != null && bestTextFragment.getScore() > 0) {
                             fragsList.add(bestTextFragment);
                         }
                     }
+                } finally {
+                    tokenStream.close();
                 }
             }
         } catch (Exception e) {
@@ -164,13 +188,16 @@ public class PlainHighlighter implements Highlighter {
             return new HighlightField(highlighterContext.fieldName, Text.convertFromStringArray(fragments));
         }
 
-        int noMatchSize = highlighterContext.field.fieldOptions().noMatchSize();
         if (noMatchSize > 0 && textsToHighlight.size() > 0) {
             // Pull an excerpt from the beginning of the string but make sure to split the string on a term boundary.
             String fieldContents = textsToHighlight.get(0).toString();
             int end;
             try {
-                end = findGoodEndForNoHighlightExcerpt(noMatchSize, analyzer, mapper.fieldType().name(), fieldContents);
+                if (noMatchExcerpt != null && noMatchExcerpt.complete) {
+                    end = noMatchExcerpt.end;
+                } else {
+                    end = findGoodEndForNoHighlightExcerpt(noMatchSize, analyzer, mapper.fieldType().name(), fieldContents);
+                }
             } catch (Exception e) {
                 throw new FetchPhaseExecutionException(context, "Failed to highlight field [" + highlighterContext.fieldName + "]", e);
             }
@@ -211,4 +238,46 @@ public class PlainHighlighter implements Highlighter {
             return end;
         }
     }
+
+    /**
+     * Computes the same end as {@link #findGoodEndForNoHighlightExcerpt} from the tokens that the highlighter consumes. The end is
+     * only known once the filter saw the first token that reaches the no match size or the end of the stream.
+     */
+    private static final class NoMatchExcerptTokenFilter extends TokenFilter {
+        private final OffsetAttribute offsetAttribute = addAttribute(OffsetAttribute.class);
+        private final int noMatchSize;
+        private int end = -1;
+        private boolean complete;
+
+        NoMatchExcerptTokenFilter(TokenStream in, int noMatchSize) {
+            super(in);
+            this.noMatchSize = noMatchSize;
+        }
+
+        @Override
+        public boolean incrementToken() throws IOException {
+            if (input.incrementToken() == false) {
+                complete = true;
+                return false;
+            }
+            if (complete == false) {
+                if (offsetAttribute.endOffset() >= noMatchSize) {
+                    if (offsetAttribute.endOffset() == noMatchSize) {
+                        end = noMatchSize;
+                    }
+                    complete = true;
+                } else {
+                    end = offsetAttribute.endOffset();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            end = -1;
+            complete = false;
+        }
+    }
 }
@@ -28,6 +28,7 @@ import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
+import org.elasticsearch.index.cache.docfreq.DocFrequencyCache;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
@@ -261,6 +262,11 @@ public abstract class FilteredSearchContext extends SearchContext {
         return in.bitsetFilterCache();
     }
 
+    @Override
+    public DocFrequencyCache docFrequencyCache() {
+        return in.docFrequencyCache();
+    }
+
     @Override
     public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
         return in.getForField(fieldType);
@@ -0,0 +1,96 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A ref-counted point in time view of a shard that several search contexts can search without opening a reader of their own.
+ * It holds no per-request state and releases the underlying searcher once the last context that uses it is closed.
+ */
+public final class ReaderContext extends AbstractRefCounted {
+
+    private final ShardId shardId;
+    private final Engine.Searcher searcher;
+    private final long creationTimeInMillis;
+    private final Consumer<ReaderContext> onClose;
+
+    /**
+     * @param searcher an unwrapped searcher as returned by {@link IndexShard#acquireUnwrappedSearcher(String)}
+     * @param onClose  invoked with this context once its searcher has been released
+     */
+    public ReaderContext(ShardId shardId, Engine.Searcher searcher, long creationTimeInMillis, Consumer<ReaderContext> onClose) {
+        super("reader_context");
+        this.shardId = shardId;
+        this.searcher = searcher;
+        this.creationTimeInMillis = creationTimeInMillis;
+        this.onClose = onClose;
+    }
+
+    public ShardId shardId() {
+        return shardId;
+    }
+
+    /**
+     * The relative time in millis at which the view of the shard was opened.
+     */
+    public long creationTimeInMillis() {
+        return creationTimeInMillis;
+    }
+
+    /**
+     * Returns <code>true</code> if this context is a view on the same reader as the given searcher.
+     */
+    public boolean sameReader(Engine.Searcher other) {
+        return searcher.reader() == other.reader();
+    }
+
+    /**
+     * Returns a searcher on this point in time view that is wrapped for a single request by the shard. Closing it releases the
+     * reference that this method acquires on this context.
+     */
+    public Engine.Searcher acquireSearcher(IndexShard indexShard, String source) {
+        incRef();
+        final AtomicBoolean released = new AtomicBoolean(false);
+        return indexShard.wrapSearcher(new Engine.Searcher(source, searcher.searcher()) {
+            @Override
+            public void close() {
+                if (released.compareAndSet(false, true)) {
+                    decRef();
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void closeInternal() {
+        try {
+            searcher.close();
+        } finally {
+            onClose.accept(this);
+        }
+    }
+}
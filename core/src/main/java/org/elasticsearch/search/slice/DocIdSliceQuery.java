@@ -0,0 +1,102 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.slice;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+
+/**
+ * A {@link SliceQuery} that splits the doc ids of each segment in <code>max</code> contiguous ranges and matches the documents
+ * of the range at position <code>id</code>. Unlike the other slice queries, it doesn't need to visit the documents of the
+ * other slices, so each slice only reads its own blocks of the index.
+ *
+ * <b>NOTE</b>: Doc ids are only stable within a reader, so you must ensure that the same segments are used for all `slice` queries.
+ */
+public final class DocIdSliceQuery extends SliceQuery {
+    public DocIdSliceQuery(String field, int id, int max) {
+        super(field, id, max);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, boolean needsScores, float boost) throws IOException {
+        return new ConstantScoreWeight(this, boost) {
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                final int maxDoc = context.reader().maxDoc();
+                final int minDoc = getRangeStart(maxDoc, getId());
+                final int endDoc = getRangeStart(maxDoc, getId() + 1);
+                if (minDoc >= endDoc) {
+                    return null;
+                }
+                return new ConstantScoreScorer(this, score(), new RangeDocIdSetIterator(minDoc, endDoc));
+            }
+
+        };
+    }
+
+    private int getRangeStart(int maxDoc, int slice) {
+        return (int) ((long) maxDoc * slice / getMax());
+    }
+
+    /**
+     * Iterates over all doc ids between <code>minDoc</code> inclusive and <code>endDoc</code> exclusive.
+     */
+    private static final class RangeDocIdSetIterator extends DocIdSetIterator {
+        private final int minDoc;
+        private final int endDoc;
+        private int doc = -1;
+
+        RangeDocIdSetIterator(int minDoc, int endDoc) {
+            this.minDoc = minDoc;
+            this.endDoc = endDoc;
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            if (target >= endDoc) {
+                return doc = NO_MORE_DOCS;
+            }
+            return doc = Math.max(target, minDoc);
+        }
+
+        @Override
+        public long cost() {
+            return endDoc - minDoc;
+        }
+    }
+}
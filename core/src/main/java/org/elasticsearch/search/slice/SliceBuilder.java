@@ -37,6 +37,7 @@ import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.UidFieldMapper;
 import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.search.sort.FieldSortBuilder;
 
 import java.io.IOException;
 import java.util.Objects;
@@ -49,6 +50,8 @@ import java.util.Objects;
  *  then the slices 0 and 2 are assigned to the first shard and the slices 1 and 3 are assigned to the second shard.
  *  This way the total number of bitsets that we need to build on each shard is bounded by the number of slices
  *  (instead of {@code numShards*numSlices}).
+ *  If the provided field is "_doc" it uses a {@link org.elasticsearch.search.slice.DocIdSliceQuery} that splits
+ *  each segment of the shard in contiguous ranges of doc ids.
  *  Otherwise the provided field must be a numeric and doc_values must be enabled. In that case a
  *  {@link org.elasticsearch.search.slice.DocValuesSliceQuery} is used to filter the results.
  */
@@ -190,31 +193,35 @@ public class SliceBuilder implements Writeable, ToXContentObject {
     }
 
     public Query toFilter(QueryShardContext context, int shardId, int numShards) {
-        final MappedFieldType type = context.fieldMapper(field);
-        if (type == null) {
-            throw new IllegalArgumentException("field " + field + " not found");
-        }
-
         String field = this.field;
         boolean useTermQuery = false;
-        if (UidFieldMapper.NAME.equals(field)) {
-            if (context.getIndexSettings().isSingleType()) {
-                // on new indices, the _id acts as a _uid
-                field = IdFieldMapper.NAME;
-            }
-            useTermQuery = true;
-        } else if (type.hasDocValues() == false) {
-            throw new IllegalArgumentException("cannot load numeric doc values on " + field);
+        boolean useDocIdQuery = false;
+        if (FieldSortBuilder.DOC_FIELD_NAME.equals(field)) {
+            // the doc ids are sliced directly, there is no field to look up
+            useDocIdQuery = true;
         } else {
-            IndexFieldData ifm = context.getForField(type);
-            if (ifm instanceof IndexNumericFieldData == false) {
+            final MappedFieldType type = context.fieldMapper(field);
+            if (type == null) {
+                throw new IllegalArgumentException("field " + field + " not found");
+            }
+            if (UidFieldMapper.NAME.equals(field)) {
+                if (context.getIndexSettings().isSingleType()) {
+                    // on new indices, the _id acts as a _uid
+                    field = IdFieldMapper.NAME;
+                }
+                useTermQuery = true;
+            } else if (type.hasDocValues() == false) {
                 throw new IllegalArgumentException("cannot load numeric doc values on " + field);
+            } else {
+                IndexFieldData ifm = context.getForField(type);
+                if (ifm instanceof IndexNumericFieldData == false) {
+                    throw new IllegalArgumentException("cannot load numeric doc values on " + field);
+                }
             }
         }
 
         if (numShards == 1) {
-            return useTermQuery ? new TermsSliceQuery(field, id, max) :
-                new DocValuesSliceQuery(field, id, max);
+            return createSliceQuery(field, useTermQuery, useDocIdQuery, id, max);
         }
         if (max >= numShards) {
             // the number of slices is greater than the number of shards
@@ -240,9 +247,7 @@ public class SliceBuilder implements Writeable, ToXContentObject {
             // get the new slice id for this shard
             int shardSlice = id / numShards;
 
-            return useTermQuery ?
-                new TermsSliceQuery(field, shardSlice, numSlicesInShard) :
-                new DocValuesSliceQuery(field, shardSlice, numSlicesInShard);
+            return createSliceQuery(field, useTermQuery, useDocIdQuery, shardSlice, numSlicesInShard);
         }
         // the number of shards is greater than the number of slices
 
@@ -255,6 +260,13 @@ public class SliceBuilder implements Writeable, ToXContentObject {
         return new MatchAllDocsQuery();
     }
 
+    private static SliceQuery createSliceQuery(String field, boolean useTermQuery, boolean useDocIdQuery, int id, int max) {
+        if (useDocIdQuery) {
+            return new DocIdSliceQuery(field, id, max);
+        }
+        return useTermQuery ? new TermsSliceQuery(field, id, max) : new DocValuesSliceQuery(field, id, max);
+    }
+
     @Override
     public String toString() {
         return Strings.toString(this, true, true);
@@ -21,6 +21,7 @@ package org.elasticsearch.transport;
 
 import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStream;
@@ -32,9 +33,9 @@ import java.util.zip.DeflaterOutputStream;
 
 /**
  * This class exists to provide a stream with optional compression. This is useful as using compression
- * requires that the underlying {@link DeflaterOutputStream} be closed to write EOS bytes. However, the
- * {@link BytesStream} should not be closed yet, as we have not used the bytes. This class handles these
- * intricacies.
+ * requires that the underlying compressing stream, e.g. a {@link DeflaterOutputStream}, be closed to write
+ * EOS bytes. However, the {@link BytesStream} should not be closed yet, as we have not used the bytes. This
+ * class handles these intricacies.
  *
  * {@link CompressibleBytesOutputStream#materializeBytes()} should be called when all the bytes have been
  * written to this stream. If compression is enabled, the proper EOS bytes will be written at that point.
@@ -50,10 +51,14 @@ final class CompressibleBytesOutputStream extends StreamOutput implements Releas
     private final boolean shouldCompress;
 
     CompressibleBytesOutputStream(BytesStream bytesStreamOutput, boolean shouldCompress) throws IOException {
+        this(bytesStreamOutput, shouldCompress, CompressorFactory.COMPRESSOR);
+    }
+
+    CompressibleBytesOutputStream(BytesStream bytesStreamOutput, boolean shouldCompress, Compressor compressor) throws IOException {
         this.bytesStreamOutput = bytesStreamOutput;
         this.shouldCompress = shouldCompress;
         if (shouldCompress) {
-            this.stream = CompressorFactory.COMPRESSOR.streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
+            this.stream = compressor.streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
         } else {
             this.stream = bytesStreamOutput;
         }
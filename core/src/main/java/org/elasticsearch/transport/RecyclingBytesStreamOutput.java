@@ -0,0 +1,133 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.io.stream.BytesStream;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.recycler.Recycler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A {@link BytesStream} that writes outbound messages into fixed size pages obtained from a page pool. Unlike a
+ * {@link org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput} it never copies bytes when it grows, and
+ * {@link #bytes()} exposes the pages as they are so that they can be handed over to the network layer without copying.
+ * The pages are released on {@link #close()}, which must not happen before the bytes have been sent.
+ */
+final class RecyclingBytesStreamOutput extends BytesStream implements Releasable {
+
+    private final Supplier<Recycler.V<byte[]>> pageSupplier;
+    private final List<Recycler.V<byte[]>> pages = new ArrayList<>();
+    private byte[] currentPage;
+    // the number of bytes written to the current page
+    private int pageOffset;
+    // the number of bytes written to the pages before the current one
+    private long previousPagesSize;
+
+    RecyclingBytesStreamOutput(Supplier<Recycler.V<byte[]>> pageSupplier) {
+        this.pageSupplier = pageSupplier;
+    }
+
+    private void nextPage() {
+        if (currentPage != null) {
+            previousPagesSize += pageOffset;
+        }
+        final Recycler.V<byte[]> page = pageSupplier.get();
+        pages.add(page);
+        currentPage = page.v();
+        pageOffset = 0;
+    }
+
+    @Override
+    public void writeByte(byte b) {
+        if (currentPage == null || pageOffset == currentPage.length) {
+            nextPage();
+        }
+        currentPage[pageOffset++] = b;
+    }
+
+    @Override
+    public void writeBytes(byte[] b, int offset, int length) {
+        while (length > 0) {
+            if (currentPage == null || pageOffset == currentPage.length) {
+                nextPage();
+            }
+            final int toCopy = Math.min(length, currentPage.length - pageOffset);
+            System.arraycopy(b, offset, currentPage, pageOffset, toCopy);
+            pageOffset += toCopy;
+            offset += toCopy;
+            length -= toCopy;
+        }
+    }
+
+    @Override
+    public long position() {
+        return previousPagesSize + pageOffset;
+    }
+
+    @Override
+    public BytesReference bytes() {
+        if (pages.isEmpty()) {
+            return BytesArray.EMPTY;
+        }
+        final BytesReference[] references = new BytesReference[pages.size()];
+        for (int i = 0; i < references.length; i++) {
+            final byte[] page = pages.get(i).v();
+            final int length = i == references.length - 1 ? pageOffset : page.length;
+            references[i] = new BytesArray(page, 0, length);
+        }
+        return references.length == 1 ? references[0] : new CompositeBytesReference(references);
+    }
+
+    @Override
+    public void flush() {
+        // nothing to do
+    }
+
+    @Override
+    public void reset() {
+        // keep the first page around for reuse
+        for (int i = 1; i < pages.size(); i++) {
+            Releasables.close(pages.get(i));
+        }
+        if (pages.size() > 1) {
+            pages.subList(1, pages.size()).clear();
+        }
+        currentPage = pages.isEmpty() ? null : pages.get(0).v();
+        pageOffset = 0;
+        previousPagesSize = 0;
+        clearSharedStrings();
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(pages);
+        pages.clear();
+        currentPage = null;
+        pageOffset = 0;
+        previousPagesSize = 0;
+    }
+}
@@ -35,6 +35,7 @@ import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.RetainableBytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.component.Lifecycle;
 import org.elasticsearch.common.compress.Compressor;
@@ -43,7 +44,6 @@ import org.elasticsearch.common.compress.NotCompressedException;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
-import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
@@ -53,11 +53,14 @@ import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.network.NetworkAddress;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.network.NetworkUtils;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.BoundTransportAddress;
 import org.elasticsearch.common.transport.PortsRange;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
@@ -87,6 +90,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -146,6 +150,26 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         intSetting("transport.connections_per_node.state", 1, 1, Setting.Property.NodeScope);
     public static final Setting<Integer> CONNECTIONS_PER_NODE_PING =
         intSetting("transport.connections_per_node.ping", 1, 1, Setting.Property.NodeScope);
+    public static final Setting<Compressor> COMPRESSION_SCHEME_RECOVERY = new Setting<>("transport.compression_scheme.recovery",
+        Transport.TRANSPORT_TCP_COMPRESSION_SCHEME, CompressorFactory::compressor, Setting.Property.NodeScope);
+    public static final Setting<Compressor> COMPRESSION_SCHEME_BULK = new Setting<>("transport.compression_scheme.bulk",
+        Transport.TRANSPORT_TCP_COMPRESSION_SCHEME, CompressorFactory::compressor, Setting.Property.NodeScope);
+    public static final Setting<Compressor> COMPRESSION_SCHEME_REG = new Setting<>("transport.compression_scheme.reg",
+        Transport.TRANSPORT_TCP_COMPRESSION_SCHEME, CompressorFactory::compressor, Setting.Property.NodeScope);
+    // the bytes that may be pending on the outgoing channels of a type before further requests of that type are rejected, or delayed
+    // in case of recoveries, -1 means unbounded
+    public static final Setting<ByteSizeValue> MAX_PENDING_BYTES =
+        Setting.memorySizeSetting("transport.tcp.max_pending_bytes", "10%", Setting.Property.NodeScope);
+    // small messages for the matching actions are gathered per channel while a write is in flight on it and written together
+    public static final Setting<Boolean> COALESCE_ENABLED =
+        boolSetting("transport.tcp.coalesce.enabled", false, Setting.Property.NodeScope);
+    public static final Setting<ByteSizeValue> COALESCE_MAX_MESSAGE_SIZE =
+        Setting.byteSizeSetting("transport.tcp.coalesce.max_message_size", new ByteSizeValue(1, ByteSizeUnit.KB),
+            Setting.Property.NodeScope);
+    public static final Setting<List<String>> COALESCE_ACTIONS =
+        listSetting("transport.tcp.coalesce.actions", Arrays.asList("indices:admin/seq_no/global_checkpoint_sync*",
+            "indices:admin/refresh[s]*", "indices:admin/flush[s]*", "indices:data/write/bulk[s][r]"), Function.identity(),
+            Setting.Property.NodeScope);
     public static final Setting<TimeValue> TCP_CONNECT_TIMEOUT =
         timeSetting("transport.tcp.connect_timeout", NetworkService.TCP_CONNECT_TIMEOUT, Setting.Property.NodeScope);
     public static final Setting<Boolean> TCP_NO_DELAY =
@@ -207,6 +231,9 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
     // connections while no connect operations is going on... (this might help with 100% CPU when stopping the transport?)
     protected final ReadWriteLock closeLock = new ReentrantReadWriteLock();
     protected final boolean compress;
+    // the compressor used for responses and the ones used for requests, per type of connection
+    private final Compressor compressor;
+    private final Map<TransportRequestOptions.Type, Compressor> requestCompressors;
     protected volatile BoundTransportAddress boundAddress;
     private final String transportName;
     protected final ConnectionProfile defaultConnectionProfile;
@@ -214,10 +241,20 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
     private final ConcurrentMap<Long, HandshakeResponseHandler> pendingHandshakes = new ConcurrentHashMap<>();
     private final AtomicLong requestIdGenerator = new AtomicLong();
     private final CounterMetric numHandshakes = new CounterMetric();
-    private static final String HANDSHAKE_ACTION_NAME = "internal:tcp/handshake";
+    private static final String INTERNAL_ACTION_PREFIX = "internal:";
+    private static final String HANDSHAKE_ACTION_NAME = INTERNAL_ACTION_PREFIX + "tcp/handshake";
 
     private final MeanMetric readBytesMetric = new MeanMetric();
     private final MeanMetric transmittedBytesMetric = new MeanMetric();
+    private final CounterMetric outboundPoolHits = new CounterMetric();
+    private final CounterMetric outboundPoolMisses = new CounterMetric();
+    private final long maxPendingBytes;
+    // the bytes of the requests that have been handed over to outgoing channels but not written yet, per type of channel
+    private final Map<TransportRequestOptions.Type, CounterMetric> pendingBytes;
+    // notified whenever pending recovery bytes are released, recovery requests wait on it while too many bytes are pending
+    private final Object recoveryBytesReleased = new Object();
+    @Nullable
+    private final MessageCoalescer coalescer;
 
     public TcpTransport(String transportName, Settings settings, ThreadPool threadPool, BigArrays bigArrays,
                         CircuitBreakerService circuitBreakerService, NamedWriteableRegistry namedWriteableRegistry,
@@ -231,9 +268,24 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         this.pingSchedule = PING_SCHEDULE.get(settings);
         this.namedWriteableRegistry = namedWriteableRegistry;
         this.compress = Transport.TRANSPORT_TCP_COMPRESS.get(settings);
+        this.maxPendingBytes = MAX_PENDING_BYTES.get(settings).getBytes();
+        this.pendingBytes = new EnumMap<>(TransportRequestOptions.Type.class);
+        for (TransportRequestOptions.Type type : TransportRequestOptions.Type.values()) {
+            pendingBytes.put(type, new CounterMetric());
+        }
+        this.compressor = Transport.TRANSPORT_TCP_COMPRESSION_SCHEME.get(settings);
+        this.requestCompressors = new EnumMap<>(TransportRequestOptions.Type.class);
+        for (TransportRequestOptions.Type type : TransportRequestOptions.Type.values()) {
+            requestCompressors.put(type, compressor);
+        }
+        requestCompressors.put(TransportRequestOptions.Type.RECOVERY, COMPRESSION_SCHEME_RECOVERY.get(settings));
+        requestCompressors.put(TransportRequestOptions.Type.BULK, COMPRESSION_SCHEME_BULK.get(settings));
+        requestCompressors.put(TransportRequestOptions.Type.REG, COMPRESSION_SCHEME_REG.get(settings));
         this.networkService = networkService;
         this.transportName = transportName;
         defaultConnectionProfile = buildDefaultConnectionProfile(settings);
+        this.coalescer = COALESCE_ENABLED.get(settings) == false ? null : new MessageCoalescer(
+            COALESCE_MAX_MESSAGE_SIZE.get(settings).getBytes(), COALESCE_ACTIONS.get(settings).toArray(Strings.EMPTY_ARRAY));
     }
 
     static ConnectionProfile buildDefaultConnectionProfile(Settings settings) {
@@ -460,10 +512,48 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
             if (closed.get()) {
                 throw new NodeNotConnectedException(node, "connection already closed");
             }
+            if (hasTooManyPendingBytes(options.type())) {
+                if (options.type() == TransportRequestOptions.Type.RECOVERY) {
+                    // recoveries must make progress, slow them down to the pace of the receiver instead
+                    awaitPendingRecoveryBytes(options.timeout());
+                } else if (canRejectOnPendingBytes(action, options.type())) {
+                    // receivers don't keep up, reject rather than buffering more on the heap
+                    throw new EsRejectedExecutionException("rejected sending [" + action + "] to " + node + ", ["
+                        + pendingBytes.get(options.type()).count() + "] bytes are pending on outgoing ["
+                        + options.type().name().toLowerCase(Locale.ROOT) + "] channels which is more than the limit of ["
+                        + maxPendingBytes + "] bytes");
+                }
+            }
             Channel channel = channel(options.type());
             sendRequestToChannel(this.node, channel, requestId, action, request, options, getVersion(), (byte) 0);
         }
 
+        /**
+         * Waits until the pending recovery bytes drop below the limit, the given timeout elapses or this connection is closed. Network
+         * threads never wait.
+         */
+        private void awaitPendingRecoveryBytes(@Nullable TimeValue timeout) {
+            if (Transports.isTransportThread(Thread.currentThread())) {
+                return;
+            }
+            final long deadline = timeout == null ? Long.MAX_VALUE : System.nanoTime() + timeout.nanos();
+            synchronized (recoveryBytesReleased) {
+                while (hasTooManyPendingBytes(TransportRequestOptions.Type.RECOVERY) && closed.get() == false) {
+                    final long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        return;
+                    }
+                    try {
+                        // wake up regularly to notice a closed connection
+                        recoveryBytesReleased.wait(Math.max(1, Math.min(100, TimeUnit.NANOSECONDS.toMillis(remainingNanos))));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
         boolean isClosed() {
             return closed.get();
         }
@@ -1058,6 +1148,31 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         return compress && (!(request instanceof BytesTransportRequest));
     }
 
+    /**
+     * Returns the compressor to use for a message sent to a node of the given version. Nodes before 7.0 only
+     * understand DEFLATE, the receiving side detects the compressor from the header of the compressed stream.
+     */
+    static Compressor compressorFor(Compressor compressor, Version version) {
+        if (compressor == CompressorFactory.LZ4 && version.before(Version.V_7_0_0_alpha1)) {
+            return CompressorFactory.COMPRESSOR;
+        }
+        return compressor;
+    }
+
+    /**
+     * Obtains a page to serialize an outbound message into. Messages are written into recycled pages whenever
+     * possible, which is tracked by the outbound pool hits and misses.
+     */
+    private Recycler.V<byte[]> newOutboundPage() {
+        final Recycler.V<byte[]> page = bigArrays.newBytePage();
+        if (page.isRecycled()) {
+            outboundPoolHits.inc();
+        } else {
+            outboundPoolMisses.inc();
+        }
+        return page;
+    }
+
     private void sendRequestToChannel(final DiscoveryNode node, final Channel targetChannel, final long requestId, final String action,
                                       final TransportRequest request, TransportRequestOptions options, Version channelVersion,
                                       byte status) throws IOException,
@@ -1071,8 +1186,9 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         final boolean compressMessage = options.compress() && canCompress(request);
 
         status = TransportStatus.setRequest(status);
-        ReleasableBytesStreamOutput bStream = new ReleasableBytesStreamOutput(bigArrays);
-        final CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, compressMessage);
+        RecyclingBytesStreamOutput bStream = new RecyclingBytesStreamOutput(this::newOutboundPage);
+        final CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, compressMessage,
+            compressorFor(requestCompressors.get(options.type()), channelVersion));
         boolean addedReleaseListener = false;
         try {
             if (compressMessage) {
@@ -1089,10 +1205,11 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
             stream.writeString(action);
             BytesReference message = buildMessage(requestId, status, node.getVersion(), request, stream);
             final TransportRequestOptions finalOptions = options;
+            final Releasable onSent = trackPendingBytes(options.type(), message.length());
             // this might be called in a different thread
-            SendListener onRequestSent = new SendListener(stream,
+            SendListener onRequestSent = new SendListener(Releasables.wrap(stream, onSent),
                 () -> transportService.onRequestSent(node, requestId, action, request, finalOptions), message.length());
-            internalSendMessage(targetChannel, message, onRequestSent);
+            sendOrCoalesceMessage(targetChannel, action, message, onRequestSent);
             addedReleaseListener = true;
         } finally {
             if (!addedReleaseListener) {
@@ -1102,9 +1219,74 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
     }
 
     /**
-     * sends a message to the given channel, using the given callbacks.
+     * Returns <code>true</code> if the bytes pending on the outgoing channels of the given type reached the limit. Every type is
+     * checked against its own pending bytes, so a backlog of one type of traffic doesn't hold up the others.
      */
-    private void internalSendMessage(Channel targetChannel, BytesReference message, SendMetricListener<Channel> listener) {
+    private boolean hasTooManyPendingBytes(TransportRequestOptions.Type type) {
+        if (maxPendingBytes < 0) {
+            return false;
+        }
+        final long pending = pendingBytes.get(type).count();
+        return pending > 0 && pending >= maxPendingBytes;
+    }
+
+    /**
+     * Returns <code>true</code> if a request may be rejected because too many bytes are pending on outgoing channels. Pings, cluster
+     * state updates, recoveries and internal requests are never rejected since the cluster can't make progress without them, and
+     * neither are requests whose handler is forced to execute them, like the replication of writes to replicas.
+     */
+    private boolean canRejectOnPendingBytes(String action, TransportRequestOptions.Type type) {
+        if (type != TransportRequestOptions.Type.REG && type != TransportRequestOptions.Type.BULK) {
+            return false;
+        }
+        if (action.startsWith(INTERNAL_ACTION_PREFIX)) {
+            return false;
+        }
+        final RequestHandlerRegistry reg = transportService.getRequestHandler(action);
+        return reg == null || reg.isForceExecution() == false;
+    }
+
+    /**
+     * Accounts for the given number of bytes as pending until the returned {@link Releasable} is closed.
+     */
+    private Releasable trackPendingBytes(TransportRequestOptions.Type type, long bytes) {
+        final CounterMetric typePendingBytes = pendingBytes.get(type);
+        typePendingBytes.inc(bytes);
+        return Releasables.releaseOnce(() -> {
+            typePendingBytes.dec(bytes);
+            if (type == TransportRequestOptions.Type.RECOVERY) {
+                synchronized (recoveryBytesReleased) {
+                    recoveryBytesReleased.notifyAll();
+                }
+            }
+        });
+    }
+
+    /**
+     * Sends a request or response message for the given action, small messages of the actions that are configured for
+     * coalescing are batched up with other messages on the same channel.
+     */
+    private void sendOrCoalesceMessage(Channel targetChannel, String action, BytesReference message, SendMetricListener<Channel> listener) {
+        if (coalescer != null && targetChannel != null && coalescer.canCoalesce(action, message.length())) {
+            coalescer.add(targetChannel, message, listener);
+        } else {
+            internalSendMessage(targetChannel, message, listener);
+        }
+    }
+
+    /**
+     * sends a message to the given channel, using the given callbacks. Messages that are held back for coalescing on the channel
+     * are written first so that messages are written in the order in which they are sent.
+     */
+    private void internalSendMessage(Channel targetChannel, BytesReference message, ActionListener<Channel> listener) {
+        if (coalescer != null && targetChannel != null) {
+            coalescer.write(targetChannel, message, listener);
+        } else {
+            writeMessage(targetChannel, message, listener);
+        }
+    }
+
+    private void writeMessage(Channel targetChannel, BytesReference message, ActionListener<Channel> listener) {
         try {
             sendMessage(targetChannel, message, listener);
         } catch (Exception ex) {
@@ -1159,8 +1341,9 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
             options = TransportResponseOptions.builder(options).withCompress(true).build();
         }
         status = TransportStatus.setResponse(status); // TODO share some code with sendRequest
-        ReleasableBytesStreamOutput bStream = new ReleasableBytesStreamOutput(bigArrays);
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, options.compress());
+        RecyclingBytesStreamOutput bStream = new RecyclingBytesStreamOutput(this::newOutboundPage);
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, options.compress(),
+            compressorFor(compressor, nodeVersion));
         boolean addedReleaseListener = false;
         try {
             if (options.compress()) {
@@ -1174,7 +1357,7 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
             // this might be called in a different thread
             SendListener listener = new SendListener(stream,
                 () -> transportService.onResponseSent(requestId, action, response, finalOptions), message.length());
-            internalSendMessage(channel, message, listener);
+            sendOrCoalesceMessage(channel, action, message, listener);
             addedReleaseListener = true;
         } finally {
             if (!addedReleaseListener) {
@@ -1333,7 +1516,16 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         readBytesMetric.inc(totalMessageSize);
         // we have additional bytes to read, outside of the header
         boolean hasMessageBytesToRead = (totalMessageSize - TcpHeader.HEADER_SIZE) > 0;
-        StreamInput streamIn = reference.streamInput();
+        StreamInput streamIn;
+        RetainableBytesReference.Retained retainedMessage = null;
+        if (reference instanceof RetainableBytesReference && isSharableRequest(reference)) {
+            // the request may share the bytes of the message instead of copying them, which requires
+            // retaining the message until the request has been handled
+            retainedMessage = ((RetainableBytesReference) reference).retain();
+            streamIn = retainedMessage.streamInput();
+        } else {
+            streamIn = reference.streamInput();
+        }
         boolean success = false;
         try (ThreadContext.StoredContext tCtx = threadPool.getThreadContext().stashContext()) {
             long requestId = streamIn.readLong();
@@ -1363,7 +1555,14 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
             streamIn.setVersion(version);
             threadPool.getThreadContext().readHeaders(streamIn);
             if (TransportStatus.isRequest(status)) {
-                handleRequest(channel, profileName, streamIn, requestId, messageLengthBytes, version, remoteAddress, status);
+                final Releasable onRequestHandled = retainedMessage;
+                // the in-flight requests breaker accounts for all the memory that a retained message keeps alive
+                final int reservedBytes = retainedMessage == null ? messageLengthBytes
+                    : (int) Math.max(messageLengthBytes, retainedMessage.ramBytesUsed());
+                // from now on the message is released by the channel of the request
+                retainedMessage = null;
+                handleRequest(channel, profileName, streamIn, requestId, reservedBytes, version, remoteAddress, status,
+                    onRequestHandled);
             } else {
                 final TransportResponseHandler<?> handler;
                 if (isHandshake) {
@@ -1394,6 +1593,7 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
             }
             success = true;
         } finally {
+            Releasables.close(retainedMessage);
             if (success) {
                 IOUtils.close(streamIn);
             } else {
@@ -1402,6 +1602,19 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         }
     }
 
+    /**
+     * Returns <code>true</code> if the given message is a request whose bytes may be shared with the deserialized request.
+     * Compressed messages are decompressed into fresh buffers anyway.
+     */
+    private static boolean isSharableRequest(BytesReference message) {
+        if (message.length() <= TcpHeader.REQUEST_ID_SIZE) {
+            return false;
+        }
+        final byte status = message.get(TcpHeader.REQUEST_ID_SIZE);
+        return TransportStatus.isRequest(status) && TransportStatus.isCompress(status) == false
+            && TransportStatus.isHandshake(status) == false;
+    }
+
     static void ensureVersionCompatibility(Version version, Version currentVersion, boolean isHandshake) {
         // for handshakes we are compatible with N-2 since otherwise we can't figure out our initial version
         // since we are compatible with N-1 and N+1 so we always send our minCompatVersion as the initial version in the
@@ -1466,13 +1679,27 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         });
     }
 
+    /**
+     * Handles a received request.
+     *
+     * @param onRequestHandled released once a response has been sent for the request, might be <code>null</code>
+     */
     protected String handleRequest(Channel channel, String profileName, final StreamInput stream, long requestId, int messageLengthBytes,
-                                   Version version, InetSocketAddress remoteAddress, byte status) throws IOException {
-        final String action = stream.readString();
-        transportService.onRequestReceived(requestId, action);
+                                   Version version, InetSocketAddress remoteAddress, byte status,
+                                   @Nullable Releasable onRequestHandled) throws IOException {
+        final String action;
+        try {
+            action = stream.readString();
+            transportService.onRequestReceived(requestId, action);
+        } catch (Exception e) {
+            // no channel owns the request yet that would release it once a response is sent
+            Releasables.close(onRequestHandled);
+            throw e;
+        }
         TransportChannel transportChannel = null;
         try {
             if (TransportStatus.isHandshake(status)) {
+                Releasables.close(onRequestHandled);
                 final VersionHandshakeResponse response = new VersionHandshakeResponse(getCurrentVersion());
                 sendResponse(version, channel, response, requestId, HANDSHAKE_ACTION_NAME, TransportResponseOptions.EMPTY,
                     TransportStatus.setHandshake((byte) 0));
@@ -1487,7 +1714,7 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
                     getInFlightRequestBreaker().addWithoutBreaking(messageLengthBytes);
                 }
                 transportChannel = new TcpTransportChannel<>(this, channel, transportName, action, requestId, version, profileName,
-                    messageLengthBytes);
+                    messageLengthBytes, onRequestHandled);
                 final TransportRequest request = reg.newRequest(stream);
                 request.remoteAddress(new TransportAddress(remoteAddress));
                 // in case we throw an exception, i.e. when the limit is hit, we don't want to verify
@@ -1497,7 +1724,8 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         } catch (Exception e) {
             // the circuit breaker tripped
             if (transportChannel == null) {
-                transportChannel = new TcpTransportChannel<>(this, channel, transportName, action, requestId, version, profileName, 0);
+                transportChannel = new TcpTransportChannel<>(this, channel, transportName, action, requestId, version, profileName, 0,
+                    onRequestHandled);
             }
             try {
                 transportChannel.sendResponse(e);
@@ -1711,6 +1939,173 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         }
     }
 
+    /**
+     * Gathers small messages that are sent on the same channel while another write is in flight on it and writes them to the channel
+     * at once when that write completes. A message that is sent while the channel is idle is written right away, so coalescing never
+     * adds latency. Every message keeps its own header, so the receiving side splits the batch up again by the usual message framing
+     * and nothing changes on the wire.
+     */
+    private final class MessageCoalescer {
+        // a batch is written out right away once it grows beyond this size, independent of the writes in flight
+        private static final int MAX_BATCH_BYTES = 64 * 1024;
+
+        private final long maxMessageSize;
+        private final String[] actionPatterns;
+        private final ConcurrentMap<Channel, ChannelWrites> channels = newConcurrentMap();
+
+        private MessageCoalescer(long maxMessageSize, String[] actionPatterns) {
+            this.maxMessageSize = maxMessageSize;
+            this.actionPatterns = actionPatterns;
+        }
+
+        boolean canCoalesce(String action, int messageLength) {
+            return messageLength <= maxMessageSize && Regex.simpleMatch(actionPatterns, action);
+        }
+
+        /**
+         * Writes the message right away if no write is in flight on the channel, otherwise adds it to the channel's batch.
+         */
+        void add(Channel channel, BytesReference message, SendMetricListener<Channel> listener) {
+            while (true) {
+                final ChannelWrites writes = channels.computeIfAbsent(channel, ChannelWrites::new);
+                if (writes.add(message, listener)) {
+                    return;
+                }
+                // the channel has gone idle concurrently, start over
+            }
+        }
+
+        /**
+         * Writes the message right away, after the batch that is held back on the channel if there is one.
+         */
+        void write(Channel channel, BytesReference message, ActionListener<Channel> listener) {
+            final ChannelWrites writes = channels.get(channel);
+            if (writes == null || writes.write(message, listener) == false) {
+                writeMessage(channel, message, listener);
+            }
+        }
+    }
+
+    /**
+     * The writes in flight on a channel and the batch of messages that waits for them to complete. All writes happen under the lock
+     * of this object, which keeps them in the order in which the messages were sent.
+     */
+    private final class ChannelWrites {
+        private final Channel channel;
+        private List<BytesReference> messages = new ArrayList<>();
+        private List<SendMetricListener<Channel>> listeners = new ArrayList<>();
+        private int bytes;
+        private int inFlight;
+        private boolean idle;
+
+        private ChannelWrites(Channel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Writes or batches the given message, returns <code>false</code> if the channel has gone idle and the caller needs to start
+         * over with a new instance.
+         */
+        synchronized boolean add(BytesReference message, SendMetricListener<Channel> listener) {
+            if (idle) {
+                return false;
+            }
+            if (inFlight == 0) {
+                trackedWrite(message, listener);
+            } else {
+                messages.add(message);
+                listeners.add(listener);
+                bytes += message.length();
+                if (bytes >= MessageCoalescer.MAX_BATCH_BYTES) {
+                    writeBatch();
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Writes the batch followed by the given message, returns <code>false</code> if the channel has gone idle in which case
+         * nothing is held back and the caller can write the message directly.
+         */
+        synchronized boolean write(BytesReference message, ActionListener<Channel> listener) {
+            if (idle) {
+                return false;
+            }
+            writeBatch();
+            trackedWrite(message, listener);
+            return true;
+        }
+
+        private synchronized void onWriteCompleted() {
+            inFlight--;
+            if (messages.isEmpty() == false) {
+                writeBatch();
+            } else if (inFlight == 0) {
+                idle = true;
+                coalescer.channels.remove(channel, this);
+            }
+        }
+
+        private void writeBatch() {
+            assert Thread.holdsLock(this);
+            if (messages.isEmpty()) {
+                return;
+            }
+            final List<BytesReference> batch = messages;
+            final List<SendMetricListener<Channel>> batchListeners = listeners;
+            messages = new ArrayList<>();
+            listeners = new ArrayList<>();
+            bytes = 0;
+            final BytesReference message;
+            if (batch.size() == 1) {
+                message = batch.get(0);
+            } else {
+                message = new CompositeBytesReference(batch.toArray(new BytesReference[batch.size()]));
+            }
+            trackedWrite(message, new ActionListener<Channel>() {
+                @Override
+                public void onResponse(Channel channel) {
+                    // each listener accounts for the bytes of its own message
+                    for (SendMetricListener<Channel> listener : batchListeners) {
+                        listener.onResponse(channel);
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    for (SendMetricListener<Channel> listener : batchListeners) {
+                        listener.onFailure(e);
+                    }
+                }
+            });
+        }
+
+        private void trackedWrite(BytesReference message, ActionListener<Channel> listener) {
+            assert Thread.holdsLock(this);
+            inFlight++;
+            // the batch is written once the write completes, on the thread that completes it which is the channel's network thread
+            writeMessage(channel, message, new ActionListener<Channel>() {
+                @Override
+                public void onResponse(Channel channel) {
+                    try {
+                        listener.onResponse(channel);
+                    } finally {
+                        onWriteCompleted();
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    try {
+                        listener.onFailure(e);
+                    } finally {
+                        onWriteCompleted();
+                    }
+                }
+            });
+        }
+    }
+
     /**
      * Returns count of currently open connections
      */
@@ -1720,7 +2115,15 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
     public final TransportStats getStats() {
         return new TransportStats(
             getNumOpenServerConnections(), readBytesMetric.count(), readBytesMetric.sum(), transmittedBytesMetric.count(),
-            transmittedBytesMetric.sum());
+            transmittedBytesMetric.sum(), outboundPoolHits.count(), outboundPoolMisses.count(), getPendingBytes());
+    }
+
+    private Map<String, Long> getPendingBytes() {
+        final Map<String, Long> bytes = new HashMap<>();
+        for (Map.Entry<TransportRequestOptions.Type, CounterMetric> entry : pendingBytes.entrySet()) {
+            bytes.put(entry.getKey().name().toLowerCase(Locale.ROOT), entry.getValue().count());
+        }
+        return bytes;
     }
 
     /**
@@ -19,6 +19,9 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -30,12 +33,23 @@ public final class TcpTransportChannel<Channel> implements TransportChannel {
     protected final long requestId;
     private final String profileName;
     private final long reservedBytes;
+    private final Releasable onRelease;
     private final AtomicBoolean released = new AtomicBoolean();
     private final String channelType;
     private final Channel channel;
 
     public TcpTransportChannel(TcpTransport<Channel> transport, Channel channel, String channelType, String action,
                                long requestId, Version version, String profileName, long reservedBytes) {
+        this(transport, channel, channelType, action, requestId, version, profileName, reservedBytes, null);
+    }
+
+    /**
+     * @param onRelease released together with the reserved bytes once a response has been sent, e.g. to release the buffer
+     *                  the request was read from
+     */
+    public TcpTransportChannel(TcpTransport<Channel> transport, Channel channel, String channelType, String action,
+                               long requestId, Version version, String profileName, long reservedBytes,
+                               @Nullable Releasable onRelease) {
         this.version = version;
         this.channel = channel;
         this.transport = transport;
@@ -44,6 +58,7 @@ public final class TcpTransportChannel<Channel> implements TransportChannel {
         this.profileName = profileName;
         this.reservedBytes = reservedBytes;
         this.channelType = channelType;
+        this.onRelease = onRelease;
     }
 
     @Override
@@ -83,7 +98,11 @@ public final class TcpTransportChannel<Channel> implements TransportChannel {
     private void release(boolean isExceptionResponse) {
         if (released.compareAndSet(false, true)) {
             assert (releaseBy = new Exception()) != null; // easier to debug if it's already closed
-            transport.getInFlightRequestBreaker().addWithoutBreaking(-reservedBytes);
+            try {
+                transport.getInFlightRequestBreaker().addWithoutBreaking(-reservedBytes);
+            } finally {
+                Releasables.close(onRelease);
+            }
         } else if (isExceptionResponse == false) {
             // only fail if we are not sending an error - we might send the error triggered by the previous
             // sendResponse call
@@ -25,6 +25,8 @@ import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.component.LifecycleComponent;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.transport.BoundTransportAddress;
@@ -40,6 +42,12 @@ public interface Transport extends LifecycleComponent {
 
     Setting<Boolean> TRANSPORT_TCP_COMPRESS = Setting.boolSetting("transport.tcp.compress", false, Property.NodeScope);
 
+    /**
+     * The compressor used for compressed messages, either <code>deflate</code> or the cheaper <code>lz4</code>.
+     */
+    Setting<Compressor> TRANSPORT_TCP_COMPRESSION_SCHEME =
+        new Setting<>("transport.tcp.compression_scheme", "deflate", CompressorFactory::compressor, Property.NodeScope);
+
     void setTransportService(TransportService service);
 
     /**
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -28,6 +29,9 @@ import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class TransportStats implements Writeable, ToXContentFragment {
 
@@ -36,13 +40,20 @@ public class TransportStats implements Writeable, ToXContentFragment {
     private final long rxSize;
     private final long txCount;
     private final long txSize;
+    private final long outboundPoolHits;
+    private final long outboundPoolMisses;
+    private final Map<String, Long> pendingBytes;
 
-    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, long outboundPoolHits,
+                          long outboundPoolMisses, Map<String, Long> pendingBytes) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.outboundPoolHits = outboundPoolHits;
+        this.outboundPoolMisses = outboundPoolMisses;
+        this.pendingBytes = new TreeMap<>(pendingBytes);
     }
 
     public TransportStats(StreamInput in) throws IOException {
@@ -51,6 +62,15 @@ public class TransportStats implements Writeable, ToXContentFragment {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            outboundPoolHits = in.readVLong();
+            outboundPoolMisses = in.readVLong();
+            pendingBytes = new TreeMap<>(in.readMap(StreamInput::readString, StreamInput::readVLong));
+        } else {
+            outboundPoolHits = 0;
+            outboundPoolMisses = 0;
+            pendingBytes = Collections.emptyMap();
+        }
     }
 
     @Override
@@ -60,6 +80,11 @@ public class TransportStats implements Writeable, ToXContentFragment {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeVLong(outboundPoolHits);
+            out.writeVLong(outboundPoolMisses);
+            out.writeMap(pendingBytes, StreamOutput::writeString, StreamOutput::writeVLong);
+        }
     }
 
     public long serverOpen() {
@@ -102,6 +127,27 @@ public class TransportStats implements Writeable, ToXContentFragment {
         return txSize();
     }
 
+    /**
+     * The number of pages used to serialize outbound messages that were taken from the page pool.
+     */
+    public long getOutboundPoolHits() {
+        return outboundPoolHits;
+    }
+
+    /**
+     * The number of pages used to serialize outbound messages that had to be allocated because the page pool was empty.
+     */
+    public long getOutboundPoolMisses() {
+        return outboundPoolMisses;
+    }
+
+    /**
+     * The bytes of the requests that have been handed over to outgoing channels but not written yet, per type of channel.
+     */
+    public Map<String, Long> getPendingBytes() {
+        return Collections.unmodifiableMap(pendingBytes);
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.TRANSPORT);
@@ -110,6 +156,13 @@ public class TransportStats implements Writeable, ToXContentFragment {
         builder.byteSizeField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, rxSize);
         builder.field(Fields.TX_COUNT, txCount);
         builder.byteSizeField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, txSize);
+        builder.field(Fields.OUTBOUND_POOL_HITS, outboundPoolHits);
+        builder.field(Fields.OUTBOUND_POOL_MISSES, outboundPoolMisses);
+        builder.startObject(Fields.PENDING_BYTES);
+        for (Map.Entry<String, Long> entry : pendingBytes.entrySet()) {
+            builder.field(entry.getKey(), entry.getValue());
+        }
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -123,5 +176,8 @@ public class TransportStats implements Writeable, ToXContentFragment {
         static final String TX_COUNT = "tx_count";
         static final String TX_SIZE = "tx_size";
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
+        static final String OUTBOUND_POOL_HITS = "outbound_pool_hits";
+        static final String OUTBOUND_POOL_MISSES = "outbound_pool_misses";
+        static final String PENDING_BYTES = "pending_bytes";
     }
 }
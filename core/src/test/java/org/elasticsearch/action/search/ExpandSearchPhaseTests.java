@@ -30,6 +30,11 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.filter.InternalFilters;
+import org.elasticsearch.search.aggregations.metrics.tophits.InternalTopHits;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseBuilder;
 import org.elasticsearch.search.internal.InternalSearchResponse;
@@ -64,17 +69,30 @@ public class ExpandSearchPhaseTests extends ESTestCase {
 
             final MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(1);
             String collapseValue = randomBoolean() ? null : "boom";
+            // either the inner hits are known to exceed the max inner result window up front, or the single search fails,
+            // for instance because a remote index has a smaller window
+            final boolean exceedsInnerResultWindow = randomBoolean();
+            if (exceedsInnerResultWindow) {
+                mockSearchPhaseContext.maxInnerResultWindow = 100;
+            }
 
             mockSearchPhaseContext.getRequest().source(new SearchSourceBuilder()
                 .collapse(new CollapseBuilder("someField")
-                    .setInnerHits(IntStream.range(0, numInnerHits).mapToObj(hitNum -> new InnerHitBuilder().setName("innerHit" + hitNum))
-                        .collect(Collectors.toList()))));
+                    .setInnerHits(IntStream.range(0, numInnerHits).mapToObj(hitNum -> new InnerHitBuilder().setName("innerHit" + hitNum)
+                        .setSize(hitNum == 0 ? randomIntBetween(101, 200) : randomIntBetween(1, 200))).collect(Collectors.toList()))));
             mockSearchPhaseContext.getRequest().source().query(originalQuery);
             mockSearchPhaseContext.searchTransport = new SearchTransportService(
                 Settings.builder().put("search.remote.connect", false).build(), null, null) {
 
                 @Override
                 void sendExecuteMultiSearch(MultiSearchRequest request, SearchTask task, ActionListener<MultiSearchResponse> listener) {
+                    if (request.requests().get(0).source().aggregations() != null) {
+                        assertFalse("a single search must not be sent if the inner hits exceed the window", exceedsInnerResultWindow);
+                        assertFalse(executedMultiSearch.get());
+                        listener.onResponse(new MultiSearchResponse(
+                            new MultiSearchResponse.Item[]{failedSingleSearch(mockSearchPhaseContext)}, randomIntBetween(1, 10000)));
+                        return;
+                    }
                     assertTrue(executedMultiSearch.compareAndSet(false, true));
                     assertEquals(numInnerHits, request.requests().size());
                     SearchRequest searchRequest = request.requests().get(0);
@@ -135,6 +153,167 @@ public class ExpandSearchPhaseTests extends ESTestCase {
         }
     }
 
+    public void testCollapseSingleHitInSingleSearch() throws IOException {
+        final int iters = randomIntBetween(5, 10);
+        for (int i = 0; i < iters; i++) {
+            final int numInnerHits = randomIntBetween(1, 5);
+            List<SearchHits> collapsedHits = new ArrayList<>(numInnerHits);
+            for (int innerHitNum = 0; innerHitNum < numInnerHits; innerHitNum++) {
+                SearchHits hits = new SearchHits(new SearchHit[]{new SearchHit(innerHitNum, "ID", new Text("type"),
+                    Collections.emptyMap()), new SearchHit(innerHitNum + 1, "ID", new Text("type"),
+                    Collections.emptyMap())}, 2, 1.0F);
+                collapsedHits.add(hits);
+            }
+
+            AtomicBoolean executedMultiSearch = new AtomicBoolean(false);
+            QueryBuilder originalQuery = randomBoolean() ? null : QueryBuilders.termQuery("foo", "bar");
+            QueryBuilder postFilter = randomBoolean() ? null : QueryBuilders.existsQuery("baz");
+
+            final MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(1);
+            String collapseValue = randomBoolean() ? null : "boom";
+            final Boolean requestCache = randomBoolean() ? null : randomBoolean();
+            if (randomBoolean()) {
+                mockSearchPhaseContext.maxInnerResultWindow = 100;
+            }
+
+            mockSearchPhaseContext.getRequest().source(new SearchSourceBuilder()
+                .collapse(new CollapseBuilder("someField")
+                    .setInnerHits(IntStream.range(0, numInnerHits).mapToObj(hitNum -> new InnerHitBuilder().setName("innerHit" + hitNum)
+                        .setSize(randomIntBetween(1, 100))).collect(Collectors.toList()))));
+            mockSearchPhaseContext.getRequest().source().query(originalQuery).postFilter(postFilter);
+            mockSearchPhaseContext.getRequest().requestCache(requestCache);
+            mockSearchPhaseContext.searchTransport = new SearchTransportService(
+                Settings.builder().put("search.remote.connect", false).build(), null, null) {
+
+                @Override
+                void sendExecuteMultiSearch(MultiSearchRequest request, SearchTask task, ActionListener<MultiSearchResponse> listener) {
+                    assertTrue(executedMultiSearch.compareAndSet(false, true));
+                    assertEquals(1, request.requests().size());
+                    SearchRequest searchRequest = request.requests().get(0);
+                    assertEquals(0, searchRequest.source().size());
+                    assertNull(searchRequest.source().postFilter());
+                    // the expansion is only cached if the user explicitly enabled the request cache
+                    assertEquals(Boolean.TRUE.equals(requestCache), searchRequest.requestCache());
+                    if (originalQuery != null) {
+                        assertEquals(originalQuery, searchRequest.source().query());
+                    }
+                    assertArrayEquals(mockSearchPhaseContext.getRequest().indices(), searchRequest.indices());
+                    assertArrayEquals(mockSearchPhaseContext.getRequest().types(), searchRequest.types());
+
+                    assertEquals(1, searchRequest.source().aggregations().getAggregatorFactories().size());
+                    FiltersAggregationBuilder groups =
+                        (FiltersAggregationBuilder) searchRequest.source().aggregations().getAggregatorFactories().get(0);
+                    assertEquals(1, groups.filters().size());
+                    BoolQueryBuilder groupBuilder = (BoolQueryBuilder) groups.filters().get(0).filter();
+                    if (collapseValue == null) {
+                        assertThat(groupBuilder.mustNot(), Matchers.contains(QueryBuilders.existsQuery("someField")));
+                    } else {
+                        assertThat(groupBuilder.filter(), Matchers.hasItem(QueryBuilders.matchQuery("someField", "boom")));
+                    }
+                    if (postFilter != null) {
+                        assertThat(groupBuilder.filter(), Matchers.hasItem(postFilter));
+                    }
+
+                    List<InternalAggregation> topHits = new ArrayList<>(numInnerHits);
+                    for (int innerHitNum = 0; innerHitNum < numInnerHits; innerHitNum++) {
+                        topHits.add(new InternalTopHits(Integer.toString(innerHitNum), 0, 2, null, collapsedHits.get(innerHitNum),
+                            Collections.emptyList(), null));
+                    }
+                    InternalFilters.InternalBucket bucket = new InternalFilters.InternalBucket("0", 2,
+                        new InternalAggregations(topHits), false);
+                    InternalFilters filters = new InternalFilters("groups", Collections.singletonList(bucket), false,
+                        Collections.emptyList(), null);
+                    InternalSearchResponse internalSearchResponse = new InternalSearchResponse(
+                        new SearchHits(new SearchHit[0], 2, 0.0F), new InternalAggregations(Collections.singletonList(filters)),
+                        null, null, false, null, 1);
+                    SearchResponse response = mockSearchPhaseContext.buildSearchResponse(internalSearchResponse, null);
+                    listener.onResponse(new MultiSearchResponse(
+                        new MultiSearchResponse.Item[]{new MultiSearchResponse.Item(response, null)}, randomIntBetween(1, 10000)));
+                }
+            };
+
+            SearchHits hits = new SearchHits(new SearchHit[]{new SearchHit(1, "ID", new Text("type"),
+                Collections.singletonMap("someField", new DocumentField("someField", Collections.singletonList(collapseValue))))},
+                1, 1.0F);
+            InternalSearchResponse internalSearchResponse = new InternalSearchResponse(hits, null, null, null, false, null, 1);
+            AtomicReference<SearchResponse> reference = new AtomicReference<>();
+            ExpandSearchPhase phase = new ExpandSearchPhase(mockSearchPhaseContext, internalSearchResponse, (r) ->
+                new SearchPhase("test") {
+                    @Override
+                    public void run() throws IOException {
+                        reference.set(mockSearchPhaseContext.buildSearchResponse(r, null));
+                    }
+                }
+            );
+
+            phase.run();
+            mockSearchPhaseContext.assertNoFailure();
+            assertNotNull(reference.get());
+            SearchResponse theResponse = reference.get();
+            assertEquals(numInnerHits, theResponse.getHits().getHits()[0].getInnerHits().size());
+
+            for (int innerHitNum = 0; innerHitNum < numInnerHits; innerHitNum++) {
+                assertSame(theResponse.getHits().getHits()[0].getInnerHits().get("innerHit" + innerHitNum), collapsedHits.get(innerHitNum));
+            }
+
+            assertTrue(executedMultiSearch.get());
+            assertEquals(1, mockSearchPhaseContext.phasesExecuted.get());
+        }
+    }
+
+    public void testCollapseManyGroupsWithSearchPerGroup() throws IOException {
+        final int numGroups = randomIntBetween(ExpandSearchPhase.MAX_GROUPS_IN_SINGLE_SEARCH + 1,
+            ExpandSearchPhase.MAX_GROUPS_IN_SINGLE_SEARCH * 2);
+        SearchHits collapsedHits = new SearchHits(new SearchHit[]{new SearchHit(1, "ID", new Text("type"),
+            Collections.emptyMap())}, 1, 1.0F);
+        AtomicBoolean executedMultiSearch = new AtomicBoolean(false);
+        MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(1);
+        mockSearchPhaseContext.getRequest().source(new SearchSourceBuilder()
+            .collapse(new CollapseBuilder("someField").setInnerHits(new InnerHitBuilder().setName("foobarbaz"))));
+        mockSearchPhaseContext.searchTransport = new SearchTransportService(
+            Settings.builder().put("search.remote.connect", false).build(), null, null) {
+
+            @Override
+            void sendExecuteMultiSearch(MultiSearchRequest request, SearchTask task, ActionListener<MultiSearchResponse> listener) {
+                assertTrue(executedMultiSearch.compareAndSet(false, true));
+                assertEquals(numGroups, request.requests().size());
+                MultiSearchResponse.Item[] items = new MultiSearchResponse.Item[numGroups];
+                for (int i = 0; i < numGroups; i++) {
+                    assertNull(request.requests().get(i).source().aggregations());
+                    InternalSearchResponse internalSearchResponse = new InternalSearchResponse(collapsedHits,
+                        null, null, null, false, null, 1);
+                    items[i] = new MultiSearchResponse.Item(mockSearchPhaseContext.buildSearchResponse(internalSearchResponse, null), null);
+                }
+                listener.onResponse(new MultiSearchResponse(items, randomIntBetween(1, 10000)));
+            }
+        };
+
+        SearchHit[] searchHits = new SearchHit[numGroups];
+        for (int i = 0; i < numGroups; i++) {
+            searchHits[i] = new SearchHit(i, "ID" + i, new Text("type"),
+                Collections.singletonMap("someField", new DocumentField("someField", Collections.singletonList("value" + i))));
+        }
+        SearchHits hits = new SearchHits(searchHits, numGroups, 1.0F);
+        InternalSearchResponse internalSearchResponse = new InternalSearchResponse(hits, null, null, null, false, null, 1);
+        AtomicReference<SearchResponse> reference = new AtomicReference<>();
+        ExpandSearchPhase phase = new ExpandSearchPhase(mockSearchPhaseContext, internalSearchResponse, r ->
+            new SearchPhase("test") {
+                @Override
+                public void run() throws IOException {
+                    reference.set(mockSearchPhaseContext.buildSearchResponse(r, null));
+                }
+            }
+        );
+        phase.run();
+        mockSearchPhaseContext.assertNoFailure();
+        assertNotNull(reference.get());
+        for (SearchHit hit : reference.get().getHits().getHits()) {
+            assertSame(collapsedHits, hit.getInnerHits().get("foobarbaz"));
+        }
+        assertTrue(executedMultiSearch.get());
+        assertEquals(1, mockSearchPhaseContext.phasesExecuted.get());
+    }
+
     public void testFailOneItemFailsEntirePhase() throws IOException {
         AtomicBoolean executedMultiSearch = new AtomicBoolean(false);
 
@@ -150,6 +329,11 @@ public class ExpandSearchPhaseTests extends ESTestCase {
 
             @Override
             void sendExecuteMultiSearch(MultiSearchRequest request, SearchTask task, ActionListener<MultiSearchResponse> listener) {
+                if (request.requests().get(0).source().aggregations() != null) {
+                    listener.onResponse(new MultiSearchResponse(
+                        new MultiSearchResponse.Item[]{failedSingleSearch(mockSearchPhaseContext)}, randomIntBetween(1, 10000)));
+                    return;
+                }
                 assertTrue(executedMultiSearch.compareAndSet(false, true));
                 InternalSearchResponse internalSearchResponse = new InternalSearchResponse(collapsedHits,
                     null, null, null, false, null, 1);
@@ -284,4 +468,18 @@ public class ExpandSearchPhaseTests extends ESTestCase {
         assertNotNull(reference.get());
         assertEquals(1, mockSearchPhaseContext.phasesExecuted.get());
     }
+
+    /**
+     * Returns the result of a single search expanding all groups that either failed entirely or on some of its shards.
+     */
+    private static MultiSearchResponse.Item failedSingleSearch(MockSearchPhaseContext mockSearchPhaseContext) {
+        if (randomBoolean()) {
+            return new MultiSearchResponse.Item(null, new IllegalArgumentException("boom"));
+        }
+        InternalSearchResponse internalSearchResponse = new InternalSearchResponse(new SearchHits(new SearchHit[0], 0, 0.0F),
+            null, null, null, false, null, 1);
+        SearchResponse response = new SearchResponse(internalSearchResponse, null, 2, 1, 0, 0,
+            new ShardSearchFailure[]{new ShardSearchFailure(new IllegalArgumentException("boom"))});
+        return new MultiSearchResponse.Item(response, null);
+    }
 }
@@ -48,6 +48,7 @@ public final class MockSearchPhaseContext implements SearchPhaseContext {
     SearchTransportService searchTransport;
     Set<Long> releasedSearchContexts = new HashSet<>();
     SearchRequest searchRequest = new SearchRequest();
+    int maxInnerResultWindow = Integer.MAX_VALUE;
     AtomicInteger phasesExecuted = new AtomicInteger();
 
     public MockSearchPhaseContext(int numShards) {
@@ -81,6 +82,11 @@ public final class MockSearchPhaseContext implements SearchPhaseContext {
         return searchRequest;
     }
 
+    @Override
+    public int getMaxInnerResultWindow() {
+        return maxInnerResultWindow;
+    }
+
     @Override
     public SearchResponse buildSearchResponse(InternalSearchResponse internalSearchResponse, String scrollId) {
         return new SearchResponse(internalSearchResponse, scrollId, numShards, numSuccess.get(), 0, 0,
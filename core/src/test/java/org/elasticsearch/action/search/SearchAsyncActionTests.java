@@ -30,12 +30,15 @@ import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.Transport;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequest;
@@ -46,12 +49,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -105,6 +110,7 @@ public class SearchAsyncActionTests extends ESTestCase {
                     return lookup.get(node); },
                 aliasFilters,
                 Collections.emptyMap(),
+                Integer.MAX_VALUE,
                 null,
                 request,
                 responseListener,
@@ -113,7 +119,8 @@ public class SearchAsyncActionTests extends ESTestCase {
                 0,
                 null,
                 new InitialSearchPhase.ArraySearchPhaseResults<>(shardsIter.size()),
-                request.getMaxConcurrentShardRequests()) {
+                request.getMaxConcurrentShardRequests(),
+                null) {
 
                 @Override
                 protected void executePhaseOnShard(SearchShardIterator shardIt, ShardRouting shard,
@@ -195,6 +202,7 @@ public class SearchAsyncActionTests extends ESTestCase {
                     return lookup.get(node); },
                 aliasFilters,
                 Collections.emptyMap(),
+                Integer.MAX_VALUE,
                 null,
                 request,
                 responseListener,
@@ -203,7 +211,8 @@ public class SearchAsyncActionTests extends ESTestCase {
                 0,
                 null,
                 new InitialSearchPhase.ArraySearchPhaseResults<>(shardsIter.size()),
-                request.getMaxConcurrentShardRequests()) {
+                request.getMaxConcurrentShardRequests(),
+                null) {
 
                 @Override
                 protected void executePhaseOnShard(SearchShardIterator shardIt, ShardRouting shard,
@@ -298,6 +307,7 @@ public class SearchAsyncActionTests extends ESTestCase {
                             return lookup.get(node); },
                         aliasFilters,
                         Collections.emptyMap(),
+                        Integer.MAX_VALUE,
                         executor,
                         request,
                         responseListener,
@@ -306,7 +316,8 @@ public class SearchAsyncActionTests extends ESTestCase {
                         0,
                         null,
                         new InitialSearchPhase.ArraySearchPhaseResults<>(shardsIter.size()),
-                        request.getMaxConcurrentShardRequests()) {
+                        request.getMaxConcurrentShardRequests(),
+                        null) {
             TestSearchResponse response = new TestSearchResponse();
 
             @Override
@@ -355,6 +366,123 @@ public class SearchAsyncActionTests extends ESTestCase {
         executor.shutdown();
     }
 
+    public void testHedgeSlowShardRequests() throws InterruptedException {
+        SearchRequest request = new SearchRequest();
+        request.setMaxConcurrentShardRequests(randomIntBetween(1, 100));
+        CountDownLatch latch = new CountDownLatch(1);
+        ActionListener<SearchResponse> responseListener = new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse searchResponse) {
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                logger.warn("test failed", e);
+                fail(e.getMessage());
+            }
+        };
+        DiscoveryNode primaryNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode replicaNode = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode slowNode = randomFrom(primaryNode, replicaNode);
+
+        AtomicInteger contextIdGenerator = new AtomicInteger(0);
+        GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter("idx",
+            new OriginalIndices(new String[]{"idx"}, IndicesOptions.strictExpandOpenAndForbidClosed()),
+            randomIntBetween(1, 10), true, primaryNode, replicaNode);
+        AtomicInteger numFreedContext = new AtomicInteger();
+        SearchTransportService transportService = new SearchTransportService(Settings.EMPTY, null, null) {
+            @Override
+            public void sendFreeContext(Transport.Connection connection, long contextId, OriginalIndices originalIndices) {
+                assertEquals(slowNode, connection.getNode());
+                numFreedContext.incrementAndGet();
+            }
+        };
+        Map<String, Transport.Connection> lookup = new HashMap<>();
+        lookup.put(primaryNode.getId(), new MockConnection(primaryNode));
+        lookup.put(replicaNode.getId(), new MockConnection(replicaNode));
+        Map<String, AliasFilter> aliasFilters = Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY));
+        List<SearchActionListener<TestSearchPhaseResult>> slowListeners = Collections.synchronizedList(new ArrayList<>());
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        Settings settings = Settings.builder()
+            .put(TransportSearchAction.HEDGING_ENABLED_SETTING.getKey(), true)
+            .put(TransportSearchAction.HEDGING_MIN_DELAY_SETTING.getKey(), "1ms")
+            .build();
+        SearchHedging hedging = new SearchHedging(new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), threadPool,
+            nodeId -> 0L);
+        try {
+            AbstractSearchAsyncAction asyncAction =
+                new AbstractSearchAsyncAction<TestSearchPhaseResult>(
+                    "test",
+                    logger,
+                    transportService,
+                    (cluster, node) -> {
+                        assert cluster == null : "cluster was not null: " + cluster;
+                        return lookup.get(node); },
+                    aliasFilters,
+                    Collections.emptyMap(),
+                    Integer.MAX_VALUE,
+                    threadPool.executor(ThreadPool.Names.SEARCH),
+                    request,
+                    responseListener,
+                    shardsIter,
+                    new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0),
+                    0,
+                    null,
+                    new InitialSearchPhase.ArraySearchPhaseResults<>(shardsIter.size()),
+                    request.getMaxConcurrentShardRequests(),
+                    hedging) {
+
+                    @Override
+                    protected void executePhaseOnShard(SearchShardIterator shardIt, ShardRouting shard,
+                                                       SearchActionListener<TestSearchPhaseResult> listener) {
+                        if (slowNode.getId().equals(shard.currentNodeId())) {
+                            // the slow node doesn't respond until the search is done
+                            slowListeners.add(listener);
+                        } else {
+                            Transport.Connection connection = getConnection(null, shard.currentNodeId());
+                            TestSearchPhaseResult testSearchPhaseResult = new TestSearchPhaseResult(contextIdGenerator.incrementAndGet(),
+                                connection.getNode());
+                            new Thread(() -> listener.onResponse(testSearchPhaseResult)).start();
+                        }
+                    }
+
+                    @Override
+                    protected SearchPhase getNextPhase(SearchPhaseResults<TestSearchPhaseResult> results, SearchPhaseContext context) {
+                        return new SearchPhase("test") {
+                            @Override
+                            public void run() throws IOException {
+                                for (int i = 0; i < results.getNumShards(); i++) {
+                                    TestSearchPhaseResult result = results.getAtomicArray().get(i);
+                                    assertNotEquals(slowNode, result.node);
+                                }
+                                latch.countDown();
+                            }
+                        };
+                    }
+                };
+            asyncAction.start();
+            latch.await();
+            SearchResponse searchResponse = asyncAction.buildSearchResponse(null, null);
+            assertEquals(shardsIter.size(), searchResponse.getSuccessfulShards());
+            assertEquals(0, searchResponse.getFailedShards());
+
+            // the late responses of the slow node are ignored, the contexts of successful ones are released
+            int numSlowResults = 0;
+            for (SearchActionListener<TestSearchPhaseResult> listener : slowListeners) {
+                if (randomBoolean()) {
+                    listener.onResponse(new TestSearchPhaseResult(contextIdGenerator.incrementAndGet(), slowNode));
+                    numSlowResults++;
+                } else {
+                    listener.onFailure(new RuntimeException("slow node failed"));
+                }
+            }
+            assertEquals(numSlowResults, numFreedContext.get());
+            assertEquals(shardsIter.size(), asyncAction.buildSearchResponse(null, null).getSuccessfulShards());
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
     static GroupShardsIterator<SearchShardIterator> getShardsIter(String index, OriginalIndices originalIndices, int numShards,
                                                      boolean doReplicas, DiscoveryNode primaryNode, DiscoveryNode replicaNode) {
         ArrayList<SearchShardIterator> list = new ArrayList<>();
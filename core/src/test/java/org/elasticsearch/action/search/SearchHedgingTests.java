@@ -0,0 +1,78 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.concurrent.TimeUnit;
+
+public class SearchHedgingTests extends ESTestCase {
+
+    public void testDelay() {
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            Settings settings = Settings.builder().put(TransportSearchAction.HEDGING_MIN_DELAY_SETTING.getKey(), "20ms").build();
+            ClusterSettings clusterSettings = new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+            SearchHedging hedging = new SearchHedging(clusterSettings, threadPool,
+                nodeId -> nodeId.equals("fast") ? TimeValue.timeValueMillis(5).nanos() :
+                    nodeId.equals("slow") ? TimeValue.timeValueMillis(50).nanos() : -1);
+            assertFalse(hedging.isEnabled());
+            assertEquals(TimeValue.timeValueMillis(20), hedging.getDelay("fast"));
+            assertEquals(TimeValue.timeValueMillis(50), hedging.getDelay("slow"));
+            assertNull(hedging.getDelay("unknown"));
+
+            clusterSettings.applySettings(Settings.builder().put(TransportSearchAction.HEDGING_ENABLED_SETTING.getKey(), true).build());
+            assertTrue(hedging.isEnabled());
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testMaxRequestsPerSecond() {
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            int maxRequestsPerSecond = randomIntBetween(0, 10);
+            Settings settings = Settings.builder()
+                .put(TransportSearchAction.HEDGING_MAX_REQUESTS_PER_SECOND_SETTING.getKey(), maxRequestsPerSecond).build();
+            SearchHedging hedging = new SearchHedging(new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+                threadPool, nodeId -> -1);
+            long second = threadPool.relativeTimeInMillis() / 1000;
+            int acquired = 0;
+            for (int i = 0; i < maxRequestsPerSecond + 5; i++) {
+                if (hedging.tryAcquire()) {
+                    acquired++;
+                }
+            }
+            if (second == threadPool.relativeTimeInMillis() / 1000) {
+                // we stayed within the same second
+                assertEquals(maxRequestsPerSecond, acquired);
+            } else {
+                assertTrue(acquired >= maxRequestsPerSecond);
+            }
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -177,9 +177,11 @@ public class ClusterStateDiffIT extends ESIntegTestCase {
                 // JSON Serialization test - make sure that both states produce similar JSON
                 assertNull(differenceBetweenMapsIgnoringArrayOrder(convertToMap(clusterStateFromDiffs), convertToMap(clusterState)));
 
-                // Smoke test - we cannot compare bytes to bytes because some elements might get serialized in different order
-                // however, serialized size should remain the same
-                assertThat(ClusterState.Builder.toBytes(clusterStateFromDiffs).length, equalTo(ClusterState.Builder.toBytes(clusterState).length));
+                // Smoke test - we cannot compare bytes to bytes because some elements might get serialized in different order, and so
+                // do the back-references to shared strings whose size depends on this order, but the state must survive a round trip
+                ClusterState clusterStateFromBytes =
+                    ClusterState.Builder.fromBytes(ClusterState.Builder.toBytes(clusterStateFromDiffs), otherNode, namedWriteableRegistry);
+                assertNull(differenceBetweenMapsIgnoringArrayOrder(convertToMap(clusterStateFromBytes), convertToMap(clusterState)));
             } catch (AssertionError error) {
                 logger.error("Cluster state:\n{}\nCluster state from diffs:\n{}", clusterState.toString(), clusterStateFromDiffs.toString());
                 throw error;
@@ -0,0 +1,83 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.geo;
+
+import org.elasticsearch.test.ESTestCase;
+
+import static org.elasticsearch.common.geo.GeoTileUtils.MAX_ZOOM;
+
+/**
+ * Tests for {@link org.elasticsearch.common.geo.GeoTileUtils}
+ */
+public class GeoTileUtilsTests extends ESTestCase {
+
+    public void testLongEncode() {
+        assertEquals("0/0/0", GeoTileUtils.stringEncode(GeoTileUtils.longEncode(0, 0, 0)));
+        assertEquals("1/1/0", GeoTileUtils.stringEncode(GeoTileUtils.longEncode(10, 10, 1)));
+        assertEquals("1/0/1", GeoTileUtils.stringEncode(GeoTileUtils.longEncode(-10, -10, 1)));
+        assertEquals("8/137/83", GeoTileUtils.stringEncode(GeoTileUtils.longEncode(13.4, 52.5, 8)));
+        assertEquals("3/0/0", GeoTileUtils.stringEncode(GeoTileUtils.longEncode(-180, 90, 3)));
+        assertEquals("3/7/7", GeoTileUtils.stringEncode(GeoTileUtils.longEncode(180, -90, 3)));
+    }
+
+    public void testTileXMatchesProjection() {
+        for (int i = 0; i < 1000; i++) {
+            int precision = randomIntBetween(0, MAX_ZOOM);
+            double lon = randomDoubleBetween(-180, 180, true);
+            long expected = (long) Math.floor((lon + 180) / 360 * (1L << precision));
+            long actual = GeoTileUtils.tileX(lon, precision);
+            // the encoded longitude is quantized, so the tile may differ on the edges of tiles
+            assertTrue(Math.abs(expected - actual) <= 1);
+            assertTrue(actual >= 0 && actual < (1L << precision));
+        }
+    }
+
+    public void testStringEncodeRoundTrip() {
+        for (int i = 0; i < 1000; i++) {
+            int precision = randomIntBetween(0, MAX_ZOOM);
+            double lat = randomDoubleBetween(-90, 90, true);
+            double lon = randomDoubleBetween(-180, 180, true);
+            long tile = GeoTileUtils.longEncode(lon, lat, precision);
+            assertEquals(precision, GeoTileUtils.zoom(tile));
+            assertEquals(tile, GeoTileUtils.longEncode(GeoTileUtils.stringEncode(tile)));
+            assertTrue(tile >= GeoTileUtils.minValue(precision));
+            assertTrue(tile <= GeoTileUtils.maxValue(precision));
+        }
+    }
+
+    public void testToGeoPoint() {
+        for (int i = 0; i < 1000; i++) {
+            int precision = randomIntBetween(0, MAX_ZOOM);
+            double lat = randomDoubleBetween(-GeoTileUtils.LATITUDE_MASK, GeoTileUtils.LATITUDE_MASK, false);
+            double lon = randomDoubleBetween(-180, 180, false);
+            long tile = GeoTileUtils.longEncode(lon, lat, precision);
+            // the center of a tile is within this tile
+            GeoPoint center = GeoTileUtils.toGeoPoint(tile);
+            assertEquals(tile, GeoTileUtils.longEncode(center.lon(), center.lat(), precision));
+        }
+    }
+
+    public void testInvalidKeys() {
+        expectThrows(IllegalArgumentException.class, () -> GeoTileUtils.longEncode("1/2"));
+        expectThrows(IllegalArgumentException.class, () -> GeoTileUtils.longEncode("1/2/0"));
+        expectThrows(IllegalArgumentException.class, () -> GeoTileUtils.longEncode("30/0/0"));
+        expectThrows(IllegalArgumentException.class, () -> GeoTileUtils.longEncode("1/0/0/0"));
+        expectThrows(IllegalArgumentException.class, () -> GeoTileUtils.checkPrecisionRange(-1));
+    }
+}
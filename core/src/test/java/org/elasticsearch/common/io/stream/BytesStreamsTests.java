@@ -48,6 +48,7 @@ import java.util.stream.IntStream;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 
@@ -677,6 +678,55 @@ public class BytesStreamsTests extends ESTestCase {
         }
     }
 
+    public void testWriteSharedStrings() throws IOException {
+        final String[] values = generateRandomStringArray(10, 20, false, false);
+        final List<String> strings = new ArrayList<>();
+        final int numStrings = randomIntBetween(1, 100);
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            for (int i = 0; i < numStrings; i++) {
+                String s = randomBoolean() ? null : randomFrom(values);
+                strings.add(s);
+                output.writeOptionalSharedString(s);
+            }
+            output.writeString("end");
+            try (StreamInput streamInput = new NamedWriteableAwareStreamInput(output.bytes().streamInput(),
+                    new NamedWriteableRegistry(Collections.emptyList()))) {
+                for (int i = 0; i < numStrings; i++) {
+                    assertEquals(strings.get(i), streamInput.readOptionalSharedString());
+                }
+                assertEquals("end", streamInput.readString());
+            }
+
+            final int size = output.size();
+            output.reset();
+            output.setVersion(Version.V_6_0_0);
+            for (String s : strings) {
+                output.writeOptionalSharedString(s);
+            }
+            output.writeString("end");
+            assertThat(output.size(), greaterThanOrEqualTo(size));
+            try (StreamInput streamInput = output.bytes().streamInput()) {
+                streamInput.setVersion(Version.V_6_0_0);
+                for (int i = 0; i < numStrings; i++) {
+                    assertEquals(strings.get(i), streamInput.readOptionalString());
+                }
+                assertEquals("end", streamInput.readString());
+            }
+        }
+    }
+
+    public void testReadInvalidSharedString() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            output.writeSharedString("foo");
+            output.writeVInt(2);
+            try (StreamInput streamInput = output.bytes().streamInput()) {
+                assertEquals("foo", streamInput.readSharedString());
+                IOException e = expectThrows(IOException.class, streamInput::readSharedString);
+                assertEquals("invalid shared string reference [2], only [1] strings read", e.getMessage());
+            }
+        }
+    }
+
     /*
      * tests the extreme case where characters use more than 2 bytes
      */
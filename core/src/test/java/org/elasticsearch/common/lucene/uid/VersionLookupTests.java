@@ -36,6 +36,10 @@ import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.VersionFieldMapper;
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * test per-segment lookup of version-related data structures
  */
@@ -118,4 +122,54 @@ public class VersionLookupTests extends ESTestCase {
         writer.close();
         dir.close();
     }
+
+    /**
+     * test looking up several ids at once across segments
+     */
+    public void testMultipleIds() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(Lucene.STANDARD_ANALYZER)
+                .setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numDocs = randomIntBetween(1, 100);
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new Field(IdFieldMapper.NAME, Integer.toString(i), IdFieldMapper.Defaults.FIELD_TYPE));
+            doc.add(new NumericDocValuesField(VersionFieldMapper.NAME, i + 1));
+            writer.addDocument(doc);
+            if (rarely()) {
+                writer.commit();
+            }
+        }
+        // an updated doc, only the last copy is live
+        Document doc = new Document();
+        doc.add(new Field(IdFieldMapper.NAME, "0", IdFieldMapper.Defaults.FIELD_TYPE));
+        doc.add(new NumericDocValuesField(VersionFieldMapper.NAME, 42));
+        writer.updateDocument(new Term(IdFieldMapper.NAME, "0"), doc);
+        DirectoryReader reader = DirectoryReader.open(writer);
+
+        List<Term> terms = new ArrayList<>();
+        final int numLookups = randomIntBetween(1, 200);
+        for (int i = 0; i < numLookups; i++) {
+            // also looks up missing and duplicate ids
+            terms.add(new Term(IdFieldMapper.NAME, Integer.toString(randomIntBetween(0, numDocs + 10))));
+        }
+        DocIdAndVersion[] results = VersionsAndSeqNoResolver.loadDocIdsAndVersions(reader, terms);
+        assertEquals(terms.size(), results.length);
+        for (int i = 0; i < terms.size(); i++) {
+            DocIdAndVersion expected = VersionsAndSeqNoResolver.loadDocIdAndVersion(reader, terms.get(i));
+            if (expected == null) {
+                assertNull(results[i]);
+            } else {
+                assertNotNull(results[i]);
+                assertEquals(expected.version, results[i].version);
+                assertEquals(expected.docId, results[i].docId);
+                assertSame(expected.context, results[i].context);
+            }
+        }
+        assertEquals(42, VersionsAndSeqNoResolver.loadDocIdsAndVersions(reader,
+            Collections.singletonList(new Term(IdFieldMapper.NAME, "0")))[0].version);
+        reader.close();
+        writer.close();
+        dir.close();
+    }
 }
@@ -206,6 +206,44 @@ public class TimeZoneRoundingTests extends ESTestCase {
         }
     }
 
+    public void testPreparedRoundingRandom() {
+        for (int i = 0; i < 100; ++i) {
+            DateTimeZone tz = randomDateTimeZone();
+            final Rounding rounding;
+            final long unitMillis;
+            if (randomBoolean()) {
+                DateTimeUnit timeUnit = randomTimeUnit();
+                rounding = new Rounding.TimeUnitRounding(timeUnit, tz);
+                unitMillis = timeUnit.field(tz).getDurationField().getUnitMillis();
+            } else {
+                unitMillis = TimeUnit.MINUTES.toMillis(randomIntBetween(1, 24 * 60));
+                rounding = new Rounding.TimeIntervalRounding(unitMillis, tz);
+            }
+            long min = Math.abs(randomLong() % (2 * (long) 10e11)); // 1970-01-01T00:00:00Z - 2033-05-18T05:33:20.000+02:00
+            if (randomBoolean()) {
+                min = nastyDate(min, tz, unitMillis);
+            }
+            // sometimes span more rounded values than get prepared up-front
+            long max = min + unitMillis * randomIntBetween(0, Rounding.MAX_PREPARED_ROUNDED_VALUES + 10)
+                    + Math.abs(randomLong() % unitMillis);
+            Rounding.Prepared prepared = rounding.prepare(min, max);
+
+            List<Long> dates = new ArrayList<>();
+            for (int j = 0; j < 100; ++j) {
+                dates.add(dateBetween(min - unitMillis, max + unitMillis));
+            }
+            for (long rounded = rounding.round(min); rounded <= max; rounded = rounding.nextRoundingValue(rounded)) {
+                dates.add(rounded - 1);
+                dates.add(rounded);
+                dates.add(rounded + 1);
+            }
+            for (long date : dates) {
+                assertThat("prepared rounding of " + new DateTime(date, tz) + " for [" + rounding + "]", prepared.round(date),
+                        isDate(rounding.round(date), tz));
+            }
+        }
+    }
+
     /**
      * To be even more nasty, go to a transition in the selected time zone.
      * In one third of the cases stay there, otherwise go half a unit back or forth
@@ -0,0 +1,109 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.xcontent.support;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.elasticsearch.common.xcontent.XContentHelper.convertToMap;
+import static org.elasticsearch.common.xcontent.XContentHelper.toXContent;
+
+/**
+ * Checks that {@link XContentMapValues#streamingFilter(String[], String[])} filters like
+ * {@link XContentMapValues#filter(Map, String[], String[])}.
+ */
+public class XContentMapValuesStreamingFilterTests extends AbstractFilteringTestCase {
+
+    @Override
+    protected void testFilter(Builder expected, Builder actual, Set<String> includes, Set<String> excludes) throws IOException {
+        final XContentType xContentType = randomFrom(XContentType.values());
+
+        String[] sourceIncludes;
+        if (includes == null) {
+            sourceIncludes = randomBoolean() ? Strings.EMPTY_ARRAY : null;
+        } else {
+            sourceIncludes = includes.toArray(new String[includes.size()]);
+        }
+        String[] sourceExcludes;
+        if (excludes == null) {
+            sourceExcludes = randomBoolean() ? Strings.EMPTY_ARRAY : null;
+        } else {
+            sourceExcludes = excludes.toArray(new String[excludes.size()]);
+        }
+
+        BytesReference source = toXContent((ToXContentObject) (builder, params) -> actual.apply(builder), xContentType, false);
+        Map<String, Object> filtered = streamingFilter(source, sourceIncludes, sourceExcludes);
+        assertEquals("Filtered map must be equal to the expected map",
+                convertToMap(toXContent((ToXContentObject) (builder, params) -> expected.apply(builder), xContentType, false),
+                    true, xContentType).v2(),
+                filtered);
+        assertEquals("Filtered map must be equal to the map filtered by XContentMapValues#filter",
+                XContentMapValues.filter(convertToMap(source, true, xContentType).v2(), sourceIncludes, sourceExcludes),
+                filtered);
+    }
+
+    private static Map<String, Object> streamingFilter(BytesReference source, String[] includes, String[] excludes) throws IOException {
+        try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY, source)) {
+            XContentBuilder builder = XContentFactory.contentBuilder(parser.contentType());
+            XContentMapValues.streamingFilter(includes, excludes).accept(parser, builder);
+            return convertToMap(builder.bytes(), true, parser.contentType()).v2();
+        }
+    }
+
+    public void testDotsInFieldNames() throws IOException {
+        BytesReference source = XContentFactory.jsonBuilder().startObject()
+                .field("foo.bar", 2)
+                .startObject("foo").field("baz", 3).endObject()
+                .field("quux", 5)
+            .endObject().bytes();
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("foo.bar", 2);
+        expected.put("foo", Collections.singletonMap("baz", 3));
+        assertEquals(expected, streamingFilter(source, new String[] {"foo"}, Strings.EMPTY_ARRAY));
+        assertEquals(Collections.singletonMap("quux", 5), streamingFilter(source, Strings.EMPTY_ARRAY, new String[] {"foo"}));
+    }
+
+    public void testEmptyObjects() throws IOException {
+        BytesReference source = XContentFactory.jsonBuilder().startObject()
+                .startObject("obj").field("f1", "v1").endObject()
+                .startArray("array").startObject().field("f1", "v1").endObject().endArray()
+                .field("f2", "v2")
+            .endObject().bytes();
+
+        // an included object is kept even if all its properties are excluded, objects of arrays are not
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("obj", Collections.emptyMap());
+        assertEquals(expected, streamingFilter(source, new String[] {"obj", "array"}, new String[] {"*.f1"}));
+        assertEquals(Collections.emptyMap(), streamingFilter(source, new String[] {"f3"}, Strings.EMPTY_ARRAY));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.cache.docfreq;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.IndexSettingsModule;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DocFrequencyCacheTests extends ESTestCase {
+
+    private static DocFrequencyCache newCache(int size) {
+        IndexSettings indexSettings = IndexSettingsModule.newIndexSettings("test",
+            Settings.builder().put(DocFrequencyCache.INDEX_DOC_FREQUENCY_CACHE_SIZE_SETTING.getKey(), size).build());
+        return new DocFrequencyCache(indexSettings);
+    }
+
+    private static long count(DocFrequencyCache cache, DirectoryReader reader, Query query, Query filter,
+                              AtomicInteger loads) throws IOException {
+        return cache.getDocFrequency(reader, query, filter, () -> {
+            loads.incrementAndGet();
+            return (long) new IndexSearcher(reader).count(query);
+        });
+    }
+
+    public void testCachePerReader() throws Exception {
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        for (int i = 0; i < 3; i++) {
+            Document document = new Document();
+            document.add(new StringField("field", "value" + (i % 2), Field.Store.NO));
+            writer.addDocument(document);
+        }
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("test", "_na_", 0));
+        DocFrequencyCache cache = newCache(10);
+        AtomicInteger loads = new AtomicInteger();
+        Query value0 = new TermQuery(new Term("field", "value0"));
+        Query value1 = new TermQuery(new Term("field", "value1"));
+
+        assertEquals(2, count(cache, reader, value0, null, loads));
+        assertEquals(1, loads.get());
+        // now cached
+        assertEquals(2, count(cache, reader, new TermQuery(new Term("field", "value0")), null, loads));
+        assertEquals(1, loads.get());
+        // the filter is part of the key
+        assertEquals(1, count(cache, reader, value1, null, loads));
+        assertEquals(1, count(cache, reader, value1, value0, loads));
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.numberOfReaders());
+
+        // a new reader doesn't see the counts of the previous one
+        Document document = new Document();
+        document.add(new StringField("field", "value0", Field.Store.NO));
+        writer.addDocument(document);
+        DirectoryReader newReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("test", "_na_", 0));
+        assertEquals(3, count(cache, newReader, value0, null, loads));
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.numberOfReaders());
+
+        // closing a reader drops its counts
+        reader.close();
+        assertEquals(1, cache.numberOfReaders());
+        newReader.close();
+        assertEquals(0, cache.numberOfReaders());
+        writer.close();
+    }
+
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        Document document = new Document();
+        document.add(new StringField("field", "value", Field.Store.NO));
+        writer.addDocument(document);
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("test", "_na_", 0));
+        DocFrequencyCache cache = newCache(2);
+        AtomicInteger loads = new AtomicInteger();
+        Query a = new TermQuery(new Term("field", "a"));
+        Query b = new TermQuery(new Term("field", "b"));
+        Query c = new TermQuery(new Term("field", "c"));
+
+        count(cache, reader, a, null, loads);
+        count(cache, reader, b, null, loads);
+        count(cache, reader, a, null, loads);
+        assertEquals(2, loads.get());
+        // evicts b, the least recently used
+        count(cache, reader, c, null, loads);
+        count(cache, reader, a, null, loads);
+        assertEquals(3, loads.get());
+        count(cache, reader, b, null, loads);
+        assertEquals(4, loads.get());
+
+        reader.close();
+        writer.close();
+    }
+
+    public void testBypass() throws Exception {
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        Document document = new Document();
+        document.add(new StringField("field", "value", Field.Store.NO));
+        writer.addDocument(document);
+        Query query = new TermQuery(new Term("field", "value"));
+        AtomicInteger loads = new AtomicInteger();
+
+        // readers that are not the reader of a shard might not count the same documents
+        DirectoryReader reader = DirectoryReader.open(writer);
+        DocFrequencyCache cache = newCache(10);
+        assertEquals(1, count(cache, reader, query, null, loads));
+        assertEquals(1, count(cache, reader, query, null, loads));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.numberOfReaders());
+        reader.close();
+
+        // a size of 0 disables the cache
+        reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("test", "_na_", 0));
+        cache = newCache(0);
+        assertEquals(1, count(cache, reader, query, null, loads));
+        assertEquals(1, count(cache, reader, query, null, loads));
+        assertEquals(4, loads.get());
+        assertEquals(0, cache.numberOfReaders());
+        reader.close();
+        writer.close();
+    }
+}
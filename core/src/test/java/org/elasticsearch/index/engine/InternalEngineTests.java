@@ -1106,6 +1106,45 @@ public class InternalEngineTests extends EngineTestCase {
 
     }
 
+    public void testMultiGet() throws IOException {
+        final BiFunction<String, Engine.SearcherScope, Searcher> searcherFactory = engine::acquireSearcher;
+
+        for (String id : new String[] {"1", "2"}) {
+            ParsedDocument doc = testParsedDocument(id, null, testDocument(), B_1, null);
+            engine.index(indexForDoc(doc));
+        }
+        engine.refresh("test");
+        // pending changes that are only visible to realtime gets
+        ParsedDocument doc3 = testParsedDocument("3", null, testDocument(), B_1, null);
+        engine.index(indexForDoc(doc3));
+        engine.delete(new Engine.Delete("test", "2", newUid("2")));
+
+        List<Engine.Get> gets = new ArrayList<>();
+        for (String id : new String[] {"1", "2", "3", "4", "3"}) {
+            gets.add(new Engine.Get(true, "test", id, newUid(id)));
+        }
+        try (Engine.MultiGetResult results = engine.multiGet(gets, searcherFactory)) {
+            assertEquals(5, results.size());
+            assertTrue(results.get(0).exists());
+            assertEquals(1, results.get(0).version());
+            assertFalse(results.get(1).exists());
+            assertTrue(results.get(2).exists());
+            assertFalse(results.get(3).exists());
+            assertTrue(results.get(4).exists());
+            assertEquals(results.get(2).docIdAndVersion().docId, results.get(4).docIdAndVersion().docId);
+        }
+
+        gets.clear();
+        for (String id : new String[] {"1", "2", "3"}) {
+            gets.add(new Engine.Get(false, "test", id, newUid(id)));
+        }
+        try (Engine.MultiGetResult results = engine.multiGet(gets, searcherFactory)) {
+            assertTrue(results.get(0).exists());
+            assertTrue(results.get(1).exists());
+            assertFalse(results.get(2).exists());
+        }
+    }
+
     public void testVersioningNewIndex() throws IOException {
         ParsedDocument doc = testParsedDocument("1", null, testDocument(), B_1, null);
         Engine.Index index = indexForDoc(doc);
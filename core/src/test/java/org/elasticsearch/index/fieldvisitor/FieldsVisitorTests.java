@@ -0,0 +1,121 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fieldvisitor;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.RoutingFieldMapper;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FieldsVisitorTests extends ESTestCase {
+
+    public void testStopsAfterMetadataFieldsOfSegment() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            Document doc = new Document();
+            doc.add(new StoredField(IdFieldMapper.NAME, Uid.encodeId("1")));
+            doc.add(new StoredField(SourceFieldMapper.NAME, new byte[] {'{', '}'}));
+            doc.add(new StoredField("field", "value"));
+            writer.addDocument(doc);
+            writer.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                LeafReader leafReader = reader.leaves().get(0).reader();
+
+                RecordingFieldsVisitor visitor = new RecordingFieldsVisitor(false);
+                visitor.reset();
+                leafReader.document(0, visitor);
+                assertEquals("1", visitor.id);
+                assertEquals(Arrays.asList(IdFieldMapper.NAME, SourceFieldMapper.NAME, "field"), visitor.visited);
+
+                // the segment has no _uid, _routing or _parent so the visitor stops at the first field after _id
+                visitor = new RecordingFieldsVisitor(false);
+                visitor.reset(leafReader.getFieldInfos());
+                leafReader.document(0, visitor);
+                assertEquals("1", visitor.id);
+                assertEquals(Arrays.asList(IdFieldMapper.NAME, SourceFieldMapper.NAME), visitor.visited);
+                assertNull(visitor.source());
+
+                visitor = new RecordingFieldsVisitor(true);
+                visitor.reset(leafReader.getFieldInfos());
+                leafReader.document(0, visitor);
+                assertEquals("1", visitor.id);
+                assertNotNull(visitor.source());
+                assertEquals(Arrays.asList(IdFieldMapper.NAME, SourceFieldMapper.NAME, "field"), visitor.visited);
+                assertNull(visitor.routing());
+            }
+        }
+    }
+
+    public void testWaitsForMetadataFieldsOfSegment() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            Document doc = new Document();
+            doc.add(new StoredField(IdFieldMapper.NAME, Uid.encodeId("1")));
+            doc.add(new StoredField(SourceFieldMapper.NAME, new byte[] {'{', '}'}));
+            writer.addDocument(doc);
+            doc = new Document();
+            doc.add(new StoredField(IdFieldMapper.NAME, Uid.encodeId("2")));
+            doc.add(new StoredField(SourceFieldMapper.NAME, new byte[] {'{', '}'}));
+            doc.add(new StoredField(RoutingFieldMapper.NAME, "routing"));
+            writer.addDocument(doc);
+            writer.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                LeafReader leafReader = reader.leaves().get(0).reader();
+                FieldsVisitor visitor = new FieldsVisitor(false);
+                visitor.reset(leafReader.getFieldInfos());
+                leafReader.document(1, visitor);
+                assertEquals("2", visitor.id);
+                assertEquals("routing", visitor.routing());
+
+                visitor.reset(leafReader.getFieldInfos());
+                leafReader.document(0, visitor);
+                assertEquals("1", visitor.id);
+                assertNull(visitor.routing());
+            }
+        }
+    }
+
+    private static class RecordingFieldsVisitor extends FieldsVisitor {
+        final List<String> visited = new ArrayList<>();
+
+        RecordingFieldsVisitor(boolean loadSource) {
+            super(loadSource);
+        }
+
+        @Override
+        public Status needsField(FieldInfo fieldInfo) throws IOException {
+            visited.add(fieldInfo.name);
+            return super.needsField(fieldInfo);
+        }
+    }
+}
@@ -19,15 +19,19 @@
 
 package org.elasticsearch.index.get;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.RandomObjects;
 
@@ -146,6 +150,32 @@ public class GetResultTests extends ESTestCase {
         }
     }
 
+    public void testSerializationOfSeqNoAndPrimaryTerm() throws IOException {
+        final long seqNo = randomNonNegativeLong();
+        final long primaryTerm = randomIntBetween(1, Integer.MAX_VALUE);
+        GetResult getResult = new GetResult("index", "type", "id", 1, seqNo, primaryTerm, true, new BytesArray("{}"), null);
+
+        GetResult copy = copyWithVersion(getResult, Version.CURRENT);
+        assertEquals(seqNo, copy.getSeqNo());
+        assertEquals(primaryTerm, copy.getPrimaryTerm());
+
+        copy = copyWithVersion(getResult, Version.V_6_1_0);
+        assertEquals(SequenceNumbers.UNASSIGNED_SEQ_NO, copy.getSeqNo());
+        assertEquals(0, copy.getPrimaryTerm());
+        assertEquals(getResult, copy);
+    }
+
+    private static GetResult copyWithVersion(GetResult getResult, Version version) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            getResult.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(version);
+                return GetResult.readGetResult(in);
+            }
+        }
+    }
+
     public void testEqualsAndHashcode() {
         checkEqualsAndHashCode(randomGetResult(XContentType.JSON).v1(), GetResultTests::copyGetResult, GetResultTests::mutateGetResult);
     }
@@ -18,11 +18,13 @@
  */
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.index.IndexableField;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.common.geo.GeoTileUtils;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -260,6 +262,42 @@ public class GeoPointFieldMapperTests extends ESSingleNodeTestCase {
     }
 
 
+    public void testGeoTilePrecisions() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("properties").startObject("point").field("type", "geo_point")
+            .array("geotile_precisions", new int[] { 12, 3, 12 }).endObject().endObject()
+            .endObject().endObject().string();
+        DocumentMapper defaultMapper = createIndex("test").mapperService().documentMapperParser().parse("type", new CompressedXContent(mapping));
+        GeoPointFieldMapper.GeoPointFieldType fieldType =
+            (GeoPointFieldMapper.GeoPointFieldType) defaultMapper.mappers().getMapper("point").fieldType();
+        assertArrayEquals(new int[] { 3, 12 }, fieldType.geoTilePrecisions());
+        assertThat(defaultMapper.mappingSource().string(), containsString("\"geotile_precisions\":[3,12]"));
+
+        ParsedDocument doc = defaultMapper.parse(SourceToParse.source("test", "type", "1", XContentFactory.jsonBuilder()
+                .startObject()
+                .startArray("point").value(13.4).value(52.5).endArray()
+                .endObject()
+                .bytes(),
+                XContentType.JSON));
+
+        IndexableField[] tiles = doc.rootDoc().getFields("point" + GeoPointFieldMapper.GEOTILE_FIELD_SUFFIX);
+        assertEquals(2, tiles.length);
+        assertEquals("3/4/2", GeoTileUtils.stringEncode(tiles[0].numericValue().longValue()));
+        assertEquals("12/2200/1343", GeoTileUtils.stringEncode(tiles[1].numericValue().longValue()));
+    }
+
+    public void testInvalidGeoTilePrecision() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("properties").startObject("point").field("type", "geo_point")
+            .field("geotile_precisions", 30).endObject().endObject()
+            .endObject().endObject().string();
+        DocumentMapperParser parser = createIndex("test").mapperService().documentMapperParser();
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> parser.parse("type", new CompressedXContent(mapping))
+        );
+        assertThat(e.getMessage(), containsString("Invalid geotile precision of 30"));
+    }
+
     public void testEmptyName() throws Exception {
         // after 5.x
         String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
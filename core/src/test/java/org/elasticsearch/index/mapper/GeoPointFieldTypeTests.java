@@ -19,10 +19,21 @@
 package org.elasticsearch.index.mapper;
 
 import org.elasticsearch.index.mapper.GeoPointFieldMapper.GeoPointFieldType;
+import org.junit.Before;
 
 public class GeoPointFieldTypeTests extends FieldTypeTestCase {
     @Override
     protected MappedFieldType createDefaultFieldType() {
         return new GeoPointFieldType();
     }
+
+    @Before
+    public void setupProperties() {
+        addModifier(new Modifier("geotile_precisions", false) {
+            @Override
+            public void modify(MappedFieldType ft) {
+                ((GeoPointFieldType) ft).setGeoTilePrecisions(new int[] { 5, 10 });
+            }
+        });
+    }
 }
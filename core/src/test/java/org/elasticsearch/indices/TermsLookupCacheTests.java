@@ -0,0 +1,97 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TermsLookupCacheTests extends ESSingleNodeTestCase {
+
+    public void testLookup() {
+        createIndex("lookup");
+        client().prepareIndex("lookup", "type", "1").setSource("{\"terms\": [\"a\", \"b\"]}", XContentType.JSON).get();
+        TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY);
+        TermsLookup termsLookup = new TermsLookup("lookup", "type", "1", "terms");
+
+        List<Object> terms = fetch(cache, termsLookup);
+        assertEquals(Arrays.asList("a", "b"), terms);
+        assertEquals(1, cache.count());
+        // the document didn't change
+        assertSame(terms, fetch(cache, termsLookup));
+
+        client().prepareIndex("lookup", "type", "1").setSource("{\"terms\": [\"c\"]}", XContentType.JSON).get();
+        assertEquals(Collections.singletonList("c"), fetch(cache, termsLookup));
+        assertEquals(1, cache.count());
+
+        // the version starts over at 1 once the document is deleted, but the sequence number doesn't
+        client().prepareDelete("lookup", "type", "1").get();
+        assertEquals(Collections.emptyList(), fetch(cache, termsLookup));
+        assertEquals(0, cache.count());
+        client().prepareIndex("lookup", "type", "1").setSource("{\"terms\": [\"d\"]}", XContentType.JSON).get();
+        assertEquals(Collections.singletonList("d"), fetch(cache, termsLookup));
+        client().prepareDelete("lookup", "type", "1").get();
+        client().prepareIndex("lookup", "type", "1").setSource("{\"terms\": [\"e\"]}", XContentType.JSON).get();
+        assertEquals(Collections.singletonList("e"), fetch(cache, termsLookup));
+
+        assertEquals(Collections.emptyList(), fetch(cache, new TermsLookup("lookup", "type", "2", "terms")));
+        expectThrows(IndexNotFoundException.class, () -> fetch(cache, new TermsLookup("missing", "type", "1", "terms")));
+
+        cache.clear("lookup");
+        assertEquals(0, cache.count());
+    }
+
+    public void testDeletedIndexIsCleared() {
+        createIndex("lookup");
+        client().prepareIndex("lookup", "type", "1").setSource("{\"terms\": [\"a\", \"b\"]}", XContentType.JSON).get();
+        TermsLookupCache cache = getInstanceFromNode(IndicesService.class).getTermsLookupCache();
+        TermsLookup termsLookup = new TermsLookup("lookup", "type", "1", "terms");
+        assertEquals(Arrays.asList("a", "b"), fetch(cache, termsLookup));
+        assertEquals(1, cache.count());
+
+        // the document of the new index has the same sequence number and primary term
+        client().admin().indices().prepareDelete("lookup").get();
+        assertEquals(0, cache.count());
+        createIndex("lookup");
+        client().prepareIndex("lookup", "type", "1").setSource("{\"terms\": [\"c\"]}", XContentType.JSON).get();
+        assertEquals(Collections.singletonList("c"), fetch(cache, termsLookup));
+    }
+
+    public void testDisabledCache() {
+        createIndex("lookup");
+        client().prepareIndex("lookup", "type", "1").setSource("{\"terms\": [\"a\", \"b\"]}", XContentType.JSON).get();
+        Settings settings = Settings.builder().put(TermsLookupCache.INDICES_TERMS_LOOKUP_CACHE_SIZE.getKey(), 0).build();
+        TermsLookupCache cache = new TermsLookupCache(settings);
+        assertEquals(Arrays.asList("a", "b"), fetch(cache, new TermsLookup("lookup", "type", "1", "terms")));
+        assertEquals(0, cache.count());
+    }
+
+    private List<Object> fetch(TermsLookupCache cache, TermsLookup termsLookup) {
+        PlainActionFuture<List<Object>> future = new PlainActionFuture<>();
+        cache.fetch(termsLookup, client(), future);
+        return future.actionGet();
+    }
+}
@@ -34,6 +34,7 @@ import org.elasticsearch.action.admin.indices.stats.IndicesStatsRequestBuilder;
 import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
 import org.elasticsearch.action.admin.indices.stats.ShardStats;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.SearchType;
@@ -479,6 +480,16 @@ public class IndexStatsIT extends ESIntegTestCase {
         assertThat(stats.getTotal().getGet().getExistsCount(), equalTo(1L));
         assertThat(stats.getTotal().getGet().getMissingCount(), equalTo(1L));
 
+        // multi get is accounted per item
+        MultiGetResponse multiGetResponse = client().prepareMultiGet().add("test1", "type1", "1", "2").execute().actionGet();
+        assertThat(multiGetResponse.getResponses()[0].getResponse().isExists(), equalTo(true));
+        assertThat(multiGetResponse.getResponses()[1].getResponse().isExists(), equalTo(false));
+
+        stats = client().admin().indices().prepareStats().execute().actionGet();
+        assertThat(stats.getTotal().getGet().getCount(), equalTo(4L));
+        assertThat(stats.getTotal().getGet().getExistsCount(), equalTo(2L));
+        assertThat(stats.getTotal().getGet().getMissingCount(), equalTo(2L));
+
         // clear all
         stats = client().admin().indices().prepareStats()
                 .setDocs(false)
@@ -28,6 +28,11 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -37,9 +42,11 @@ import org.junit.Before;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class ResponseCollectorServiceTests extends ESTestCase {
 
@@ -72,6 +79,131 @@ public class ResponseCollectorServiceTests extends ESTestCase {
         assertThat(nodeStats.get("node1").serviceTime, equalTo(10.0));
     }
 
+    @SuppressWarnings("unchecked")
+    public void testAdaptiveStatsReportRank() throws Exception {
+        collector.addNodeStatistics("node1", 1, 100, 10);
+        collector.addNodeFailure("node2");
+        AdaptiveSelectionStats stats = collector.getAdaptiveStats(Collections.singletonMap("node1", 2L));
+        XContentBuilder builder = JsonXContent.contentBuilder();
+        builder.startObject();
+        stats.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        builder.endObject();
+        Map<String, Object> map = XContentHelper.convertToMap(builder.bytes(), false, builder.contentType()).v2();
+        Map<String, Object> section = (Map<String, Object>) map.get("adaptive_selection");
+        Map<String, Object> node1 = (Map<String, Object>) section.get("node1");
+        Map<String, Object> node2 = (Map<String, Object>) section.get("node2");
+        assertThat(node1.get("outgoing_searches"), equalTo(2));
+        assertThat(node1.get("rank"), equalTo(stats.getRanks().get("node1")));
+        assertThat(node2.get("outgoing_searches"), equalTo(0));
+        assertThat(node2.get("rank"), equalTo(stats.getRanks().get("node2")));
+    }
+
+    public void testResponseTimeIsCapped() {
+        collector.addNodeStatistics("node1", 1, TimeValue.timeValueMinutes(5).nanos(), 10);
+        assertThat(collector.getNodeStatistics("node1").get().responseTime,
+            equalTo((double) ResponseCollectorService.RESPONSE_TIME_CAP_SETTING.get(Settings.EMPTY).nanos()));
+    }
+
+    public void testNodeFailure() {
+        final long capNanos = ResponseCollectorService.RESPONSE_TIME_CAP_SETTING.get(Settings.EMPTY).nanos();
+        collector.addNodeFailure("node0");
+        ResponseCollectorService.ComputedNodeStats unknown = collector.getNodeStatistics("node0").get();
+        assertThat(unknown.queueSize, equalTo(0));
+        assertThat(unknown.responseTime, equalTo((double) capNanos));
+        assertThat(unknown.serviceTime, equalTo((double) capNanos));
+        collector.removeNode("node0");
+
+        collector.addNodeStatistics("node1", 1, 100, 10);
+        collector.addNodeStatistics("node2", 1, 100, 10);
+        collector.addNodeFailure("node1");
+        ResponseCollectorService.ComputedNodeStats failed = collector.getNodeStatistics("node1").get();
+        ResponseCollectorService.ComputedNodeStats healthy = collector.getNodeStatistics("node2").get();
+        assertThat(failed.queueSize, equalTo(healthy.queueSize));
+        assertThat(failed.serviceTime, equalTo(healthy.serviceTime));
+        assertThat(failed.responseTime, greaterThan(healthy.responseTime));
+        assertThat(failed.rank(1), greaterThan(healthy.rank(1)));
+
+        // a node that failed before it ever answered ranks behind the nodes that did
+        collector.addNodeFailure("node3");
+        unknown = collector.getNodeStatistics("node3").get();
+        healthy = collector.getNodeStatistics("node2").get();
+        assertThat(unknown.queueSize, equalTo(healthy.queueSize));
+        assertThat(unknown.serviceTime, equalTo(healthy.serviceTime));
+        // twice the average response time of node1 (130) and node2 (100)
+        assertThat(unknown.responseTime, equalTo(230.0));
+        assertThat(unknown.rank(1), greaterThan(healthy.rank(1)));
+    }
+
+    public void testNodeFailureRecovery() {
+        final Settings settings = Settings.builder()
+            .put(ResponseCollectorService.RESPONSE_TIME_CAP_SETTING.getKey(), "1ms").build();
+        final ResponseCollectorService collector = new ResponseCollectorService(settings, clusterService);
+        collector.addNodeStatistics("node1", 1, 100_000, 10_000);
+
+        // a single failure raises the average response time by 30% rather than towards the cap
+        collector.addNodeFailure("node1");
+        assertThat(collector.getNodeStatistics("node1").get().responseTime, equalTo(130_000.0));
+
+        // and the node is back within 1% of its old response time after ten good responses
+        int responses = 0;
+        while (collector.getNodeStatistics("node1").get().responseTime >= 101_000.0) {
+            collector.addNodeStatistics("node1", 1, 100_000, 10_000);
+            responses++;
+        }
+        assertThat(responses, equalTo(10));
+
+        // repeated failures escalate the response time, but never beyond the cap
+        double responseTime = collector.getNodeStatistics("node1").get().responseTime;
+        for (int i = 0; i < 20; i++) {
+            collector.addNodeFailure("node1");
+            final double penalized = collector.getNodeStatistics("node1").get().responseTime;
+            assertThat(penalized, greaterThan(responseTime));
+            assertThat(penalized, lessThanOrEqualTo(1_000_000.0));
+            responseTime = penalized;
+        }
+        assertThat(responseTime, greaterThan(990_000.0));
+    }
+
+    public void testStaleStatsDecay() {
+        final AtomicLong now = new AtomicLong(randomNonNegativeLong() / 2);
+        final Settings settings = Settings.builder()
+            .put(ResponseCollectorService.STATS_DECAY_INTERVAL_SETTING.getKey(), "10s").build();
+        final ResponseCollectorService collector = new ResponseCollectorService(settings, clusterService, now::get);
+        collector.addNodeStatistics("node1", 8, 800, 10);
+
+        now.addAndGet(TimeValue.timeValueSeconds(9).nanos());
+        ResponseCollectorService.ComputedNodeStats stats = collector.getNodeStatistics("node1").get();
+        assertThat(stats.queueSize, equalTo(8));
+        assertThat(stats.responseTime, equalTo(800.0));
+
+        now.addAndGet(TimeValue.timeValueSeconds(12).nanos());
+        stats = collector.getNodeStatistics("node1").get();
+        assertThat(stats.queueSize, equalTo(2));
+        assertThat(stats.responseTime, equalTo(200.0));
+        assertThat(stats.serviceTime, equalTo(10.0));
+
+        // a new response continues from the decayed statistics
+        collector.addNodeStatistics("node1", 2, 200, 10);
+        stats = collector.getAllNodeStatistics().get("node1");
+        assertThat(stats.queueSize, equalTo(2));
+        assertThat(stats.responseTime, equalTo(200.0));
+    }
+
+    public void testResponseTimePercentile95() {
+        assertEquals(-1L, collector.getResponseTimePercentile95Nanos("node1"));
+        collector.addNodeStatistics("node1", 1, 100, 10);
+        assertEquals(100L, collector.getResponseTimePercentile95Nanos("node1"));
+        collector.addNodeStatistics("node1", 1, 200, 10);
+        // the average moved to 130 and the average deviation to 30
+        assertEquals(190L, collector.getResponseTimePercentile95Nanos("node1"));
+    }
+
+    public void testRankAccountsForOutstandingRequests() {
+        collector.addNodeStatistics("node1", 1, 100, 10);
+        ResponseCollectorService.ComputedNodeStats stats = collector.getNodeStatistics("node1").get();
+        assertThat(stats.rank(5), greaterThan(stats.rank(1)));
+    }
+
     /*
      * Test that concurrently adding values and removing nodes does not cause exceptions
      */
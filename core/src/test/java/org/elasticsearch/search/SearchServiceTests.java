@@ -44,6 +44,7 @@ import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.query.TermQueryBuilder;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.plugins.SearchPlugin;
@@ -57,6 +58,7 @@ import org.elasticsearch.search.aggregations.support.ValueType;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.ShardFetchRequest;
 import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchLocalRequest;
 import org.elasticsearch.search.suggest.SuggestBuilder;
@@ -146,6 +148,81 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         assertEquals(0, service.getActiveContexts());
     }
 
+    public void testScrollsShareReader() {
+        createIndex("index");
+        client().prepareIndex("index", "type", "1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        SearchResponse first = client().prepareSearch("index").setSize(1).setScroll("1m").get();
+        assertEquals(1, first.getHits().getTotalHits());
+
+        client().prepareIndex("index", "type", "2").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        SearchResponse second = client().prepareSearch("index").setSize(1).setScroll("1m").get();
+        assertEquals(2, second.getHits().getTotalHits());
+
+        final SearchResponse third;
+        try {
+            assertAcked(client().admin().cluster().prepareUpdateSettings()
+                .setTransientSettings(Settings.builder().put(SearchService.SCROLL_SHARED_READER_MAX_AGE_SETTING.getKey(), "1h")));
+            client().prepareIndex("index", "type", "3").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+            third = client().prepareSearch("index").setSize(1).setScroll("1m").get();
+            // the scroll searches the view that the previous scroll opened
+            assertEquals(2, third.getHits().getTotalHits());
+            SearchResponse nextPage = client().prepareSearchScroll(third.getScrollId()).setScroll("1m").get();
+            assertEquals(1, nextPage.getHits().getHits().length);
+            assertEquals(2, nextPage.getHits().getTotalHits());
+
+            // searches without scroll always search the latest refresh
+            assertEquals(3, client().prepareSearch("index").setSize(0).get().getHits().getTotalHits());
+        } finally {
+            assertAcked(client().admin().cluster().prepareUpdateSettings()
+                .setTransientSettings(Settings.builder().putNull(SearchService.SCROLL_SHARED_READER_MAX_AGE_SETTING.getKey())));
+        }
+        SearchResponse fourth = client().prepareSearch("index").setSize(1).setScroll("1m").get();
+        assertEquals(3, fourth.getHits().getTotalHits());
+
+        SearchService service = getInstanceFromNode(SearchService.class);
+        assertEquals(4, service.getActiveContexts());
+        client().prepareClearScroll().addScrollId(first.getScrollId()).addScrollId(second.getScrollId()).get();
+        // the view that the second scroll opened is still searched by the third one
+        SearchResponse thirdNextPage = client().prepareSearchScroll(third.getScrollId()).setScroll("1m").get();
+        assertEquals(0, thirdNextPage.getHits().getHits().length);
+        assertEquals(2, thirdNextPage.getHits().getTotalHits());
+        client().prepareClearScroll().addScrollId("_all").get();
+        assertEquals(0, service.getActiveContexts());
+    }
+
+    public void testScrollsShareReaderUntilRefreshByDefault() {
+        createIndex("index");
+        client().prepareIndex("index", "type", "1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        SearchService service = getInstanceFromNode(SearchService.class);
+        IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        ShardId shardId = indicesService.indexServiceSafe(resolveIndex("index")).getShard(0).shardId();
+        assertNull(service.getScrollReaderContext(shardId));
+
+        SearchResponse first = client().prepareSearch("index").setSize(1).setScroll("1m").get();
+        ReaderContext readerContext = service.getScrollReaderContext(shardId);
+        assertNotNull(readerContext);
+        assertEquals(1, readerContext.refCount());
+
+        // no refresh happened in between so the second scroll searches the same view
+        SearchResponse second = client().prepareSearch("index").setSize(1).setScroll("1m").get();
+        assertSame(readerContext, service.getScrollReaderContext(shardId));
+        assertEquals(2, readerContext.refCount());
+
+        client().prepareIndex("index", "type", "2").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        SearchResponse third = client().prepareSearch("index").setSize(1).setScroll("1m").get();
+        assertEquals(2, third.getHits().getTotalHits());
+        ReaderContext refreshedReaderContext = service.getScrollReaderContext(shardId);
+        assertNotSame(readerContext, refreshedReaderContext);
+        assertEquals(2, readerContext.refCount());
+        assertEquals(1, refreshedReaderContext.refCount());
+
+        client().prepareClearScroll().addScrollId(first.getScrollId()).addScrollId(second.getScrollId()).get();
+        assertEquals(0, readerContext.refCount());
+        client().prepareClearScroll().addScrollId(third.getScrollId()).get();
+        assertEquals(0, refreshedReaderContext.refCount());
+        assertNull(service.getScrollReaderContext(shardId));
+    }
+
     public void testCloseSearchContextOnRewriteException() {
         createIndex("index");
         client().prepareIndex("index", "type", "1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
@@ -0,0 +1,141 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.geogrid;
+
+import org.apache.lucene.document.LatLonDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.geo.GeoEncodingUtils;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.geo.GeoTileUtils;
+import org.elasticsearch.index.mapper.GeoPointFieldMapper;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public class GeoTileGridAggregatorTests extends AggregatorTestCase {
+
+    private static final String FIELD_NAME = "location";
+
+    public void testNoDocs() throws IOException {
+        testCase(new MatchAllDocsQuery(), FIELD_NAME, 1, new int[0], iw -> {
+            // Intentionally not writing any docs
+        }, geoTileGrid -> {
+            assertEquals(0, geoTileGrid.getBuckets().size());
+        });
+    }
+
+    public void testFieldMissing() throws IOException {
+        testCase(new MatchAllDocsQuery(), "wrong_field", 1, new int[0], iw -> {
+            iw.addDocument(Collections.singleton(new LatLonDocValuesField(FIELD_NAME, 10D, 10D)));
+        }, geoTileGrid -> {
+            assertEquals(0, geoTileGrid.getBuckets().size());
+        });
+    }
+
+    public void testWithSeveralDocs() throws IOException {
+        doTestWithSeveralDocs(new int[0]);
+    }
+
+    public void testWithSeveralDocsAndIndexedTiles() throws IOException {
+        doTestWithSeveralDocs(new int[] { 0, 3, 7, 12, GeoTileUtils.MAX_ZOOM });
+    }
+
+    private void doTestWithSeveralDocs(int[] indexedPrecisions) throws IOException {
+        int precision = randomBoolean() && indexedPrecisions.length > 0
+                ? indexedPrecisions[randomInt(indexedPrecisions.length - 1)] : randomIntBetween(0, GeoTileUtils.MAX_ZOOM);
+        int numPoints = randomIntBetween(8, 128);
+        Map<String, Integer> expectedCountPerTile = new HashMap<>();
+        testCase(new MatchAllDocsQuery(), FIELD_NAME, precision, indexedPrecisions, iw -> {
+            List<IndexableField> fields = new ArrayList<>();
+            Set<String> distinctTilesPerDoc = new HashSet<>();
+            for (int pointId = 0; pointId < numPoints; pointId++) {
+                double lat = GeoEncodingUtils.decodeLatitude(GeoEncodingUtils.encodeLatitude((180d * randomDouble()) - 90d));
+                double lng = GeoEncodingUtils.decodeLongitude(GeoEncodingUtils.encodeLongitude((360d * randomDouble()) - 180d));
+                fields.add(new LatLonDocValuesField(FIELD_NAME, lat, lng));
+                for (int indexedPrecision : indexedPrecisions) {
+                    fields.add(new SortedNumericDocValuesField(FIELD_NAME + GeoPointFieldMapper.GEOTILE_FIELD_SUFFIX,
+                        GeoTileUtils.longEncode(lng, lat, indexedPrecision)));
+                }
+                String tile = GeoTileUtils.stringEncode(GeoTileUtils.longEncode(lng, lat, precision));
+                if (distinctTilesPerDoc.contains(tile) == false) {
+                    expectedCountPerTile.put(tile, expectedCountPerTile.getOrDefault(tile, 0) + 1);
+                }
+                distinctTilesPerDoc.add(tile);
+                if (usually()) {
+                    iw.addDocument(fields);
+                    fields.clear();
+                    distinctTilesPerDoc.clear();
+                }
+            }
+            if (fields.size() != 0) {
+                iw.addDocument(fields);
+            }
+        }, geoTileGrid -> {
+            assertEquals(expectedCountPerTile.size(), geoTileGrid.getBuckets().size());
+            for (GeoTileGrid.Bucket bucket : geoTileGrid.getBuckets()) {
+                assertEquals((long) expectedCountPerTile.get(bucket.getKeyAsString()), bucket.getDocCount());
+            }
+        });
+    }
+
+    private void testCase(Query query, String field, int precision, int[] indexedPrecisions,
+                          CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
+                          Consumer<InternalGeoTileGrid> verify) throws IOException {
+        Directory directory = newDirectory();
+        RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+        buildIndex.accept(indexWriter);
+        indexWriter.close();
+
+        IndexReader indexReader = DirectoryReader.open(directory);
+        IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+
+        GeoTileGridAggregationBuilder aggregationBuilder = new GeoTileGridAggregationBuilder("_name").field(field);
+        aggregationBuilder.precision(precision);
+        GeoPointFieldMapper.GeoPointFieldType fieldType = new GeoPointFieldMapper.GeoPointFieldType();
+        fieldType.setHasDocValues(true);
+        fieldType.setName(FIELD_NAME);
+        fieldType.setGeoTilePrecisions(indexedPrecisions);
+
+        Aggregator aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+        aggregator.preCollection();
+        indexSearcher.search(query, aggregator);
+        aggregator.postCollection();
+        verify.accept((InternalGeoTileGrid) aggregator.buildAggregation(0L));
+
+        indexReader.close();
+        directory.close();
+    }
+}
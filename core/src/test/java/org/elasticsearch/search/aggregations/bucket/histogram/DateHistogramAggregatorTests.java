@@ -25,6 +25,8 @@ import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
@@ -37,6 +39,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 public class DateHistogramAggregatorTests extends AggregatorTestCase {
@@ -335,6 +338,64 @@ public class DateHistogramAggregatorTests extends AggregatorTestCase {
         );
     }
 
+    public void testCountWithPoints() throws IOException {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                long start = asLong("2017-01-01T00:00:00");
+                int numDocs = randomIntBetween(1, 200);
+                for (int i = 0; i < numDocs; i++) {
+                    if (rarely()) {
+                        indexWriter.commit();
+                    }
+                    long instant = start + Math.abs(randomLong() % TimeUnit.DAYS.toMillis(365));
+                    Document document = new Document();
+                    document.add(new SortedNumericDocValuesField(DATE_FIELD, instant));
+                    document.add(new LongPoint(DATE_FIELD, instant));
+                    indexWriter.addDocument(document);
+                }
+                if (randomBoolean()) {
+                    indexWriter.deleteDocuments(LongPoint.newRangeQuery(DATE_FIELD, start, start + TimeUnit.DAYS.toMillis(30)));
+                }
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+
+                DateHistogramAggregationBuilder aggregationBuilder = new DateHistogramAggregationBuilder("_name")
+                        .field(DATE_FIELD)
+                        .dateHistogramInterval(randomFrom(DateHistogramInterval.MONTH, DateHistogramInterval.QUARTER,
+                                DateHistogramInterval.YEAR, DateHistogramInterval.days(randomIntBetween(10, 100))));
+                if (randomBoolean()) {
+                    aggregationBuilder.offset(TimeUnit.HOURS.toMillis(randomIntBetween(1, 23)));
+                }
+
+                DateFieldMapper.Builder builder = new DateFieldMapper.Builder("_name");
+                DateFieldMapper.DateFieldType fieldType = builder.fieldType();
+                fieldType.setHasDocValues(true);
+                fieldType.setName(DATE_FIELD);
+
+                // a match_all query counts the documents of each bucket from the points of the field
+                Query matchAll = new MatchAllDocsQuery();
+                Query collectAll = new BooleanQuery.Builder().add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST).build();
+                InternalDateHistogram counted = search(indexSearcher, matchAll, aggregationBuilder, fieldType);
+                InternalDateHistogram collected = search(indexSearcher, collectAll, aggregationBuilder, fieldType);
+                assertEquals(collected.getBuckets().size(), counted.getBuckets().size());
+                for (int i = 0; i < collected.getBuckets().size(); i++) {
+                    assertEquals(collected.getBuckets().get(i).getKey(), counted.getBuckets().get(i).getKey());
+                    assertEquals(collected.getBuckets().get(i).getDocCount(), counted.getBuckets().get(i).getDocCount());
+                }
+
+                counted = searchAndReduce(indexSearcher, matchAll, aggregationBuilder, fieldType);
+                collected = searchAndReduce(indexSearcher, collectAll, aggregationBuilder, fieldType);
+                assertEquals(collected.getBuckets().size(), counted.getBuckets().size());
+                for (int i = 0; i < collected.getBuckets().size(); i++) {
+                    assertEquals(collected.getBuckets().get(i).getKey(), counted.getBuckets().get(i).getKey());
+                    assertEquals(collected.getBuckets().get(i).getDocCount(), counted.getBuckets().get(i).getDocCount());
+                }
+            }
+        }
+    }
+
     private void testSearchCase(Query query, List<String> dataset,
                                 Consumer<DateHistogramAggregationBuilder> configure,
                                 Consumer<Histogram> verify) throws IOException {
@@ -20,6 +20,7 @@
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable.Reader;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.BucketOrder;
@@ -28,15 +29,23 @@ import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregationTestCase;
 import org.elasticsearch.search.aggregations.ParsedMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.bucketsort.BucketSortPipelineAggregator;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortOrder;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+import static org.hamcrest.Matchers.greaterThan;
+
 public class InternalHistogramTests extends InternalMultiBucketAggregationTestCase<InternalHistogram> {
 
     private boolean keyed;
@@ -87,6 +96,83 @@ public class InternalHistogramTests extends InternalMultiBucketAggregationTestCa
         newHistogram.doReduce(Arrays.asList(newHistogram, histogram2), new InternalAggregation.ReduceContext(null, null, false));
     }
 
+    public void testPruneShardBuckets() {
+        final int numBuckets = randomIntBetween(5, 20);
+        final int from = randomIntBetween(0, 2);
+        final int size = randomIntBetween(1, 2);
+        PipelineAggregator bucketSort = new BucketSortPipelineAggregator("bucket_sort",
+                Collections.singletonList(new FieldSortBuilder("_count").order(SortOrder.DESC)), from, size, GapPolicy.SKIP, null);
+        InternalHistogram histogram = createHistogram(numBuckets, 1, Collections.singletonList(bucketSort));
+        assertTrue(histogram.canPruneShardBuckets());
+
+        // the offset is applied by the final reduce, so the shard keeps the buckets with the highest from + size counts
+        InternalHistogram pruned = (InternalHistogram) histogram.pruneShardBuckets(new ReduceContext(null, null, false));
+        assertEquals(from + size, pruned.getBuckets().size());
+        double previousKey = Double.NEGATIVE_INFINITY;
+        for (InternalHistogram.Bucket bucket : pruned.getBuckets()) {
+            assertThat(bucket.getDocCount(), greaterThan((long) (numBuckets - from - size)));
+            // the surviving buckets keep their key order
+            assertThat(bucket.key, greaterThan(previousKey));
+            previousKey = bucket.key;
+        }
+        assertEquals(histogram.pipelineAggregators(), pruned.pipelineAggregators());
+    }
+
+    public void testPruneShardBucketsWithEmptyBuckets() {
+        PipelineAggregator bucketSort = new BucketSortPipelineAggregator("bucket_sort",
+                Collections.singletonList(new FieldSortBuilder("_count").order(SortOrder.DESC)), 0, 1, GapPolicy.SKIP, null);
+        // the final reduce would fill the gaps of pruned buckets with empty ones
+        InternalHistogram histogram = createHistogram(randomIntBetween(5, 20), 0, Collections.singletonList(bucketSort));
+        assertFalse(histogram.canPruneShardBuckets());
+        assertSame(histogram, histogram.pruneShardBuckets(new ReduceContext(null, null, false)));
+    }
+
+    public void testNonPrunablePipelineAggregatorDisablesPruning() {
+        PipelineAggregator bucketSort = new BucketSortPipelineAggregator("bucket_sort",
+                Collections.singletonList(new FieldSortBuilder("_count").order(SortOrder.DESC)), 0, 1, GapPolicy.SKIP, null);
+        PipelineAggregator nonPrunable = new PipelineAggregator("non_prunable", new String[0], null) {
+            @Override
+            protected void doWriteTo(StreamOutput out) throws IOException {
+            }
+
+            @Override
+            public String getWriteableName() {
+                return "non_prunable";
+            }
+
+            @Override
+            public InternalAggregation reduce(InternalAggregation aggregation, ReduceContext reduceContext) {
+                return aggregation;
+            }
+        };
+        assertFalse(nonPrunable.canPruneShardBuckets());
+        List<PipelineAggregator> pipelineAggregators = randomBoolean() ? Arrays.asList(nonPrunable, bucketSort)
+                : Arrays.asList(bucketSort, nonPrunable);
+        InternalHistogram histogram = createHistogram(randomIntBetween(5, 20), 1, pipelineAggregators);
+        assertTrue(histogram.canPruneShardBuckets());
+        // pruning would throw an UnsupportedOperationException if it reached the non prunable pipeline aggregator
+        assertSame(histogram, histogram.pruneShardBuckets(new ReduceContext(null, null, false)));
+    }
+
+    /**
+     * Creates a histogram whose buckets have distinct doc counts from 1 to {@code numBuckets} in random order.
+     */
+    private InternalHistogram createHistogram(int numBuckets, long minDocCount, List<PipelineAggregator> pipelineAggregators) {
+        List<Integer> docCounts = new ArrayList<>(numBuckets);
+        for (int i = 1; i <= numBuckets; i++) {
+            docCounts.add(i);
+        }
+        Collections.shuffle(docCounts, random());
+        List<InternalHistogram.Bucket> buckets = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; i++) {
+            buckets.add(new InternalHistogram.Bucket(i, docCounts.get(i), keyed, format, InternalAggregations.EMPTY));
+        }
+        InternalHistogram.EmptyBucketInfo emptyBucketInfo = minDocCount == 0
+                ? new InternalHistogram.EmptyBucketInfo(1, 0, 0, numBuckets - 1, InternalAggregations.EMPTY) : null;
+        return new InternalHistogram("histogram", buckets, BucketOrder.key(true), minDocCount, emptyBucketInfo, format, keyed,
+                pipelineAggregators, null);
+    }
+
     @Override
     protected void assertReduced(InternalHistogram reduced, List<InternalHistogram> inputs) {
         Map<Double, Long> expectedCounts = new TreeMap<>();
@@ -0,0 +1,112 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.range;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RangeAggregatorTests extends AggregatorTestCase {
+
+    public void testCountWithPoints() throws Exception {
+        final String field = "number";
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName(field);
+        fieldType.setHasDocValues(true);
+
+        List<long[]> docs = new ArrayList<>();
+        try (Directory dir = newDirectory();
+             RandomIndexWriter w = new RandomIndexWriter(random(), dir)) {
+            int numDocs = randomIntBetween(1, 200);
+            for (int i = 0; i < numDocs; i++) {
+                if (rarely()) {
+                    w.commit();
+                }
+                long[] values = new long[randomIntBetween(0, 3)];
+                Document doc = new Document();
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = randomIntBetween(-1000, 1000);
+                    doc.add(new SortedNumericDocValuesField(field, values[j]));
+                    doc.add(new LongPoint(field, values[j]));
+                }
+                docs.add(values);
+                w.addDocument(doc);
+            }
+
+            RangeAggregationBuilder builder = new RangeAggregationBuilder("test_agg").field(field);
+            int numRanges = randomIntBetween(1, 10);
+            for (int i = 0; i < numRanges; i++) {
+                double from = randomIntBetween(-1200, 1200) + (randomBoolean() ? 0 : randomDouble());
+                double to = from + randomIntBetween(0, 500) + (randomBoolean() ? 0 : randomDouble());
+                switch (randomInt(2)) {
+                    case 0:
+                        builder.addRange(from, to);
+                        break;
+                    case 1:
+                        builder.addUnboundedTo(to);
+                        break;
+                    default:
+                        builder.addUnboundedFrom(from);
+                        break;
+                }
+            }
+
+            try (IndexReader reader = w.getReader()) {
+                IndexSearcher searcher = newSearcher(reader, true, true);
+                // a match_all query counts the documents of each range from the points of the field
+                Query matchAll = new MatchAllDocsQuery();
+                Query collectAll = new BooleanQuery.Builder().add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST).build();
+                for (Query query : new Query[] { matchAll, collectAll }) {
+                    InternalRange<?, ?> range = randomBoolean()
+                            ? search(searcher, query, builder, fieldType)
+                            : searchAndReduce(searcher, query, builder, fieldType);
+                    assertEquals(numRanges, range.getBuckets().size());
+                    for (InternalRange.Bucket bucket : range.getBuckets()) {
+                        double from = (Double) bucket.getFrom();
+                        double to = (Double) bucket.getTo();
+                        long expectedCount = 0;
+                        for (long[] values : docs) {
+                            for (long value : values) {
+                                if (from <= value && value < to) {
+                                    expectedCount++;
+                                    break;
+                                }
+                            }
+                        }
+                        assertEquals(bucket.getKeyAsString(), expectedCount, bucket.getDocCount());
+                    }
+                }
+            }
+        }
+    }
+}
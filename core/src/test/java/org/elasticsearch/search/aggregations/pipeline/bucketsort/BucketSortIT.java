@@ -22,6 +22,8 @@ package org.elasticsearch.search.aggregations.pipeline.bucketsort;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -46,6 +48,7 @@ import static org.elasticsearch.search.aggregations.AggregationBuilders.dateHist
 import static org.elasticsearch.search.aggregations.AggregationBuilders.histogram;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
 import static org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorBuilders.bucketSort;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
@@ -59,6 +62,7 @@ public class BucketSortIT extends ESIntegTestCase {
 
     private static final String INDEX = "bucket-sort-it-data-index";
     private static final String INDEX_WITH_GAPS = "bucket-sort-it-data-index-with-gaps";
+    private static final String SINGLE_SHARD_INDEX = "bucket-sort-it-data-index-single-shard";
 
     private static final String TIME_FIELD = "time";
     private static final String TERM_FIELD = "foo";
@@ -72,6 +76,9 @@ public class BucketSortIT extends ESIntegTestCase {
                 .setType("doc")
                 .setSource("time", "type=date", "foo", "type=keyword", "value_1", "type=float", "value_2", "type=float")
                 .get();
+        assertAcked(prepareCreate(SINGLE_SHARD_INDEX)
+                .setSettings(Settings.builder().put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1))
+                .addMapping("doc", "time", "type=date", "foo", "type=keyword", "value_1", "type=float", "value_2", "type=float"));
 
         int numTerms = 10;
         List<String> terms = new ArrayList<>(numTerms);
@@ -86,8 +93,9 @@ public class BucketSortIT extends ESIntegTestCase {
             for (String term : terms) {
                 int termCount = randomIntBetween(3, 6);
                 for (int i = 0; i < termCount; ++i) {
-                    builders.add(client().prepareIndex(INDEX, "doc")
-                            .setSource(newDocBuilder(time, term, randomIntBetween(1, 10) * randomDouble())));
+                    double value = randomIntBetween(1, 10) * randomDouble();
+                    builders.add(client().prepareIndex(INDEX, "doc").setSource(newDocBuilder(time, term, value)));
+                    builders.add(client().prepareIndex(SINGLE_SHARD_INDEX, "doc").setSource(newDocBuilder(time, term, value)));
                 }
             }
             time += TimeValue.timeValueHours(1).millis();
@@ -293,6 +301,42 @@ public class BucketSortIT extends ESIntegTestCase {
         }
     }
 
+    public void testSortDateHistogramOnSubAggregationWithFromAndSizeOnSingleShard() {
+        // buckets get pruned on the shard since the search targets a single shard
+        SearchResponse response = client().prepareSearch(SINGLE_SHARD_INDEX)
+                .setSize(0)
+                .addAggregation(dateHistogram("time_buckets").field(TIME_FIELD).interval(TimeValue.timeValueHours(1).millis())
+                        .minDocCount(1)
+                        .subAggregation(avg("avg_value").field(VALUE_1_FIELD)))
+                .execute().actionGet();
+
+        assertSearchResponse(response);
+
+        Histogram histo = response.getAggregations().get("time_buckets");
+        List<Histogram.Bucket> expectedBuckets = new ArrayList<>(histo.getBuckets());
+        expectedBuckets.sort((b1, b2) -> Double.compare(((Avg) b2.getAggregations().get("avg_value")).value(),
+                ((Avg) b1.getAggregations().get("avg_value")).value()));
+        expectedBuckets = expectedBuckets.subList(2, 5);
+
+        response = client().prepareSearch(SINGLE_SHARD_INDEX)
+                .setSize(0)
+                .addAggregation(dateHistogram("time_buckets").field(TIME_FIELD).interval(TimeValue.timeValueHours(1).millis())
+                        .minDocCount(1)
+                        .subAggregation(avg("avg_value").field(VALUE_1_FIELD))
+                        .subAggregation(bucketSort("bucketSort", Arrays.asList(
+                                new FieldSortBuilder("avg_value").order(SortOrder.DESC))).from(2).size(3)))
+                .execute().actionGet();
+
+        assertSearchResponse(response);
+
+        histo = response.getAggregations().get("time_buckets");
+        List<? extends Histogram.Bucket> timeBuckets = histo.getBuckets();
+        assertThat(timeBuckets.size(), equalTo(3));
+        for (int i = 0; i < 3; ++i) {
+            assertThat(timeBuckets.get(i).getKey(), equalTo(expectedBuckets.get(i).getKey()));
+        }
+    }
+
     public void testSortHistogram_GivenGapsAndGapPolicyIsSkip() {
         SearchResponse response = client().prepareSearch(INDEX_WITH_GAPS)
                 .addAggregation(histogram("time_buckets").field(TIME_FIELD).interval(1)
@@ -0,0 +1,62 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.fetch;
+
+import org.elasticsearch.search.fetch.FetchPhase.DocIdToIndex;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.elasticsearch.search.fetch.FetchPhase.MERGE_INSTANCE_MAX_DOC_GAP;
+
+public class FetchPhaseTests extends ESTestCase {
+
+    public void testHasDenseDocIds() {
+        // a single document of a segment is read with the regular reader
+        assertFalse(FetchPhase.hasDenseDocIds(docs(5), 0, 100));
+        assertFalse(FetchPhase.hasDenseDocIds(docs(5, 6, 200), 1, 100));
+
+        assertTrue(FetchPhase.hasDenseDocIds(docs(5, 6), 0, 100));
+        assertTrue(FetchPhase.hasDenseDocIds(docs(5, 5 + MERGE_INSTANCE_MAX_DOC_GAP), 0, 100));
+        assertTrue(FetchPhase.hasDenseDocIds(docs(1, 2, 3, 60, 90), 0, 100));
+        // documents of the next segment are ignored
+        assertTrue(FetchPhase.hasDenseDocIds(docs(90, 91, 150, 300, 450), 0, 100));
+        assertTrue(FetchPhase.hasDenseDocIds(docs(1, 102, 103, 104), 1, 200));
+    }
+
+    public void testSparseDocIdsFallBackToRegularReader() {
+        assertFalse(FetchPhase.hasDenseDocIds(docs(5, 6 + MERGE_INSTANCE_MAX_DOC_GAP), 0, 100));
+        assertFalse(FetchPhase.hasDenseDocIds(docs(0, 1000, 2000, 3000), 0, 4000));
+        assertFalse(FetchPhase.hasDenseDocIds(docs(1, 2, 30, 60, 90), 0, 100));
+
+        int numDocs = randomIntBetween(2, 100);
+        int[] docIds = new int[numDocs];
+        for (int i = 1; i < numDocs; i++) {
+            docIds[i] = docIds[i - 1] + randomIntBetween(MERGE_INSTANCE_MAX_DOC_GAP + 1, 10000);
+        }
+        assertFalse(FetchPhase.hasDenseDocIds(docs(docIds), 0, Integer.MAX_VALUE));
+    }
+
+    private static DocIdToIndex[] docs(int... docIds) {
+        DocIdToIndex[] docs = new DocIdToIndex[docIds.length];
+        for (int i = 0; i < docIds.length; i++) {
+            docs[i] = new DocIdToIndex(docIds[i], i);
+        }
+        return docs;
+    }
+}
@@ -731,4 +731,43 @@ public class InnerHitsIT extends ESIntegTestCase {
         assertNoFailures(response);
     }
 
+
+    public void testInnerHitsConcurrency() throws Exception {
+        assertAcked(prepareCreate("index1")
+            .setSettings(Settings.builder().put(IndexSettings.INNER_HITS_CONCURRENCY_SETTING.getKey(), randomIntBetween(2, 8)))
+            .addMapping("type", "nested", "type=nested"));
+        int numDocs = scaledRandomIntBetween(10, 50);
+        List<IndexRequestBuilder> requestBuilders = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            XContentBuilder source = jsonBuilder().startObject().field("foo", i).startArray("nested");
+            for (int j = 0; j <= i % 7; j++) {
+                source.startObject().field("field", j % 2 == 0 ? "even" : "odd").endObject();
+            }
+            source.endArray().endObject();
+            requestBuilders.add(client().prepareIndex("index1", "type", Integer.toString(i)).setSource(source));
+        }
+        indexRandom(true, requestBuilders);
+
+        int size = randomIntBetween(0, 4);
+        SearchResponse response = client().prepareSearch("index1")
+            .setQuery(nestedQuery("nested", matchQuery("nested.field", "even"), ScoreMode.Avg)
+                .innerHit(new InnerHitBuilder().setSize(size).addSort(new FieldSortBuilder("_doc").order(SortOrder.DESC))))
+            .setSize(numDocs)
+            .addSort("foo", SortOrder.ASC)
+            .get();
+        assertNoFailures(response);
+        assertHitCount(response, numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            SearchHit hit = response.getHits().getAt(i);
+            assertThat(hit.getId(), equalTo(Integer.toString(i)));
+            int numEven = (i % 7) / 2 + 1;
+            SearchHits inner = hit.getInnerHits().get("nested");
+            assertThat(inner.getTotalHits(), equalTo((long) numEven));
+            assertThat(inner.getHits().length, equalTo(Math.min(size, numEven)));
+            for (int j = 0; j < inner.getHits().length; j++) {
+                assertThat(inner.getAt(j).getId(), equalTo(Integer.toString(i)));
+                assertThat(inner.getAt(j).getNestedIdentity().getOffset(), equalTo(2 * j));
+            }
+        }
+    }
 }
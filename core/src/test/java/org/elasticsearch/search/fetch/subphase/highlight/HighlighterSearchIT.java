@@ -1521,6 +1521,60 @@ public class HighlighterSearchIT extends ESIntegTestCase {
         assertHighlight(response, 0, "field2", 0, 1, equalTo("The <b>slow<b> brown <2>fox</2>"));
     }
 
+    public void testMaxAnalyzedOffset() {
+        assertAcked(prepareCreate("test").setSettings(Settings.builder().put("index.highlight.max_analyzed_offset", 20)));
+        ensureGreen();
+
+        index("test", "type1", "1", "field1", "The quick brown fox jumps over the lazy dog");
+        refresh();
+
+        for (String type : new String[] {"plain", "unified"}) {
+            SearchResponse response = client().prepareSearch("test")
+                .setQuery(QueryBuilders.matchQuery("field1", "fox"))
+                .highlighter(new HighlightBuilder().field(new Field("field1").highlighterType(type).numOfFragments(0)))
+                .get();
+            // the text beyond the offset is returned, it just isn't highlighted
+            assertHighlight(response, 0, "field1", 0, 1, equalTo("The quick brown <em>fox</em> jumps over the lazy dog"));
+
+            response = client().prepareSearch("test")
+                .setQuery(QueryBuilders.matchQuery("field1", "dog"))
+                .highlighter(new HighlightBuilder().field(new Field("field1").highlighterType(type)))
+                .get();
+            assertNotHighlighted(response, 0, "field1");
+        }
+
+        assertAcked(client().admin().indices().prepareUpdateSettings("test")
+            .setSettings(Settings.builder().put("index.highlight.max_analyzed_offset", -1)));
+        for (String type : new String[] {"plain", "unified"}) {
+            SearchResponse response = client().prepareSearch("test")
+                .setQuery(QueryBuilders.matchQuery("field1", "dog"))
+                .highlighter(new HighlightBuilder().field(new Field("field1").highlighterType(type)))
+                .get();
+            assertHighlight(response, 0, "field1", 0, 1, equalTo("The quick brown fox jumps over the lazy <em>dog</em>"));
+        }
+    }
+
+    public void testPlainHighlighterMultivaluedFieldInValueOrder() throws IOException {
+        createIndex("test");
+        ensureGreen();
+
+        index("test", "type1", "1", "field1", new String[] {"one fox", "two fox", "three fox"});
+        refresh();
+
+        SearchResponse response = client().prepareSearch("test")
+            .setQuery(QueryBuilders.matchQuery("field1", "two fox"))
+            .highlighter(new HighlightBuilder().field(new Field("field1").highlighterType("plain").numOfFragments(2)))
+            .get();
+        assertHighlight(response, 0, "field1", 0, 2, equalTo("one <em>fox</em>"));
+        assertHighlight(response, 0, "field1", 1, 2, equalTo("<em>two</em> <em>fox</em>"));
+
+        response = client().prepareSearch("test")
+            .setQuery(QueryBuilders.matchQuery("field1", "two fox"))
+            .highlighter(new HighlightBuilder().field(new Field("field1").highlighterType("plain").numOfFragments(1)).order("score"))
+            .get();
+        assertHighlight(response, 0, "field1", 0, 1, equalTo("<em>two</em> <em>fox</em>"));
+    }
+
     public void testFastVectorHighlighterMultipleFields() {
         assertAcked(prepareCreate("test").addMapping("type1",
                 "field1", "type=text,term_vector=with_positions_offsets",
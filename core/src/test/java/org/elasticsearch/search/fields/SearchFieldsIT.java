@@ -824,6 +824,43 @@ public class SearchFieldsIT extends ESIntegTestCase {
         assertThat(searchResponse.getHits().getAt(0).getFields().get("ip_field").getValue(), equalTo("::1"));
     }
 
+    public void testDocValueFieldsOnly() throws Exception {
+        assertAcked(prepareCreate("test").addMapping("type", "keyword_field", "type=keyword", "long_field", "type=long"));
+        int numDocs = randomIntBetween(10, 100);
+        List<IndexRequestBuilder> builders = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            builders.add(client().prepareIndex("test", "type", Integer.toString(i))
+                .setSource("keyword_field", "value" + i, "long_field", i));
+        }
+        // random refreshes spread the documents over several segments
+        indexRandom(true, true, builders);
+
+        for (boolean storedFieldsNone : new boolean[] {false, true}) {
+            SearchRequestBuilder builder = client().prepareSearch("test")
+                .setSize(numDocs)
+                .setFetchSource(false)
+                .addSort("long_field", randomFrom(SortOrder.values()))
+                .addDocValueField("keyword_field")
+                .addDocValueField("long_field");
+            if (storedFieldsNone) {
+                // the hits don't need any stored field
+                builder.storedFields("_none_");
+            }
+            SearchResponse response = builder.get();
+            assertNoFailures(response);
+            assertHitCount(response, numDocs);
+            long first = (Long) response.getHits().getAt(0).field("long_field").getValue();
+            for (int i = 0; i < numDocs; i++) {
+                SearchHit hit = response.getHits().getAt(i);
+                long value = first == 0 ? i : numDocs - 1 - i;
+                assertThat(hit.field("long_field").getValues(), equalTo(Collections.singletonList(value)));
+                assertThat(hit.field("keyword_field").getValues(), equalTo(Collections.singletonList("value" + value)));
+                assertThat(hit.getId(), storedFieldsNone ? nullValue() : equalTo(Long.toString(value)));
+                assertThat(hit.getSourceAsMap(), nullValue());
+            }
+        }
+    }
+
     public void testScriptFields() throws Exception {
         assertAcked(prepareCreate("index").addMapping("type",
                 "s", "type=keyword",
@@ -327,6 +327,38 @@ public class SimpleSearchIT extends ESIntegTestCase {
         }
     }
 
+    public void testFetchKeepsHitOrder() throws Exception {
+        prepareCreate("test")
+            .setSettings(Settings.builder()
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0))
+            .addMapping("type1", "rank", "type=integer,store=true")
+            .get();
+        ensureGreen();
+        int max = randomIntBetween(10, 200);
+        List<IndexRequestBuilder> docbuilders = new ArrayList<>(max);
+        for (int i = 0; i < max; i++) {
+            docbuilders.add(client().prepareIndex("test", "type1", String.valueOf(i)).setSource("rank", i));
+        }
+        // random refreshes spread the documents over several segments
+        indexRandom(true, true, docbuilders);
+
+        SearchResponse searchResponse = client().prepareSearch("test")
+            .addStoredField("_source")
+            .addStoredField("rank")
+            .addSort("rank", randomFrom(SortOrder.values()))
+            .setSize(max).get();
+        assertNoFailures(searchResponse);
+        assertHitCount(searchResponse, max);
+        boolean ascending = (Integer) searchResponse.getHits().getAt(0).getSourceAsMap().get("rank") == 0;
+        for (int i = 0; i < max; i++) {
+            int rank = ascending ? i : max - 1 - i;
+            assertThat(searchResponse.getHits().getAt(i).getId(), equalTo(String.valueOf(rank)));
+            assertThat(searchResponse.getHits().getAt(i).getSourceAsMap().get("rank"), equalTo(rank));
+            assertThat(searchResponse.getHits().getAt(i).field("rank").getValue(), equalTo(rank));
+        }
+    }
+
     public void testInsaneFromAndSize() throws Exception {
         createIndex("idx");
         indexRandom(true, client().prepareIndex("idx", "type").setSource("{}", XContentType.JSON));
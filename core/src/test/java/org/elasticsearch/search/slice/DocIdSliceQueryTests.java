@@ -0,0 +1,122 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.slice;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.QueryUtils;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class DocIdSliceQueryTests extends ESTestCase {
+
+    public void testBasics() {
+        DocIdSliceQuery query1 =
+            new DocIdSliceQuery("_doc", 1, 10);
+        DocIdSliceQuery query2 =
+            new DocIdSliceQuery("_doc", 1, 10);
+        DocIdSliceQuery query3 =
+            new DocIdSliceQuery("_doc", 1, 9);
+        DocIdSliceQuery query4 =
+            new DocIdSliceQuery("_doc", 2, 10);
+        QueryUtils.check(query1);
+        QueryUtils.checkEqual(query1, query2);
+        QueryUtils.checkUnequal(query1, query3);
+        QueryUtils.checkUnequal(query1, query4);
+    }
+
+    public void testSearch() throws Exception {
+        final int numDocs = randomIntBetween(100, 200);
+        final Directory dir = newDirectory();
+        final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < numDocs; ++i) {
+            Document doc = new Document();
+            String uuid = UUIDs.base64UUID();
+            doc.add(new StringField("uuid", uuid, Field.Store.YES));
+            w.addDocument(doc);
+            keys.add(uuid);
+        }
+        if (randomBoolean()) {
+            String deleted = keys.iterator().next();
+            w.deleteDocuments(new Term("uuid", deleted));
+            keys.remove(deleted);
+        }
+        final IndexReader reader = w.getReader();
+        final IndexSearcher searcher = newSearcher(reader);
+        final int max = randomIntBetween(2, 10);
+
+        int total = 0;
+        for (int id = 0; id < max; id++) {
+            DocIdSliceQuery query = new DocIdSliceQuery("_doc", id, max);
+            total += searcher.count(query);
+            searcher.search(query, new Collector() {
+                @Override
+                public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+                    return new LeafCollector() {
+                        int lastDoc = -1;
+
+                        @Override
+                        public void setScorer(Scorer scorer) throws IOException {
+                        }
+
+                        @Override
+                        public void collect(int doc) throws IOException {
+                            assertThat(lastDoc, lessThan(doc));
+                            lastDoc = doc;
+                            Document d = context.reader().document(doc, Collections.singleton("uuid"));
+                            String uuid = d.get("uuid");
+                            assertThat(keys.contains(uuid), equalTo(true));
+                            keys.remove(uuid);
+                        }
+                    };
+                }
+
+                @Override
+                public boolean needsScores() {
+                    return false;
+                }
+            });
+        }
+        assertThat(keys.size(), equalTo(0));
+        assertThat(total, equalTo(reader.numDocs()));
+        w.close();
+        reader.close();
+        dir.close();
+    }
+}
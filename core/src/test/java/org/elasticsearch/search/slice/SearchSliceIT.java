@@ -135,6 +135,25 @@ public class SearchSliceIT extends ESIntegTestCase {
         }
     }
 
+    public void testDocIdRanges() throws Exception {
+        int numShards = setupIndex(true);
+        // doc id ranges are only consistent across slices if they all search the same segments
+        assertAcked(client().admin().indices().prepareUpdateSettings("test")
+            .setSettings(Settings.builder().put("index.number_of_replicas", 0)));
+        ensureGreen();
+        client().admin().indices().prepareForceMerge("test").setMaxNumSegments(1).get();
+        refresh();
+
+        int max = randomIntBetween(2, numShards*3);
+        int fetchSize = randomIntBetween(10, 100);
+        SearchRequestBuilder request = client().prepareSearch("test")
+            .setQuery(matchAllQuery())
+            .setScroll(new Scroll(TimeValue.timeValueSeconds(10)))
+            .setSize(fetchSize)
+            .addSort(SortBuilders.fieldSort("_doc"));
+        assertSearchSlicesWithScroll(request, "_doc", max);
+    }
+
     public void testInvalidFields() throws Exception {
         setupIndex(false);
         SearchPhaseExecutionException exc = expectThrows(SearchPhaseExecutionException.class,
@@ -310,5 +310,20 @@ public class SliceBuilderTests extends ESTestCase {
                 expectThrows(IllegalArgumentException.class, () -> builder.toFilter(context, 0, 1));
             assertThat(exc.getMessage(), containsString("cannot load numeric doc values"));
         }
+
+        try (IndexReader reader = DirectoryReader.open(dir)) {
+            when(context.getIndexReader()).thenReturn(reader);
+            SliceBuilder builder = new SliceBuilder("_doc", 5, 10);
+            Query query = builder.toFilter(context, 0, 1);
+            assertThat(query, instanceOf(DocIdSliceQuery.class));
+            assertThat(builder.toFilter(context, 0, 1), equalTo(query));
+
+            // numSlices > numShards
+            query = builder.toFilter(context, 1, 2);
+            assertThat(query, instanceOf(DocIdSliceQuery.class));
+            assertThat(((DocIdSliceQuery) query).getId(), equalTo(2));
+            assertThat(((DocIdSliceQuery) query).getMax(), equalTo(5));
+            assertThat(builder.toFilter(context, 0, 2), instanceOf(MatchNoDocsQuery.class));
+        }
     }
 }
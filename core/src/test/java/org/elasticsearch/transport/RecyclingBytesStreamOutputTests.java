@@ -0,0 +1,96 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class RecyclingBytesStreamOutputTests extends ESTestCase {
+
+    public void testWriteAndRelease() throws IOException {
+        final AtomicInteger openPages = new AtomicInteger();
+        final Supplier<Recycler.V<byte[]>> pageSupplier = () -> {
+            openPages.incrementAndGet();
+            final byte[] page = new byte[BigArrays.BYTE_PAGE_SIZE];
+            return new Recycler.V<byte[]>() {
+                @Override
+                public byte[] v() {
+                    return page;
+                }
+
+                @Override
+                public boolean isRecycled() {
+                    return false;
+                }
+
+                @Override
+                public void close() {
+                    openPages.decrementAndGet();
+                }
+            };
+        };
+
+        final RecyclingBytesStreamOutput stream = new RecyclingBytesStreamOutput(pageSupplier);
+        assertEquals(0, stream.bytes().length());
+        assertEquals(0, openPages.get());
+
+        final byte[] expected = randomByteArray(randomIntBetween(1, 4 * BigArrays.BYTE_PAGE_SIZE));
+        int offset = 0;
+        while (offset < expected.length) {
+            if (randomBoolean()) {
+                stream.writeByte(expected[offset++]);
+            } else {
+                final int length = randomIntBetween(0, expected.length - offset);
+                stream.writeBytes(expected, offset, length);
+                offset += length;
+            }
+            assertEquals(offset, stream.position());
+        }
+
+        final BytesReference bytes = stream.bytes();
+        assertEquals(new BytesArray(expected), bytes);
+        final int expectedPages = (expected.length + BigArrays.BYTE_PAGE_SIZE - 1) / BigArrays.BYTE_PAGE_SIZE;
+        assertEquals(expectedPages, openPages.get());
+
+        stream.reset();
+        assertEquals(1, openPages.get());
+        assertEquals(0, stream.position());
+        assertEquals(0, stream.bytes().length());
+        stream.writeByte((byte) 42);
+        assertEquals(new BytesArray(new byte[] {42}), stream.bytes());
+        assertEquals(1, openPages.get());
+
+        stream.close();
+        assertEquals(0, openPages.get());
+    }
+
+    private static byte[] randomByteArray(int length) {
+        final byte[] bytes = new byte[length];
+        random().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -23,6 +23,8 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -30,20 +32,36 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.VersionUtils;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /** Unit tests for {@link TcpTransport} */
 public class TcpTransportTests extends ESTestCase {
@@ -173,13 +191,17 @@ public class TcpTransportTests extends ESTestCase {
 
     public void testCompressRequest() throws IOException {
         final boolean compressed = randomBoolean();
+        final String compressionScheme = randomFrom("deflate", "lz4");
         final AtomicBoolean called = new AtomicBoolean(false);
         Req request = new Req(randomRealisticUnicodeOfLengthBetween(10, 100));
         ThreadPool threadPool = new TestThreadPool(TcpTransportTests.class.getName());
         AtomicReference<IOException> exceptionReference = new AtomicReference<>();
         try {
-            TcpTransport transport = new TcpTransport("test", Settings.builder().put("transport.tcp.compress", compressed).build(),
-                threadPool, new BigArrays(Settings.EMPTY, null), null, null, null) {
+            Settings settings = Settings.builder()
+                .put("transport.tcp.compress", compressed)
+                .put("transport.tcp.compression_scheme", compressionScheme)
+                .build();
+            TcpTransport transport = new TcpTransport("test", settings, threadPool, new BigArrays(Settings.EMPTY, null), null, null, null) {
                 @Override
                 protected InetSocketAddress getLocalAddress(Object o) {
                     return null;
@@ -210,8 +232,10 @@ public class TcpTransportTests extends ESTestCase {
                         called.compareAndSet(false, true);
                         if (compressed) {
                             final int bytesConsumed = TcpHeader.HEADER_SIZE;
-                            streamIn = CompressorFactory.compressor(reference.slice(bytesConsumed, reference.length() - bytesConsumed))
-                                .streamInput(streamIn);
+                            Compressor compressor =
+                                CompressorFactory.compressor(reference.slice(bytesConsumed, reference.length() - bytesConsumed));
+                            assertSame(CompressorFactory.compressor(compressionScheme), compressor);
+                            streamIn = compressor.streamInput(streamIn);
                         }
                         threadPool.getThreadContext().readHeaders(streamIn);
                         assertEquals("foobar", streamIn.readString());
@@ -255,6 +279,431 @@ public class TcpTransportTests extends ESTestCase {
         }
     }
 
+    public void testRejectRequestsWhenTooManyBytesArePending() throws IOException {
+        final List<ActionListener> pendingSends = new CopyOnWriteArrayList<>();
+        ThreadPool threadPool = new TestThreadPool(TcpTransportTests.class.getName());
+        try {
+            Settings settings = Settings.builder().put(TcpTransport.MAX_PENDING_BYTES.getKey(), "1b").build();
+            TcpTransport<Object> transport = newStalledTransport(threadPool, settings, pendingSends);
+            DiscoveryNode node = new DiscoveryNode("foo", buildNewFakeTransportAddress(), Version.CURRENT);
+            Transport.Connection connection = transport.getConnection(node);
+            TransportRequestOptions bulk = TransportRequestOptions.builder().withType(TransportRequestOptions.Type.BULK).build();
+            connection.sendRequest(1, "foobar", new Req("foo"), bulk);
+            assertEquals(1, pendingSends.size());
+            long pendingBytes = transport.getStats().getPendingBytes().get("bulk");
+            assertThat(pendingBytes, greaterThan(0L));
+
+            EsRejectedExecutionException e = expectThrows(EsRejectedExecutionException.class,
+                () -> connection.sendRequest(2, "foobar", new Req("bar"), bulk));
+            assertThat(e.getMessage(), containsString("[" + pendingBytes + "] bytes are pending on outgoing [bulk] channels"));
+            assertEquals(1, pendingSends.size());
+
+            // the limit applies to the bytes pending on the channels of the same type only
+            connection.sendRequest(3, "foobar", new Req("bar"), TransportRequestOptions.EMPTY);
+            assertEquals(2, pendingSends.size());
+            expectThrows(EsRejectedExecutionException.class,
+                () -> connection.sendRequest(4, "foobar", new Req("bar"), TransportRequestOptions.EMPTY));
+            assertEquals(2, pendingSends.size());
+
+            // internal and replication requests and requests on other channels are never rejected
+            int requestId = 5;
+            for (TransportRequestOptions.Type type : EnumSet.complementOf(EnumSet.of(TransportRequestOptions.Type.REG,
+                    TransportRequestOptions.Type.BULK))) {
+                connection.sendRequest(requestId++, "foobar", new Req("baz"), TransportRequestOptions.builder().withType(type).build());
+            }
+            connection.sendRequest(requestId++, "internal:foobar", new Req("baz"), TransportRequestOptions.EMPTY);
+            connection.sendRequest(requestId++, "foobar[r]", new Req("baz"), bulk);
+            assertEquals(7, pendingSends.size());
+
+            for (ActionListener listener : pendingSends) {
+                listener.onResponse(null);
+            }
+            pendingSends.clear();
+            assertEquals(0L, (long) transport.getStats().getPendingBytes().get("bulk"));
+            assertEquals(0L, (long) transport.getStats().getPendingBytes().get("reg"));
+            connection.sendRequest(requestId, "foobar", new Req("baz"), TransportRequestOptions.EMPTY);
+            assertEquals(1, pendingSends.size());
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testStalledRecoveryDelaysRecoveriesOnly() throws Exception {
+        final List<ActionListener> pendingSends = new CopyOnWriteArrayList<>();
+        ThreadPool threadPool = new TestThreadPool(TcpTransportTests.class.getName());
+        try {
+            Settings settings = Settings.builder().put(TcpTransport.MAX_PENDING_BYTES.getKey(), "1kb").build();
+            TcpTransport<Object> transport = newStalledTransport(threadPool, settings, pendingSends);
+            DiscoveryNode node = new DiscoveryNode("foo", buildNewFakeTransportAddress(), Version.CURRENT);
+            Transport.Connection connection = transport.getConnection(node);
+            TransportRequestOptions recovery = TransportRequestOptions.builder().withType(TransportRequestOptions.Type.RECOVERY).build();
+
+            // the target of a recovery doesn't keep up
+            connection.sendRequest(1, "internal:index/shard/recovery/file_chunk", new Req(randomAlphaOfLength(2048)), recovery);
+            assertEquals(1, pendingSends.size());
+            assertThat(transport.getStats().getPendingBytes().get("recovery"), greaterThan(1024L));
+
+            // searches are neither rejected nor delayed
+            final int searches = randomIntBetween(1, 5);
+            for (int i = 0; i < searches; i++) {
+                connection.sendRequest(2 + i, "indices:data/read/search", new Req("foo"), TransportRequestOptions.EMPTY);
+            }
+            assertEquals(1 + searches, pendingSends.size());
+
+            // further recovery requests wait until the pending ones have been written
+            final CountDownLatch sent = new CountDownLatch(1);
+            final AtomicReference<Exception> failure = new AtomicReference<>();
+            Thread sender = new Thread(() -> {
+                try {
+                    connection.sendRequest(100, "internal:index/shard/recovery/file_chunk", new Req("foo"), recovery);
+                } catch (Exception e) {
+                    failure.set(e);
+                } finally {
+                    sent.countDown();
+                }
+            });
+            sender.start();
+            assertFalse(sent.await(200, TimeUnit.MILLISECONDS));
+            assertEquals(1 + searches, pendingSends.size());
+            pendingSends.get(0).onResponse(null);
+            assertTrue(sent.await(10, TimeUnit.SECONDS));
+            sender.join();
+            assertNull(failure.get());
+            assertEquals(2 + searches, pendingSends.size());
+
+            // but never longer than their timeout
+            connection.sendRequest(101, "internal:index/shard/recovery/file_chunk", new Req(randomAlphaOfLength(2048)), recovery);
+            connection.sendRequest(102, "internal:index/shard/recovery/file_chunk", new Req("foo"),
+                TransportRequestOptions.builder(recovery).withTimeout(10).build());
+            assertEquals(4 + searches, pendingSends.size());
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Returns a transport with a channel per type whose writes only complete when the test completes the listeners in the given list.
+     */
+    private static TcpTransport<Object> newStalledTransport(ThreadPool threadPool, Settings settings, List<ActionListener> pendingSends) {
+        ConnectionProfile.Builder builder = new ConnectionProfile.Builder();
+        for (TransportRequestOptions.Type type : TransportRequestOptions.Type.values()) {
+            builder.addConnections(1, type);
+        }
+        ConnectionProfile profile = builder.build();
+        TcpTransport<Object> transport = new TcpTransport<Object>("test", settings, threadPool,
+            new BigArrays(Settings.EMPTY, null), null, null, null) {
+            @Override
+            protected InetSocketAddress getLocalAddress(Object o) {
+                return null;
+            }
+
+            @Override
+            protected Object bind(String name, InetSocketAddress address) throws IOException {
+                return null;
+            }
+
+            @Override
+            protected void closeChannels(List channel, boolean blocking, boolean doNotLinger) throws IOException {
+            }
+
+            @Override
+            protected void sendMessage(Object o, BytesReference reference, ActionListener listener) {
+                // the receiver never catches up until the test completes the listener
+                pendingSends.add(listener);
+            }
+
+            @Override
+            protected NodeChannels connectToChannels(
+                    DiscoveryNode node, ConnectionProfile profile, Consumer onChannelClose) throws IOException {
+                return new NodeChannels(node, new Object[profile.getNumConnections()], profile);
+            }
+
+            @Override
+            protected boolean isOpen(Object o) {
+                return false;
+            }
+
+            @Override
+            public long getNumOpenServerConnections() {
+                return 0;
+            }
+
+            @Override
+            public NodeChannels getConnection(DiscoveryNode node) {
+                return new NodeChannels(node, new Object[profile.getNumConnections()], profile);
+            }
+        };
+        TransportService transportService = mock(TransportService.class);
+        // writes on replicas must be executed
+        when(transportService.getRequestHandler("foobar[r]")).thenReturn(new RequestHandlerRegistry<>("foobar[r]",
+            in -> new Req(in.readString()), null, (request, channel) -> {}, ThreadPool.Names.SAME, true, true));
+        transport.setTransportService(transportService);
+        return transport;
+    }
+
+    public void testReleaseRequestIfActionCannotBeRead() throws IOException {
+        ThreadPool threadPool = new TestThreadPool(TcpTransportTests.class.getName());
+        try {
+            TcpTransport<Object> transport = new TcpTransport<Object>("test", Settings.EMPTY, threadPool,
+                new BigArrays(Settings.EMPTY, null), null, null, null) {
+                @Override
+                protected InetSocketAddress getLocalAddress(Object o) {
+                    return null;
+                }
+
+                @Override
+                protected Object bind(String name, InetSocketAddress address) throws IOException {
+                    return null;
+                }
+
+                @Override
+                protected void closeChannels(List channel, boolean blocking, boolean doNotLinger) throws IOException {
+                }
+
+                @Override
+                protected void sendMessage(Object o, BytesReference reference, ActionListener listener) {
+                    fail("no response can be sent without an action");
+                }
+
+                @Override
+                protected NodeChannels connectToChannels(
+                        DiscoveryNode node, ConnectionProfile profile, Consumer onChannelClose) throws IOException {
+                    return new NodeChannels(node, new Object[profile.getNumConnections()], profile);
+                }
+
+                @Override
+                protected boolean isOpen(Object o) {
+                    return false;
+                }
+
+                @Override
+                public long getNumOpenServerConnections() {
+                    return 0;
+                }
+            };
+            TransportService transportService = mock(TransportService.class);
+            doThrow(new IllegalStateException("boom")).when(transportService).onRequestReceived(anyLong(), eq("foobar"));
+            transport.setTransportService(transportService);
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 9300);
+
+            // the action is missing
+            AtomicBoolean released = new AtomicBoolean();
+            expectThrows(EOFException.class, () -> transport.handleRequest(new Object(), "default", StreamInput.wrap(new byte[0]), 1, 0,
+                Version.CURRENT, address, (byte) 0, () -> assertTrue(released.compareAndSet(false, true))));
+            assertTrue(released.get());
+
+            // the transport service fails to track the request
+            released.set(false);
+            BytesStreamOutput out = new BytesStreamOutput();
+            out.writeString("foobar");
+            expectThrows(IllegalStateException.class, () -> transport.handleRequest(new Object(), "default", out.bytes().streamInput(),
+                2, 0, Version.CURRENT, address, (byte) 0, () -> assertTrue(released.compareAndSet(false, true))));
+            assertTrue(released.get());
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testCoalesceSmallMessages() throws IOException {
+        final List<BytesReference> writes = new ArrayList<>();
+        final List<ActionListener> pendingSends = new ArrayList<>();
+        ThreadPool threadPool = new TestThreadPool(TcpTransportTests.class.getName());
+        try {
+            final Object channel = new Object();
+            TcpTransport<Object> transport = newCoalescingTransport(threadPool, channel, writes, pendingSends);
+            DiscoveryNode node = new DiscoveryNode("foo", buildNewFakeTransportAddress(), Version.CURRENT);
+            Transport.Connection connection = transport.getConnection(node);
+
+            // other actions and large messages are written right away
+            connection.sendRequest(1, "foobar", new Req("foo"), TransportRequestOptions.EMPTY);
+            assertEquals(1, writes.size());
+            connection.sendRequest(2, "internal:coalesce", new Req(randomAlphaOfLength(2048)), TransportRequestOptions.EMPTY);
+            assertEquals(2, writes.size());
+            // and so are small messages while no coalesced write is in flight
+            connection.sendRequest(3, "internal:coalesce", new Req("bar"), TransportRequestOptions.EMPTY);
+            assertEquals(3, writes.size());
+
+            // small messages are held back until the write in flight completes
+            final int requests = randomIntBetween(2, 10);
+            for (int i = 0; i < requests; i++) {
+                connection.sendRequest(4 + i, "internal:coalesce", new Req("bar"), TransportRequestOptions.EMPTY);
+            }
+            assertEquals(3, writes.size());
+            assertThat(transport.getStats().getPendingBytes().get("reg"), greaterThan(0L));
+            pendingSends.get(2).onResponse(channel);
+            assertEquals(4, writes.size());
+            assertEquals(writes.get(2).length() * requests, writes.get(3).length());
+
+            // or until the batch is full
+            int moreRequests = 0;
+            while (writes.size() == 4) {
+                connection.sendRequest(4 + requests + moreRequests, "internal:coalesce", new Req("bar"), TransportRequestOptions.EMPTY);
+                moreRequests++;
+            }
+            assertThat(moreRequests, greaterThan(1));
+            assertEquals(5, writes.size());
+            assertEquals(writes.get(2).length() * moreRequests, writes.get(4).length());
+
+            pendingSends.get(0).onResponse(channel);
+            pendingSends.get(1).onResponse(channel);
+            pendingSends.get(3).onResponse(channel);
+            pendingSends.get(4).onResponse(channel);
+            assertEquals(5, writes.size());
+            assertEquals(3 + requests + moreRequests, transport.getStats().getTxCount());
+            assertEquals(0L, (long) transport.getStats().getPendingBytes().get("reg"));
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testCoalescedMessagesAreWrittenBeforeLaterMessages() throws IOException {
+        final List<BytesReference> writes = new ArrayList<>();
+        final List<ActionListener> pendingSends = new ArrayList<>();
+        ThreadPool threadPool = new TestThreadPool(TcpTransportTests.class.getName());
+        try {
+            final Object channel = new Object();
+            TcpTransport<Object> transport = newCoalescingTransport(threadPool, channel, writes, pendingSends);
+            DiscoveryNode node = new DiscoveryNode("foo", buildNewFakeTransportAddress(), Version.CURRENT);
+            Transport.Connection connection = transport.getConnection(node);
+
+            connection.sendRequest(1, "internal:coalesce", new Req("foo"), TransportRequestOptions.EMPTY);
+            connection.sendRequest(2, "internal:coalesce", new Req("foo"), TransportRequestOptions.EMPTY);
+            connection.sendRequest(3, "internal:coalesce", new Req("foo"), TransportRequestOptions.EMPTY);
+            assertEquals(1, writes.size());
+            // a message that isn't coalesced doesn't overtake the messages that are held back
+            if (randomBoolean()) {
+                connection.sendRequest(4, "foobar", new Req("foo"), TransportRequestOptions.EMPTY);
+            } else {
+                connection.sendRequest(4, "internal:coalesce", new Req(randomAlphaOfLength(2048)), TransportRequestOptions.EMPTY);
+            }
+            assertEquals(3, writes.size());
+            assertEquals(Collections.singletonList(1L), requestIds(writes.get(0)));
+            assertEquals(Arrays.asList(2L, 3L), requestIds(writes.get(1)));
+            assertEquals(Collections.singletonList(4L), requestIds(writes.get(2)));
+
+            for (ActionListener listener : new ArrayList<>(pendingSends)) {
+                listener.onResponse(channel);
+            }
+            assertEquals(3, writes.size());
+            assertEquals(4, transport.getStats().getTxCount());
+            assertEquals(0L, (long) transport.getStats().getPendingBytes().get("reg"));
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testCoalescedMessagesAreReleasedWhenWritesFail() throws IOException {
+        final List<BytesReference> writes = new ArrayList<>();
+        final List<ActionListener> pendingSends = new ArrayList<>();
+        ThreadPool threadPool = new TestThreadPool(TcpTransportTests.class.getName());
+        try {
+            final Object channel = new Object();
+            TcpTransport<Object> transport = newCoalescingTransport(threadPool, channel, writes, pendingSends);
+            DiscoveryNode node = new DiscoveryNode("foo", buildNewFakeTransportAddress(), Version.CURRENT);
+            Transport.Connection connection = transport.getConnection(node);
+
+            connection.sendRequest(1, "internal:coalesce", new Req("foo"), TransportRequestOptions.EMPTY);
+            connection.sendRequest(2, "internal:coalesce", new Req("foo"), TransportRequestOptions.EMPTY);
+            connection.sendRequest(3, "internal:coalesce", new Req("foo"), TransportRequestOptions.EMPTY);
+            assertEquals(1, writes.size());
+
+            // the channel is closed, for instance because the node shuts down, the held back messages are still handed to it
+            pendingSends.get(0).onFailure(new IOException("channel closed"));
+            assertEquals(2, writes.size());
+            assertThat(transport.getStats().getPendingBytes().get("reg"), greaterThan(0L));
+            pendingSends.get(1).onFailure(new IOException("channel closed"));
+            assertEquals(0L, (long) transport.getStats().getPendingBytes().get("reg"));
+            assertEquals(0, transport.getStats().getTxCount());
+
+            // the channel is idle again, so the next message is written right away
+            connection.sendRequest(4, "internal:coalesce", new Req("foo"), TransportRequestOptions.EMPTY);
+            assertEquals(3, writes.size());
+            pendingSends.get(2).onResponse(channel);
+            assertEquals(1, transport.getStats().getTxCount());
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static TcpTransport<Object> newCoalescingTransport(ThreadPool threadPool, Object channel, List<BytesReference> writes,
+                                                               List<ActionListener> pendingSends) {
+        Settings settings = Settings.builder()
+            .put(TcpTransport.COALESCE_ENABLED.getKey(), true)
+            .putList(TcpTransport.COALESCE_ACTIONS.getKey(), "internal:coalesce*")
+            .build();
+        TcpTransport<Object> transport = new TcpTransport<Object>("test", settings, threadPool,
+            new BigArrays(Settings.EMPTY, null), null, null, null) {
+            @Override
+            protected InetSocketAddress getLocalAddress(Object o) {
+                return null;
+            }
+
+            @Override
+            protected Object bind(String name, InetSocketAddress address) throws IOException {
+                return null;
+            }
+
+            @Override
+            protected void closeChannels(List channel, boolean blocking, boolean doNotLinger) throws IOException {
+            }
+
+            @Override
+            protected void sendMessage(Object o, BytesReference reference, ActionListener listener) {
+                assertSame(channel, o);
+                writes.add(reference);
+                pendingSends.add(listener);
+            }
+
+            @Override
+            protected NodeChannels connectToChannels(
+                    DiscoveryNode node, ConnectionProfile profile, Consumer onChannelClose) throws IOException {
+                return new NodeChannels(node, new Object[profile.getNumConnections()], profile);
+            }
+
+            @Override
+            protected boolean isOpen(Object o) {
+                return false;
+            }
+
+            @Override
+            public long getNumOpenServerConnections() {
+                return 0;
+            }
+
+            @Override
+            public NodeChannels getConnection(DiscoveryNode node) {
+                Object[] channels = new Object[MockTcpTransport.LIGHT_PROFILE.getNumConnections()];
+                Arrays.fill(channels, channel);
+                return new NodeChannels(node, channels, MockTcpTransport.LIGHT_PROFILE);
+            }
+        };
+        transport.setTransportService(mock(TransportService.class));
+        return transport;
+    }
+
+    /**
+     * Returns the request ids of the messages in the given write, in the order in which they were written.
+     */
+    private static List<Long> requestIds(BytesReference write) throws IOException {
+        final List<Long> requestIds = new ArrayList<>();
+        try (StreamInput in = write.streamInput()) {
+            while (in.available() > 0) {
+                in.readByte();
+                in.readByte();
+                final int size = in.readInt();
+                requestIds.add(in.readLong());
+                in.skip(size - TcpHeader.REQUEST_ID_SIZE);
+            }
+        }
+        return requestIds;
+    }
+
+    public void testCompressorFor() {
+        assertSame(CompressorFactory.LZ4, TcpTransport.compressorFor(CompressorFactory.LZ4, Version.CURRENT));
+        assertSame(CompressorFactory.COMPRESSOR, TcpTransport.compressorFor(CompressorFactory.LZ4, Version.V_6_0_0));
+        assertSame(CompressorFactory.COMPRESSOR, TcpTransport.compressorFor(CompressorFactory.COMPRESSOR, Version.CURRENT));
+    }
+
     private static final class Req extends TransportRequest {
         public String value;
 
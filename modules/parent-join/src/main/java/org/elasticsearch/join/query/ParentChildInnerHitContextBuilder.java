@@ -126,65 +126,53 @@ class ParentChildInnerHitContextBuilder extends InnerHitContextBuilder {
         }
 
         @Override
-        public TopDocs[] topDocs(SearchHit[] hits) throws IOException {
-            Weight innerHitQueryWeight = createInnerHitQueryWeight();
-            TopDocs[] result = new TopDocs[hits.length];
-            for (int i = 0; i < hits.length; i++) {
-                SearchHit hit = hits[i];
-                String joinName = getSortedDocValue(joinFieldMapper.name(), context, hit.docId());
-                if (joinName == null) {
-                    result[i] = Lucene.EMPTY_TOP_DOCS;
-                    continue;
-                }
+        protected TopDocs topDocs(SearchHit hit, Weight innerHitQueryWeight) throws IOException {
+            String joinName = getSortedDocValue(joinFieldMapper.name(), context, hit.docId());
+            if (joinName == null) {
+                return Lucene.EMPTY_TOP_DOCS;
+            }
 
-                QueryShardContext qsc = context.getQueryShardContext();
-                ParentIdFieldMapper parentIdFieldMapper =
-                    joinFieldMapper.getParentIdFieldMapper(typeName, fetchChildInnerHits == false);
-                if (parentIdFieldMapper == null) {
-                    result[i] = Lucene.EMPTY_TOP_DOCS;
-                    continue;
-                }
+            QueryShardContext qsc = context.getQueryShardContext();
+            ParentIdFieldMapper parentIdFieldMapper =
+                joinFieldMapper.getParentIdFieldMapper(typeName, fetchChildInnerHits == false);
+            if (parentIdFieldMapper == null) {
+                return Lucene.EMPTY_TOP_DOCS;
+            }
 
-                Query q;
-                if (fetchChildInnerHits) {
-                    Query hitQuery = parentIdFieldMapper.fieldType().termQuery(hit.getId(), qsc);
-                    q = new BooleanQuery.Builder()
-                        // Only include child documents that have the current hit as parent:
-                        .add(hitQuery, BooleanClause.Occur.FILTER)
-                        // and only include child documents of a single relation:
-                        .add(joinFieldMapper.fieldType().termQuery(typeName, qsc), BooleanClause.Occur.FILTER)
-                        .build();
-                } else {
-                    String parentId = getSortedDocValue(parentIdFieldMapper.name(), context, hit.docId());
-                    q = context.mapperService().fullName(IdFieldMapper.NAME).termQuery(parentId, qsc);
-                }
+            Query q;
+            if (fetchChildInnerHits) {
+                Query hitQuery = parentIdFieldMapper.fieldType().termQuery(hit.getId(), qsc);
+                q = new BooleanQuery.Builder()
+                    // Only include child documents that have the current hit as parent:
+                    .add(hitQuery, BooleanClause.Occur.FILTER)
+                    // and only include child documents of a single relation:
+                    .add(joinFieldMapper.fieldType().termQuery(typeName, qsc), BooleanClause.Occur.FILTER)
+                    .build();
+            } else {
+                String parentId = getSortedDocValue(parentIdFieldMapper.name(), context, hit.docId());
+                q = context.mapperService().fullName(IdFieldMapper.NAME).termQuery(parentId, qsc);
+            }
 
-                Weight weight = context.searcher().createNormalizedWeight(q, false);
-                if (size() == 0) {
-                    TotalHitCountCollector totalHitCountCollector = new TotalHitCountCollector();
-                    for (LeafReaderContext ctx : context.searcher().getIndexReader().leaves()) {
-                        intersect(weight, innerHitQueryWeight, totalHitCountCollector, ctx);
-                    }
-                    result[i] = new TopDocs(totalHitCountCollector.getTotalHits(), Lucene.EMPTY_SCORE_DOCS, 0);
+            Weight weight = context.searcher().createNormalizedWeight(q, false);
+            if (size() == 0) {
+                TotalHitCountCollector totalHitCountCollector = new TotalHitCountCollector();
+                for (LeafReaderContext ctx : context.searcher().getIndexReader().leaves()) {
+                    intersect(weight, innerHitQueryWeight, totalHitCountCollector, ctx);
+                }
+                return new TopDocs(totalHitCountCollector.getTotalHits(), Lucene.EMPTY_SCORE_DOCS, 0);
+            } else {
+                int topN = Math.min(from() + size(), context.searcher().getIndexReader().maxDoc());
+                TopDocsCollector<?> topDocsCollector;
+                if (sort() != null) {
+                    topDocsCollector = TopFieldCollector.create(sort().sort, topN, true, trackScores(), trackScores());
                 } else {
-                    int topN = Math.min(from() + size(), context.searcher().getIndexReader().maxDoc());
-                    TopDocsCollector<?> topDocsCollector;
-                    if (sort() != null) {
-                        topDocsCollector = TopFieldCollector.create(sort().sort, topN, true, trackScores(), trackScores());
-                    } else {
-                        topDocsCollector = TopScoreDocCollector.create(topN);
-                    }
-                    try {
-                        for (LeafReaderContext ctx : context.searcher().getIndexReader().leaves()) {
-                            intersect(weight, innerHitQueryWeight, topDocsCollector, ctx);
-                        }
-                    } finally {
-                        clearReleasables(Lifetime.COLLECTION);
-                    }
-                    result[i] = topDocsCollector.topDocs(from(), size());
+                    topDocsCollector = TopScoreDocCollector.create(topN);
+                }
+                for (LeafReaderContext ctx : context.searcher().getIndexReader().leaves()) {
+                    intersect(weight, innerHitQueryWeight, topDocsCollector, ctx);
                 }
+                return topDocsCollector.topDocs(from(), size());
             }
-            return result;
         }
 
         private String getSortedDocValue(String field, SearchContext context, int docId) {
@@ -217,65 +205,54 @@ class ParentChildInnerHitContextBuilder extends InnerHitContextBuilder {
         }
 
         @Override
-        public TopDocs[] topDocs(SearchHit[] hits) throws IOException {
-            Weight innerHitQueryWeight = createInnerHitQueryWeight();
-            TopDocs[] result = new TopDocs[hits.length];
-            for (int i = 0; i < hits.length; i++) {
-                SearchHit hit = hits[i];
-                final Query hitQuery;
-                if (isParentHit(hit)) {
-                    String field = ParentFieldMapper.joinField(hit.getType());
-                    hitQuery = new DocValuesTermsQuery(field, hit.getId());
-                } else if (isChildHit(hit)) {
-                    DocumentMapper hitDocumentMapper = mapperService.documentMapper(hit.getType());
-                    final String parentType = hitDocumentMapper.parentFieldMapper().type();
-                    DocumentField parentField = hit.field(ParentFieldMapper.NAME);
-                    if (parentField == null) {
-                        throw new IllegalStateException("All children must have a _parent");
-                    }
-                    Term uidTerm = context.mapperService().createUidTerm(parentType, parentField.getValue());
-                    if (uidTerm == null) {
-                        hitQuery = new MatchNoDocsQuery("Missing type: " + parentType);
-                    } else {
-                        hitQuery = new TermQuery(uidTerm);
-                    }
+        protected TopDocs topDocs(SearchHit hit, Weight innerHitQueryWeight) throws IOException {
+            final Query hitQuery;
+            if (isParentHit(hit)) {
+                String field = ParentFieldMapper.joinField(hit.getType());
+                hitQuery = new DocValuesTermsQuery(field, hit.getId());
+            } else if (isChildHit(hit)) {
+                DocumentMapper hitDocumentMapper = mapperService.documentMapper(hit.getType());
+                final String parentType = hitDocumentMapper.parentFieldMapper().type();
+                DocumentField parentField = hit.field(ParentFieldMapper.NAME);
+                if (parentField == null) {
+                    throw new IllegalStateException("All children must have a _parent");
+                }
+                Term uidTerm = context.mapperService().createUidTerm(parentType, parentField.getValue());
+                if (uidTerm == null) {
+                    hitQuery = new MatchNoDocsQuery("Missing type: " + parentType);
                 } else {
-                    result[i] = Lucene.EMPTY_TOP_DOCS;
-                    continue;
+                    hitQuery = new TermQuery(uidTerm);
                 }
+            } else {
+                return Lucene.EMPTY_TOP_DOCS;
+            }
 
-                BooleanQuery q = new BooleanQuery.Builder()
-                    // Only include docs that have the current hit as parent
-                    .add(hitQuery, BooleanClause.Occur.FILTER)
-                    // Only include docs that have this inner hits type
-                    .add(documentMapper.typeFilter(context.getQueryShardContext()), BooleanClause.Occur.FILTER)
-                    .build();
-                Weight weight = context.searcher().createNormalizedWeight(q, false);
-                if (size() == 0) {
-                    TotalHitCountCollector totalHitCountCollector = new TotalHitCountCollector();
-                    for (LeafReaderContext ctx : context.searcher().getIndexReader().leaves()) {
-                        intersect(weight, innerHitQueryWeight, totalHitCountCollector, ctx);
-                    }
-                    result[i] = new TopDocs(totalHitCountCollector.getTotalHits(), Lucene.EMPTY_SCORE_DOCS, 0);
+            BooleanQuery q = new BooleanQuery.Builder()
+                // Only include docs that have the current hit as parent
+                .add(hitQuery, BooleanClause.Occur.FILTER)
+                // Only include docs that have this inner hits type
+                .add(documentMapper.typeFilter(context.getQueryShardContext()), BooleanClause.Occur.FILTER)
+                .build();
+            Weight weight = context.searcher().createNormalizedWeight(q, false);
+            if (size() == 0) {
+                TotalHitCountCollector totalHitCountCollector = new TotalHitCountCollector();
+                for (LeafReaderContext ctx : context.searcher().getIndexReader().leaves()) {
+                    intersect(weight, innerHitQueryWeight, totalHitCountCollector, ctx);
+                }
+                return new TopDocs(totalHitCountCollector.getTotalHits(), Lucene.EMPTY_SCORE_DOCS, 0);
+            } else {
+                int topN = Math.min(from() + size(), context.searcher().getIndexReader().maxDoc());
+                TopDocsCollector<?> topDocsCollector;
+                if (sort() != null) {
+                    topDocsCollector = TopFieldCollector.create(sort().sort, topN, true, trackScores(), trackScores());
                 } else {
-                    int topN = Math.min(from() + size(), context.searcher().getIndexReader().maxDoc());
-                    TopDocsCollector<?> topDocsCollector;
-                    if (sort() != null) {
-                        topDocsCollector = TopFieldCollector.create(sort().sort, topN, true, trackScores(), trackScores());
-                    } else {
-                        topDocsCollector = TopScoreDocCollector.create(topN);
-                    }
-                    try {
-                        for (LeafReaderContext ctx : context.searcher().getIndexReader().leaves()) {
-                            intersect(weight, innerHitQueryWeight, topDocsCollector, ctx);
-                        }
-                    } finally {
-                        clearReleasables(Lifetime.COLLECTION);
-                    }
-                    result[i] = topDocsCollector.topDocs(from(), size());
+                    topDocsCollector = TopScoreDocCollector.create(topN);
+                }
+                for (LeafReaderContext ctx : context.searcher().getIndexReader().leaves()) {
+                    intersect(weight, innerHitQueryWeight, topDocsCollector, ctx);
                 }
+                return topDocsCollector.topDocs(from(), size());
             }
-            return result;
         }
 
         private boolean isParentHit(SearchHit hit) {
@@ -0,0 +1,83 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.transport.netty4.Netty4Utils;
+
+/**
+ * A {@link ChunkedInput} over the content of a REST response. Chunks wrap the content without copying it, so the content must not be
+ * released before the last chunk has been written.
+ */
+final class Netty4ChunkedBytesInput implements ChunkedInput<ByteBuf> {
+
+    private final BytesReference content;
+    private final int chunkSize;
+    private int offset;
+
+    Netty4ChunkedBytesInput(BytesReference content, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunk size must be positive but was [" + chunkSize + "]");
+        }
+        this.content = content;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return offset >= content.length();
+    }
+
+    @Override
+    public void close() {
+        // the content is owned and released by the channel that sends the response
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) {
+        if (isEndOfInput()) {
+            return null;
+        }
+        final int length = Math.min(chunkSize, content.length() - offset);
+        final ByteBuf chunk = Netty4Utils.toByteBuf(content.slice(offset, length));
+        offset += length;
+        return chunk;
+    }
+
+    @Override
+    public long length() {
+        return content.length();
+    }
+
+    @Override
+    public long progress() {
+        return offset;
+    }
+}
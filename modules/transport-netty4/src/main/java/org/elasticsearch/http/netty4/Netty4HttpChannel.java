@@ -25,13 +25,16 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
@@ -55,6 +58,11 @@ import java.util.Set;
 
 final class Netty4HttpChannel extends AbstractRestChannel {
 
+    /**
+     * The size of the chunks that large compressed responses are written in.
+     */
+    static final int COMPRESSED_RESPONSE_CHUNK_SIZE = 64 * 1024;
+
     private final Netty4HttpServerTransport transport;
     private final Channel channel;
     private final FullHttpRequest nettyRequest;
@@ -92,12 +100,18 @@ final class Netty4HttpChannel extends AbstractRestChannel {
     public void sendResponse(RestResponse response) {
         // if the response object was created upstream, then use it;
         // otherwise, create a new one
-        ByteBuf buffer = Netty4Utils.toByteBuf(response.content());
-        final FullHttpResponse resp;
-        if (HttpMethod.HEAD.equals(nettyRequest.method())) {
+        final BytesReference content = response.content();
+        final HttpResponse resp;
+        final HttpChunkedInput chunkedContent;
+        if (isChunkedResponse(content)) {
+            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            chunkedContent = new HttpChunkedInput(new Netty4ChunkedBytesInput(content, COMPRESSED_RESPONSE_CHUNK_SIZE));
+        } else if (HttpMethod.HEAD.equals(nettyRequest.method())) {
             resp = newResponse(Unpooled.EMPTY_BUFFER);
+            chunkedContent = null;
         } else {
-            resp = newResponse(buffer);
+            resp = newResponse(Netty4Utils.toByteBuf(content));
+            chunkedContent = null;
         }
         resp.setStatus(getStatus(response.status()));
 
@@ -112,14 +126,17 @@ final class Netty4HttpChannel extends AbstractRestChannel {
         addCustomHeaders(resp, response.getHeaders());
         addCustomHeaders(resp, threadContext.getResponseHeaders());
 
-        BytesReference content = response.content();
         boolean releaseContent = content instanceof Releasable;
         boolean releaseBytesStreamOutput = bytesOutputOrNull() instanceof ReleasableBytesStreamOutput;
         try {
             // If our response doesn't specify a content-type header, set one
             setHeaderField(resp, HttpHeaderNames.CONTENT_TYPE.toString(), response.contentType(), false);
-            // If our response has no content-length, calculate and set one
-            setHeaderField(resp, HttpHeaderNames.CONTENT_LENGTH.toString(), String.valueOf(buffer.readableBytes()), false);
+            if (chunkedContent != null) {
+                HttpUtil.setTransferEncodingChunked(resp, true);
+            } else {
+                // If our response has no content-length, calculate and set one
+                setHeaderField(resp, HttpHeaderNames.CONTENT_LENGTH.toString(), String.valueOf(content.length()), false);
+            }
 
             addCookies(resp);
 
@@ -137,13 +154,21 @@ final class Netty4HttpChannel extends AbstractRestChannel {
                 promise.addListener(ChannelFutureListener.CLOSE);
             }
 
-            final Object msg;
             if (pipelinedRequest != null) {
-                msg = pipelinedRequest.createHttpResponse(resp, promise);
+                final Object msg;
+                if (chunkedContent != null) {
+                    msg = pipelinedRequest.createHttpResponse(resp, chunkedContent, promise);
+                } else {
+                    msg = pipelinedRequest.createHttpResponse((FullHttpResponse) resp, promise);
+                }
+                channel.writeAndFlush(msg, promise);
+            } else if (chunkedContent != null) {
+                // the content is released once its last chunk has been written, which completes the promise
+                channel.write(resp);
+                channel.writeAndFlush(chunkedContent, promise);
             } else {
-                msg = resp;
+                channel.writeAndFlush(resp, promise);
             }
-            channel.writeAndFlush(msg, promise);
             releaseContent = false;
             releaseBytesStreamOutput = false;
         } finally {
@@ -159,6 +184,19 @@ final class Netty4HttpChannel extends AbstractRestChannel {
         }
     }
 
+    /**
+     * Large responses to HTTP/1.1 requests that accept a compressed response are written in chunks. The content compressor would
+     * otherwise compress the whole response into a second buffer of up to its size, and compresses chunk by chunk instead. The
+     * response is still serialized in full before it is sent.
+     */
+    private boolean isChunkedResponse(BytesReference content) {
+        return transport.compression
+            && content.length() > COMPRESSED_RESPONSE_CHUNK_SIZE
+            && nettyRequest.headers().contains(HttpHeaderNames.ACCEPT_ENCODING)
+            && isHttp10() == false
+            && HttpMethod.HEAD.equals(nettyRequest.method()) == false;
+    }
+
     private void setHeaderField(HttpResponse resp, String headerField, String value) {
         setHeaderField(resp, headerField, value, true);
     }
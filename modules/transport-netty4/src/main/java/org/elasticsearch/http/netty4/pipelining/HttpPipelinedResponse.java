@@ -21,24 +21,46 @@ package org.elasticsearch.http.netty4.pipelining;
 
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ReferenceCounted;
+import org.elasticsearch.common.Nullable;
 
 class HttpPipelinedResponse implements Comparable<HttpPipelinedResponse>, ReferenceCounted {
 
-    private final FullHttpResponse response;
+    private final HttpResponse response;
+    private final HttpChunkedInput content;
     private final ChannelPromise promise;
     private final int sequence;
 
     HttpPipelinedResponse(FullHttpResponse response, ChannelPromise promise, int sequence) {
+        this(response, null, promise, sequence);
+    }
+
+    /**
+     * A response whose content is written in chunks after its head; the promise completes once the last chunk of the content has
+     * been written.
+     */
+    HttpPipelinedResponse(HttpResponse response, @Nullable HttpChunkedInput content, ChannelPromise promise, int sequence) {
         this.response = response;
+        this.content = content;
         this.promise = promise;
         this.sequence = sequence;
     }
 
-    public FullHttpResponse response() {
+    public HttpResponse response() {
         return response;
     }
 
+    /**
+     * The chunked content to write after the {@link #response()} head, or {@code null} if the response is a {@link FullHttpResponse}.
+     */
+    @Nullable
+    public HttpChunkedInput content() {
+        return content;
+    }
+
     public ChannelPromise promise() {
         return promise;
     }
@@ -52,43 +74,45 @@ class HttpPipelinedResponse implements Comparable<HttpPipelinedResponse>, Refere
         return Integer.compare(sequence, o.sequence);
     }
 
+    // the chunked content wraps bytes that are released through the promise, so only the response itself is reference counted
+
     @Override
     public int refCnt() {
-        return response.refCnt();
+        return response instanceof ReferenceCounted ? ((ReferenceCounted) response).refCnt() : 1;
     }
 
     @Override
     public ReferenceCounted retain() {
-        response.retain();
+        ReferenceCountUtil.retain(response);
         return this;
     }
 
     @Override
     public ReferenceCounted retain(int increment) {
-        response.retain(increment);
+        ReferenceCountUtil.retain(response, increment);
         return this;
     }
 
     @Override
     public ReferenceCounted touch() {
-        response.touch();
+        ReferenceCountUtil.touch(response);
         return this;
     }
 
     @Override
     public ReferenceCounted touch(Object hint) {
-        response.touch(hint);
+        ReferenceCountUtil.touch(response, hint);
         return this;
     }
 
     @Override
     public boolean release() {
-        return response.release();
+        return ReferenceCountUtil.release(response);
     }
 
     @Override
     public boolean release(int decrement) {
-        return response.release(decrement);
+        return ReferenceCountUtil.release(response, decrement);
     }
 
 }
@@ -104,7 +104,13 @@ public class HttpPipeliningHandler extends ChannelDuplexHandler {
                          * responses that precede it in the pipeline are written first. Note that the promise from the method invocation is
                          * not ignored, it will already be attached to an existing response and consumed when that response is drained.
                          */
-                        ctx.write(top.response(), top.promise());
+                        if (top.content() == null) {
+                            ctx.write(top.response(), top.promise());
+                        } else {
+                            // the content follows its head through the chunked write handler, which keeps the two in order
+                            ctx.write(top.response());
+                            ctx.write(top.content(), top.promise());
+                        }
                         writeSequence++;
                     }
                 } else {
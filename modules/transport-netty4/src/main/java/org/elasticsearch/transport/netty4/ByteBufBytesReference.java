@@ -21,13 +21,16 @@ package org.elasticsearch.transport.netty4;
 import io.netty.buffer.ByteBuf;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.RetainableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 
-final class ByteBufBytesReference extends BytesReference {
+final class ByteBufBytesReference extends BytesReference implements RetainableBytesReference {
 
     private final ByteBuf buffer;
     private final int length;
@@ -60,6 +63,51 @@ final class ByteBufBytesReference extends BytesReference {
         return new ByteBufStreamInput(buffer.duplicate(), length);
     }
 
+    /**
+     * Retains a slice of the backing buffer that covers exactly these bytes, unless they take up less than half of the memory
+     * of the buffer, which is usually the cumulation of several network reads. Holding on to a slice would then pin all of that
+     * memory, so the bytes are copied into a buffer of their own instead.
+     */
+    @Override
+    public Retained retain() {
+        final ByteBuf retained;
+        if (length < rootCapacity(buffer) / 2) {
+            retained = buffer.alloc().buffer(length, length);
+            retained.writeBytes(buffer, offset, length);
+        } else {
+            retained = buffer.retainedSlice(offset, length);
+        }
+        final long ramBytesUsed = rootCapacity(retained);
+        final Releasable release = Releasables.releaseOnce(retained::release);
+        return new Retained() {
+            @Override
+            public StreamInput streamInput() {
+                return new ByteBufStreamInput(retained.duplicate(), length, true);
+            }
+
+            @Override
+            public long ramBytesUsed() {
+                return ramBytesUsed;
+            }
+
+            @Override
+            public void close() {
+                release.close();
+            }
+        };
+    }
+
+    /**
+     * Returns the capacity of the buffer that ultimately backs the given buffer, e.g. of the buffer that a slice was taken from.
+     */
+    private static int rootCapacity(ByteBuf buffer) {
+        ByteBuf root = buffer;
+        while (root.unwrap() != null) {
+            root = root.unwrap();
+        }
+        return root.capacity();
+    }
+
     @Override
     public void writeTo(OutputStream os) throws IOException {
         buffer.getBytes(offset, os, length);
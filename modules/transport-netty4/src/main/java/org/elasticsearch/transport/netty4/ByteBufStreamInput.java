@@ -21,6 +21,7 @@ package org.elasticsearch.transport.netty4;
 
 import io.netty.buffer.ByteBuf;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 
@@ -34,14 +35,24 @@ class ByteBufStreamInput extends StreamInput {
 
     private final ByteBuf buffer;
     private final int endIndex;
+    private final boolean shareBuffer;
 
     ByteBufStreamInput(ByteBuf buffer, int length) {
+        this(buffer, length, false);
+    }
+
+    /**
+     * @param shareBuffer whether {@link #readReleasableBytesReference()} may return slices of the buffer, which requires
+     *                    the buffer to be retained for as long as these slices are in use
+     */
+    ByteBufStreamInput(ByteBuf buffer, int length, boolean shareBuffer) {
         if (length > buffer.readableBytes()) {
             throw new IndexOutOfBoundsException();
         }
         this.buffer = buffer;
         int startIndex = buffer.readerIndex();
         endIndex = startIndex + length;
+        this.shareBuffer = shareBuffer;
         buffer.markReaderIndex();
     }
 
@@ -54,6 +65,20 @@ class ByteBufStreamInput extends StreamInput {
         return super.readBytesReference(length);
     }
 
+    @Override
+    public BytesReference readReleasableBytesReference() throws IOException {
+        if (shareBuffer == false) {
+            return super.readReleasableBytesReference();
+        }
+        final int length = readArraySize();
+        if (length == 0) {
+            return BytesArray.EMPTY;
+        }
+        final ByteBuf slice = buffer.slice(buffer.readerIndex(), length);
+        buffer.skipBytes(length);
+        return new ByteBufBytesReference(slice, length);
+    }
+
     @Override
     public BytesRef readBytesRef(int length) throws IOException {
         // NOTE: It is unsafe to share a reference of the internal structure, so we
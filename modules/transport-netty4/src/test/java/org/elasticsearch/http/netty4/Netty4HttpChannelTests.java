@@ -34,13 +34,18 @@ import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasablePagedBytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -59,6 +64,7 @@ import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.http.NullDispatcher;
 import org.elasticsearch.http.netty4.cors.Netty4CorsHandler;
 import org.elasticsearch.http.netty4.pipelining.HttpPipelinedRequest;
+import org.elasticsearch.http.netty4.pipelining.HttpPipeliningHandler;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.rest.BytesRestResponse;
 import org.elasticsearch.rest.RestResponse;
@@ -71,7 +77,6 @@ import org.junit.After;
 import org.junit.Before;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.SocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -85,6 +90,7 @@ import static org.elasticsearch.http.HttpTransportSettings.SETTING_CORS_ENABLED;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -282,6 +288,51 @@ public class Netty4HttpChannelTests extends ESTestCase {
         }
     }
 
+    public void testChunkedCompressedResponse() throws IOException {
+        final int chunkSize = Netty4HttpChannel.COMPRESSED_RESPONSE_CHUNK_SIZE;
+        try (Netty4HttpServerTransport httpServerTransport =
+                 new Netty4HttpServerTransport(Settings.EMPTY, networkService, bigArrays, threadPool, xContentRegistry(),
+                     new NullDispatcher())) {
+            final boolean acceptsCompression = randomBoolean();
+            final FullHttpRequest httpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+            if (acceptsCompression) {
+                httpRequest.headers().add(HttpHeaderNames.ACCEPT_ENCODING, HttpHeaderValues.GZIP);
+            }
+            final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new ChunkedWriteHandler(), new HttpPipeliningHandler(logger, 1));
+            final Netty4HttpRequest request = new Netty4HttpRequest(xContentRegistry(), httpRequest, embeddedChannel);
+            final HttpPipelinedRequest pipelinedRequest = randomBoolean() ? new HttpPipelinedRequest(request.request(), 0) : null;
+            final Netty4HttpChannel channel =
+                new Netty4HttpChannel(httpServerTransport, request, pipelinedRequest, randomBoolean(), threadPool.getThreadContext());
+            final byte[] bytes = new byte[randomIntBetween(chunkSize + 1, 3 * chunkSize)];
+            random().nextBytes(bytes);
+            // the embedded channel completes the write, and releases the response, before the chunks are read, so the content
+            // must not come from recycled pages
+            channel.sendResponse(new TestResponse(BigArrays.NON_RECYCLING_INSTANCE, bytes));
+
+            final HttpResponse response = embeddedChannel.readOutbound();
+            if (acceptsCompression == false) {
+                // a response that won't be compressed is written as a whole
+                assertThat(response, instanceOf(FullHttpResponse.class));
+                assertThat(((FullHttpResponse) response).content().readableBytes(), equalTo(bytes.length));
+                ((FullHttpResponse) response).release();
+                return;
+            }
+            assertThat(response, not(instanceOf(FullHttpResponse.class)));
+            assertTrue(HttpUtil.isTransferEncodingChunked(response));
+            assertThat(response.headers().get(HttpHeaderNames.CONTENT_LENGTH), nullValue());
+            try (BytesStreamOutput content = new BytesStreamOutput()) {
+                HttpContent chunk;
+                do {
+                    chunk = embeddedChannel.readOutbound();
+                    assertThat(chunk.content().readableBytes(), lessThanOrEqualTo(chunkSize));
+                    chunk.content().readBytes(content, chunk.content().readableBytes());
+                    chunk.release();
+                } while (chunk instanceof LastHttpContent == false);
+                assertThat(content.bytes(), equalTo(new BytesArray(bytes)));
+            }
+        }
+    }
+
     public void testConnectionClose() throws Exception {
         final Settings settings = Settings.builder().build();
         try (Netty4HttpServerTransport httpServerTransport =
@@ -580,12 +631,10 @@ public class Netty4HttpChannelTests extends ESTestCase {
         }
 
         TestResponse(final BigArrays bigArrays) {
-            final byte[] bytes;
-            try {
-                bytes = "content".getBytes("UTF-8");
-            } catch (final UnsupportedEncodingException e) {
-                throw new AssertionError(e);
-            }
+            this(bigArrays, "content".getBytes(StandardCharsets.UTF_8));
+        }
+
+        TestResponse(final BigArrays bigArrays, final byte[] bytes) {
             final ByteArray bigArray = bigArrays.newByteArray(bytes.length);
             bigArray.set(0, bytes, 0, bytes.length);
             reference = new ReleasablePagedBytesReference(bigArrays, bigArray, bytes.length, Releasables.releaseOnce(bigArray));
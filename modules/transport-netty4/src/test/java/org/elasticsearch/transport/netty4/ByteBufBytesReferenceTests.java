@@ -22,11 +22,18 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.AbstractBytesReferenceTestCase;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.RetainableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 
 import java.io.IOException;
 
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+
 public class ByteBufBytesReferenceTests extends AbstractBytesReferenceTestCase {
 
     @Override
@@ -82,4 +89,58 @@ public class ByteBufBytesReferenceTests extends AbstractBytesReferenceTestCase {
         assertEquals(utf8ToString, byteBufBytesReference.utf8ToString());
     }
 
+    public void testRetainedStreamInputSharesBuffer() throws IOException {
+        byte[] payload = new byte[randomIntBetween(1, 100)];
+        random().nextBytes(payload);
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.writeBytesReference(new BytesArray(payload));
+        out.writeBytesReference(BytesArray.EMPTY);
+        BytesRef bytesRef = out.bytes().toBytesRef();
+        ByteBuf buffer = Unpooled.wrappedBuffer(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+        ByteBufBytesReference reference = new ByteBufBytesReference(buffer, bytesRef.length);
+
+        assertEquals(1, buffer.refCnt());
+        try (RetainableBytesReference.Retained retained = reference.retain()) {
+            assertEquals(2, buffer.refCnt());
+            // the whole array that backs the buffer is kept alive
+            assertEquals(bytesRef.bytes.length, retained.ramBytesUsed());
+            StreamInput in = retained.streamInput();
+            BytesReference shared = in.readReleasableBytesReference();
+            assertThat(shared, instanceOf(ByteBufBytesReference.class));
+            assertEquals(new BytesArray(payload), shared);
+            assertSame(BytesArray.EMPTY, in.readReleasableBytesReference());
+            assertEquals(-1, in.read());
+        }
+        assertEquals(1, buffer.refCnt());
+
+        // regular streams keep copying the bytes
+        StreamInput in = reference.streamInput();
+        BytesReference copy = in.readReleasableBytesReference();
+        assertThat(copy, not(instanceOf(ByteBufBytesReference.class)));
+        assertEquals(new BytesArray(payload), copy);
+    }
+
+    public void testRetainCopiesSmallMessageOfLargeBuffer() throws IOException {
+        byte[] payload = new byte[randomIntBetween(1, 100)];
+        random().nextBytes(payload);
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.writeBytesReference(new BytesArray(payload));
+        BytesRef bytesRef = out.bytes().toBytesRef();
+        // the message is followed by the start of the next one, as in a cumulation of several network reads
+        ByteBuf buffer = Unpooled.buffer(randomIntBetween(2 * bytesRef.length + 1, 4096));
+        buffer.writeBytes(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+        buffer.writerIndex(buffer.capacity());
+        ByteBufBytesReference reference = new ByteBufBytesReference(buffer, bytesRef.length);
+
+        try (RetainableBytesReference.Retained retained = reference.retain()) {
+            assertEquals(1, buffer.refCnt());
+            assertEquals(bytesRef.length, retained.ramBytesUsed());
+            BytesReference shared = retained.streamInput().readReleasableBytesReference();
+            assertEquals(new BytesArray(payload), shared);
+            // the copy isn't affected by the reuse of the buffer
+            buffer.setZero(0, buffer.capacity());
+            assertEquals(new BytesArray(payload), shared);
+        }
+        assertEquals(1, buffer.refCnt());
+    }
 }
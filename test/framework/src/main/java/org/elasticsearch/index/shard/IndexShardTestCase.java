@@ -274,7 +274,7 @@ public abstract class IndexShardTestCase extends ESTestCase {
         final Store store = createStore(indexSettings, shardPath);
         boolean success = false;
         try {
-            IndexCache indexCache = new IndexCache(indexSettings, new DisabledQueryCache(indexSettings), null);
+            IndexCache indexCache = new IndexCache(indexSettings, new DisabledQueryCache(indexSettings), null, null);
             MapperService mapperService = MapperTestUtils.newMapperService(xContentRegistry(), createTempDir(),
                     indexSettings.getSettings(), "index");
             mapperService.merge(indexMetaData, MapperService.MergeReason.MAPPING_RECOVERY, true);
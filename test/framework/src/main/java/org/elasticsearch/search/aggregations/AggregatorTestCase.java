@@ -155,6 +155,7 @@ public abstract class AggregatorTestCase extends ESTestCase {
 
         SearchContext searchContext = mock(SearchContext.class);
         when(searchContext.numberOfShards()).thenReturn(1);
+        when(searchContext.minimumScore()).thenReturn(null);
         when(searchContext.searcher()).thenReturn(contextIndexSearcher);
         when(searchContext.fetchPhase())
                 .thenReturn(new FetchPhase(Arrays.asList(new FetchSourceSubPhase(), new DocValueFieldsFetchSubPhase())));
@@ -219,6 +220,7 @@ public abstract class AggregatorTestCase extends ESTestCase {
                                                                              AggregationBuilder builder,
                                                                              MappedFieldType... fieldTypes) throws IOException {
         C a = createAggregator(builder, searcher, fieldTypes);
+        when(a.context().query()).thenReturn(query);
         a.preCollection();
         searcher.search(query, a);
         a.postCollection();
@@ -260,6 +262,7 @@ public abstract class AggregatorTestCase extends ESTestCase {
 
         for (ShardSearcher subSearcher : subSearchers) {
             C a = createAggregator(builder, subSearcher, fieldTypes);
+            when(a.context().query()).thenReturn(query);
             a.preCollection();
             subSearcher.search(weight, a);
             a.postCollection();
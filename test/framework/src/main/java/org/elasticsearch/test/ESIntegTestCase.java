@@ -454,6 +454,10 @@ public abstract class ESIntegTestCase extends ESTestCase {
             builder.put(IndexSettings.INDEX_CHECK_ON_STARTUP.getKey(), randomFrom("false", "checksum", "true"));
         }
 
+        if (random.nextBoolean()) {
+            builder.put(IndexSettings.INNER_HITS_CONCURRENCY_SETTING.getKey(), RandomNumbers.randomIntBetween(random, 1, 4));
+        }
+
         if (randomBoolean()) {
             // keep this low so we don't stall tests
             builder.put(UnassignedInfo.INDEX_DELAYED_NODE_LEFT_TIMEOUT_SETTING.getKey(), RandomNumbers.randomIntBetween(random, 1, 15) + "ms");
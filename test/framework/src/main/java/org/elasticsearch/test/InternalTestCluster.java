@@ -393,6 +393,7 @@ public final class InternalTestCluster extends TestCluster {
         Random random = new Random(seed);
         Builder builder = Settings.builder();
         builder.put(Transport.TRANSPORT_TCP_COMPRESS.getKey(), rarely(random));
+        builder.put(Transport.TRANSPORT_TCP_COMPRESSION_SCHEME.getKey(), random.nextBoolean() ? "deflate" : "lz4");
         if (random.nextBoolean()) {
             builder.put("cache.recycler.page.type", RandomPicks.randomFrom(random, PageCacheRecycler.Type.values()));
         }
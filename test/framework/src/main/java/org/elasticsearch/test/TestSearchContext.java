@@ -28,6 +28,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
+import org.elasticsearch.index.cache.docfreq.DocFrequencyCache;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -301,6 +302,11 @@ public class TestSearchContext extends SearchContext {
         return fixedBitSetFilterCache;
     }
 
+    @Override
+    public DocFrequencyCache docFrequencyCache() {
+        return indexService == null ? null : indexService.cache().docFrequencyCache();
+    }
+
     @Override
     public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
         return queryShardContext.getForField(fieldType);